@@ -1,18 +1,48 @@
 package customDataStructures;
 
 
+import dataStructures.AVLTree;
+
+import dataStructures.ArrayBinTree2D;
+
+import dataStructures.BatchRegionSearchVisitor;
+
 import dataStructures.BinTree2D;
 
 import dataStructures.BinarySearchTree;
 
+import dataStructures.GridIndex2D;
+
+import dataStructures.IntBatchRegionSearchVisitor;
+
+import dataStructures.IntRegionSearchBuffer;
+
 import dataStructures.LinkedQueue;
 
+import dataStructures.MortonIndex2D;
+
+import dataStructures.NearestNeighborBuffer;
+
+import dataStructures.OpenAddressingHashTable;
+
+import dataStructures.RegionSearchBuffer;
+
+import dataStructures.RegionSearchPlan;
 
+import dataStructures.ShadowSpatialIndex;
+
+import dataStructures.SpatialIndex;
+
+
+import java.io.PrintStream;
 import java.text.DecimalFormat;
 import realtimeweb.earthquakeservice.domain.Report;
 import java.util.List;
 import realtimeweb.earthquakeservice.domain.Earthquake;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Quinn Liu (quinnliu@vt.edu)
@@ -27,12 +57,50 @@ public class EarthquakeWatcherService {
      */
     private BinarySearchTree<String, Watcher> BST;
 
+    /**
+     * If not null, holds the same watchers as the BST by name so a name is
+     * looked up without comparing it to the names along a path of the BST.
+     * The BST is then only searched to keep it in step for the debug
+     * command.
+     */
+    private OpenAddressingHashTable<String, Watcher> watcherNameTable;
+
+    /**
+     * If not null, stores the name and location of every watcher by handle
+     * and is searched by name instead of the BST and any hash table of
+     * names, which are then left empty.
+     */
+    private WatcherTable watcherTable;
+
+    /**
+     * If not null, holds the handle of every watcher in the watcher table by
+     * location instead of the watcher index, which is then left empty.
+     */
+    private WatcherHandleBinTree watcherHandleIndex;
+
+    /**
+     * The handle the watcher table gave the watcher last added to it.
+     */
+    private int addedWatcherHandle = WatcherTable.NO_HANDLE;
+
     /**
      * Holds all the current Watchers to update about close by earthquakes. The
      * coordinate location of a watcher is used as a key to allow efficient
      * search of watchers in the 2 dimensional bin tree tree by (x, y) location.
      */
-    private BinTree2D<Point, Watcher> binTree;
+    private SpatialIndex<Point, Watcher> watcherIndex;
+
+    /**
+     * If true, a watcher at the same location as another watcher is added
+     * instead of being rejected as a duplicate.
+     */
+    private boolean isAcceptingSameLocation;
+
+    /**
+     * Reusable key of the location of the watcher a delete request removes
+     * from the index. An index does not keep the key it removes with.
+     */
+    private final Point removedWatcherLocation = new Point(0.0, 0.0);
 
     /**
      * Holds earthquakes that have occurred in the past 6 hours in chronological
@@ -59,6 +127,93 @@ public class EarthquakeWatcherService {
      */
     private long currentReportTime = -1;
 
+    /**
+     * Collects the watchers close to each new earthquake of a report. The
+     * buffers are reused for every report.
+     */
+    private List<RegionSearchBuffer<Watcher>> closeWatchers;
+
+    /**
+     * Gives each watcher found by a batch region search to the buffer of the
+     * earthquake it is close to.
+     */
+    private final BatchRegionSearchVisitor<Watcher> closeWatchersCollector =
+	    new BatchRegionSearchVisitor<Watcher>() {
+	@Override
+	public void visit(int queryIndex, Watcher watcher) {
+	    closeWatchers.get(walkedEarthquakeIndices[queryIndex]).visit(
+		    watcher);
+	}
+    };
+
+    /**
+     * Collects the handles of the watchers close to each new earthquake of a
+     * report when watchers are stored in a watcher table. The buffers are
+     * reused for every report.
+     */
+    private List<IntRegionSearchBuffer> closeWatcherHandles;
+
+    /**
+     * Gives each handle found by a batch region search of the watcher
+     * handle index to the buffer of the earthquake it is close to.
+     */
+    private final IntBatchRegionSearchVisitor closeWatcherHandlesCollector =
+	    new IntBatchRegionSearchVisitor() {
+	@Override
+	public void visit(int queryIndex, int handle) {
+	    closeWatcherHandles.get(queryIndex).visit(handle);
+	}
+    };
+
+    /**
+     * The index within the report's new earthquakes of each earthquake in
+     * the batch region search that walks the bin tree.
+     */
+    private int[] walkedEarthquakeIndices = new int[0];
+
+    /**
+     * If true, a plan is chosen for the region search of each new earthquake
+     * by its estimated cost instead of always walking the bin tree.
+     */
+    private boolean isPlanningRegionSearches;
+
+    /**
+     * The plan that ran for the region search of each new earthquake of the
+     * latest report.
+     */
+    private List<RegionSearchPlan> regionSearchPlans;
+
+    /**
+     * Relative costs the region search planner estimates with. Visiting a
+     * node follows a pointer to memory that is likely not cached while
+     * scanning a record reads the next entries of a flat array.
+     */
+    private static final double NODE_VISIT_COST = 1.0;
+    private static final double CELL_TEST_COST = 0.5;
+    private static final double DISTANCE_CHECK_COST = 0.5;
+    private static final double SCANNED_RECORD_COST = 0.25;
+
+    /**
+     * Reusable counts of the nodes and records a region search reaches that
+     * the planner estimates its costs from.
+     */
+    private final int[] regionSearchEstimate = new int[4];
+
+    /**
+     * Prefix of the optional command line argument naming the index watchers
+     * are stored in by location. The argument may be given before or after
+     * the other arguments and is one of --index=bintree (the default),
+     * --index=arraybintree, --index=morton, --index=grid or
+     * --index=grid:cellSize.
+     */
+    static final String INDEX_ENGINE_FLAG = "--index=";
+
+    /**
+     * Width and height in degrees of the cells of a grid index whose cell
+     * size is not given.
+     */
+    static final double DEFAULT_GRID_CELL_SIZE = 5.0;
+
     private String[] commandLineArguments;
     private DecimalFormat df = new DecimalFormat("#.0");
 
@@ -66,16 +221,85 @@ public class EarthquakeWatcherService {
      * Construct a bin tree and binary search tree to store watchers. Construct
      * a linkedQueue to store earthquakes in order of time. Construct a max-heap
      * of earthquakes to efficiently query the largest recent earthquake.
+     * The commands may name another index to store watchers in by location
+     * with the INDEX_ENGINE_FLAG.
      *
      * @param commandLineArguments
      *            The commands given from the command line.
      */
     public EarthquakeWatcherService(String[] commandLineArguments) {
-	this.commandLineArguments = commandLineArguments;
+	this(commandLineArguments, 1);
+    }
 
-	// initialize bin tree and binary search tree
+    /**
+     * Construct the same service but with a bucket bin tree whose leaf nodes
+     * hold up to leafBucketCapacity watchers. With a capacity greater than 1
+     * watchers at the same location are accepted and share a leaf node.
+     *
+     * @param commandLineArguments
+     *            The commands given from the command line.
+     * @param leafBucketCapacity
+     *            The number of watchers a bin tree leaf node holds before it
+     *            is split.
+     */
+    public EarthquakeWatcherService(String[] commandLineArguments,
+	    int leafBucketCapacity) {
+	this(commandLineArguments, leafBucketCapacity, false);
+    }
+
+    /**
+     * Construct the same service but optionally matching watchers to
+     * earthquakes by great circle distance. The search radius of 2 *
+     * magnitude^3 is then an angle of arc in degrees, so earthquakes reach
+     * watchers across the 180 degree longitude line and distances near the
+     * poles are not distorted.
+     *
+     * @param commandLineArguments
+     *            The commands given from the command line.
+     * @param leafBucketCapacity
+     *            The number of watchers a bin tree leaf node holds before it
+     *            is split.
+     * @param isMatchingGreatCircleDistance
+     *            If true, match watchers by great circle distance; otherwise
+     *            by distance in degrees of longitude and latitude.
+     */
+    public EarthquakeWatcherService(String[] commandLineArguments,
+	    int leafBucketCapacity, boolean isMatchingGreatCircleDistance) {
+	this(commandLineArguments, createWatcherIndex(
+		getIndexEngine(commandLineArguments), leafBucketCapacity,
+		isMatchingGreatCircleDistance), leafBucketCapacity > 1);
+    }
+
+    /**
+     * Construct the same service but storing watchers by location in the
+     * given empty index instead of a bin tree, such as a GridIndex2D whose
+     * cell size suits the usual earthquake radius. The index must span 0 to
+     * 360 along the x-axis and 0 to 180 along the y-axis. Watchers at the
+     * same location are rejected as duplicates.
+     *
+     * @param commandLineArguments
+     *            The commands given from the command line.
+     * @param watcherIndex
+     *            The index to store watchers by location in.
+     */
+    public EarthquakeWatcherService(String[] commandLineArguments,
+	    SpatialIndex<Point, Watcher> watcherIndex) {
+	this(commandLineArguments, watcherIndex, false);
+    }
+
+    private EarthquakeWatcherService(String[] commandLineArguments,
+	    SpatialIndex<Point, Watcher> watcherIndex,
+	    boolean isAcceptingSameLocation) {
+	this.commandLineArguments = removeIndexEngine(commandLineArguments);
+
+	// initialize spatial index and binary search tree
 	this.BST = new BinarySearchTree<String, Watcher>();
-	this.binTree = new BinTree2D<>(0.0, 360.0, 0.0, 180.0);
+	this.watcherIndex = watcherIndex;
+	this.isAcceptingSameLocation = isAcceptingSameLocation;
+
+	this.closeWatchers = new ArrayList<RegionSearchBuffer<Watcher>>();
+	this.closeWatcherHandles = new ArrayList<IntRegionSearchBuffer>();
+	this.regionSearchPlans = new ArrayList<RegionSearchPlan>();
 
 	// store the list of recent earthquake records in order of arrival
 	linkedQueueOfRecentEarthquakes = new LinkedQueue<EarthquakeNodeAwareOfHeapIndex>();
@@ -90,6 +314,86 @@ public class EarthquakeWatcherService {
 		heap, heapCapacity, 0);
     }
 
+    /**
+     * @param commandLineArguments
+     *            The commands given from the command line.
+     * @return The index engine named by the last INDEX_ENGINE_FLAG argument,
+     *         or "bintree" if there is none.
+     */
+    static String getIndexEngine(String[] commandLineArguments) {
+	String indexEngine = "bintree";
+	for (int i = 0; i < commandLineArguments.length; i++) {
+	    if (commandLineArguments[i].startsWith(INDEX_ENGINE_FLAG)) {
+		indexEngine = commandLineArguments[i]
+			.substring(INDEX_ENGINE_FLAG.length());
+	    }
+	}
+	return indexEngine;
+    }
+
+    /**
+     * @param commandLineArguments
+     *            The commands given from the command line.
+     * @return The commands without any INDEX_ENGINE_FLAG argument, so the
+     *         file names and the debug and live commands keep their
+     *         positions.
+     */
+    static String[] removeIndexEngine(String[] commandLineArguments) {
+	List<String> otherArguments = new ArrayList<String>();
+	for (int i = 0; i < commandLineArguments.length; i++) {
+	    if (!commandLineArguments[i].startsWith(INDEX_ENGINE_FLAG)) {
+		otherArguments.add(commandLineArguments[i]);
+	    }
+	}
+	return otherArguments.toArray(new String[otherArguments.size()]);
+    }
+
+    /**
+     * @param indexEngine
+     *            One of bintree, arraybintree, morton, grid or
+     *            grid:cellSize.
+     * @param leafBucketCapacity
+     *            The number of watchers a bin tree leaf node holds before it
+     *            is split. Only used by the bin tree engines.
+     * @param isMatchingGreatCircleDistance
+     *            If true, match watchers by great circle distance.
+     * @return A new empty index spanning 0 to 360 along the x-axis and 0 to
+     *         180 along the y-axis.
+     */
+    static SpatialIndex<Point, Watcher> createWatcherIndex(
+	    String indexEngine, int leafBucketCapacity,
+	    boolean isMatchingGreatCircleDistance) {
+	if (indexEngine.equals("bintree")) {
+	    return new BinTree2D<Point, Watcher>(0.0, 360.0, 0.0, 180.0,
+		    leafBucketCapacity, isMatchingGreatCircleDistance);
+	} else if (indexEngine.equals("arraybintree")) {
+	    return new ArrayBinTree2D<Point, Watcher>(0.0, 360.0, 0.0, 180.0,
+		    leafBucketCapacity, isMatchingGreatCircleDistance);
+	} else if (indexEngine.equals("morton")) {
+	    return new MortonIndex2D<Point, Watcher>(0.0, 360.0, 0.0, 180.0,
+		    isMatchingGreatCircleDistance);
+	} else if (indexEngine.equals("grid")
+		|| indexEngine.startsWith("grid:")) {
+	    double cellSize = DEFAULT_GRID_CELL_SIZE;
+	    if (indexEngine.startsWith("grid:")) {
+		try {
+		    cellSize = Double.parseDouble(indexEngine.substring(5));
+		} catch (NumberFormatException e) {
+		    throw new IllegalArgumentException(
+			    "In method createWatcherIndex of class "
+				    + "EarthquakeWatcherService the grid cell "
+				    + "size " + indexEngine.substring(5)
+				    + " is not a number");
+		}
+	    }
+	    return new GridIndex2D<Point, Watcher>(0.0, 360.0, 0.0, 180.0,
+		    cellSize, isMatchingGreatCircleDistance);
+	}
+	throw new IllegalArgumentException("In method createWatcherIndex of "
+		+ "class EarthquakeWatcherService the index engine "
+		+ indexEngine + " is unknown");
+    }
+
     /**
      * Return earthquake file name if input commands are valid.
      *
@@ -167,13 +471,22 @@ public class EarthquakeWatcherService {
 	    } else if (command.contains("query")) {
 		this.printLargestRecentEarthquake();
 	    } else if (command.contains("debug")) {
-		// BST toString already has extra newline
-		System.out.print(this.BST.inorderTraversal(
-			this.BST.getRootNode(), 0));
+		if (this.watcherTable == null) {
+		    // BST toString already has extra newline
+		    System.out.print(this.BST.inorderTraversal(
+			    this.BST.getRootNode(), 0));
+		} else {
+		    // the table's name tree has the shape of the BST
+		    System.out.print(this.watcherTable.inorderTraversal());
+		}
 
-		// binTree toString already has extra newline
-		System.out.print(this.binTree.preorderTraversal(this.binTree
-			.getRootNode()));
+		// the debug traversal already has extra newline
+		if (this.watcherTable == null) {
+		    System.out.print(this.watcherIndex.debugTraversal());
+		} else {
+		    System.out.print(this.watcherHandleIndex
+			    .debugTraversal());
+		}
 	    }
 	}
     }
@@ -276,10 +589,23 @@ public class EarthquakeWatcherService {
      * @return true if watcher is successfully added; otherwise return false.
      */
     boolean addedWatcherToBST(Watcher watcher) {
-	if (this.BST.find(watcher.getName()) == null) {
+	boolean isNameAbsent;
+	if (this.watcherTable != null) {
+	    this.addedWatcherHandle = this.watcherTable.add(watcher.getName(),
+		    watcher.getLongitude(), watcher.getLatitude());
+	    isNameAbsent = this.addedWatcherHandle != WatcherTable.NO_HANDLE;
+	} else if (this.watcherNameTable == null) {
+	    isNameAbsent = this.BST.putIfAbsent(watcher.getName(), watcher)
+		    == null;
+	} else {
+	    isNameAbsent = this.watcherNameTable.putIfAbsent(
+		    watcher.getName(), watcher) == null;
+	    if (isNameAbsent) {
+		this.BST.insert(watcher.getName(), watcher);
+	    }
+	}
+	if (isNameAbsent) {
 	    // when the watcher's name is not duplicated in the BST
-	    this.BST.insert(watcher.getName(), watcher);
-
 	    System.out.println(watcher.toString() + " is added to the BST");
 	    return true;
 	} else {
@@ -296,12 +622,30 @@ public class EarthquakeWatcherService {
      * @return true if watcher is successfully added; otherwise return false.
      */
     boolean addedWatcherToBinTree(Watcher watcher) {
-	Point watcherLocation = new Point(watcher.getLongitude(),
-		watcher.getLatitude());
-	if (!this.binTree.findKey(watcherLocation)) {
+	// a bucket bin tree keeps watchers at the same location in one leaf
+	boolean isAdded;
+	if (this.watcherTable != null) {
+	    // the handle is inserted at the location the table holds for it
+	    if (this.isAcceptingSameLocation) {
+		this.watcherHandleIndex.insert(this.addedWatcherHandle);
+		isAdded = true;
+	    } else {
+		isAdded = this.watcherHandleIndex.insertIfAbsent(
+			this.addedWatcherHandle);
+	    }
+	} else {
+	    Point watcherLocation = new Point(watcher.getLongitude(),
+		    watcher.getLatitude());
+	    if (this.isAcceptingSameLocation) {
+		this.watcherIndex.insert(watcherLocation, watcher);
+		isAdded = true;
+	    } else {
+		isAdded = this.watcherIndex.insertIfAbsent(watcherLocation,
+			watcher);
+	    }
+	}
+	if (isAdded) {
 	    // watcherLocation is not duplicated in the bin tree
-	    this.binTree.insert(watcherLocation, watcher);
-
 	    double originalLongitude = watcher.getLongitude() - 180.0;
 	    double originalLatitude = watcher.getLatitude() - 90.0;
 	    System.out.println(watcher.getName() + " "
@@ -319,45 +663,190 @@ public class EarthquakeWatcherService {
 	    // remove the most recently added watcher's name in the BST
 	    // since it's coordinate duplicated a coordinate already in the
 	    // bintree
-	    this.BST.remove(watcher.getName());
+	    if (this.watcherTable != null) {
+		this.watcherTable.remove(this.addedWatcherHandle);
+	    } else {
+		this.BST.remove(watcher.getName());
+		if (this.watcherNameTable != null) {
+		    this.watcherNameTable.remove(watcher.getName());
+		}
+	    }
 	    System.out.println(watcher.getName() + " is removed from the BST");
 	    return false;
 	}
     }
 
+    /**
+     * Add a snapshot of watchers at startup without replaying an add command
+     * for each of them. The same watchers are rejected as duplicates as when
+     * processWatcherAddRequest is called for each watcher in list order, but
+     * nothing is printed. The BST is then built balanced from the names
+     * sorted with the pool and the bin tree is bulk loaded, or a watcher
+     * table is filled and its handles are bulk loaded.
+     *
+     * @param watchers
+     *            Watchers in the bin tree's coordinate system.
+     * @param pool
+     *            The pool to build with, or null to build on the calling
+     *            thread.
+     * @return The number of watchers that were added.
+     */
+    public int bulkLoadWatchers(List<Watcher> watchers, ForkJoinPool pool) {
+	if (this.hasWatchers()) {
+	    throw new IllegalStateException("In method bulkLoadWatchers of "
+		    + "class EarthquakeWatcherService watchers can only be "
+		    + "bulk loaded before any watcher is added");
+	}
+	Set<String> names = new HashSet<String>();
+	Set<Point> locations = new HashSet<Point>();
+	List<String> addedNames = new ArrayList<String>();
+	List<Point> addedLocations = new ArrayList<Point>();
+	List<Watcher> addedWatchers = new ArrayList<Watcher>();
+	int[] addedHandles = null;
+	if (this.watcherTable != null) {
+	    addedHandles = new int[watchers.size()];
+	    WatcherHandleBinTree emptyIndex = this.watcherHandleIndex;
+	    this.watcherTable = new WatcherTable(watchers.size());
+	    this.watcherHandleIndex = this.createWatcherHandleIndex(
+		    emptyIndex.getLeafBucketCapacity(),
+		    emptyIndex.isMatchingGreatCircleDistance(),
+		    emptyIndex.getMaximumDepth(),
+		    emptyIndex.isPruningExactly());
+	}
+	for (int i = 0; i < watchers.size(); i++) {
+	    Watcher watcher = watchers.get(i);
+	    boolean isNameAdded;
+	    if (this.watcherTable == null) {
+		isNameAdded = names.contains(watcher.getName());
+	    } else {
+		isNameAdded = this.watcherTable.find(watcher.getName())
+			!= WatcherTable.NO_HANDLE;
+	    }
+	    if (isNameAdded) {
+		// duplicates a watcher already in the BST
+		continue;
+	    }
+	    Point watcherLocation = new Point(watcher.getLongitude(),
+		    watcher.getLatitude());
+	    if (!this.isAcceptingSameLocation
+		    && !locations.add(watcherLocation)) {
+		// duplicates a watcher already in the bin tree
+		continue;
+	    }
+	    if (this.watcherTable == null) {
+		names.add(watcher.getName());
+		addedNames.add(watcher.getName());
+		addedWatchers.add(watcher);
+	    } else {
+		addedHandles[addedLocations.size()] = this.watcherTable.add(
+			watcher.getName(), watcher.getLongitude(),
+			watcher.getLatitude());
+	    }
+	    addedLocations.add(watcherLocation);
+	}
+
+	if (this.watcherTable == null) {
+	    this.BST.bulkLoad(addedNames, addedWatchers, pool);
+	    if (this.watcherNameTable != null) {
+		this.watcherNameTable =
+			new OpenAddressingHashTable<String, Watcher>(
+				addedWatchers.size());
+		for (int i = 0; i < addedWatchers.size(); i++) {
+		    this.watcherNameTable.insert(addedNames.get(i),
+			    addedWatchers.get(i));
+		}
+	    }
+	    this.watcherIndex.bulkLoad(addedLocations, addedWatchers, pool);
+	} else {
+	    this.watcherTable.balanceNameTree();
+	    this.watcherHandleIndex.bulkLoad(addedHandles,
+		    addedLocations.size());
+	}
+	return addedLocations.size();
+    }
+
     /**
      * @param watcherName
      *            Name of Watcher to be removed.
      * @return true if Watcher is successfully removed; otherwise return false.
      */
     public boolean processWatcherDeleteRequest(String watcherName) {
-	if (this.BST.find(watcherName) == null) {
+	if (this.watcherTable != null) {
+	    return this.processTableWatcherDeleteRequest(watcherName);
+	}
+	Watcher removedWatcher;
+	if (this.watcherNameTable == null) {
+	    removedWatcher = this.BST.remove(watcherName);
+	} else {
+	    removedWatcher = this.watcherNameTable.remove(watcherName);
+	    if (removedWatcher != null) {
+		this.BST.remove(watcherName);
+	    }
+	}
+	if (removedWatcher == null) {
 	    // watcher does not exist within BST or bintree
 	    System.out.println(watcherName + " does not appear in the BST");
 	    return false;
 	} else {
 	    // watcher does exist within BST & bintree
-	    Watcher removedWatcher = this.BST.remove(watcherName);
-
-	    Point removedWatcherLocation = new Point(
-		    removedWatcher.getLongitude(), removedWatcher.getLatitude());
-	    this.binTree.remove(removedWatcherLocation, removedWatcher);
-
-	    // printout must be original longitude and latitude
-	    double originalLongitude = removedWatcher.getLongitude() - 180.0;
-	    double originalLatitude = removedWatcher.getLatitude() - 90.0;
-	    System.out.println(watcherName + " "
-		    + this.df.format(originalLongitude) + " "
-		    + this.df.format(originalLatitude)
-		    + " is removed from the BST");
-	    System.out.println(watcherName + " "
-		    + this.df.format(originalLongitude) + " "
-		    + this.df.format(originalLatitude)
-		    + " is removed from the bintree");
+	    this.removedWatcherLocation.setX(removedWatcher.getLongitude());
+	    this.removedWatcherLocation.setY(removedWatcher.getLatitude());
+	    this.watcherIndex.remove(this.removedWatcherLocation,
+		    removedWatcher);
+	    this.printWatcherRemoved(watcherName,
+		    removedWatcher.getLongitude(),
+		    removedWatcher.getLatitude());
 	    return true;
 	}
     }
 
+    /**
+     * Delete a watcher from the watcher table and its handle from the
+     * watcher handle index, which finds the record by its handle.
+     *
+     * @param watcherName
+     *            Name of Watcher to be removed.
+     * @return true if Watcher is successfully removed; otherwise return false.
+     */
+    private boolean processTableWatcherDeleteRequest(String watcherName) {
+	int handle = this.watcherTable.find(watcherName);
+	if (handle == WatcherTable.NO_HANDLE) {
+	    System.out.println(watcherName + " does not appear in the BST");
+	    return false;
+	}
+	double longitude = this.watcherTable.getLongitude(handle);
+	double latitude = this.watcherTable.getLatitude(handle);
+	this.watcherHandleIndex.remove(handle);
+	this.watcherTable.remove(handle);
+	this.printWatcherRemoved(watcherName, longitude, latitude);
+	return true;
+    }
+
+    /**
+     * Print to the console that a watcher was removed from the BST and the
+     * bin tree.
+     *
+     * @param watcherName
+     * @param longitude
+     *            Longitude of the watcher plus 180.
+     * @param latitude
+     *            Latitude of the watcher plus 90.
+     */
+    private void printWatcherRemoved(String watcherName, double longitude,
+	    double latitude) {
+	// printout must be original longitude and latitude
+	double originalLongitude = longitude - 180.0;
+	double originalLatitude = latitude - 90.0;
+	System.out.println(watcherName + " "
+		+ this.df.format(originalLongitude) + " "
+		+ this.df.format(originalLatitude)
+		+ " is removed from the BST");
+	System.out.println(watcherName + " "
+		+ this.df.format(originalLongitude) + " "
+		+ this.df.format(originalLatitude)
+		+ " is removed from the bintree");
+    }
+
     /**
      * Print to the console the largest earthquake in the past 6 hours.
      */
@@ -459,36 +948,257 @@ public class EarthquakeWatcherService {
 
 	List<Earthquake> newEarthquakes = this
 		.getNewEarthquakes(latestEarthquakes);
+	this.processNewEarthquakes(newEarthquakes);
+    }
 
+    /**
+     * Add the new earthquakes of a report to the queue and max heap and
+     * print the watchers close to each of them.
+     *
+     * @param newEarthquakes
+     *            The earthquakes of the report that are not yet in the
+     *            queue.
+     */
+    void processNewEarthquakes(List<Earthquake> newEarthquakes) {
 	// add new earthquakes to rear of the earthquakeQueue
 	// and maxHeap based on magnitude
-	for (int i = 0; i < newEarthquakes.size(); i++) {
+	int numberOfNewEarthquakes = newEarthquakes.size();
+	double[] longitudes = new double[numberOfNewEarthquakes];
+	double[] latitudes = new double[numberOfNewEarthquakes];
+	double[] radii = new double[numberOfNewEarthquakes];
+	for (int i = 0; i < numberOfNewEarthquakes; i++) {
 	    EarthquakeNodeAwareOfHeapIndex newEarthquakeNode = new EarthquakeNodeAwareOfHeapIndex(
 		    newEarthquakes.get(i), -1);
 
 	    // add to linked queue and max heap within ews
 	    this.addNewEarthquakeToQueueAndMaxHeap(newEarthquakeNode);
 
-	    double earthquakeLongitude = newEarthquakeNode.getEarthquake()
-		    .getLocation().getLongitude();
-	    double earthquakeLatitude = newEarthquakeNode.getEarthquake()
-		    .getLocation().getLatitude();
+	    // convert to the bintree's coordinate system
+	    Earthquake earthquake = newEarthquakes.get(i);
+	    longitudes[i] = earthquake.getLocation().getLongitude() + 180.0;
+	    latitudes[i] = earthquake.getLocation().getLatitude() + 90.0;
+	    radii[i] = Math.pow(earthquake.getMagnitude(), 3) * 2;
 
-	    System.out.println("Earthquake inserted at " + earthquakeLongitude
-		    + " " + earthquakeLatitude);
+	    if (this.watcherTable != null) {
+		if (this.closeWatcherHandles.size() == i) {
+		    this.closeWatcherHandles.add(new IntRegionSearchBuffer());
+		}
+		this.closeWatcherHandles.get(i).clear();
+	    } else {
+		if (this.closeWatchers.size() == i) {
+		    this.closeWatchers.add(new RegionSearchBuffer<Watcher>());
+		}
+		this.closeWatchers.get(i).clear();
+	    }
+	}
+
+	if (this.watcherTable != null) {
+	    // a single walk of the watcher handle index finds the handles of
+	    // the watchers close to every new earthquake
+	    int[] numberOfNodesVisited = this.watcherHandleIndex
+		    .regionSearchHandles(longitudes, latitudes, radii,
+			    numberOfNewEarthquakes,
+			    this.closeWatcherHandlesCollector);
+	    for (int i = 0; i < numberOfNewEarthquakes; i++) {
+		this.printTableEarthquakeAlerts(newEarthquakes.get(i),
+			this.closeWatcherHandles.get(i),
+			numberOfNodesVisited[i]);
+	    }
+	    return;
+	}
 
-	    System.out.println(newEarthquakeNode.getEarthquake()
-		    .getLocationDescription()
-		    + " is close to the following"
-		    + " watchers:");
+	int[] numberOfBinTreeNodesVisited = new int[numberOfNewEarthquakes];
+	if (this.walkedEarthquakeIndices.length < numberOfNewEarthquakes) {
+	    this.walkedEarthquakeIndices = new int[numberOfNewEarthquakes];
+	}
+	BinTree2D<Point, Watcher> plannedBinTree = null;
+	if (this.isPlanningRegionSearches
+		&& this.watcherIndex instanceof BinTree2D) {
+	    plannedBinTree = (BinTree2D<Point, Watcher>) this.watcherIndex;
+	}
+	this.regionSearchPlans.clear();
 
-	    Earthquake earthquake = newEarthquakes.get(i);
-	    double longitude = earthquake.getLocation().getLongitude() + 180.0;
-	    double latitude = earthquake.getLocation().getLatitude() + 90.0;
-	    double magnitude = earthquake.getMagnitude();
-	    System.out.println(this.binTree.regionSearch(longitude,
-		    latitude, magnitude));
+	// earthquakes to walk the bin tree for are moved to the front of the
+	// arrays, the others are searched with their own plan right away
+	int numberOfWalkedEarthquakes = 0;
+	for (int i = 0; i < numberOfNewEarthquakes; i++) {
+	    RegionSearchPlan plan = RegionSearchPlan.TREE_WALK;
+	    if (plannedBinTree != null) {
+		plan = this.planRegionSearch(plannedBinTree, longitudes[i],
+			latitudes[i], radii[i]);
+	    }
+	    this.regionSearchPlans.add(plan);
+	    if (plan == RegionSearchPlan.TREE_WALK) {
+		longitudes[numberOfWalkedEarthquakes] = longitudes[i];
+		latitudes[numberOfWalkedEarthquakes] = latitudes[i];
+		radii[numberOfWalkedEarthquakes] = radii[i];
+		this.walkedEarthquakeIndices[numberOfWalkedEarthquakes] = i;
+		numberOfWalkedEarthquakes++;
+	    } else {
+		numberOfBinTreeNodesVisited[i] = plannedBinTree.regionSearch(
+			longitudes[i], latitudes[i], radii[i], plan,
+			this.closeWatchers.get(i));
+	    }
+	}
+
+	// a single walk of the bin tree finds the watchers close to every
+	// other new earthquake
+	int[] numberOfWalkedNodesVisited = this.watcherIndex.regionSearch(
+		longitudes, latitudes, radii, numberOfWalkedEarthquakes,
+		this.closeWatchersCollector);
+	for (int i = 0; i < numberOfWalkedEarthquakes; i++) {
+	    numberOfBinTreeNodesVisited[this.walkedEarthquakeIndices[i]] =
+		    numberOfWalkedNodesVisited[i];
+	}
+
+	for (int i = 0; i < numberOfNewEarthquakes; i++) {
+	    this.printEarthquakeAlerts(newEarthquakes.get(i),
+		    this.closeWatchers.get(i), numberOfBinTreeNodesVisited[i]);
+	}
+    }
+
+    /**
+     * Choose the cheapest plan for the region search of an earthquake by
+     * estimating how many nodes and records each plan touches. The counts
+     * are taken from the subtrees at the cells the circle reaches, so
+     * watchers clustered in or away from the circle are estimated as they
+     * are stored rather than as if they were spread evenly over the world.
+     *
+     * @param binTree
+     *            The planar bin tree watchers are stored in.
+     * @param x
+     *            Longitude of the epicenter plus 180.
+     * @param y
+     *            Latitude of the epicenter plus 90.
+     * @param radius
+     *            Radius of the search circle in degrees.
+     * @return The plan with the lowest estimated cost, preferring a tree walk
+     *         and then a subtree enumeration when costs are equal.
+     */
+    RegionSearchPlan planRegionSearch(BinTree2D<Point, Watcher> binTree,
+	    double x, double y, double radius) {
+	binTree.estimateRegionSearch(x, y, radius, this.regionSearchEstimate);
+	double numberOfBoundaryNodes = this.regionSearchEstimate[0];
+	double numberOfBoundaryRecords = this.regionSearchEstimate[1];
+	double numberOfContainedNodes = this.regionSearchEstimate[2];
+	double numberOfContainedRecords = this.regionSearchEstimate[3];
+
+	// a tree walk descends into the cells within the circle as well
+	double treeWalkCost = (numberOfBoundaryNodes + numberOfContainedNodes)
+		* (NODE_VISIT_COST + CELL_TEST_COST)
+		+ (numberOfBoundaryRecords + numberOfContainedRecords)
+		* DISTANCE_CHECK_COST;
+	// a boundary node is tested for reaching and containing the circle
+	double subtreeEnumerationCost = numberOfContainedNodes
+		* NODE_VISIT_COST + numberOfBoundaryNodes
+		* (NODE_VISIT_COST + 2 * CELL_TEST_COST)
+		+ numberOfBoundaryRecords * DISTANCE_CHECK_COST;
+
+	RegionSearchPlan plan = RegionSearchPlan.TREE_WALK;
+	double lowestCost = treeWalkCost;
+	if (subtreeEnumerationCost < lowestCost) {
+	    plan = RegionSearchPlan.SUBTREE_ENUMERATION;
+	    lowestCost = subtreeEnumerationCost;
+	}
+	if (binTree.isVisitingEveryNode(x, y, radius)) {
+	    double linearScanCost = binTree.size()
+		    * (SCANNED_RECORD_COST + DISTANCE_CHECK_COST);
+	    if (linearScanCost < lowestCost) {
+		plan = RegionSearchPlan.LINEAR_SCAN;
+	    }
+	}
+	return plan;
+    }
+
+    /**
+     * Choose a plan by its estimated cost for the region search of each new
+     * earthquake instead of always walking the bin tree, for example to
+     * scan every watcher for an earthquake whose search circle covers the
+     * whole world. The printed alerts and numbers of visited nodes stay the
+     * same. Only a service storing watchers in a planar bin tree that is not
+     * run in shadow mode or with a watcher table can plan its region
+     * searches.
+     *
+     * @param isPlanning
+     */
+    public void setRegionSearchPlanning(boolean isPlanning) {
+	if (this.watcherTable != null
+		|| !(this.watcherIndex instanceof BinTree2D)
+		|| ((BinTree2D<Point, Watcher>) this.watcherIndex)
+			.isMatchingGreatCircleDistance()) {
+	    throw new IllegalStateException("In method "
+		    + "setRegionSearchPlanning of class "
+		    + "EarthquakeWatcherService only a planar bin tree can "
+		    + "plan its region searches");
 	}
+	this.isPlanningRegionSearches = isPlanning;
+    }
+
+    /**
+     * @return The plan that ran for the region search of each new earthquake
+     *         of the latest report in the order the earthquakes were
+     *         printed.
+     */
+    public List<RegionSearchPlan> getRegionSearchPlans() {
+	return this.regionSearchPlans;
+    }
+
+    /**
+     * Print to the console the watchers that are close to an earthquake.
+     *
+     * @param earthquake
+     *            The new earthquake.
+     * @param watchers
+     *            The watchers close to the earthquake.
+     * @param numberOfBinTreeNodesVisited
+     *            The number of bin tree nodes the search visited.
+     */
+    void printEarthquakeAlerts(Earthquake earthquake,
+	    RegionSearchBuffer<Watcher> watchers,
+	    int numberOfBinTreeNodesVisited) {
+	this.printEarthquakeInserted(earthquake);
+	for (int i = 0; i < watchers.size(); i++) {
+	    System.out.println(watchers.get(i).toString());
+	}
+	this.printNumberOfNodesVisited(numberOfBinTreeNodesVisited);
+    }
+
+    /**
+     * Print to the console the watchers of the watcher table that are close
+     * to an earthquake. A Watcher is only made from each handle to be
+     * printed.
+     *
+     * @param earthquake
+     *            The new earthquake.
+     * @param watcherHandles
+     *            The handles of the watchers close to the earthquake.
+     * @param numberOfBinTreeNodesVisited
+     *            The number of bin tree nodes the search visited.
+     */
+    private void printTableEarthquakeAlerts(Earthquake earthquake,
+	    IntRegionSearchBuffer watcherHandles,
+	    int numberOfBinTreeNodesVisited) {
+	this.printEarthquakeInserted(earthquake);
+	for (int i = 0; i < watcherHandles.size(); i++) {
+	    System.out.println(this.watcherTable.getWatcher(
+		    watcherHandles.get(i)).toString());
+	}
+	this.printNumberOfNodesVisited(numberOfBinTreeNodesVisited);
+    }
+
+    private void printEarthquakeInserted(Earthquake earthquake) {
+	System.out.println("Earthquake inserted at "
+		+ earthquake.getLocation().getLongitude() + " "
+		+ earthquake.getLocation().getLatitude());
+
+	System.out.println(earthquake.getLocationDescription()
+		+ " is close to the following" + " watchers:");
+    }
+
+    private void printNumberOfNodesVisited(int numberOfBinTreeNodesVisited) {
+	System.out.println("Watcher search caused "
+		+ numberOfBinTreeNodesVisited
+		+ " bintree nodes to be visited.");
     }
 
     /**
@@ -499,6 +1209,315 @@ public class EarthquakeWatcherService {
 	this.currentReportTime = currentReportTime;
     }
 
+    /**
+     * Search for the watchers close to large earthquakes in parallel. The
+     * printed alerts are the same as when searching on one thread. Only a
+     * service storing watchers in a bin tree can search in parallel.
+     *
+     * @param pool
+     *            The pool to search with, or null to search on the calling
+     *            thread.
+     * @param minimumWorldCoverage
+     *            Fraction of the world between 0 and 1 an earthquake's search
+     *            region must cover to be searched in parallel.
+     */
+    public void setParallelRegionSearch(ForkJoinPool pool,
+	    double minimumWorldCoverage) {
+	BinTree2D<Point, Watcher> binTree = this.getWatcherBinTree();
+	if (binTree == null) {
+	    throw new IllegalStateException("In method setParallelRegionSearch "
+		    + "of class EarthquakeWatcherService only a bin tree can "
+		    + "be searched in parallel");
+	}
+	binTree.setParallelRegionSearch(pool, minimumWorldCoverage);
+    }
+
+    /**
+     * Find the k watchers closest to an epicenter, for example to call the
+     * closest watchers first. Only a service storing watchers in a bin tree
+     * can search for the closest watchers.
+     *
+     * @param longitude
+     *            Longitude of the epicenter from -180 to 180.
+     * @param latitude
+     *            Latitude of the epicenter from -90 to 90.
+     * @param k
+     *            The number of watchers to find.
+     * @param closestWatchers
+     *            Receives the closest watchers ordered from closest to
+     *            farthest along with their distances in degrees.
+     * @return The number of bin tree nodes visited.
+     */
+    public int findClosestWatchers(double longitude, double latitude, int k,
+	    NearestNeighborBuffer<Watcher> closestWatchers) {
+	BinTree2D<Point, Watcher> binTree = this.getWatcherBinTree();
+	if (binTree == null) {
+	    throw new IllegalStateException("In method findClosestWatchers "
+		    + "of class EarthquakeWatcherService only a bin tree can "
+		    + "be searched for the closest watchers");
+	}
+	return binTree.nearestNeighborSearch(longitude + 180.0,
+		latitude + 90.0, k, closestWatchers);
+    }
+
+    /**
+     * Count the watchers an earthquake would alert without alerting them or
+     * changing the recent earthquakes, for example to see how many watchers
+     * a quake of a given size would reach. Only a service storing watchers
+     * in a bin tree can count the watchers in range.
+     *
+     * @param longitude
+     *            Longitude of the epicenter from -180 to 180.
+     * @param latitude
+     *            Latitude of the epicenter from -90 to 90.
+     * @param magnitude
+     *            Magnitude of the earthquake.
+     * @return The number of watchers within 2 * magnitude^3 degrees of the
+     *         epicenter.
+     */
+    public int countWatchersInRange(double longitude, double latitude,
+	    double magnitude) {
+	BinTree2D<Point, Watcher> binTree = this.getWatcherBinTree();
+	if (binTree == null) {
+	    throw new IllegalStateException("In method countWatchersInRange "
+		    + "of class EarthquakeWatcherService only a bin tree can "
+		    + "count the watchers in range");
+	}
+	return binTree.countInRegion(longitude + 180.0, latitude + 90.0,
+		Math.pow(magnitude, 3) * 2);
+    }
+
+    /**
+     * Prune the bin tree by the exact search circle of each earthquake
+     * instead of its bounding box. The printed alerts stay the same while
+     * fewer nodes are visited per earthquake. Only a service storing
+     * watchers in a bin tree or a watcher table can prune exactly.
+     *
+     * @param isPruningExactly
+     */
+    public void setExactCirclePruning(boolean isPruningExactly) {
+	if (this.watcherTable != null) {
+	    this.watcherHandleIndex.setExactCirclePruning(isPruningExactly);
+	    return;
+	}
+	BinTree2D<Point, Watcher> binTree = this.getWatcherBinTree();
+	if (binTree == null) {
+	    throw new IllegalStateException("In method setExactCirclePruning "
+		    + "of class EarthquakeWatcherService only a bin tree can "
+		    + "be pruned by the exact search circle");
+	}
+	binTree.setExactCirclePruning(isPruningExactly);
+    }
+
+    /**
+     * Alert the watchers below a bin tree cell within an earthquake's search
+     * circle without checking each of their distances. The printed alerts
+     * stay the same. Only a service storing watchers in a bin tree can
+     * accept whole subtrees.
+     *
+     * @param isAcceptingSubtrees
+     */
+    public void setSubtreeAcceptance(boolean isAcceptingSubtrees) {
+	BinTree2D<Point, Watcher> binTree = this.getWatcherBinTree();
+	if (binTree == null) {
+	    throw new IllegalStateException("In method setSubtreeAcceptance "
+		    + "of class EarthquakeWatcherService only a bin tree can "
+		    + "accept whole subtrees");
+	}
+	binTree.setSubtreeAcceptance(isAcceptingSubtrees);
+    }
+
+    /**
+     * @return the bin tree watchers are stored in, or the primary bin tree
+     *         of a shadow mode index; otherwise return null, also when
+     *         watchers are stored in a watcher table.
+     */
+    private BinTree2D<Point, Watcher> getWatcherBinTree() {
+	if (this.watcherTable != null) {
+	    return null;
+	}
+	SpatialIndex<Point, Watcher> primaryIndex = this.watcherIndex;
+	if (primaryIndex instanceof ShadowSpatialIndex) {
+	    primaryIndex = ((ShadowSpatialIndex<Point, Watcher>) primaryIndex)
+		    .getPrimaryIndex();
+	}
+	if (primaryIndex instanceof BinTree2D) {
+	    return (BinTree2D<Point, Watcher>) primaryIndex;
+	}
+	return null;
+    }
+
+    /**
+     * Store watchers by name in an AVL tree instead of a binary search tree
+     * that never rebalances. Names added in sorted order then still take a
+     * logarithmic number of comparisons to add, find and delete, but the
+     * debug output shows the balanced tree's depths.
+     *
+     * @param isBalanced
+     *            If true, use an AVL tree; otherwise a binary search tree.
+     */
+    public void setBalancedNameIndex(boolean isBalanced) {
+	if (this.hasWatchers()) {
+	    throw new IllegalStateException("In method setBalancedNameIndex "
+		    + "of class EarthquakeWatcherService the name index can "
+		    + "only be changed before any watcher is added");
+	}
+	if (isBalanced && this.watcherTable != null) {
+	    throw new IllegalStateException("In method setBalancedNameIndex "
+		    + "of class EarthquakeWatcherService a watcher table can "
+		    + "not balance its names");
+	}
+	if (isBalanced) {
+	    this.BST = new AVLTree<String, Watcher>();
+	} else {
+	    this.BST = new BinarySearchTree<String, Watcher>();
+	}
+    }
+
+    /**
+     * Look up watchers by name in a hash table kept next to the BST, so
+     * duplicate names and deletes of unknown names are found without
+     * searching the BST. The BST is still kept for the debug command, so the
+     * printed output stays the same.
+     *
+     * @param isHashed
+     *            If true, keep a hash table of watcher names; otherwise only
+     *            the BST.
+     */
+    public void setHashedNameLookups(boolean isHashed) {
+	if (this.hasWatchers()) {
+	    throw new IllegalStateException("In method setHashedNameLookups "
+		    + "of class EarthquakeWatcherService name lookups can only "
+		    + "be changed before any watcher is added");
+	}
+	if (isHashed) {
+	    this.watcherNameTable =
+		    new OpenAddressingHashTable<String, Watcher>();
+	} else {
+	    this.watcherNameTable = null;
+	}
+    }
+
+    /**
+     * Store the name and location of every watcher in a WatcherTable instead
+     * of a Watcher object in the BST and the bin tree. Names are then looked
+     * up in the table and kept only as bytes in its name arena, and watchers
+     * are found by location in a WatcherHandleBinTree of their int handles
+     * with the leaf bucket capacity, distance, maximum depth and pruning of
+     * the bin tree, which is left empty. A Watcher is only made from a
+     * handle to print it, so the alerts and the numbers of visited nodes
+     * stay the same. The debug command prints the watchers with the depths
+     * they would have in the BST, which is why the name index can not be
+     * balanced. Only a service storing watchers in a bin tree that does not
+     * plan its region searches can use a watcher table, and
+     * the bin tree's parallel region search and subtree acceptance are not
+     * used by the watcher handle index.
+     *
+     * @param isTabled
+     *            If true, store watchers in a watcher table; otherwise in the
+     *            BST and the bin tree.
+     */
+    public void setWatcherTable(boolean isTabled) {
+	if (this.hasWatchers()) {
+	    throw new IllegalStateException("In method setWatcherTable of "
+		    + "class EarthquakeWatcherService the watcher table can "
+		    + "only be changed before any watcher is added");
+	}
+	if (!isTabled) {
+	    this.watcherTable = null;
+	    this.watcherHandleIndex = null;
+	} else if (this.watcherTable == null) {
+	    if (this.isPlanningRegionSearches) {
+		throw new IllegalStateException("In method setWatcherTable of "
+			+ "class EarthquakeWatcherService a watcher table can "
+			+ "not plan its region searches");
+	    }
+	    if (this.BST instanceof AVLTree) {
+		throw new IllegalStateException("In method setWatcherTable of "
+			+ "class EarthquakeWatcherService a watcher table can "
+			+ "not balance its names");
+	    }
+	    if (!(this.watcherIndex instanceof BinTree2D)
+		    && !(this.watcherIndex instanceof ArrayBinTree2D)) {
+		throw new IllegalStateException("In method setWatcherTable of "
+			+ "class EarthquakeWatcherService only a bin tree can "
+			+ "store the handles of a watcher table");
+	    }
+	    this.watcherTable = new WatcherTable();
+	    if (this.watcherIndex instanceof BinTree2D) {
+		BinTree2D<Point, Watcher> binTree =
+			(BinTree2D<Point, Watcher>) this.watcherIndex;
+		this.watcherHandleIndex = this.createWatcherHandleIndex(
+			binTree.getLeafBucketCapacity(),
+			binTree.isMatchingGreatCircleDistance(),
+			binTree.getMaximumDepth(), binTree.isPruningExactly());
+	    } else {
+		ArrayBinTree2D<Point, Watcher> binTree =
+			(ArrayBinTree2D<Point, Watcher>) this.watcherIndex;
+		this.watcherHandleIndex = this.createWatcherHandleIndex(
+			binTree.getLeafBucketCapacity(),
+			binTree.isMatchingGreatCircleDistance(),
+			binTree.getMaximumDepth(), binTree.isPruningExactly());
+	    }
+	}
+    }
+
+    /**
+     * @return An empty index of the handles of the watcher table with the
+     *         given bin tree settings.
+     */
+    private WatcherHandleBinTree createWatcherHandleIndex(
+	    int leafBucketCapacity, boolean isMatchingGreatCircleDistance,
+	    int maximumDepth, boolean isPruningExactly) {
+	WatcherHandleBinTree handleIndex = new WatcherHandleBinTree(
+		this.watcherTable, leafBucketCapacity,
+		isMatchingGreatCircleDistance, maximumDepth);
+	handleIndex.setExactCirclePruning(isPruningExactly);
+	return handleIndex;
+    }
+
+    /**
+     * @return true if a watcher has been added and not yet deleted.
+     */
+    private boolean hasWatchers() {
+	return this.BST.size() != 0 || this.watcherIndex.size() != 0
+		|| (this.watcherTable != null && this.watcherTable.size() != 0);
+    }
+
+    /**
+     * Run the given index in shadow mode next to the one watchers are stored
+     * in. Every watcher added or deleted is applied to both and every
+     * earthquake is searched for in both. The console output still comes
+     * from the current index alone, while the latency and number of nodes
+     * visited of both indexes and any difference in the watchers they found
+     * are written to the report.
+     *
+     * @param shadowIndex
+     *            An empty index spanning 0 to 360 along the x-axis and 0 to
+     *            180 along the y-axis.
+     * @param report
+     *            Where the shadow mode report is written, usually a file.
+     * @return The shadow mode index, which counts the differences found.
+     */
+    public ShadowSpatialIndex<Point, Watcher> setShadowIndex(
+	    SpatialIndex<Point, Watcher> shadowIndex, PrintStream report) {
+	if (this.hasWatchers()) {
+	    throw new IllegalStateException("In method setShadowIndex of "
+		    + "class EarthquakeWatcherService shadow mode can only be "
+		    + "started before any watcher is added");
+	}
+	if (this.watcherTable != null) {
+	    throw new IllegalStateException("In method setShadowIndex of "
+		    + "class EarthquakeWatcherService shadow mode can not be "
+		    + "run with a watcher table");
+	}
+	ShadowSpatialIndex<Point, Watcher> shadowModeIndex =
+		new ShadowSpatialIndex<Point, Watcher>(this.watcherIndex,
+			shadowIndex, report);
+	this.watcherIndex = shadowModeIndex;
+	return shadowModeIndex;
+    }
+
     /**
      * @param newEarthquakeNode
      *            new EarthquakeNode to be added.
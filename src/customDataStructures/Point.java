@@ -59,6 +59,15 @@ public class Point {
 	return pointInformation;
     }
 
+    @Override
+    public int hashCode() {
+	// consistent with equals
+	long xBits = Double.doubleToLongBits(this.x);
+	long yBits = Double.doubleToLongBits(this.y);
+	int result = 31 + (int) (xBits ^ (xBits >>> 32));
+	return 31 * result + (int) (yBits ^ (yBits >>> 32));
+    }
+
     @Override
     public boolean equals(Object obj) {
 	if (this == obj) {
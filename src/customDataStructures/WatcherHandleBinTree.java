@@ -0,0 +1,232 @@
+package customDataStructures;
+
+import dataStructures.ArrayBinTree2D;
+import dataStructures.HandleMatcher;
+import dataStructures.IntBatchRegionSearchVisitor;
+
+import java.util.Arrays;
+
+/**
+ * An ArrayBinTree2D of the handles of watchers in a WatcherTable. The
+ * handle of each record is kept in an int column instead of as an Integer,
+ * so together with the table no object is kept per watcher. A handle is
+ * inserted, removed and found by a batch region search as an int, is boxed
+ * only by the methods of a SpatialIndex of Integers, and is turned into a
+ * Watcher view only when the bin tree is printed.
+ *
+ * The coordinates of a record are read from the longitude and latitude the
+ * table holds for its handle instead of being kept a second time, so the key
+ * given with a handle must be the location of its watcher in the table.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class WatcherHandleBinTree extends ArrayBinTree2D<Point, Integer> {
+    private final WatcherTable watcherTable;
+
+    /**
+     * The watcher handle of each record.
+     */
+    private int[] recordHandles = new int[INITIAL_CAPACITY];
+
+    /**
+     * Reusable adapters of the handle visitor of a batch region search and
+     * the handle removed to the records they are given.
+     */
+    private final HandleVisitor handleVisitor = new HandleVisitor();
+    private final RecordHandleMatcher recordHandleMatcher =
+	    new RecordHandleMatcher();
+
+    /**
+     * Create a new WatcherHandleBinTree object spanning 0 to 360 along the
+     * x-axis and 0 to 180 along the y-axis.
+     *
+     * @param watcherTable
+     *            The table holding the watcher of each handle.
+     * @param leafBucketCapacity
+     *            The number of records a leaf node can hold before splitting.
+     * @param isMatchingGreatCircleDistance
+     *            If true, match records by great circle distance.
+     * @param maximumDepth
+     *            The depth below which leaf nodes are never split.
+     */
+    public WatcherHandleBinTree(WatcherTable watcherTable,
+	    int leafBucketCapacity, boolean isMatchingGreatCircleDistance,
+	    int maximumDepth) {
+	super(0.0, 360.0, 0.0, 180.0, leafBucketCapacity,
+		isMatchingGreatCircleDistance, maximumDepth);
+	this.watcherTable = watcherTable;
+    }
+
+    /**
+     * Insert a handle at the location the table holds for it.
+     *
+     * @param handle
+     *            The handle of a watcher in the table.
+     */
+    public void insert(int handle) {
+	int record = this.allocateRecord(this.watcherTable.getLongitude(handle),
+		this.watcherTable.getLatitude(handle));
+	this.recordHandles[record] = handle;
+	this.insertAllocatedRecord(record);
+    }
+
+    /**
+     * @param handle
+     *            The handle of a watcher in the table.
+     * @return true if the handle was inserted; otherwise return false because
+     *         the location the table holds for it is already in the bin
+     *         tree.
+     */
+    public boolean insertIfAbsent(int handle) {
+	int record = this.allocateRecord(this.watcherTable.getLongitude(handle),
+		this.watcherTable.getLatitude(handle));
+	this.recordHandles[record] = handle;
+	return this.insertAllocatedRecordIfAbsent(record);
+    }
+
+    /**
+     * Remove a handle found at the location the table holds for it, so the
+     * handle must be removed before it is removed from the table.
+     *
+     * @param handle
+     *            The handle of a watcher in the table.
+     * @return true if the handle was removed; otherwise return false.
+     */
+    public boolean remove(int handle) {
+	this.recordHandleMatcher.handle = handle;
+	return this.removeRecord(this.watcherTable.getLongitude(handle),
+		this.watcherTable.getLatitude(handle),
+		this.recordHandleMatcher);
+    }
+
+    /**
+     * Add the given handles to an empty bin tree by inserting them in array
+     * order.
+     *
+     * @param handles
+     * @param numberOfHandles
+     *            The number of handles in the array to add.
+     */
+    public void bulkLoad(int[] handles, int numberOfHandles) {
+	if (this.size() != 0) {
+	    throw new IllegalStateException("In method bulkLoad of class "
+		    + "WatcherHandleBinTree the bin tree must be empty");
+	}
+	for (int i = 0; i < numberOfHandles; i++) {
+	    this.insert(handles[i]);
+	}
+    }
+
+    /**
+     * Search many circles at once the same way as the batch regionSearch of
+     * ArrayBinTree2D, giving each handle found as an int.
+     *
+     * @param objectX
+     *            x coordinates of the centers of the search circles.
+     * @param objectY
+     *            y coordinates of the centers of the search circles.
+     * @param objectDistance
+     *            radii of the search circles.
+     * @param numberOfQueries
+     *            The number of search circles in the arrays to search.
+     * @param visitor
+     *            Receives each handle within a search circle with the index
+     *            of the circle.
+     * @return The number of nodes that were visited for each search circle.
+     */
+    public int[] regionSearchHandles(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    IntBatchRegionSearchVisitor visitor) {
+	this.handleVisitor.batchVisitor = visitor;
+	int[] numberOfNodesVisited = this.regionSearchRecords(objectX,
+		objectY, objectDistance, numberOfQueries, this.handleVisitor);
+	this.handleVisitor.batchVisitor = null;
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * @return The table holding the watcher of each handle.
+     */
+    public WatcherTable getWatcherTable() {
+	return this.watcherTable;
+    }
+
+    @Override
+    protected void setRecordKey(int record, double x, double y) {
+	// the table already holds the location of the record's handle
+    }
+
+    @Override
+    protected double getRecordX(int record) {
+	return this.watcherTable
+		.getUncheckedLongitude(this.recordHandles[record]);
+    }
+
+    @Override
+    protected double getRecordY(int record) {
+	return this.watcherTable
+		.getUncheckedLatitude(this.recordHandles[record]);
+    }
+
+    @Override
+    protected void resizeRecordKeys(int length) {
+	// no coordinates are kept
+    }
+
+    @Override
+    protected void setRecordElement(int record, Integer handle) {
+	// a freed record keeps its old handle
+	if (handle != null) {
+	    this.recordHandles[record] = handle;
+	}
+    }
+
+    @Override
+    protected Integer getRecordElement(int record) {
+	return this.recordHandles[record];
+    }
+
+    @Override
+    protected boolean isRecordElement(int record, Integer handle) {
+	return this.recordHandles[record] == handle;
+    }
+
+    @Override
+    protected void resizeRecordElements(int length) {
+	this.recordHandles = Arrays.copyOf(this.recordHandles, length);
+    }
+
+    @Override
+    protected String getRecordString(int record) {
+	return this.watcherTable.getWatcher(this.recordHandles[record])
+		.toString();
+    }
+
+    /**
+     * Gives the handle of each record found by a batch region search to the
+     * handle visitor.
+     */
+    private class HandleVisitor implements IntBatchRegionSearchVisitor {
+	private IntBatchRegionSearchVisitor batchVisitor;
+
+	@Override
+	public void visit(int queryIndex, int record) {
+	    this.batchVisitor.visit(queryIndex,
+		    WatcherHandleBinTree.this.recordHandles[record]);
+	}
+    }
+
+    /**
+     * Matches the record of the handle being removed.
+     */
+    private class RecordHandleMatcher implements HandleMatcher {
+	private int handle;
+
+	@Override
+	public boolean isMatch(int record) {
+	    return WatcherHandleBinTree.this.recordHandles[record]
+		    == this.handle;
+	}
+    }
+}
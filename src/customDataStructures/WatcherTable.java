@@ -0,0 +1,519 @@
+package customDataStructures;
+
+import dataStructures.HandleHashTable;
+import dataStructures.HandleMatcher;
+import dataStructures.NameArena;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores watchers in columns instead of as a Watcher object each. A watcher
+ * is addressed by an int handle, its row in the columns of name references,
+ * longitudes and latitudes, and its name is stored as bytes in a NameArena.
+ * The handle of a removed watcher is given to the next watcher added, so the
+ * columns only grow with the most watchers stored at once.
+ *
+ * Watchers are found by name through a HandleHashTable of handles that
+ * compares a name against the bytes in the arena, so neither the table nor
+ * its index holds an object per watcher. A Watcher object is only made by
+ * getWatcher when a watcher has to be printed or handed to code that needs
+ * one.
+ *
+ * The handles are also linked into a binary search tree of names by a left
+ * and a right child column. It has the shape a BinarySearchTree of the names
+ * would have after the same adds and removes, so inorderTraversal prints
+ * the same depths as BinarySearchTree.inorderTraversal.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class WatcherTable {
+    /**
+     * The handle of no watcher.
+     */
+    public static final int NO_HANDLE = HandleHashTable.NO_HANDLE;
+
+    private static final int MINIMUM_NUMBER_OF_ROWS = 16;
+
+    private final NameArena nameArena;
+
+    /**
+     * The name reference of each handle. The name reference of a removed
+     * handle is negative and holds -2 minus the handle removed before it, so
+     * that the removed handles form a chain ending in NO_NAME.
+     */
+    private int[] nameRefs;
+    private double[] longitudes;
+    private double[] latitudes;
+
+    /**
+     * The left and right child of each handle in the binary search tree of
+     * names, or NO_HANDLE.
+     */
+    private int[] leftChildren;
+    private int[] rightChildren;
+    private int rootHandle;
+
+    /**
+     * The number of handles ever given out, used or removed.
+     */
+    private int numberOfHandles;
+
+    /**
+     * The last removed handle, or NO_HANDLE.
+     */
+    private int removedHandle;
+
+    private int numberOfWatchers;
+
+    /**
+     * The handle of each watcher by the hash code of its name.
+     */
+    private final HandleHashTable nameIndex;
+
+    /**
+     * Matches the handles whose name is the name last encoded by the arena.
+     */
+    private final NameMatcher nameMatcher = new NameMatcher();
+
+    /**
+     * Create a new empty WatcherTable object.
+     */
+    public WatcherTable() {
+	this(0);
+    }
+
+    /**
+     * Create a new empty WatcherTable object with room for the given number
+     * of watchers.
+     *
+     * @param expectedNumberOfWatchers
+     *            The number of watchers expected to be added, so the columns
+     *            and the name index do not need to grow while they are.
+     */
+    public WatcherTable(int expectedNumberOfWatchers) {
+	if (expectedNumberOfWatchers < 0) {
+	    throw new IllegalArgumentException("In method WatcherTable of "
+		    + "class WatcherTable the expected number of watchers can "
+		    + "not be negative");
+	}
+	this.nameArena = new NameArena();
+	int numberOfRows = Math.max(MINIMUM_NUMBER_OF_ROWS,
+		expectedNumberOfWatchers);
+	this.nameRefs = new int[numberOfRows];
+	this.longitudes = new double[numberOfRows];
+	this.latitudes = new double[numberOfRows];
+	this.leftChildren = new int[numberOfRows];
+	this.rightChildren = new int[numberOfRows];
+	this.removedHandle = NO_HANDLE;
+	this.rootHandle = NO_HANDLE;
+	this.nameIndex = new HandleHashTable(expectedNumberOfWatchers);
+    }
+
+    /**
+     * Remove every watcher. The columns keep their size.
+     */
+    public void clear() {
+	this.nameArena.clear();
+	this.numberOfHandles = 0;
+	this.removedHandle = NO_HANDLE;
+	this.numberOfWatchers = 0;
+	this.nameIndex.clear();
+	this.rootHandle = NO_HANDLE;
+    }
+
+    /**
+     * Add a watcher unless a watcher with the same name exists. The name is
+     * looked up and the watcher is added with the same probe.
+     *
+     * @param name
+     * @param longitude
+     * @param latitude
+     * @return The handle of the added watcher; otherwise NO_HANDLE because a
+     *         watcher with the name exists.
+     */
+    public int add(String name, double longitude, double latitude) {
+	int length = this.nameArena.encode(name);
+	int handle = this.getNextHandle();
+	this.nameMatcher.length = length;
+	if (this.nameIndex.putIfAbsent(this.nameArena.encodedHashCode(length),
+		handle, this.nameMatcher) != NO_HANDLE) {
+	    return NO_HANDLE;
+	}
+
+	this.takeNextHandle();
+	this.nameRefs[handle] = this.nameArena.addEncoded(length);
+	this.longitudes[handle] = longitude;
+	this.latitudes[handle] = latitude;
+	this.linkName(handle, length);
+	this.numberOfWatchers++;
+	return handle;
+    }
+
+    /**
+     * @param name
+     * @return The handle of the watcher with the name; otherwise NO_HANDLE.
+     */
+    public int find(String name) {
+	int length = this.nameArena.encode(name);
+	this.nameMatcher.length = length;
+	return this.nameIndex.find(this.nameArena.encodedHashCode(length),
+		this.nameMatcher);
+    }
+
+    /**
+     * Remove the watcher. Its handle is given to the next watcher added.
+     *
+     * @param handle
+     *            The handle of a watcher in this table.
+     */
+    public void remove(int handle) {
+	this.checkHandle("remove", handle);
+	this.unlinkName(handle);
+	this.nameIndex.removeHandle(
+		this.nameArena.hashCode(this.nameRefs[handle]), handle);
+	this.nameArena.remove(this.nameRefs[handle]);
+	this.nameRefs[handle] = -2 - this.removedHandle;
+	this.removedHandle = handle;
+	this.numberOfWatchers--;
+    }
+
+    /**
+     * @param handle
+     * @return true if the handle is the handle of a watcher in this table.
+     */
+    public boolean isInUse(int handle) {
+	return handle >= 0 && handle < this.numberOfHandles
+		&& this.nameRefs[handle] >= 0;
+    }
+
+    /**
+     * @param handle
+     *            The handle of a watcher in this table.
+     * @return The name of the watcher.
+     */
+    public String getName(int handle) {
+	this.checkHandle("getName", handle);
+	return this.nameArena.getName(this.nameRefs[handle]);
+    }
+
+    /**
+     * @param handle
+     *            The handle of a watcher in this table.
+     * @return Longitude of the watcher.
+     */
+    public double getLongitude(int handle) {
+	this.checkHandle("getLongitude", handle);
+	return this.longitudes[handle];
+    }
+
+    /**
+     * @param handle
+     *            The handle of a watcher in this table.
+     * @return Latitude of the watcher.
+     */
+    public double getLatitude(int handle) {
+	this.checkHandle("getLatitude", handle);
+	return this.latitudes[handle];
+    }
+
+    /**
+     * @param handle
+     *            The handle of a watcher in this table, which is not checked
+     *            so the columns can be read from the hot loops of a
+     *            WatcherHandleBinTree.
+     * @return Longitude of the watcher.
+     */
+    double getUncheckedLongitude(int handle) {
+	return this.longitudes[handle];
+    }
+
+    /**
+     * @param handle
+     *            The handle of a watcher in this table, which is not checked.
+     * @return Latitude of the watcher.
+     */
+    double getUncheckedLatitude(int handle) {
+	return this.latitudes[handle];
+    }
+
+    /**
+     * @param handle
+     *            The handle of a watcher in this table.
+     * @return A new Watcher object equal to the watcher. It is not kept by
+     *         this table, so changes to the table do not change it.
+     */
+    public Watcher getWatcher(int handle) {
+	this.checkHandle("getWatcher", handle);
+	return new Watcher(this.nameArena.getName(this.nameRefs[handle]),
+		this.longitudes[handle], this.latitudes[handle]);
+    }
+
+    /**
+     * @return A new Watcher object for every watcher in this table, in the
+     *         order of their names as in an inorder traversal of a binary
+     *         search tree of names.
+     */
+    public List<Watcher> getWatchersInNameOrder() {
+	int[] handles = new int[this.numberOfWatchers];
+	this.walkNameTree(handles, null);
+	List<Watcher> watchers = new ArrayList<Watcher>(handles.length);
+	for (int i = 0; i < handles.length; i++) {
+	    watchers.add(this.getWatcher(handles[i]));
+	}
+	return watchers;
+    }
+
+    /**
+     * @return A String representation of the binary search tree of names in
+     *         the format of BinarySearchTree.inorderTraversal. Each watcher
+     *         is printed on a new line after a ".." for each level of its
+     *         depth.
+     */
+    public String inorderTraversal() {
+	int[] handles = new int[this.numberOfWatchers];
+	int[] depths = new int[this.numberOfWatchers];
+	this.walkNameTree(handles, depths);
+	StringBuilder stringBuilder = new StringBuilder();
+	for (int i = 0; i < handles.length; i++) {
+	    for (int j = 0; j < depths[i]; j++) {
+		stringBuilder.append("..");
+	    }
+	    stringBuilder.append(this.getWatcher(handles[i]).toString())
+		    .append('\n');
+	}
+	return stringBuilder.toString();
+    }
+
+    /**
+     * Relink the binary search tree of names into the balanced tree
+     * BinarySearchTree.bulkLoad builds from the same names.
+     */
+    public void balanceNameTree() {
+	int[] handles = new int[this.numberOfWatchers];
+	this.walkNameTree(handles, null);
+	this.rootHandle = this.linkBalanced(handles, 0, handles.length);
+    }
+
+    /**
+     * @return the number of watchers in this table.
+     */
+    public int size() {
+	return this.numberOfWatchers;
+    }
+
+    /**
+     * @return The number of rows of the columns, which is at least the
+     *         largest number of watchers stored at once.
+     */
+    public int getNumberOfRows() {
+	return this.nameRefs.length;
+    }
+
+    /**
+     * @return The arena the names are stored in.
+     */
+    public NameArena getNameArena() {
+	return this.nameArena;
+    }
+
+    /**
+     * @return The last removed handle if there is one; otherwise a new
+     *         handle after growing the columns if they are full. The handle
+     *         is not taken until takeNextHandle is called.
+     */
+    private int getNextHandle() {
+	if (this.removedHandle != NO_HANDLE) {
+	    return this.removedHandle;
+	}
+	if (this.numberOfHandles == this.nameRefs.length) {
+	    int numberOfRows = this.nameRefs.length * 2;
+	    this.nameRefs = Arrays.copyOf(this.nameRefs, numberOfRows);
+	    this.longitudes = Arrays.copyOf(this.longitudes, numberOfRows);
+	    this.latitudes = Arrays.copyOf(this.latitudes, numberOfRows);
+	    this.leftChildren = Arrays.copyOf(this.leftChildren,
+		    numberOfRows);
+	    this.rightChildren = Arrays.copyOf(this.rightChildren,
+		    numberOfRows);
+	}
+	return this.numberOfHandles;
+    }
+
+    /**
+     * Take the handle getNextHandle returned.
+     */
+    private void takeNextHandle() {
+	if (this.removedHandle != NO_HANDLE) {
+	    this.removedHandle = -2 - this.nameRefs[this.removedHandle];
+	} else {
+	    this.numberOfHandles++;
+	}
+    }
+
+    /**
+     * Link the handle of the name last encoded into the binary search tree
+     * of names where BinarySearchTree.putIfAbsent links the node of a name.
+     *
+     * @param handle
+     * @param length
+     *            The length of the encoded name.
+     */
+    private void linkName(int handle, int length) {
+	this.leftChildren[handle] = NO_HANDLE;
+	this.rightChildren[handle] = NO_HANDLE;
+	int parentHandle = NO_HANDLE;
+	boolean isLeftChild = false;
+	int node = this.rootHandle;
+	while (node != NO_HANDLE) {
+	    parentHandle = node;
+	    isLeftChild = this.nameArena.compareToEncodedName(
+		    this.nameRefs[node], length) > 0;
+	    node = isLeftChild ? this.leftChildren[node]
+		    : this.rightChildren[node];
+	}
+	this.setChild(parentHandle, isLeftChild, handle);
+    }
+
+    /**
+     * Unlink the handle from the binary search tree of names so the tree
+     * keeps the shape BinarySearchTree.remove leaves. Where that copies the
+     * greatest name of the left subtree into the removed node, the handle of
+     * that name takes the place of the removed handle instead.
+     *
+     * @param handle
+     */
+    private void unlinkName(int handle) {
+	int parentHandle = NO_HANDLE;
+	boolean isLeftChild = false;
+	int node = this.rootHandle;
+	while (node != handle) {
+	    parentHandle = node;
+	    isLeftChild = this.nameArena.compareNames(this.nameRefs[node],
+		    this.nameRefs[handle]) > 0;
+	    node = isLeftChild ? this.leftChildren[node]
+		    : this.rightChildren[node];
+	}
+
+	int leftChild = this.leftChildren[handle];
+	int rightChild = this.rightChildren[handle];
+	int replacementHandle;
+	if (leftChild == NO_HANDLE) {
+	    replacementHandle = rightChild;
+	} else if (rightChild == NO_HANDLE) {
+	    replacementHandle = leftChild;
+	} else {
+	    int parentOfGreatest = NO_HANDLE;
+	    int greatestHandle = leftChild;
+	    while (this.rightChildren[greatestHandle] != NO_HANDLE) {
+		parentOfGreatest = greatestHandle;
+		greatestHandle = this.rightChildren[greatestHandle];
+	    }
+	    if (parentOfGreatest != NO_HANDLE) {
+		this.rightChildren[parentOfGreatest] =
+			this.leftChildren[greatestHandle];
+		this.leftChildren[greatestHandle] = leftChild;
+	    }
+	    this.rightChildren[greatestHandle] = rightChild;
+	    replacementHandle = greatestHandle;
+	}
+	this.setChild(parentHandle, isLeftChild, replacementHandle);
+    }
+
+    /**
+     * @param parentHandle
+     *            The parent of the child slot, or NO_HANDLE for the root.
+     * @param isLeftChild
+     * @param handle
+     */
+    private void setChild(int parentHandle, boolean isLeftChild, int handle) {
+	if (parentHandle == NO_HANDLE) {
+	    this.rootHandle = handle;
+	} else if (isLeftChild) {
+	    this.leftChildren[parentHandle] = handle;
+	} else {
+	    this.rightChildren[parentHandle] = handle;
+	}
+    }
+
+    /**
+     * Walk the binary search tree of names inorder with an explicit stack,
+     * so a tree of names added in sorted order does not overflow the call
+     * stack.
+     *
+     * @param handles
+     *            Receives the handle of every watcher in name order.
+     * @param depths
+     *            Receives the depth of every watcher in name order, or null.
+     */
+    private void walkNameTree(int[] handles, int[] depths) {
+	int[] handleStack = new int[this.numberOfWatchers];
+	int[] depthStack = new int[this.numberOfWatchers];
+	int stackSize = 0;
+	int numberOfHandlesWalked = 0;
+	int node = this.rootHandle;
+	int depth = 0;
+	while (node != NO_HANDLE || stackSize > 0) {
+	    while (node != NO_HANDLE) {
+		handleStack[stackSize] = node;
+		depthStack[stackSize] = depth;
+		stackSize++;
+		node = this.leftChildren[node];
+		depth++;
+	    }
+	    stackSize--;
+	    node = handleStack[stackSize];
+	    depth = depthStack[stackSize];
+	    handles[numberOfHandlesWalked] = node;
+	    if (depths != null) {
+		depths[numberOfHandlesWalked] = depth;
+	    }
+	    numberOfHandlesWalked++;
+	    node = this.rightChildren[node];
+	    depth++;
+	}
+    }
+
+    /**
+     * @param sortedHandles
+     * @param start
+     * @param end
+     * @return The root of a balanced binary search tree of the handles from
+     *         start up to but not including end, split as
+     *         BinarySearchTree.linkBalanced splits them.
+     */
+    private int linkBalanced(int[] sortedHandles, int start, int end) {
+	if (start == end) {
+	    return NO_HANDLE;
+	}
+	int middle = (start + end) >>> 1;
+	int handle = sortedHandles[middle];
+	this.leftChildren[handle] = this.linkBalanced(sortedHandles, start,
+		middle);
+	this.rightChildren[handle] = this.linkBalanced(sortedHandles,
+		middle + 1, end);
+	return handle;
+    }
+
+    private void checkHandle(String methodName, int handle) {
+	if (!this.isInUse(handle)) {
+	    throw new IllegalArgumentException("In method " + methodName
+		    + " of class WatcherTable the handle " + handle
+		    + " is not the handle of a watcher");
+	}
+    }
+
+    /**
+     * Matches the handles whose name is the name last encoded by the arena.
+     */
+    private class NameMatcher implements HandleMatcher {
+	private int length;
+
+	@Override
+	public boolean isMatch(int handle) {
+	    return WatcherTable.this.nameArena.isEncodedName(
+		    WatcherTable.this.nameRefs[handle], this.length);
+	}
+    }
+}
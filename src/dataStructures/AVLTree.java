@@ -0,0 +1,276 @@
+package dataStructures;
+/**
+ * A binary search tree that rebalances itself after every insert and remove,
+ * so the heights of the two subtrees of any node differ by at most 1. Keys
+ * inserted in sorted order then still give a tree of logarithmic height
+ * instead of a linked list. It can be used wherever a BinarySearchTree is,
+ * and its inorder traversal has the same format.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <K>
+ * @param <E>
+ */
+public class AVLTree<K extends Comparable<? super K>, E> extends
+	BinarySearchTree<K, E> {
+    /**
+     * Set by insertBalanced and removeBalanced when they find a record with
+     * the given key.
+     */
+    private boolean isKeyFound;
+
+    /**
+     * The element of the record found by insertBalanced or removeBalanced.
+     */
+    private E foundElement;
+
+    /**
+     * Create a new empty AVLTree object.
+     */
+    public AVLTree() {
+	super();
+    }
+
+    @Override
+    public void insert(K key, E element) {
+	this.setRootNode(
+		this.insertBalanced(this.getRootNode(), key, element, false),
+		this.size() + 1);
+    }
+
+    /**
+     * Look up the key and insert the record with a single descent,
+     * rebalancing the nodes along the path on the way back up.
+     */
+    @Override
+    public E putIfAbsent(K key, E element) {
+	BinarySearchTreeNode<K, E> rootNode = this.insertBalanced(
+		this.getRootNode(), key, element, true);
+	E existingElement = this.foundElement;
+	if (this.isKeyFound) {
+	    this.isKeyFound = false;
+	    this.foundElement = null;
+	    return existingElement;
+	}
+	this.setRootNode(rootNode, this.size() + 1);
+	return null;
+    }
+
+    /**
+     * Find and remove the record with a single descent, rebalancing the
+     * nodes along the path on the way back up.
+     */
+    @Override
+    public E remove(K key) {
+	BinarySearchTreeNode<K, E> rootNode = this.removeBalanced(
+		this.getRootNode(), key);
+	if (!this.isKeyFound) {
+	    return null;
+	}
+	E removedElement = this.foundElement;
+	this.isKeyFound = false;
+	this.foundElement = null;
+	this.setRootNode(rootNode, this.size() - 1);
+	return removedElement;
+    }
+
+    /**
+     * Removes the root element of the AVL tree.
+     */
+    @Override
+    public E removeRandomElement() {
+	if (this.getRootNode() == null) {
+	    return null;
+	}
+	return this.remove(this.getRootNode().getKey());
+    }
+
+    @Override
+    BinarySearchTreeNode<K, E> createNode(K key, E element) {
+	return new AVLTreeNode<K, E>(key, element);
+    }
+
+    /**
+     * Link the sorted nodes as in a BinarySearchTree and set the height of
+     * each node on the way back up. The tree is already balanced.
+     */
+    @Override
+    BinarySearchTreeNode<K, E> linkBalanced(
+	    BinarySearchTreeNode<K, E>[] sortedNodes, int start, int end) {
+	BinarySearchTreeNode<K, E> node = super.linkBalanced(sortedNodes,
+		start, end);
+	if (node != null) {
+	    this.updateHeight(node);
+	}
+	return node;
+    }
+
+    /**
+     * @param node
+     *            The root node of the subtree to insert the record into.
+     * @param key
+     * @param element
+     * @param isAbsentOnly
+     *            If true, do not insert the record when a record with an
+     *            equal key exists but set isKeyFound and foundElement.
+     * @return The root node of the subtree after inserting and rebalancing.
+     */
+    private BinarySearchTreeNode<K, E> insertBalanced(
+	    BinarySearchTreeNode<K, E> node, K key, E element,
+	    boolean isAbsentOnly) {
+	if (node == null) {
+	    return this.createNode(key, element);
+	}
+	int comparison = node.getKey().compareTo(key);
+	if (comparison == 0 && isAbsentOnly) {
+	    this.isKeyFound = true;
+	    this.foundElement = node.getValue();
+	    return node;
+	}
+	if (comparison > 0) {
+	    node.setLeftChild(this.insertBalanced(node.getLeftChild(), key,
+		    element, isAbsentOnly));
+	} else {
+	    node.setRightChild(this.insertBalanced(node.getRightChild(), key,
+		    element, isAbsentOnly));
+	}
+	if (this.isKeyFound) {
+	    // nothing was inserted so nothing below changed
+	    return node;
+	}
+	return this.rebalance(node);
+    }
+
+    /**
+     * @param node
+     *            The root node of the subtree to remove the record from.
+     * @param key
+     *            Used to find the node in the AVL tree. When it is found
+     *            isKeyFound and foundElement are set.
+     * @return The root node of the subtree after removing and rebalancing.
+     */
+    private BinarySearchTreeNode<K, E> removeBalanced(
+	    BinarySearchTreeNode<K, E> node, K key) {
+	if (node == null) {
+	    return null;
+	}
+	int comparison = node.getKey().compareTo(key);
+	if (comparison > 0) {
+	    node.setLeftChild(this.removeBalanced(node.getLeftChild(), key));
+	} else if (comparison < 0) {
+	    node.setRightChild(this.removeBalanced(node.getRightChild(), key));
+	} else {
+	    this.isKeyFound = true;
+	    this.foundElement = node.getValue();
+	    if (node.getLeftChild() == null) {
+		return node.getRightChild();
+	    } else if (node.getRightChild() == null) {
+		return node.getLeftChild();
+	    }
+	    // the removed node is replaced with the greatest valued node in
+	    // the left subtree, as in a BinarySearchTree
+	    BinarySearchTreeNode<K, E> greatestNodeInLeftSubtree = this
+		    .getNodeWithMaximumValue(node.getLeftChild());
+	    node.setValue(greatestNodeInLeftSubtree.getValue());
+	    node.setKey(greatestNodeInLeftSubtree.getKey());
+	    node.setLeftChild(this.removeMaximumBalanced(node.getLeftChild()));
+	}
+	return this.rebalance(node);
+    }
+
+    /**
+     * @param node
+     *            The root node of a subtree.
+     * @return The root node of the subtree after removing its greatest valued
+     *         node and rebalancing.
+     */
+    private BinarySearchTreeNode<K, E> removeMaximumBalanced(
+	    BinarySearchTreeNode<K, E> node) {
+	if (node.getRightChild() == null) {
+	    return node.getLeftChild();
+	}
+	node.setRightChild(this.removeMaximumBalanced(node.getRightChild()));
+	return this.rebalance(node);
+    }
+
+    /**
+     * Rotate the node's subtree if the heights of its children differ by 2,
+     * after which they differ by at most 1 again.
+     *
+     * @param node
+     *            A node whose children are balanced AVL trees.
+     * @return The root node of the balanced subtree.
+     */
+    private BinarySearchTreeNode<K, E> rebalance(
+	    BinarySearchTreeNode<K, E> node) {
+	BinarySearchTreeNode<K, E> leftChild = node.getLeftChild();
+	BinarySearchTreeNode<K, E> rightChild = node.getRightChild();
+	int balance = this.getHeight(leftChild) - this.getHeight(rightChild);
+	if (balance > 1) {
+	    if (this.getHeight(leftChild.getLeftChild()) < this
+		    .getHeight(leftChild.getRightChild())) {
+		node.setLeftChild(this.rotateLeft(leftChild));
+	    }
+	    return this.rotateRight(node);
+	} else if (balance < -1) {
+	    if (this.getHeight(rightChild.getRightChild()) < this
+		    .getHeight(rightChild.getLeftChild())) {
+		node.setRightChild(this.rotateRight(rightChild));
+	    }
+	    return this.rotateLeft(node);
+	}
+	this.updateHeight(node);
+	return node;
+    }
+
+    /**
+     * @param node
+     *            A node with a left child.
+     * @return The node's left child, which is now the parent of the node.
+     */
+    private BinarySearchTreeNode<K, E> rotateRight(
+	    BinarySearchTreeNode<K, E> node) {
+	BinarySearchTreeNode<K, E> leftChild = node.getLeftChild();
+	node.setLeftChild(leftChild.getRightChild());
+	leftChild.setRightChild(node);
+	this.updateHeight(node);
+	this.updateHeight(leftChild);
+	return leftChild;
+    }
+
+    /**
+     * @param node
+     *            A node with a right child.
+     * @return The node's right child, which is now the parent of the node.
+     */
+    private BinarySearchTreeNode<K, E> rotateLeft(
+	    BinarySearchTreeNode<K, E> node) {
+	BinarySearchTreeNode<K, E> rightChild = node.getRightChild();
+	node.setRightChild(rightChild.getLeftChild());
+	rightChild.setLeftChild(node);
+	this.updateHeight(node);
+	this.updateHeight(rightChild);
+	return rightChild;
+    }
+
+    /**
+     * @param node
+     *            A node whose children have their heights set.
+     */
+    private void updateHeight(BinarySearchTreeNode<K, E> node) {
+	((AVLTreeNode<K, E>) node).setHeight(1 + Math.max(
+		this.getHeight(node.getLeftChild()),
+		this.getHeight(node.getRightChild())));
+    }
+
+    /**
+     * @param node
+     * @return The height of the node's subtree, or 0 for an empty subtree.
+     */
+    private int getHeight(BinarySearchTreeNode<K, E> node) {
+	if (node == null) {
+	    return 0;
+	}
+	return ((AVLTreeNode<K, E>) node).getHeight();
+    }
+}
@@ -0,0 +1,47 @@
+package dataStructures;
+/**
+ * A binary search tree node that also knows the height of its subtree, so an
+ * AVL tree can tell when the node's children are out of balance.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <Key>
+ *            A unique identifier property of the element to be used to
+ *            efficiently store elements in the AVL tree.
+ * @param <Element>
+ *            The type of element to be stored in this node.
+ */
+public class AVLTreeNode<Key, Element> extends
+	BinarySearchTreeNode<Key, Element> {
+    private int height;
+
+    /**
+     * Create a new AVLTreeNode object without children.
+     *
+     * @param key
+     *            The type of key to use for comparing this node with other
+     *            nodes.
+     * @param value
+     *            The type of the value to be stored in this node.
+     */
+    public AVLTreeNode(Key key, Element value) {
+	super(key, value, null, null);
+	this.height = 1;
+    }
+
+    /**
+     * @return The number of nodes on the longest path from this node down to
+     *         a node without children, including both of them.
+     */
+    public int getHeight() {
+	return this.height;
+    }
+
+    /**
+     * @param height
+     *            The new height of this node's subtree.
+     */
+    public void setHeight(int height) {
+	this.height = height;
+    }
+}
@@ -0,0 +1,1380 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A bin tree with the same behaviour as BinTree2D that keeps its nodes in
+ * parallel primitive arrays instead of as node objects.
+ *
+ * A node is referenced by an int. The empty leaf node is -1, an internal node
+ * is its index (0 or more) within the internal node arrays and a leaf node
+ * with index i within the leaf node arrays is -2 - i, so the type of a node is
+ * known from the sign of its reference alone. Each leaf node holds a chain of
+ * records whose coordinates are stored in double columns, so no key objects
+ * are kept. Removed nodes and records are put on free lists and reused by
+ * later inserts.
+ *
+ * Keys are equal if their x and y coordinates are equal.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <K>
+ *            a 2 dimensional point type in space such as a (x, y) coordinate
+ *            that extends the Point class
+ * @param <E>
+ *            the item type to be stored in the leaf nodes of the 2D bin tree
+ */
+public class ArrayBinTree2D<K extends Point, E> implements
+	BinTreeIndex<K, E> {
+    /**
+     * Reference of the empty leaf node and end of every chain.
+     */
+    static final int EMPTY = -1;
+
+    /**
+     * Length of every array of a new bin tree.
+     */
+    protected static final int INITIAL_CAPACITY = 16;
+
+    private int rootNode;
+
+    private double minimumXAxis;
+    private double maximumXAxis;
+    private double minimumYAxis;
+    private double maximumYAxis;
+
+    /**
+     * Number of records with data in this bin tree.
+     */
+    private int size;
+
+    private int leafBucketCapacity;
+    private boolean isMatchingGreatCircleDistance;
+
+    /**
+     * Depth of the deepest leaf nodes, see BinTree2D.
+     */
+    private int maximumDepth;
+
+    /**
+     * If true, planar region searches prune exactly, see BinTree2D.
+     */
+    private boolean isPruningExactly;
+
+    /**
+     * Children of each internal node. A free internal node is chained to the
+     * next free one by its left child.
+     */
+    private int[] leftChildren;
+    private int[] rightChildren;
+    private int numberOfInternalNodesUsed;
+    private int freeInternalNode;
+
+    /**
+     * First and last record of each leaf node's chain and its length. A free
+     * leaf node is chained to the next free one by its first record.
+     */
+    private int[] firstRecords;
+    private int[] lastRecords;
+    private int[] numberOfLeafRecords;
+    private int numberOfLeafNodesUsed;
+    private int freeLeafNode;
+
+    /**
+     * Coordinates, element and next record within the chain of each record.
+     * A free record is chained to the next free one.
+     */
+    private double[] recordXs;
+    private double[] recordYs;
+    private Object[] recordElements;
+    private int[] nextRecords;
+    private int numberOfRecordsUsed;
+    private int freeRecord;
+
+    /**
+     * The x, y and z components of the unit vector of each record, or null if
+     * this bin tree does not match by great circle distance.
+     */
+    private double[] unitVectors;
+
+    /**
+     * Reusable search circle of the current region search.
+     */
+    private RegionQuery query;
+
+    /**
+     * Reusable region search stack of node references still to visit along
+     * with the x, y, width and height of each node's cell, the axis it splits
+     * and for a batch search its parent's active search regions.
+     */
+    private int[] searchNodeStack;
+    private double[] searchCellStack;
+    private boolean[] searchAxisStack;
+    private int[] searchRangeStack;
+
+    /**
+     * Reusable path of internal nodes from the root node down to the leaf
+     * node of the record being removed, along with whether the path goes on
+     * to each node's right child.
+     */
+    private int[] pathNodes;
+    private boolean[] pathSides;
+
+    /**
+     * Reusable search circles of a batch region search and the arena holding
+     * the active search regions of each node on the stack.
+     */
+    private final RegionQueryBatch batch;
+
+    /**
+     * Reusable adapters of the element visitor of a batch region search and
+     * the element removed to the records they are given.
+     */
+    private final ElementVisitor elementVisitor = new ElementVisitor();
+    private final ElementMatcher elementMatcher = new ElementMatcher();
+
+    /**
+     * Prints each found element for the region search that reports to the
+     * console.
+     */
+    private final RegionSearchPrinter<E> regionSearchPrinter =
+	    new RegionSearchPrinter<E>();
+
+    /**
+     * Create a new ArrayBinTree2D object.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     */
+    public ArrayBinTree2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis) {
+	this(minimumXAxis, maximumXAxis, minimumYAxis, maximumYAxis, 1);
+    }
+
+    /**
+     * Create a new bucket ArrayBinTree2D object whose leaf nodes hold up to
+     * leafBucketCapacity records and are only split when they overflow.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param leafBucketCapacity
+     *            The number of records a leaf node can hold before splitting.
+     */
+    public ArrayBinTree2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis, int leafBucketCapacity) {
+	this(minimumXAxis, maximumXAxis, minimumYAxis, maximumYAxis,
+		leafBucketCapacity, false);
+    }
+
+    /**
+     * Create a new bucket ArrayBinTree2D object that can match records by
+     * great circle distance the same way as BinTree2D.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param leafBucketCapacity
+     *            The number of records a leaf node can hold before splitting.
+     * @param isMatchingGreatCircleDistance
+     *            If true, match records by great circle distance.
+     */
+    public ArrayBinTree2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis, int leafBucketCapacity,
+	    boolean isMatchingGreatCircleDistance) {
+	this(minimumXAxis, maximumXAxis, minimumYAxis, maximumYAxis,
+		leafBucketCapacity, isMatchingGreatCircleDistance,
+		BinTree2D.DEFAULT_MAXIMUM_DEPTH);
+    }
+
+    /**
+     * Create a new bucket ArrayBinTree2D object whose leaf nodes are not
+     * split below the given depth, the same way as BinTree2D.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param leafBucketCapacity
+     *            The number of records a leaf node can hold before splitting.
+     * @param isMatchingGreatCircleDistance
+     *            If true, match records by great circle distance.
+     * @param maximumDepth
+     *            The depth below which leaf nodes are never split.
+     */
+    public ArrayBinTree2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis, int leafBucketCapacity,
+	    boolean isMatchingGreatCircleDistance, int maximumDepth) {
+	if (isMatchingGreatCircleDistance
+		&& (minimumXAxis != 0.0 || maximumXAxis != 360.0
+			|| minimumYAxis != 0.0 || maximumYAxis != 180.0)) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class ArrayBinTree2D a great circle bin "
+			    + "tree must span 0 to 360 along the x-axis and 0 "
+			    + "to 180 along the y-axis");
+	}
+	if (leafBucketCapacity < 1) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class ArrayBinTree2D the leaf bucket "
+			    + "capacity must be at least 1");
+	}
+	if (maximumDepth < 0) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class ArrayBinTree2D the maximum depth "
+			    + "must be at least 0");
+	}
+	this.leafBucketCapacity = leafBucketCapacity;
+	this.isMatchingGreatCircleDistance = isMatchingGreatCircleDistance;
+	this.maximumDepth = maximumDepth;
+	this.minimumXAxis = minimumXAxis;
+	this.maximumXAxis = maximumXAxis;
+	this.minimumYAxis = minimumYAxis;
+	this.maximumYAxis = maximumYAxis;
+
+	this.leftChildren = new int[INITIAL_CAPACITY];
+	this.rightChildren = new int[INITIAL_CAPACITY];
+	this.firstRecords = new int[INITIAL_CAPACITY];
+	this.lastRecords = new int[INITIAL_CAPACITY];
+	this.numberOfLeafRecords = new int[INITIAL_CAPACITY];
+	this.recordXs = new double[INITIAL_CAPACITY];
+	this.recordYs = new double[INITIAL_CAPACITY];
+	this.recordElements = new Object[INITIAL_CAPACITY];
+	this.nextRecords = new int[INITIAL_CAPACITY];
+	if (isMatchingGreatCircleDistance) {
+	    this.unitVectors = new double[INITIAL_CAPACITY * 3];
+	}
+	this.clear();
+
+	this.query = new RegionQuery();
+	int initialSearchStackLength = 64;
+	this.searchNodeStack = new int[initialSearchStackLength];
+	this.searchCellStack = new double[initialSearchStackLength * 4];
+	this.searchAxisStack = new boolean[initialSearchStackLength];
+	this.searchRangeStack = new int[initialSearchStackLength * 2];
+	this.batch = new RegionQueryBatch(initialSearchStackLength);
+	this.pathNodes = new int[initialSearchStackLength];
+	this.pathSides = new boolean[initialSearchStackLength];
+    }
+
+    /**
+     * Insert a new element.
+     *
+     * @param key
+     *            Only the x and y coordinates of the key are stored.
+     * @param element
+     *            The element to be stored.
+     */
+    @Override
+    public void insert(K key, E element) {
+	int record = this.allocateRecord(key.getX(), key.getY());
+	this.setRecordElement(record, element);
+	this.insertAllocatedRecord(record);
+    }
+
+    /**
+     * @param key
+     * @param element
+     * @return true if the record was inserted; otherwise return false because
+     *         the key is already in the bin tree.
+     */
+    @Override
+    public boolean insertIfAbsent(K key, E element) {
+	int record = this.allocateRecord(key.getX(), key.getY());
+	this.setRecordElement(record, element);
+	return this.insertAllocatedRecordIfAbsent(record);
+    }
+
+    /**
+     * Insert a record returned by allocateRecord whose element is stored.
+     *
+     * @param record
+     */
+    protected final void insertAllocatedRecord(int record) {
+	this.insertRecord(record, EMPTY, false, this.minimumXAxis,
+		this.minimumYAxis, this.maximumXAxis - this.minimumXAxis,
+		this.maximumYAxis - this.minimumYAxis, true, 0);
+	this.size++;
+    }
+
+    /**
+     * Walk down to the cell of the record's key once. If its leaf node holds
+     * the key the record is freed; otherwise the record is inserted from the
+     * child slot the walk stopped at.
+     *
+     * @param record
+     *            A record returned by allocateRecord whose element is stored.
+     * @return true if the record was inserted; otherwise return false because
+     *         the key is already in the bin tree.
+     */
+    protected final boolean insertAllocatedRecordIfAbsent(int record) {
+	double x = this.getRecordX(record);
+	double y = this.getRecordY(record);
+	double cellX = this.minimumXAxis;
+	double cellY = this.minimumYAxis;
+	double cellWidth = this.maximumXAxis - this.minimumXAxis;
+	double cellHeight = this.maximumYAxis - this.minimumYAxis;
+	boolean isSplittingXAxis = true;
+	int parentNode = EMPTY;
+	boolean isRightChild = false;
+	int depth = 0;
+	int node = this.rootNode;
+	while (node >= 0) {
+	    parentNode = node;
+	    depth++;
+	    if (isSplittingXAxis) {
+		isRightChild = x >= (cellX + (cellX + cellWidth)) / 2;
+		cellWidth = cellWidth / 2;
+		if (isRightChild) {
+		    cellX = cellX + cellWidth;
+		}
+	    } else {
+		isRightChild = y >= (cellY + (cellY + cellHeight)) / 2;
+		cellHeight = cellHeight / 2;
+		if (isRightChild) {
+		    cellY = cellY + cellHeight;
+		}
+	    }
+	    isSplittingXAxis = !isSplittingXAxis;
+	    node = isRightChild ? this.rightChildren[node]
+		    : this.leftChildren[node];
+	}
+
+	if (node != EMPTY) {
+	    for (int leafRecord = this.firstRecords[toLeafReference(node)];
+		    leafRecord != EMPTY;
+		    leafRecord = this.nextRecords[leafRecord]) {
+		if (this.isKey(leafRecord, x, y)) {
+		    this.freeRecord(record);
+		    return false;
+		}
+	    }
+	}
+	this.insertRecord(record, parentNode, isRightChild, cellX, cellY,
+		cellWidth, cellHeight, isSplittingXAxis, depth);
+	this.size++;
+	return true;
+    }
+
+    /**
+     * Walk down from a child slot of an internal node to the leaf node the
+     * record belongs to. A full leaf node is replaced by an internal node
+     * that its records are inserted into before the walk continues.
+     *
+     * @param record
+     * @param parentNode
+     *            Internal node holding the slot, or EMPTY for the root slot.
+     * @param isRightChild
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @param isSplittingXAxis
+     * @param depth
+     *            Depth of the node in the slot.
+     */
+    void insertRecord(int record, int parentNode, boolean isRightChild,
+	    double cellX, double cellY, double cellWidth, double cellHeight,
+	    boolean isSplittingXAxis, int depth) {
+	double x = this.getRecordX(record);
+	double y = this.getRecordY(record);
+	while (true) {
+	    int node = this.getChild(parentNode, isRightChild);
+	    if (node == EMPTY) {
+		int leafNode = this.allocateLeafNode();
+		this.appendRecord(leafNode, record);
+		this.setChild(parentNode, isRightChild,
+			toLeafReference(leafNode));
+		return;
+	    } else if (node >= 0) { // internal node
+		parentNode = node;
+		depth++;
+		if (isSplittingXAxis) {
+		    // same arithmetic as BoundingBox
+		    isRightChild = x >= (cellX + (cellX + cellWidth)) / 2;
+		    cellWidth = cellWidth / 2;
+		    if (isRightChild) {
+			cellX = cellX + cellWidth;
+		    }
+		} else {
+		    isRightChild = y >= (cellY + (cellY + cellHeight)) / 2;
+		    cellHeight = cellHeight / 2;
+		    if (isRightChild) {
+			cellY = cellY + cellHeight;
+		    }
+		}
+		isSplittingXAxis = !isSplittingXAxis;
+	    } else {
+		int leafNode = toLeafReference(node);
+		if (this.numberOfLeafRecords[leafNode] < this.leafBucketCapacity
+			|| this.isHoldingOnlyKey(leafNode, x, y)
+			|| depth >= this.maximumDepth) {
+		    this.appendRecord(leafNode, record);
+		    return;
+		}
+
+		// the records of a full leaf node always fit into the leaves
+		// of a new internal node without splitting again
+		int internalNode = this.allocateInternalNode();
+		this.setChild(parentNode, isRightChild, internalNode);
+		int oldRecord = this.firstRecords[leafNode];
+		this.freeLeafNode(leafNode);
+		while (oldRecord != EMPTY) {
+		    int nextRecord = this.nextRecords[oldRecord];
+		    this.insertRecord(oldRecord, parentNode, isRightChild,
+			    cellX, cellY, cellWidth, cellHeight,
+			    isSplittingXAxis, depth);
+		    oldRecord = nextRecord;
+		}
+	    }
+	}
+    }
+
+    /**
+     * @param key
+     *            The key of the element to remove.
+     * @param element
+     *            The element to remove.
+     * @return true if element with key was removed from bin tree; otherwise
+     *         return false.
+     */
+    @Override
+    public boolean remove(K key, E element) {
+	this.elementMatcher.element = element;
+	boolean isRemoved = this.removeRecord(key.getX(), key.getY(),
+		this.elementMatcher);
+	this.elementMatcher.element = null;
+	return isRemoved;
+    }
+
+    /**
+     * Walk down to the leaf node of the key once, remembering the internal
+     * nodes on the way, unlink the first record at the key that the matcher
+     * matches and prune back up the path with pruneInternalNode, as
+     * BinTree2D.remove does.
+     *
+     * @param x
+     * @param y
+     * @param matcher
+     *            Asked about each record at the key by its index.
+     * @return true if a record was removed from bin tree; otherwise return
+     *         false.
+     */
+    protected final boolean removeRecord(double x, double y,
+	    HandleMatcher matcher) {
+	double cellX = this.minimumXAxis;
+	double cellY = this.minimumYAxis;
+	double cellWidth = this.maximumXAxis - this.minimumXAxis;
+	double cellHeight = this.maximumYAxis - this.minimumYAxis;
+	boolean isSplittingXAxis = true;
+	int depth = 0;
+	int node = this.rootNode;
+	while (node >= 0) {
+	    boolean isRightChild;
+	    if (isSplittingXAxis) {
+		isRightChild = x >= (cellX + (cellX + cellWidth)) / 2;
+		cellWidth = cellWidth / 2;
+		if (isRightChild) {
+		    cellX = cellX + cellWidth;
+		}
+	    } else {
+		isRightChild = y >= (cellY + (cellY + cellHeight)) / 2;
+		cellHeight = cellHeight / 2;
+		if (isRightChild) {
+		    cellY = cellY + cellHeight;
+		}
+	    }
+	    isSplittingXAxis = !isSplittingXAxis;
+	    this.pushPathNode(depth, node, isRightChild);
+	    depth++;
+	    node = isRightChild ? this.rightChildren[node]
+		    : this.leftChildren[node];
+	}
+	if (node == EMPTY) {
+	    return false;
+	}
+
+	int leafNode = toLeafReference(node);
+	int previousRecord = EMPTY;
+	int record = this.firstRecords[leafNode];
+	while (record != EMPTY
+		&& !(matcher.isMatch(record) && this.isKey(record, x, y))) {
+	    previousRecord = record;
+	    record = this.nextRecords[record];
+	}
+	if (record == EMPTY) {
+	    return false;
+	}
+	int nextRecord = this.nextRecords[record];
+	if (previousRecord == EMPTY) {
+	    this.firstRecords[leafNode] = nextRecord;
+	} else {
+	    this.nextRecords[previousRecord] = nextRecord;
+	}
+	if (this.lastRecords[leafNode] == record) {
+	    this.lastRecords[leafNode] = previousRecord;
+	}
+	this.numberOfLeafRecords[leafNode]--;
+	this.freeRecord(record);
+	this.size--;
+	int childNode = node;
+	if (this.numberOfLeafRecords[leafNode] == 0) {
+	    this.freeLeafNode(leafNode);
+	    childNode = EMPTY;
+	}
+
+	// prune the path bottom up until an internal node stays
+	int pathIndex = depth - 1;
+	while (pathIndex >= 0) {
+	    int parentNode = this.pathNodes[pathIndex];
+	    this.setChild(parentNode, this.pathSides[pathIndex], childNode);
+	    childNode = this.pruneInternalNode(parentNode);
+	    if (childNode == parentNode) {
+		return true;
+	    }
+	    pathIndex--;
+	}
+	this.rootNode = childNode;
+	return true;
+    }
+
+    /**
+     * Store an internal node on the path of a remove, growing the path arrays
+     * if they are full.
+     *
+     * @param index
+     * @param internalNode
+     * @param isRightChild
+     *            true if the path goes on to the node's right child.
+     */
+    private void pushPathNode(int index, int internalNode,
+	    boolean isRightChild) {
+	if (index == this.pathNodes.length) {
+	    this.pathNodes = Arrays.copyOf(this.pathNodes, index * 2);
+	    this.pathSides = Arrays.copyOf(this.pathSides, index * 2);
+	}
+	this.pathNodes[index] = internalNode;
+	this.pathSides[index] = isRightChild;
+    }
+
+    /**
+     * Given an internal node whose children are already pruned, replace it
+     * by its only leaf node child when the other child is empty and merge two
+     * leaf node children whose records fit into a single bucket, with the
+     * same rules as BinTree2D.pruneInternalNode.
+     *
+     * @param internalNode
+     * @return The reference of the node that takes the place of the internal
+     *         node.
+     */
+    int pruneInternalNode(int internalNode) {
+	int leftChild = this.leftChildren[internalNode];
+	int rightChild = this.rightChildren[internalNode];
+	if (leftChild < EMPTY && rightChild < EMPTY) {
+	    return this.mergeLeafNodes(internalNode);
+	} else if (leftChild == EMPTY && rightChild < EMPTY) {
+	    this.freeInternalNode(internalNode);
+	    return rightChild;
+	} else if (leftChild < EMPTY && rightChild == EMPTY) {
+	    this.freeInternalNode(internalNode);
+	    return leftChild;
+	}
+	return internalNode;
+    }
+
+    /**
+     * @param internalNode
+     *            An internal node whose children are both leaf nodes.
+     * @return The left leaf node holding the records of both leaf nodes in
+     *         preorder if they fit into one bucket; otherwise return the
+     *         internalNode.
+     */
+    private int mergeLeafNodes(int internalNode) {
+	int leftLeafNode = toLeafReference(this.leftChildren[internalNode]);
+	int rightLeafNode = toLeafReference(this.rightChildren[internalNode]);
+	int numberOfRecords = this.numberOfLeafRecords[leftLeafNode]
+		+ this.numberOfLeafRecords[rightLeafNode];
+	if (numberOfRecords > this.leafBucketCapacity) {
+	    return internalNode;
+	}
+	this.nextRecords[this.lastRecords[leftLeafNode]] =
+		this.firstRecords[rightLeafNode];
+	this.lastRecords[leftLeafNode] = this.lastRecords[rightLeafNode];
+	this.numberOfLeafRecords[leftLeafNode] = numberOfRecords;
+	this.freeLeafNode(rightLeafNode);
+	this.freeInternalNode(internalNode);
+	return toLeafReference(leftLeafNode);
+    }
+
+    /**
+     * @param key
+     *            Used to search through the bin tree.
+     * @param element
+     *            The element to find within the bin tree.
+     * @return The element in the bin tree if the given element with the given
+     *         key exists within the bin tree. If the given element does not
+     *         exist within the bin tree return null.
+     */
+    @Override
+    public E find(K key, E element) {
+	int leafNode = this.findLeafNode(key.getX(), key.getY());
+	if (leafNode == EMPTY) {
+	    return null;
+	}
+	for (int record = this.firstRecords[leafNode]; record != EMPTY;
+		record = this.nextRecords[record]) {
+	    if (this.isRecord(record, key.getX(), key.getY(), element)) {
+		return element;
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * @param key
+     * @return true if key exists within bintree; otherwise return false.
+     */
+    @Override
+    public boolean findKey(K key) {
+	int leafNode = this.findLeafNode(key.getX(), key.getY());
+	if (leafNode == EMPTY) {
+	    return false;
+	}
+	for (int record = this.firstRecords[leafNode]; record != EMPTY;
+		record = this.nextRecords[record]) {
+	    if (this.isKey(record, key.getX(), key.getY())) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return index of the leaf node whose cell holds (x, y); otherwise return
+     *         EMPTY if that cell is empty.
+     */
+    private int findLeafNode(double x, double y) {
+	int node = this.rootNode;
+	double cellX = this.minimumXAxis;
+	double cellY = this.minimumYAxis;
+	double cellWidth = this.maximumXAxis - this.minimumXAxis;
+	double cellHeight = this.maximumYAxis - this.minimumYAxis;
+	boolean isSplittingXAxis = true;
+	while (node >= 0) {
+	    boolean isRightChild;
+	    if (isSplittingXAxis) {
+		isRightChild = x >= (cellX + (cellX + cellWidth)) / 2;
+		cellWidth = cellWidth / 2;
+		if (isRightChild) {
+		    cellX = cellX + cellWidth;
+		}
+	    } else {
+		isRightChild = y >= (cellY + (cellY + cellHeight)) / 2;
+		cellHeight = cellHeight / 2;
+		if (isRightChild) {
+		    cellY = cellY + cellHeight;
+		}
+	    }
+	    isSplittingXAxis = !isSplittingXAxis;
+	    node = isRightChild ? this.rightChildren[node]
+		    : this.leftChildren[node];
+	}
+	return node == EMPTY ? EMPTY : toLeafReference(node);
+    }
+
+    /**
+     * Print every element within a radius of 2 * magnitude^3 of the given
+     * point.
+     *
+     * @param keyXCoordinate
+     * @param keyYCoordinate
+     * @param magnitude
+     * @return A string describing how many nodes were visited during the
+     *         search.
+     */
+    @Override
+    public String regionSearch(double keyXCoordinate, double keyYCoordinate,
+	    double magnitude) {
+	return this.regionSearchPrinter.regionSearch(this, keyXCoordinate,
+		keyYCoordinate, magnitude);
+    }
+
+    /**
+     * Give every element within the search circle to the visitor. The same
+     * elements are given in the same order and the same number of nodes are
+     * visited as by BinTree2D.regionSearch.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @param visitor
+     *            Receives each element within the search circle in preorder.
+     * @return The number of nodes that were visited.
+     */
+    @Override
+    public int regionSearch(double objectX, double objectY,
+	    double objectDistance, RegionSearchVisitor<E> visitor) {
+	this.query.setCircle(objectX, objectY, objectDistance,
+		this.isMatchingGreatCircleDistance);
+	this.query.isPruningExactly = this.isPruningExactly;
+
+	int numberOfNodesVisited = 0;
+	for (int i = 0; i < this.query.numberOfBoxes; i++) {
+	    numberOfNodesVisited += this.regionSearchBox(this.query, i,
+		    visitor);
+	}
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * @param regionQuery
+     *            The search circle.
+     * @param boxIndex
+     *            The box of the search circle to search.
+     * @param visitor
+     *            Receives each element within the search circle and the box.
+     * @return The number of nodes that were visited.
+     */
+    @SuppressWarnings("unchecked")
+    int regionSearchBox(RegionQuery regionQuery, int boxIndex,
+	    RegionSearchVisitor<E> visitor) {
+	int numberOfNodesVisited = 0;
+	int stackSize = 0;
+	this.pushSearchFrame(stackSize++, this.rootNode, this.minimumXAxis,
+		this.minimumYAxis, this.maximumXAxis - this.minimumXAxis,
+		this.maximumYAxis - this.minimumYAxis, true);
+
+	while (stackSize > 0) {
+	    stackSize--;
+	    int node = this.searchNodeStack[stackSize];
+	    int cellIndex = stackSize * 4;
+	    double cellX = this.searchCellStack[cellIndex];
+	    double cellY = this.searchCellStack[cellIndex + 1];
+	    double cellWidth = this.searchCellStack[cellIndex + 2];
+	    double cellHeight = this.searchCellStack[cellIndex + 3];
+	    boolean isSplittingXAxis = this.searchAxisStack[stackSize];
+
+	    if (!regionQuery.isReachingCell(boxIndex, cellX, cellY,
+		    cellWidth, cellHeight)) {
+		continue;
+	    }
+	    numberOfNodesVisited++;
+
+	    if (node >= 0) {
+		stackSize = this.pushChildren(stackSize, node, cellX, cellY,
+			cellWidth, cellHeight, isSplittingXAxis);
+	    } else if (node != EMPTY) {
+		for (int record = this.firstRecords[toLeafReference(node)];
+			record != EMPTY; record = this.nextRecords[record]) {
+		    if (regionQuery.isMatch(boxIndex, this.getRecordX(record),
+			    this.getRecordY(record), this.unitVectors,
+			    record * 3)) {
+			visitor.visit(this.getRecordElement(record));
+		    }
+		}
+	    }
+	}
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Search many circles at once with one walk of the bin tree per box index
+     * the same way as the batch BinTree2D.regionSearch.
+     *
+     * @param objectX
+     *            x coordinates of the centers of the search circles.
+     * @param objectY
+     *            y coordinates of the centers of the search circles.
+     * @param objectDistance
+     *            radii of the search circles.
+     * @param numberOfQueries
+     *            The number of search circles in the arrays to search.
+     * @param visitor
+     *            Receives each element within a search circle with the index
+     *            of the circle.
+     * @return The number of nodes that were visited for each search circle.
+     */
+    @Override
+    public int[] regionSearch(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    BatchRegionSearchVisitor<E> visitor) {
+	this.elementVisitor.batchVisitor = visitor;
+	int[] numberOfNodesVisited = this.regionSearchRecords(objectX,
+		objectY, objectDistance, numberOfQueries, this.elementVisitor);
+	this.elementVisitor.batchVisitor = null;
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Search many circles at once the same way as the batch regionSearch,
+     * giving the index of each record found instead of its element.
+     *
+     * @param objectX
+     *            x coordinates of the centers of the search circles.
+     * @param objectY
+     *            y coordinates of the centers of the search circles.
+     * @param objectDistance
+     *            radii of the search circles.
+     * @param numberOfQueries
+     *            The number of search circles in the arrays to search.
+     * @param recordVisitor
+     *            Receives the index of each record within a search circle
+     *            with the index of the circle.
+     * @return The number of nodes that were visited for each search circle.
+     */
+    protected final int[] regionSearchRecords(double[] objectX,
+	    double[] objectY, double[] objectDistance, int numberOfQueries,
+	    IntBatchRegionSearchVisitor recordVisitor) {
+	int[] numberOfNodesVisited = new int[numberOfQueries];
+	if (numberOfQueries == 0) {
+	    return numberOfNodesVisited;
+	}
+	this.batch.setCircles(objectX, objectY, objectDistance,
+		numberOfQueries, this.isMatchingGreatCircleDistance);
+	for (int i = 0; i < numberOfQueries; i++) {
+	    this.batch.getQuery(i).isPruningExactly = this.isPruningExactly;
+	}
+
+	for (int boxIndex = 0; boxIndex < RegionQuery.MAXIMUM_NUMBER_OF_BOXES;
+		boxIndex++) {
+	    int arenaTop = this.batch.addBoxes(boxIndex, numberOfQueries);
+	    if (arenaTop > 0) {
+		this.walkBatch(arenaTop, numberOfNodesVisited, recordVisitor);
+	    }
+	}
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Walk the bin tree once for the search regions at the bottom of the
+     * active query arena.
+     *
+     * @param arenaTop
+     *            The number of search regions active at the root node.
+     * @param numberOfNodesVisited
+     *            Receives the number of nodes visited for each circle.
+     * @param recordVisitor
+     *            Receives the index of each record within a search circle
+     *            with the index of the circle.
+     */
+    private void walkBatch(int arenaTop, int[] numberOfNodesVisited,
+	    IntBatchRegionSearchVisitor recordVisitor) {
+	this.pushSearchFrame(0, this.rootNode, this.minimumXAxis,
+		this.minimumYAxis, this.maximumXAxis - this.minimumXAxis,
+		this.maximumYAxis - this.minimumYAxis, true);
+	this.searchRangeStack[0] = 0;
+	this.searchRangeStack[1] = arenaTop;
+	int stackSize = 1;
+
+	while (stackSize > 0) {
+	    stackSize--;
+	    int node = this.searchNodeStack[stackSize];
+	    int cellIndex = stackSize * 4;
+	    double cellX = this.searchCellStack[cellIndex];
+	    double cellY = this.searchCellStack[cellIndex + 1];
+	    double cellWidth = this.searchCellStack[cellIndex + 2];
+	    double cellHeight = this.searchCellStack[cellIndex + 3];
+	    boolean isSplittingXAxis = this.searchAxisStack[stackSize];
+	    int parentStart = this.searchRangeStack[stackSize * 2];
+	    int parentEnd = parentStart
+		    + this.searchRangeStack[stackSize * 2 + 1];
+
+	    // no circle accepts a cell of an array bin tree whole
+	    int activeStart = parentEnd;
+	    arenaTop = this.batch.addReachingRegions(parentStart, parentEnd,
+		    cellX, cellY, cellWidth, cellHeight, numberOfNodesVisited);
+	    int activeCount = arenaTop - activeStart;
+	    if (activeCount == 0) {
+		continue;
+	    }
+
+	    if (node >= 0) {
+		int childrenStart = stackSize;
+		stackSize = this.pushChildren(stackSize, node, cellX, cellY,
+			cellWidth, cellHeight, isSplittingXAxis);
+		for (int i = childrenStart; i < stackSize; i++) {
+		    this.searchRangeStack[i * 2] = activeStart;
+		    this.searchRangeStack[i * 2 + 1] = activeCount;
+		}
+	    } else if (node != EMPTY) {
+		for (int record = this.firstRecords[toLeafReference(node)];
+			record != EMPTY; record = this.nextRecords[record]) {
+		    for (int j = activeStart; j < arenaTop; j++) {
+			if (this.batch.isMatch(j, this.getRecordX(record),
+				this.getRecordY(record), this.unitVectors,
+				record * 3)) {
+			    recordVisitor.visit(this.batch.getQueryIndex(j),
+				    record);
+			}
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Push the children of an internal node onto the region search stack, the
+     * right child first so the left child is visited first.
+     *
+     * @return The new size of the region search stack.
+     */
+    private int pushChildren(int stackSize, int internalNode, double cellX,
+	    double cellY, double cellWidth, double cellHeight,
+	    boolean isSplittingXAxis) {
+	if (isSplittingXAxis) {
+	    double halfWidth = cellWidth / 2;
+	    this.pushSearchFrame(stackSize++,
+		    this.rightChildren[internalNode], cellX + halfWidth,
+		    cellY, halfWidth, cellHeight, false);
+	    this.pushSearchFrame(stackSize++,
+		    this.leftChildren[internalNode], cellX, cellY, halfWidth,
+		    cellHeight, false);
+	} else {
+	    double halfHeight = cellHeight / 2;
+	    this.pushSearchFrame(stackSize++,
+		    this.rightChildren[internalNode], cellX, cellY
+			    + halfHeight, cellWidth, halfHeight, true);
+	    this.pushSearchFrame(stackSize++,
+		    this.leftChildren[internalNode], cellX, cellY, cellWidth,
+		    halfHeight, true);
+	}
+	return stackSize;
+    }
+
+    private void pushSearchFrame(int index, int node, double cellX,
+	    double cellY, double cellWidth, double cellHeight,
+	    boolean isSplittingXAxis) {
+	if (index == this.searchNodeStack.length) {
+	    int newLength = this.searchNodeStack.length * 2;
+	    this.searchNodeStack = Arrays.copyOf(this.searchNodeStack,
+		    newLength);
+	    this.searchCellStack = Arrays.copyOf(this.searchCellStack,
+		    newLength * 4);
+	    this.searchAxisStack = Arrays.copyOf(this.searchAxisStack,
+		    newLength);
+	    this.searchRangeStack = Arrays.copyOf(this.searchRangeStack,
+		    newLength * 2);
+	}
+	this.searchNodeStack[index] = node;
+	int cellIndex = index * 4;
+	this.searchCellStack[cellIndex] = cellX;
+	this.searchCellStack[cellIndex + 1] = cellY;
+	this.searchCellStack[cellIndex + 2] = cellWidth;
+	this.searchCellStack[cellIndex + 3] = cellHeight;
+	this.searchAxisStack[index] = isSplittingXAxis;
+    }
+
+    /**
+     * Add the given records to an empty bin tree by inserting them in list
+     * order. The records are already kept in arrays, so there are no node
+     * objects to build in parallel and the pool is not used.
+     *
+     * @param keys
+     * @param elements
+     *            The element of each key.
+     * @param pool
+     *            Ignored by the array bin tree.
+     */
+    @Override
+    public void bulkLoad(List<K> keys, List<E> elements, ForkJoinPool pool) {
+	if (keys.size() != elements.size()) {
+	    throw new IllegalArgumentException("In method bulkLoad of class "
+		    + "ArrayBinTree2D there must be one element per key");
+	}
+	if (this.size != 0) {
+	    throw new IllegalStateException("In method bulkLoad of class "
+		    + "ArrayBinTree2D the bin tree must be empty");
+	}
+	for (int i = 0; i < keys.size(); i++) {
+	    this.insert(keys.get(i), elements.get(i));
+	}
+    }
+
+    /**
+     * Remove all records and nodes from the bin tree. The arrays keep their
+     * length so the bin tree can be refilled without growing them again.
+     */
+    @Override
+    public void clear() {
+	for (int record = 0; record < this.numberOfRecordsUsed; record++) {
+	    this.setRecordElement(record, null);
+	}
+	this.rootNode = EMPTY;
+	this.size = 0;
+	this.numberOfInternalNodesUsed = 0;
+	this.freeInternalNode = EMPTY;
+	this.numberOfLeafNodesUsed = 0;
+	this.freeLeafNode = EMPTY;
+	this.numberOfRecordsUsed = 0;
+	this.freeRecord = EMPTY;
+    }
+
+    /**
+     * @return the number of records with data in the bin tree.
+     */
+    @Override
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * @return the number of records a leaf node holds before it is split.
+     */
+    @Override
+    public int getLeafBucketCapacity() {
+	return this.leafBucketCapacity;
+    }
+
+    /**
+     * @return the depth below which leaf nodes are never split.
+     */
+    @Override
+    public int getMaximumDepth() {
+	return this.maximumDepth;
+    }
+
+    /**
+     * @param isPruningExactly
+     *            If true, planar region searches skip every cell whose
+     *            nearest point lies outside of the search circle.
+     */
+    @Override
+    public void setExactCirclePruning(boolean isPruningExactly) {
+	this.isPruningExactly = isPruningExactly;
+    }
+
+    /**
+     * @return true if planar region searches prune exactly by the search
+     *         circle.
+     */
+    @Override
+    public boolean isPruningExactly() {
+	return this.isPruningExactly;
+    }
+
+    /**
+     * @return true if region searches match records by great circle distance.
+     */
+    @Override
+    public boolean isMatchingGreatCircleDistance() {
+	return this.isMatchingGreatCircleDistance;
+    }
+
+    /**
+     * @return a string representation of a preorder traversal of the bin tree
+     *         in the same notation as BinTree2D.preorderTraversal: 1) "I" for
+     *         internal nodes 2) "E" for empty leaf nodes 3) the elements of a
+     *         leaf node
+     */
+    public String preorderTraversal() {
+	StringBuilder stringBuilder = new StringBuilder();
+	this.preorderTraversal(this.rootNode, stringBuilder);
+	return stringBuilder.toString();
+    }
+
+    /**
+     * @return the preorder traversal of the bin tree.
+     */
+    @Override
+    public String debugTraversal() {
+	return this.preorderTraversal();
+    }
+
+    private void preorderTraversal(int node, StringBuilder stringBuilder) {
+	if (node == EMPTY) {
+	    stringBuilder.append("E\n");
+	} else if (node >= 0) {
+	    stringBuilder.append("I\n");
+	    this.preorderTraversal(this.leftChildren[node], stringBuilder);
+	    this.preorderTraversal(this.rightChildren[node], stringBuilder);
+	} else {
+	    for (int record = this.firstRecords[toLeafReference(node)];
+		    record != EMPTY; record = this.nextRecords[record]) {
+		stringBuilder.append(this.getRecordString(record) + "\n");
+	    }
+	}
+    }
+
+    /**
+     * Store the coordinates of a record. A subclass whose elements already
+     * lead to their coordinates, such as handles of rows holding them, may
+     * read them from there instead by overriding this method along with
+     * getRecordX, getRecordY and resizeRecordKeys. The element of a record
+     * is stored right after its coordinates and before they are read.
+     *
+     * @param record
+     * @param x
+     * @param y
+     */
+    protected void setRecordKey(int record, double x, double y) {
+	this.recordXs[record] = x;
+	this.recordYs[record] = y;
+    }
+
+    /**
+     * @param record
+     * @return The x coordinate of the record.
+     */
+    protected double getRecordX(int record) {
+	return this.recordXs[record];
+    }
+
+    /**
+     * @param record
+     * @return The y coordinate of the record.
+     */
+    protected double getRecordY(int record) {
+	return this.recordYs[record];
+    }
+
+    /**
+     * Grow the columns of coordinates along with the other record columns.
+     *
+     * @param length
+     *            The new number of records the columns hold.
+     */
+    protected void resizeRecordKeys(int length) {
+	this.recordXs = Arrays.copyOf(this.recordXs, length);
+	this.recordYs = Arrays.copyOf(this.recordYs, length);
+    }
+
+    /**
+     * Store the element of a record. A subclass may keep its elements in a
+     * column of its own, such as an int column of handles, by overriding
+     * this method along with getRecordElement, isRecordElement,
+     * resizeRecordElements and getRecordString.
+     *
+     * @param record
+     * @param element
+     *            The element of the record, or null when the record is
+     *            freed.
+     */
+    protected void setRecordElement(int record, E element) {
+	this.recordElements[record] = element;
+    }
+
+    /**
+     * @param record
+     * @return The element of the record.
+     */
+    @SuppressWarnings("unchecked")
+    protected E getRecordElement(int record) {
+	return (E) this.recordElements[record];
+    }
+
+    /**
+     * @param record
+     * @param element
+     * @return true if the element of the record equals the element.
+     */
+    protected boolean isRecordElement(int record, E element) {
+	return element.equals(this.recordElements[record]);
+    }
+
+    /**
+     * Grow the column of elements along with the other record columns.
+     *
+     * @param length
+     *            The new number of records the columns hold.
+     */
+    protected void resizeRecordElements(int length) {
+	this.recordElements = Arrays.copyOf(this.recordElements, length);
+    }
+
+    /**
+     * @param record
+     * @return The element of the record as printed by preorderTraversal.
+     */
+    protected String getRecordString(int record) {
+	return this.recordElements[record].toString();
+    }
+
+    /**
+     * Convert the index of a leaf node to its reference and back.
+     *
+     * @param leafNode
+     * @return -2 - leafNode
+     */
+    static int toLeafReference(int leafNode) {
+	return -2 - leafNode;
+    }
+
+    private int getChild(int parentNode, boolean isRightChild) {
+	if (parentNode == EMPTY) {
+	    return this.rootNode;
+	}
+	return isRightChild ? this.rightChildren[parentNode]
+		: this.leftChildren[parentNode];
+    }
+
+    private void setChild(int parentNode, boolean isRightChild, int node) {
+	if (parentNode == EMPTY) {
+	    this.rootNode = node;
+	} else if (isRightChild) {
+	    this.rightChildren[parentNode] = node;
+	} else {
+	    this.leftChildren[parentNode] = node;
+	}
+    }
+
+    private boolean isKey(int record, double x, double y) {
+	// the same comparison as Point.equals
+	return Double.doubleToLongBits(this.getRecordX(record)) == Double
+		.doubleToLongBits(x)
+		&& Double.doubleToLongBits(this.getRecordY(record)) == Double
+			.doubleToLongBits(y);
+    }
+
+    private boolean isRecord(int record, double x, double y, E element) {
+	return this.isRecordElement(record, element)
+		&& this.isKey(record, x, y);
+    }
+
+    private boolean isHoldingOnlyKey(int leafNode, double x, double y) {
+	for (int record = this.firstRecords[leafNode]; record != EMPTY;
+		record = this.nextRecords[record]) {
+	    if (!this.isKey(record, x, y)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    private void appendRecord(int leafNode, int record) {
+	this.nextRecords[record] = EMPTY;
+	if (this.numberOfLeafRecords[leafNode] == 0) {
+	    this.firstRecords[leafNode] = record;
+	} else {
+	    this.nextRecords[this.lastRecords[leafNode]] = record;
+	}
+	this.lastRecords[leafNode] = record;
+	this.numberOfLeafRecords[leafNode]++;
+    }
+
+    private int allocateInternalNode() {
+	int internalNode = this.freeInternalNode;
+	if (internalNode != EMPTY) {
+	    this.freeInternalNode = this.leftChildren[internalNode];
+	} else {
+	    internalNode = this.numberOfInternalNodesUsed++;
+	    if (internalNode == this.leftChildren.length) {
+		this.leftChildren = Arrays.copyOf(this.leftChildren,
+			internalNode * 2);
+		this.rightChildren = Arrays.copyOf(this.rightChildren,
+			internalNode * 2);
+	    }
+	}
+	this.leftChildren[internalNode] = EMPTY;
+	this.rightChildren[internalNode] = EMPTY;
+	return internalNode;
+    }
+
+    private void freeInternalNode(int internalNode) {
+	this.leftChildren[internalNode] = this.freeInternalNode;
+	this.freeInternalNode = internalNode;
+    }
+
+    private int allocateLeafNode() {
+	int leafNode = this.freeLeafNode;
+	if (leafNode != EMPTY) {
+	    this.freeLeafNode = this.firstRecords[leafNode];
+	} else {
+	    leafNode = this.numberOfLeafNodesUsed++;
+	    if (leafNode == this.firstRecords.length) {
+		this.firstRecords = Arrays.copyOf(this.firstRecords,
+			leafNode * 2);
+		this.lastRecords = Arrays.copyOf(this.lastRecords,
+			leafNode * 2);
+		this.numberOfLeafRecords = Arrays.copyOf(
+			this.numberOfLeafRecords, leafNode * 2);
+	    }
+	}
+	this.firstRecords[leafNode] = EMPTY;
+	this.lastRecords[leafNode] = EMPTY;
+	this.numberOfLeafRecords[leafNode] = 0;
+	return leafNode;
+    }
+
+    private void freeLeafNode(int leafNode) {
+	this.firstRecords[leafNode] = this.freeLeafNode;
+	this.freeLeafNode = leafNode;
+    }
+
+    /**
+     * Allocate a record at the given coordinates, reusing a freed one. Its
+     * element must be stored before the record is inserted with
+     * insertAllocatedRecord or insertAllocatedRecordIfAbsent.
+     *
+     * @param x
+     * @param y
+     * @return The index of the record.
+     */
+    protected final int allocateRecord(double x, double y) {
+	int record = this.freeRecord;
+	if (record != EMPTY) {
+	    this.freeRecord = this.nextRecords[record];
+	} else {
+	    record = this.numberOfRecordsUsed++;
+	    if (record == this.nextRecords.length) {
+		int newLength = record * 2;
+		this.resizeRecordKeys(newLength);
+		this.resizeRecordElements(newLength);
+		this.nextRecords = Arrays.copyOf(this.nextRecords, newLength);
+		if (this.unitVectors != null) {
+		    this.unitVectors = Arrays.copyOf(this.unitVectors,
+			    newLength * 3);
+		}
+	    }
+	}
+	this.setRecordKey(record, x, y);
+	this.nextRecords[record] = EMPTY;
+	if (this.unitVectors != null) {
+	    RegionQuery.storeUnitVector(x, y, this.unitVectors, record * 3);
+	}
+	return record;
+    }
+
+    private void freeRecord(int record) {
+	this.setRecordElement(record, null);
+	this.nextRecords[record] = this.freeRecord;
+	this.freeRecord = record;
+    }
+
+    /**
+     * Gives the element of each record found by a batch region search to the
+     * batch visitor.
+     */
+    private class ElementVisitor implements IntBatchRegionSearchVisitor {
+	private BatchRegionSearchVisitor<E> batchVisitor;
+
+	@Override
+	public void visit(int queryIndex, int record) {
+	    this.batchVisitor.visit(queryIndex,
+		    ArrayBinTree2D.this.getRecordElement(record));
+	}
+    }
+
+    /**
+     * Matches the records whose element equals the element being removed.
+     */
+    private class ElementMatcher implements HandleMatcher {
+	private E element;
+
+	@Override
+	public boolean isMatch(int record) {
+	    return ArrayBinTree2D.this.isRecordElement(record, this.element);
+	}
+    }
+}
@@ -0,0 +1,22 @@
+package dataStructures;
+/**
+ * Receives every element found by a batch region search along with the index
+ * of the search region the element was found in.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <E>
+ *            The type of element stored in the searched data structure.
+ */
+public interface BatchRegionSearchVisitor<E> {
+    /**
+     * Called once for each element within a search region. The elements of
+     * one search region are given in the order they are found.
+     *
+     * @param queryIndex
+     *            Index of the search region the element is within.
+     * @param element
+     *            An element within the search region.
+     */
+    public void visit(int queryIndex, E element);
+}
@@ -1,7 +1,11 @@
 package dataStructures;
 
 import customDataStructures.Point;
-import customDataStructures.BoundingBox;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * The bin tree is a spatial data structure that can be used to unify search
@@ -20,7 +24,22 @@ import customDataStructures.BoundingBox;
  * @param <E>
  *            the item type to be stored in the leaf nodes of the 2D bin tree
  */
-public class BinTree2D<K extends Point, E> {
+public class BinTree2D<K extends Point, E> implements BinTreeIndex<K, E> {
+    /**
+     * Maximum depth of a bin tree that is not given one. Cells this deep are
+     * narrower than the spacing of doubles within any sensible world, so it
+     * only stops keys that no split can separate, such as two keys outside
+     * of the world, from splitting until the stack overflows.
+     */
+    public static final int DEFAULT_MAXIMUM_DEPTH = 128;
+
+    /**
+     * Largest number of nodes of a subtree that estimateRegionSearch counts
+     * whole instead of descending into, so that estimating a region search
+     * costs a small part of running it.
+     */
+    private static final int ESTIMATED_SUBTREE_NUMBER_OF_NODES = 8;
+
     /**
      * Create a flyweight leaf node to represent a single empty leaf node since
      * on average, half of the leaf nodes in a BinTree are empty.
@@ -35,10 +54,139 @@ public class BinTree2D<K extends Point, E> {
     private double maximumYAxis;
 
     /**
-     * Number of leaf nodes with data in this bin tree.
+     * Number of records with data in this bin tree.
      */
     private int size;
 
+    /**
+     * Number of records a leaf node holds before it is split into an internal
+     * node. A capacity of 1 is the classic PR bin tree.
+     */
+    private int leafBucketCapacity;
+
+    /**
+     * Depth of the deepest leaf nodes. A leaf node at this depth is never
+     * split and keeps every record of its cell however many there are. The
+     * root node has a depth of 0.
+     */
+    private int maximumDepth;
+
+    /**
+     * If true, region searches match records by great circle distance on the
+     * sphere instead of by distance in the (x, y) plane.
+     */
+    private boolean isMatchingGreatCircleDistance;
+
+    /**
+     * Reusable search circle of the current region search.
+     */
+    private RegionQuery query;
+
+    /**
+     * Reusable region search stack of nodes still to visit along with the x,
+     * y, width and height of each node's cell and the axis it splits.
+     */
+    private Object[] searchNodeStack;
+    private double[] searchCellStack;
+    private boolean[] searchAxisStack;
+
+    /**
+     * For a batch region search, the start and length of each stacked node's
+     * parent's active search regions within the active query arena.
+     */
+    private int[] searchRangeStack;
+
+    /**
+     * Reusable search circles of a batch region search and the arena holding
+     * the active search regions of each node on the stack.
+     */
+    private final RegionQueryBatch batch;
+
+    /**
+     * Reusable visitor that hands the elements found for one circle of a
+     * batch region search to the batch visitor.
+     */
+    private final QueryIndexVisitor<E> queryIndexVisitor =
+	    new QueryIndexVisitor<E>();
+
+    /**
+     * Reusable walks of the region search stack, one for each kind of
+     * search.
+     */
+    private final PruningRuleCountWalk pruningRuleCountWalk =
+	    new PruningRuleCountWalk();
+    private final RecordCountWalk recordCountWalk = new RecordCountWalk();
+    private final EstimateWalk estimateWalk = new EstimateWalk();
+    private final SearchWalk searchWalk = new SearchWalk();
+    private final BatchWalk batchWalk = new BatchWalk();
+
+    /**
+     * Reusable path of internal nodes from the root node down to the leaf
+     * node of the record being inserted or removed, along with whether the
+     * path goes on to each node's left child.
+     */
+    private Object[] pathNodes;
+    private boolean[] pathSides;
+
+    /**
+     * Reusable min heap of the cells still to visit during a nearest neighbor
+     * search ordered by the squared distance from the search point to each
+     * cell, along with the x, y, width and height of each cell and the axis
+     * its node splits.
+     */
+    private Object[] nearestCellNodes;
+    private double[] nearestCellDistances;
+    private double[] nearestCellBounds;
+    private boolean[] nearestCellAxes;
+
+    /**
+     * Pool that searches the subtrees of a large region search in parallel,
+     * or null if every region search runs on the calling thread.
+     */
+    private ForkJoinPool regionSearchPool;
+
+    /**
+     * Smallest fraction of the world a search region must cover to be
+     * searched in parallel.
+     */
+    private double minimumParallelWorldCoverage;
+
+    /**
+     * If true, planar region searches skip the cells the search circle cannot
+     * reach instead of every cell outside of the circle's bounding box.
+     */
+    private boolean isPruningExactly;
+
+    /**
+     * If true, planar region searches find every record in the subtree of a
+     * cell within the search circle without checking any distance.
+     */
+    private boolean isAcceptingSubtrees;
+
+    /**
+     * Reusable stack of the nodes still to visit while enumerating a subtree
+     * whose cell lies within the search circle.
+     */
+    private Object[] enumerationNodeStack;
+
+    /**
+     * The records of this bin tree in preorder with the x and y of each
+     * record's key for a linear scan region search, along with the number of
+     * nodes a region search visiting every node visits. Rebuilt by the first
+     * linear scan after the bin tree changes.
+     */
+    private Object[] scanElements;
+    private double[] scanKeys;
+    private int scanNumberOfNodes;
+    private boolean isScanSnapshotCurrent;
+
+    /**
+     * Prints each found element for the region search that reports to the
+     * console.
+     */
+    private final RegionSearchPrinter<E> regionSearchPrinter =
+	    new RegionSearchPrinter<E>();
+
     /**
      * Create a new BinTree object.
      *
@@ -47,9 +195,98 @@ public class BinTree2D<K extends Point, E> {
      * @param minimumYAxis
      * @param maximumYAxis
      */
-    @SuppressWarnings("unchecked")
     public BinTree2D(double minimumXAxis, double maximumXAxis,
 	    double minimumYAxis, double maximumYAxis) {
+	this(minimumXAxis, maximumXAxis, minimumYAxis, maximumYAxis, 1);
+    }
+
+    /**
+     * Create a new bucket BinTree object whose leaf nodes hold up to
+     * leafBucketCapacity records and are only split when they overflow.
+     * Records with identical keys are kept in the same leaf node since no
+     * split can separate them.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param leafBucketCapacity
+     *            The number of records a leaf node can hold before splitting.
+     */
+    public BinTree2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis, int leafBucketCapacity) {
+	this(minimumXAxis, maximumXAxis, minimumYAxis, maximumYAxis,
+		leafBucketCapacity, false);
+    }
+
+    /**
+     * Create a new bucket BinTree object that can match records by great
+     * circle distance. A great circle bin tree treats x as longitude and y as
+     * latitude + 90 in degrees, so its world must be 0 to 360 along the x-axis
+     * and 0 to 180 along the y-axis. Region search radii are then angles of
+     * arc in degrees, search regions wrap around the 0/360 longitude seam and
+     * every leaf node caches the unit vectors of its records.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param leafBucketCapacity
+     *            The number of records a leaf node can hold before splitting.
+     * @param isMatchingGreatCircleDistance
+     *            If true, match records by great circle distance.
+     */
+    public BinTree2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis, int leafBucketCapacity,
+	    boolean isMatchingGreatCircleDistance) {
+	this(minimumXAxis, maximumXAxis, minimumYAxis, maximumYAxis,
+		leafBucketCapacity, isMatchingGreatCircleDistance,
+		DEFAULT_MAXIMUM_DEPTH);
+    }
+
+    /**
+     * Create a new bucket BinTree object whose leaf nodes are not split below
+     * the given depth. Keys closer together than the cells at that depth
+     * share a leaf node bucket instead of splitting the bin tree into a long
+     * chain of internal nodes.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param leafBucketCapacity
+     *            The number of records a leaf node can hold before splitting.
+     * @param isMatchingGreatCircleDistance
+     *            If true, match records by great circle distance.
+     * @param maximumDepth
+     *            The depth below which leaf nodes are never split.
+     */
+    @SuppressWarnings("unchecked")
+    public BinTree2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis, int leafBucketCapacity,
+	    boolean isMatchingGreatCircleDistance, int maximumDepth) {
+	if (isMatchingGreatCircleDistance
+		&& (minimumXAxis != 0.0 || maximumXAxis != 360.0
+			|| minimumYAxis != 0.0 || maximumYAxis != 180.0)) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class BinTree2D a great circle bin "
+			    + "tree must span 0 to 360 along the x-axis and 0 "
+			    + "to 180 along the y-axis");
+	}
+	this.isMatchingGreatCircleDistance = isMatchingGreatCircleDistance;
+	this.query = new RegionQuery();
+	if (leafBucketCapacity < 1) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class BinTree2D the leaf bucket "
+			    + "capacity must be at least 1");
+	}
+	this.leafBucketCapacity = leafBucketCapacity;
+	if (maximumDepth < 0) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class BinTree2D the maximum depth must "
+			    + "be at least 0");
+	}
+	this.maximumDepth = maximumDepth;
 	this.emptyLeafNodeFlyweight = BinTreeEmptyNode.getInstance();
 	this.rootNode = this.emptyLeafNodeFlyweight;
 
@@ -58,10 +295,27 @@ public class BinTree2D<K extends Point, E> {
 	this.minimumYAxis = minimumYAxis;
 	this.maximumYAxis = maximumYAxis;
 	this.size = 0;
+
+	int initialSearchStackLength = 64;
+	this.searchNodeStack = new Object[initialSearchStackLength];
+	this.searchCellStack = new double[initialSearchStackLength * 4];
+	this.searchAxisStack = new boolean[initialSearchStackLength];
+	this.searchRangeStack = new int[initialSearchStackLength * 2];
+	this.batch = new RegionQueryBatch(initialSearchStackLength);
+	this.pathNodes = new Object[initialSearchStackLength];
+	this.pathSides = new boolean[initialSearchStackLength];
+	this.nearestCellNodes = new Object[initialSearchStackLength];
+	this.nearestCellDistances = new double[initialSearchStackLength];
+	this.nearestCellBounds = new double[initialSearchStackLength * 4];
+	this.nearestCellAxes = new boolean[initialSearchStackLength];
+	this.enumerationNodeStack = new Object[initialSearchStackLength];
+	this.scanElements = new Object[0];
+	this.scanKeys = new double[0];
+	this.isScanSnapshotCurrent = false;
     }
 
     /**
-     * Recursive insertion of a new element.
+     * Insert a new element with one descent of the bin tree.
      *
      * @param key
      *            The key value be used to compare to discriminators when the
@@ -69,116 +323,187 @@ public class BinTree2D<K extends Point, E> {
      * @param element
      *            The element to be stored.
      */
+    @Override
     public void insert(K key, E element) {
-	// world coordinates
-	BoundingBox currentWorld = new BoundingBox(new Point(this.minimumXAxis,
-		this.minimumYAxis), this.maximumXAxis - this.minimumXAxis,
-		this.maximumYAxis - this.minimumYAxis);
+	this.rootNode = this.insertIntoSubtree(this.rootNode,
+		this.minimumXAxis, this.minimumYAxis, this.maximumXAxis
+			- this.minimumXAxis, this.maximumYAxis
+			- this.minimumYAxis, true, 0, key, element, false);
+	this.size++;
+	this.isScanSnapshotCurrent = false;
+    }
 
-	this.rootNode = this.insertHelp(this.rootNode, currentWorld, key,
-		element, true);
+    /**
+     * Walk down to the cell of the key once. If its leaf node holds the key
+     * nothing is inserted; otherwise the record is inserted exactly as insert
+     * would.
+     *
+     * @param key
+     * @param element
+     * @return true if the record was inserted; otherwise return false because
+     *         the key is already in the bin tree.
+     */
+    @Override
+    public boolean insertIfAbsent(K key, E element) {
+	BinTreeNode<E> newRootNode = this.insertIntoSubtree(this.rootNode,
+		this.minimumXAxis, this.minimumYAxis, this.maximumXAxis
+			- this.minimumXAxis, this.maximumYAxis
+			- this.minimumYAxis, true, 0, key, element, true);
+	if (newRootNode == null) {
+	    return false;
+	}
+	this.rootNode = newRootNode;
 	this.size++;
+	this.isScanSnapshotCurrent = false;
+	return true;
     }
 
     /**
      * This insert forces the BinTree to have multi-dimensional keys of lowest
      * value in the leftmost leaf and multi-dimensional keys of greatest value
-     * in the rightmost leaf of the BinTree.
+     * in the rightmost leaf of the BinTree. The subtree is walked down to the
+     * cell of the key once, splitting a full leaf node in the way, and the
+     * internal nodes passed are kept in the path arrays from the index of the
+     * given depth so their children and subtree sizes are set bottom up.
      *
      * @param node
-     *            The node to be inserted.
-     * @param currentWorld
-     *            A box representation of the current world.
+     *            The root node of the subtree.
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     *            The cell of the root node of the subtree.
+     * @param isSplittingXAxis
+     *            If true, the root node of the subtree splits its cell along
+     *            the x-axis; otherwise along the y-axis.
+     * @param depth
+     *            The depth of the root node of the subtree within the bin
+     *            tree.
      * @param key
-     *            The key value be used to compare to discriminators when the
-     *            bin tree.
      * @param element
-     *            The element to be inserted.
-     * @param isSplittingXAxis
-     *            If true, split world along x-axis; otherwise split along y-
-     *            axis.
-     * @return A subtree with the given node inserted.
-     */
-    BinTreeNode<E> insertHelp(BinTreeNode<E> node, BoundingBox currentWorld,
-	    K key, E element, boolean isSplittingXAxis) {
-	// in a bin tree with many elements
-	if (node instanceof BinTreeEmptyNode) {
-	    return new BinTreeLeafNode<K, E>(key, element);
-	} else if (node instanceof BinTreeInternalNode<?>) {
-	    if (isSplittingXAxis) {
-		if (key.getX() < currentWorld
-			.getCurrentMidpointOfBoxAlongXAxis()) {
-		    // current node should go to left subtree
-		    currentWorld.changeToLeftHalfBoundingBox();
-
-		    // recursive call on left child until base case of empty
-		    // node is reached
-		    ((BinTreeInternalNode<E>) node).setLeftChild(this
-			    .insertHelp(((BinTreeInternalNode<E>) node)
-				    .getLeftChild(), currentWorld, key,
-				    element, !isSplittingXAxis));
-		} else { // current node should go to right subtree
-		    currentWorld.changeToRightHalfBoundingBox();
-
-		    // recursive call on right child until base case of empty
-		    // node is reached
-		    ((BinTreeInternalNode<E>) node).setRightChild(this
-			    .insertHelp(((BinTreeInternalNode<E>) node)
-				    .getRightChild(), currentWorld, key,
-				    element, !isSplittingXAxis));
-		}
-	    } else { // splitting y-axis
-		if (key.getY() < currentWorld
-			.getCurrentMidpointOfBoxAlongYAxis()) {
-		    currentWorld.changeToBottomHalfBoundingBox();
-
-		    ((BinTreeInternalNode<E>) node).setLeftChild(this
-			    .insertHelp(((BinTreeInternalNode<E>) node)
-				    .getLeftChild(), currentWorld, key,
-				    element, !isSplittingXAxis));
+     * @param isRejectingSameKey
+     *            If true, nothing is inserted when the key is already in the
+     *            subtree.
+     * @return The root node of the subtree with the record inserted, or null
+     *         if the key was already in the subtree and rejected.
+     */
+    @SuppressWarnings("unchecked")
+    BinTreeNode<E> insertIntoSubtree(BinTreeNode<E> node, double cellX,
+	    double cellY, double cellWidth, double cellHeight,
+	    boolean isSplittingXAxis, int depth, K key, E element,
+	    boolean isRejectingSameKey) {
+	int subtreeDepth = depth;
+	while (true) {
+	    if (node instanceof BinTreeInternalNode<?>) {
+		// descend with the same arithmetic as BoundingBox
+		boolean isGoingLeft;
+		if (isSplittingXAxis) {
+		    isGoingLeft = key.getX() < (cellX + (cellX + cellWidth))
+			    / 2;
+		    cellWidth = cellWidth / 2;
+		    if (!isGoingLeft) {
+			cellX = cellX + cellWidth;
+		    }
 		} else {
-		    currentWorld.changeToTopHalfBoundingBox();
-
-		    ((BinTreeInternalNode<E>) node).setRightChild(this
-			    .insertHelp(((BinTreeInternalNode<E>) node)
-				    .getRightChild(), currentWorld, key,
-				    element, !isSplittingXAxis));
+		    isGoingLeft = key.getY() < (cellY + (cellY + cellHeight))
+			    / 2;
+		    cellHeight = cellHeight / 2;
+		    if (!isGoingLeft) {
+			cellY = cellY + cellHeight;
+		    }
 		}
+		this.pushPathNode(depth, node, isGoingLeft);
+		depth++;
+
+		BinTreeInternalNode<E> internalNode =
+			(BinTreeInternalNode<E>) node;
+		node = isGoingLeft ? internalNode.getLeftChild()
+			: internalNode.getRightChild();
+		isSplittingXAxis = !isSplittingXAxis;
+		continue;
 	    }
-	} else if (node instanceof BinTreeLeafNode<?, ?>) { // this is
-	    // BinTreeLeafNode
-	    // that is not empty
-	    @SuppressWarnings("unchecked")
-	    BinTreeLeafNode<K, E> tempNode = (BinTreeLeafNode<K, E>) node;
-
-	    node = new BinTreeInternalNode<E>();
-
-	    // To ensure that the same worlds are used when inserting into
-	    // the current node all fields given to constructor of
-	    // currentWorldStateDuplicate must be of type double and NOT
-	    // a reference of the currentWorlds fields.
-	    // For example, if currentWorld.getBottomLeftPoint() is used
-	    // set the x and y for currentWorldStateDuplicate, then whenever
-	    // currentWorld's bottom left point changes, so will
-	    // currentWorldStateDuplicate
-	    double currentWorldX = currentWorld.getBottomLeftPoint().getX();
-	    double currentWorldY = currentWorld.getBottomLeftPoint().getY();
-	    BoundingBox cuurrentWorldStateDuplicate = new BoundingBox(
-		    new Point(currentWorldX, currentWorldY),
-		    currentWorld.getWidth(), currentWorld.getHeight());
+	    if (!(node instanceof BinTreeLeafNode<?, ?>)) {
+		break;
+	    }
+	    BinTreeLeafNode<K, E> leafNode = (BinTreeLeafNode<K, E>) node;
+	    if (isRejectingSameKey && leafNode.indexOfKey(key) != -1) {
+		Arrays.fill(this.pathNodes, subtreeDepth, depth, null);
+		return null;
+	    }
+	    // the bucket still has room, holds only records that no split
+	    // could ever separate from the new record or is as deep as the bin
+	    // tree may grow
+	    if (leafNode.getNumberOfRecords() < this.leafBucketCapacity
+		    || leafNode.isHoldingOnlyKey(key)
+		    || depth >= this.maximumDepth) {
+		break;
+	    }
+	    node = this.splitLeafNode(leafNode, cellX, cellY, cellWidth,
+		    cellHeight, isSplittingXAxis, depth);
+	}
 
-	    this.insertHelp(node, currentWorld, tempNode.getKey(),
-		    tempNode.getElement(), isSplittingXAxis);
+	BinTreeNode<E> childNode;
+	if (node instanceof BinTreeLeafNode<?, ?>) {
+	    ((BinTreeLeafNode<K, E>) node).addRecord(key, element);
+	    childNode = node;
+	} else {
+	    childNode = new BinTreeLeafNode<K, E>(key, element,
+		    this.leafBucketCapacity,
+		    this.isMatchingGreatCircleDistance);
+	}
 
-	    this.insertHelp(node, cuurrentWorldStateDuplicate, key, element,
-		    isSplittingXAxis);
+	// set the new child and the subtree sizes along the path bottom up
+	for (int pathIndex = depth - 1; pathIndex >= subtreeDepth;
+		pathIndex--) {
+	    BinTreeInternalNode<E> parentNode =
+		    (BinTreeInternalNode<E>) this.pathNodes[pathIndex];
+	    if (this.pathSides[pathIndex]) {
+		parentNode.setLeftChild(childNode);
+	    } else {
+		parentNode.setRightChild(childNode);
+	    }
+	    childNode = parentNode;
+	}
+	Arrays.fill(this.pathNodes, subtreeDepth, depth, null);
+	return childNode;
+    }
 
-	    return node;
+    /**
+     * Replace a full leaf node by an internal node holding its records. A
+     * full leaf node holds either as many records as a bucket or only
+     * records of one key, so no leaf node below the internal node fills up
+     * while its records are put back and this never splits again.
+     *
+     * @param leafNode
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @param isSplittingXAxis
+     * @param depth
+     *            The depth of the leaf node within the bin tree.
+     * @return The subtree taking the place of the leaf node.
+     */
+    private BinTreeNode<E> splitLeafNode(BinTreeLeafNode<K, E> leafNode,
+	    double cellX, double cellY, double cellWidth, double cellHeight,
+	    boolean isSplittingXAxis, int depth) {
+	BinTreeNode<E> node = new BinTreeInternalNode<E>();
+	for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+	    node = this.insertIntoSubtree(node, cellX, cellY, cellWidth,
+		    cellHeight, isSplittingXAxis, depth, leafNode.getKey(i),
+		    leafNode.getElement(i), false);
 	}
 	return node;
     }
 
     /**
+     * Remove the record with one descent of the bin tree. Only the internal
+     * nodes on the path back up to the root node can become unnecessary, so
+     * they are pruned bottom up the same way as a whole bin tree prune would
+     * and the walk stops at the first internal node that stays. Once the path
+     * arrays have grown to the depth of the bin tree a remove allocates
+     * nothing.
+     *
      * @param key
      *            The key of the element to remove.
      * @param element
@@ -186,218 +511,177 @@ public class BinTree2D<K extends Point, E> {
      * @return true if element with key was removed from bin tree; otherwise
      *         return false.
      */
+    @Override
+    @SuppressWarnings("unchecked")
     public boolean remove(K key, E element) {
-	if (this.find(key, element) == null) {
-	    return false;
-	} else { // key value pair exists in bin tree
-	    BoundingBox currentWorld = new BoundingBox(new Point(
-		    this.minimumXAxis, this.minimumYAxis), this.maximumXAxis
-		    - this.minimumXAxis, this.maximumYAxis - this.minimumYAxis);
+	double cellX = this.minimumXAxis;
+	double cellY = this.minimumYAxis;
+	double cellWidth = this.maximumXAxis - this.minimumXAxis;
+	double cellHeight = this.maximumYAxis - this.minimumYAxis;
+	boolean isSplittingXAxis = true;
+
+	// descend with the same arithmetic as BoundingBox
+	int depth = 0;
+	BinTreeNode<E> node = this.rootNode;
+	while (node instanceof BinTreeInternalNode<?>) {
+	    boolean isGoingLeft;
+	    if (isSplittingXAxis) {
+		isGoingLeft = key.getX() < (cellX + (cellX + cellWidth)) / 2;
+		cellWidth = cellWidth / 2;
+		if (!isGoingLeft) {
+		    cellX = cellX + cellWidth;
+		}
+	    } else {
+		isGoingLeft = key.getY() < (cellY + (cellY + cellHeight)) / 2;
+		cellHeight = cellHeight / 2;
+		if (!isGoingLeft) {
+		    cellY = cellY + cellHeight;
+		}
+	    }
+	    this.pushPathNode(depth, node, isGoingLeft);
+	    depth++;
+
+	    BinTreeInternalNode<E> internalNode = (BinTreeInternalNode<E>) node;
+	    node = isGoingLeft ? internalNode.getLeftChild() : internalNode
+		    .getRightChild();
+	    isSplittingXAxis = !isSplittingXAxis;
+	}
 
-	    this.rootNode = this.removeHelp(this.rootNode, currentWorld, key,
-		    element, true);
-	    this.size--;
+	if (!(node instanceof BinTreeLeafNode<?, ?>)) {
+	    Arrays.fill(this.pathNodes, 0, depth, null);
+	    return false;
+	}
+	BinTreeLeafNode<K, E> leafNode = (BinTreeLeafNode<K, E>) node;
+	int recordIndex = leafNode.indexOfRecord(key, element);
+	if (recordIndex == -1) {
+	    Arrays.fill(this.pathNodes, 0, depth, null);
+	    return false;
+	}
+	leafNode.removeRecord(recordIndex);
+	this.size--;
+	this.isScanSnapshotCurrent = false;
+	BinTreeNode<E> childNode = leafNode;
+	if (leafNode.getNumberOfRecords() == 0) {
+	    childNode = this.emptyLeafNodeFlyweight;
+	}
 
-	    this.rootNode = this.pruneBinTree(this.rootNode);
-	    return true;
+	// prune the path bottom up
+	int pathIndex = depth - 1;
+	while (pathIndex >= 0) {
+	    BinTreeInternalNode<E> parentNode =
+		    (BinTreeInternalNode<E>) this.pathNodes[pathIndex];
+	    if (this.pathSides[pathIndex]) {
+		parentNode.setLeftChild(childNode);
+	    } else {
+		parentNode.setRightChild(childNode);
+	    }
+	    childNode = this.pruneInternalNode(parentNode);
+	    if (childNode == parentNode) {
+		break;
+	    }
+	    pathIndex--;
+	}
+	if (pathIndex < 0) {
+	    this.rootNode = childNode;
+	} else {
+	    // the nodes above still hold the same children and only their
+	    // subtree sizes change
+	    for (pathIndex--; pathIndex >= 0; pathIndex--) {
+		((BinTreeInternalNode<E>) this.pathNodes[pathIndex])
+			.updateSubtreeSize();
+	    }
 	}
+	Arrays.fill(this.pathNodes, 0, depth, null);
+	return true;
     }
 
     /**
+     * Store an internal node on the path of an insert or remove, growing the
+     * path arrays if they are full.
+     *
+     * @param index
      * @param node
-     *            The node to remove.
-     * @param currentWorld
-     *            A box representation of the current world.
-     * @param key
-     *            The key of the element to remove.
-     * @param element
-     *            The element to remove.
-     * @param isSplittingXAxis
-     * @return The node that was removed.
+     * @param isGoingLeft
      */
-    @SuppressWarnings("unchecked")
-    BinTreeNode<E> removeHelp(BinTreeNode<E> node, BoundingBox currentWorld,
-	    K key, E element, boolean isSplittingXAxis) {
-	if (node instanceof BinTreeEmptyNode<?>) {
-	    return null;
-	} else if (node instanceof BinTreeInternalNode<?>) {
-	    if (isSplittingXAxis) {
-		if (key.getX() < currentWorld
-			.getCurrentMidpointOfBoxAlongXAxis()) {
-		    // current node should go to left subtree
-		    currentWorld.changeToLeftHalfBoundingBox();
-
-		    // isSplittingXAxis is inverted so y-axis can be split in
-		    // next recursive call
-		    ((BinTreeInternalNode<E>) node).setLeftChild(this
-			    .removeHelp(((BinTreeInternalNode<E>) node)
-				    .getLeftChild(), currentWorld, key,
-				    element, !isSplittingXAxis));
-		} else { // current node should go to right subtree
-		    currentWorld.changeToRightHalfBoundingBox();
-
-		    // isSplittingXAxis is inverted so y-axis can be split in
-		    // next recursive call
-		    ((BinTreeInternalNode<E>) node).setRightChild(this
-			    .removeHelp(((BinTreeInternalNode<E>) node)
-				    .getRightChild(), currentWorld, key,
-				    element, !isSplittingXAxis));
-		}
-	    } else { // splitting y-axis
-		if (key.getY() < currentWorld
-			.getCurrentMidpointOfBoxAlongYAxis()) {
-		    currentWorld.changeToBottomHalfBoundingBox();
-
-		    // isSplittingXAxis is inverted so x-axis can be split in
-		    // next recursive call
-		    ((BinTreeInternalNode<E>) node).setLeftChild(this
-			    .removeHelp(((BinTreeInternalNode<E>) node)
-				    .getLeftChild(), currentWorld, key,
-				    element, !isSplittingXAxis));
-		} else {
-		    currentWorld.changeToTopHalfBoundingBox();
-
-		    // isSplittingXAxis is inverted so x-axis can be split in
-		    // next recursive call
-		    ((BinTreeInternalNode<E>) node).setRightChild(this
-			    .removeHelp(((BinTreeInternalNode<E>) node)
-				    .getRightChild(), currentWorld, key,
-				    element, !isSplittingXAxis));
-		}
-	    }
-	} else if (node instanceof BinTreeLeafNode<?, ?>) {
-	    if (element.equals(((BinTreeLeafNode<?, E>) node).getElement())
-		    && key.equals(((BinTreeLeafNode<?, E>) node).getKey())) {
-		node = this.emptyLeafNodeFlyweight;
-		return node;
-	    } else {
-		return null;
-	    }
+    private void pushPathNode(int index, BinTreeNode<E> node,
+	    boolean isGoingLeft) {
+	if (index == this.pathNodes.length) {
+	    this.pathNodes = Arrays.copyOf(this.pathNodes, index * 2);
+	    this.pathSides = Arrays.copyOf(this.pathSides, index * 2);
 	}
-	return node;
+	this.pathNodes[index] = node;
+	this.pathSides[index] = isGoingLeft;
     }
 
     /**
-     * Given a bin tree root node with internal nodes that have exactly one leaf
-     * node and one empty node, this method will remove all of these internal
-     * node states and replace the internal node with the leaf node recursively.
+     * Given an internal node whose children are already pruned, replace it by
+     * its only leaf node child when the other child is empty. An internal node
+     * with two leaf nodes whose records fit into a single leaf node bucket is
+     * replaced by the merged leaf node.
      *
      * @param node
-     *            The root node of a bin tree that has unnecessary
-     *            BinTreeInternalNodes and BinTreeEmptyNodes.
-     * @return The given bin tree with only necessary nodes.
-     */
-    BinTreeNode<E> pruneBinTree(BinTreeNode<E> node) {
-	if (node instanceof BinTreeInternalNode<?>) {
-	    // ---------------------traverse the bin tree-----------------------
-	    // now check if left or right child is an internal node
-	    if (((BinTreeInternalNode<E>) node).getLeftChild() instanceof BinTreeInternalNode<?>) {
-		((BinTreeInternalNode<E>) node).setLeftChild(this
-			.pruneBinTree(((BinTreeInternalNode<E>) node)
-				.getLeftChild()));
-	    }
-
-	    if (((BinTreeInternalNode<E>) node).getRightChild() instanceof BinTreeInternalNode<?>) {
-		((BinTreeInternalNode<E>) node).setRightChild(this
-			.pruneBinTree(((BinTreeInternalNode<E>) node)
-				.getRightChild()));
-	    }
-
-	    // ------------------------------merge------------------------------
-	    if (((BinTreeInternalNode<E>) node).getLeftChild() instanceof BinTreeEmptyNode<?>
-		    && ((BinTreeInternalNode<E>) node).getRightChild() instanceof BinTreeLeafNode<?, ?>) {
-		// sets the current internal to it's right child leaf node
-		// !!!!! replacedNode needs to be of type BinTreeLeafNode
-		BinTreeNode<E> replacedNode = ((BinTreeInternalNode<E>) node)
-			.getRightChild();
-		return replacedNode;
-	    } else if (((BinTreeInternalNode<E>) node).getLeftChild() instanceof BinTreeLeafNode<?, ?>
-		    && ((BinTreeInternalNode<E>) node).getRightChild() instanceof BinTreeEmptyNode<?>) {
-		// sets the current internal to it's left child leaf node
-		// !!!!! replacedNode needs to be of type BinTreeLeafNode
-		BinTreeNode<E> replacedNode = ((BinTreeInternalNode<E>) node)
-			.getLeftChild();
-		return replacedNode;
-	    }
-	    return node;
+     * @return The node that takes the place of the given internal node.
+     */
+    @SuppressWarnings("unchecked")
+    BinTreeNode<E> pruneInternalNode(BinTreeInternalNode<E> node) {
+	BinTreeNode<E> leftChild = node.getLeftChild();
+	BinTreeNode<E> rightChild = node.getRightChild();
+	if (leftChild instanceof BinTreeLeafNode<?, ?>
+		&& rightChild instanceof BinTreeLeafNode<?, ?>) {
+	    // two leaf node buckets that fit into one are merged
+	    return this.mergeLeafNodes((BinTreeLeafNode<K, E>) leftChild,
+		    (BinTreeLeafNode<K, E>) rightChild, node);
+	} else if (leftChild instanceof BinTreeEmptyNode<?>
+		&& rightChild instanceof BinTreeLeafNode<?, ?>) {
+	    // sets the current internal to it's right child leaf node
+	    return rightChild;
+	} else if (leftChild instanceof BinTreeLeafNode<?, ?>
+		&& rightChild instanceof BinTreeEmptyNode<?>) {
+	    // sets the current internal to it's left child leaf node
+	    return leftChild;
 	}
 	return node;
     }
 
     /**
-     * @param key
-     *            Used to search through the bin tree.
-     * @param element
-     *            The element to find within the bin tree.
-     * @return The element in the bin tree if the given element with the given
-     *         key exists within the bin tree. If the given element does not
-     *         exist within the bin tree return null.
+     * @param leftLeafNode
+     * @param rightLeafNode
+     * @param parentNode
+     *            The internal node holding both leaf nodes.
+     * @return A single leaf node holding the records of both leaf nodes in
+     *         preorder if they fit into one bucket; otherwise return the
+     *         parentNode.
      */
-    public E find(K key, E element) {
-	BoundingBox world = new BoundingBox(new Point(this.minimumXAxis,
-		this.minimumYAxis), this.maximumXAxis - this.minimumXAxis,
-		this.maximumYAxis - this.minimumYAxis);
-
-	return this.findHelp(this.rootNode, world, key, element, true);
+    BinTreeNode<E> mergeLeafNodes(BinTreeLeafNode<K, E> leftLeafNode,
+	    BinTreeLeafNode<K, E> rightLeafNode, BinTreeNode<E> parentNode) {
+	if (leftLeafNode.getNumberOfRecords()
+		+ rightLeafNode.getNumberOfRecords() > this.leafBucketCapacity) {
+	    return parentNode;
+	}
+	for (int i = 0; i < rightLeafNode.getNumberOfRecords(); i++) {
+	    leftLeafNode.addRecord(rightLeafNode.getKey(i),
+		    rightLeafNode.getElement(i));
+	}
+	return leftLeafNode;
     }
 
     /**
-     * @param node
-     * @param currentWorld
      * @param key
      *            Used to search through the bin tree.
      * @param element
      *            The element to find within the bin tree.
-     * @param isSplittingXAxis
      * @return The element in the bin tree if the given element with the given
      *         key exists within the bin tree. If the given element does not
      *         exist within the bin tree return null.
      */
+    @Override
     @SuppressWarnings("unchecked")
-    E findHelp(BinTreeNode<E> node, BoundingBox currentWorld, K key, E element,
-	    boolean isSplittingXAxis) {
-	if (node instanceof BinTreeEmptyNode<?>) {
-	    return null;
-	} else if (node instanceof BinTreeInternalNode<?>) {
-	    if (isSplittingXAxis) {
-		if (key.getX() < currentWorld
-			.getCurrentMidpointOfBoxAlongXAxis()) {
-		    // current node should go to left subtree
-		    currentWorld.changeToLeftHalfBoundingBox();
-
-		    return this.findHelp(
-			    ((BinTreeInternalNode<E>) node).getLeftChild(),
-			    currentWorld, key, element, !isSplittingXAxis);
-		} else { // current node should go to right subtree
-		    currentWorld.changeToRightHalfBoundingBox();
-
-		    return this.findHelp(
-			    ((BinTreeInternalNode<E>) node).getRightChild(),
-			    currentWorld, key, element, !isSplittingXAxis);
-		}
-	    } else { // splitting y-axis
-		if (key.getY() < currentWorld
-			.getCurrentMidpointOfBoxAlongYAxis()) {
-		    currentWorld.changeToBottomHalfBoundingBox();
-
-		    return this.findHelp(
-			    ((BinTreeInternalNode<E>) node).getLeftChild(),
-			    currentWorld, key, element, !isSplittingXAxis);
-		} else {
-		    currentWorld.changeToTopHalfBoundingBox();
-
-		    return this.findHelp(
-			    ((BinTreeInternalNode<E>) node).getRightChild(),
-			    currentWorld, key, element, !isSplittingXAxis);
-		}
-	    }
-	} else if (node instanceof BinTreeLeafNode<?, ?>) {
-	    if (element.equals(((BinTreeLeafNode<?, E>) node).getElement())
-		    && key.equals(((BinTreeLeafNode<?, E>) node).getKey())) {
-		return element;
-	    } else {
-		return null;
-	    }
+    public E find(K key, E element) {
+	BinTreeNode<E> node = this.findLeafNode(key);
+	if (node instanceof BinTreeLeafNode<?, ?>
+		&& ((BinTreeLeafNode<K, E>) node)
+			.indexOfRecord(key, element) != -1) {
+	    return element;
 	}
 	return null;
     }
@@ -406,264 +690,1529 @@ public class BinTree2D<K extends Point, E> {
      * @param key
      * @return true if key exists within bintree; otherwise return false.
      */
+    @Override
+    @SuppressWarnings("unchecked")
     public boolean findKey(K key) {
-	BoundingBox world = new BoundingBox(new Point(this.minimumXAxis,
-		this.minimumYAxis), this.maximumXAxis - this.minimumXAxis,
-		this.maximumYAxis - this.minimumYAxis);
-
-	return this.findKeyHelp(this.rootNode, world, key, true);
+	BinTreeNode<E> node = this.findLeafNode(key);
+	return node instanceof BinTreeLeafNode<?, ?>
+		&& ((BinTreeLeafNode<K, E>) node).indexOfKey(key) != -1;
     }
 
     /**
-     * @param node
-     * @param currentWorld
-     * @param key
-     * @param isSplittingXAxis
-     * @return true if key exists within node subtree; otherwise return false.
+     * Walk down to the cell of the key the same way as an insert.
      *
+     * @param key
+     * @return The leaf node or empty node whose cell holds the key.
      */
     @SuppressWarnings("unchecked")
-    boolean findKeyHelp(BinTreeNode<E> node, BoundingBox currentWorld, K key,
-	    boolean isSplittingXAxis) {
-	if (node instanceof BinTreeEmptyNode<?>) {
-	    return false;
-	} else if (node instanceof BinTreeInternalNode<?>) {
+    private BinTreeNode<E> findLeafNode(K key) {
+	double cellX = this.minimumXAxis;
+	double cellY = this.minimumYAxis;
+	double cellWidth = this.maximumXAxis - this.minimumXAxis;
+	double cellHeight = this.maximumYAxis - this.minimumYAxis;
+	boolean isSplittingXAxis = true;
+	BinTreeNode<E> node = this.rootNode;
+	while (node instanceof BinTreeInternalNode<?>) {
+	    boolean isGoingLeft;
 	    if (isSplittingXAxis) {
-		if (key.getX() < currentWorld
-			.getCurrentMidpointOfBoxAlongXAxis()) {
-		    // current node should go to left subtree
-		    currentWorld.changeToLeftHalfBoundingBox();
-
-		    return this.findKeyHelp(
-			    ((BinTreeInternalNode<E>) node).getLeftChild(),
-			    currentWorld, key, !isSplittingXAxis);
-		} else { // current node should go to right subtree
-		    currentWorld.changeToRightHalfBoundingBox();
-
-		    return this.findKeyHelp(
-			    ((BinTreeInternalNode<E>) node).getRightChild(),
-			    currentWorld, key, !isSplittingXAxis);
-		}
-	    } else { // splitting y-axis
-		if (key.getY() < currentWorld
-			.getCurrentMidpointOfBoxAlongYAxis()) {
-		    currentWorld.changeToBottomHalfBoundingBox();
-
-		    return this.findKeyHelp(
-			    ((BinTreeInternalNode<E>) node).getLeftChild(),
-			    currentWorld, key, !isSplittingXAxis);
-		} else {
-		    currentWorld.changeToTopHalfBoundingBox();
-
-		    return this.findKeyHelp(
-			    ((BinTreeInternalNode<E>) node).getRightChild(),
-			    currentWorld, key, !isSplittingXAxis);
+		isGoingLeft = key.getX() < (cellX + (cellX + cellWidth)) / 2;
+		cellWidth = cellWidth / 2;
+		if (!isGoingLeft) {
+		    cellX = cellX + cellWidth;
 		}
-	    }
-	} else { // if (node instanceof BinTreeLeafNode<?, ?>) {
-	    if (key.equals(((BinTreeLeafNode<?, E>) node).getKey())) {
-		return true;
 	    } else {
-		return false;
+		isGoingLeft = key.getY() < (cellY + (cellY + cellHeight)) / 2;
+		cellHeight = cellHeight / 2;
+		if (!isGoingLeft) {
+		    cellY = cellY + cellHeight;
+		}
 	    }
+	    BinTreeInternalNode<E> internalNode = (BinTreeInternalNode<E>) node;
+	    node = isGoingLeft ? internalNode.getLeftChild() : internalNode
+		    .getRightChild();
+	    isSplittingXAxis = !isSplittingXAxis;
 	}
+	return node;
     }
 
     /**
+     * Print every element within a radius of 2 * magnitude^3 of the given
+     * point.
+     *
      * @param keyXCoordinate
      * @param keyYCoordinate
      * @param magnitude
      * @return A string describing how many nodes were visited during the
      *         search.
      */
+    @Override
     public String regionSearch(double keyXCoordinate, double keyYCoordinate,
 	    double magnitude) {
-	double keyX = keyXCoordinate;
-	double keyY = keyYCoordinate;
-	double objectMagnitude = magnitude;
-
-	double radius = Math.pow(objectMagnitude, 3) * 2;
-	double earthquakeBoundingBoxBottomLeftX = keyX - radius;
-	double earthquakeBoundingBoxBottomLeftY = keyY - radius;
-
-	double width = radius * 2;
-	double height = radius * 2;
-	BoundingBox objectBoundingBox = new BoundingBox(new Point(
-		earthquakeBoundingBoxBottomLeftX,
-		earthquakeBoundingBoxBottomLeftY), width, height);
-
-	BoundingBox currentWorld = new BoundingBox(new Point(this.minimumXAxis,
-		this.minimumYAxis), this.maximumXAxis - this.minimumXAxis,
-		this.maximumYAxis - this.minimumYAxis);
-
-	int numberOfBinTreeNodesVisited = this.regionSearchHelp(this.rootNode,
-		currentWorld, objectBoundingBox, new Point(keyX, keyY), radius,
-		true);
-	return "Watcher search caused " + numberOfBinTreeNodesVisited
-		+ " bintree nodes to be visited.";
+	return this.regionSearchPrinter.regionSearch(this, keyXCoordinate,
+		keyYCoordinate, magnitude);
     }
 
     /**
-     * Assume we want to print out a list of all records that are within a
-     * certain distance d of a given point P.
+     * Assume we want to find all records that are within a certain distance d
+     * of a given point P.
      *
      * Search proceeds by means of a directed traversal. When we visit a node of
      * the tree, we only proceed if the bounding box for the search circle
      * intersects the bounding box for the node if it does not, we stop and
      * return. If it does intersect an internal node, we visit the node's
      * children. If it is a leaf node, then we ask whether the data point it
-     * contains is within distance d of the search point.
+     * contains is within distance d of the search point and if so give its
+     * element to the visitor.
+     *
+     * The traversal walks the tree with an explicit stack that is reused
+     * between searches and passes the bounds of every node as primitives, so
+     * once the stack has grown to the depth of the tree a search allocates
+     * nothing.
      *
      * Note: In the average case, the number of nodes that must be visited
      * during a range query is linear on the number of data records that fall
      * within the query circle.
      *
-     * @param node
-     * @param currentWorld
-     * @param objectBoundingBox
-     * @param objectPoint
+     * A great circle bin tree searches each box of the search region in turn
+     * and the visited nodes of all boxes are added together.
+     *
+     * With exact circle pruning a planar search also skips the cells inside
+     * the bounding box of the search circle whose nearest point is outside
+     * of the circle, so fewer nodes are visited for the same elements. With
+     * subtree acceptance it finds the records below a cell within the circle
+     * without checking their distance, and the nodes below it are counted as
+     * visited without visiting them.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
      * @param objectDistance
-     * @param isSplittingXAxis
+     *            radius of the search circle.
+     * @param visitor
+     *            Receives each element within the search circle in preorder.
      * @return The number of nodes that were visited.
      */
-    @SuppressWarnings("unchecked")
-    int regionSearchHelp(BinTreeNode<E> node, BoundingBox currentWorld,
-	    BoundingBox objectBoundingBox, Point objectPoint,
-	    double objectDistance, boolean isSplittingXAxis) {
-	if (node instanceof BinTreeEmptyNode) {
-	    if (BoundingBox.isOverlapping(currentWorld, objectBoundingBox)) {
-		return 1;
-	    } else {
-		return 0;
-	    }
-	} else if (node instanceof BinTreeInternalNode<?>) {
-	    return this.regionSearchInternalNode(node, currentWorld,
-		    objectBoundingBox, objectPoint, objectDistance,
-		    isSplittingXAxis);
-	} else if (node instanceof BinTreeLeafNode<?, ?>) {
-	    if (BoundingBox.isOverlapping(currentWorld, objectBoundingBox)) {
-
-		double distance = objectDistance;
-		double EP_x = objectPoint.getX();
-		double EP_y = objectPoint.getY();
-		double WP_x = ((BinTreeLeafNode<?, E>) node).getKey().getX();
-		double WP_y = ((BinTreeLeafNode<?, E>) node).getKey().getY();
-		// check to see if the current node parameter is actually
-		// close enough to the object parameter. There is the
-		// possibility that the node's watcher's bounding box will
-		// overlap with the object bounding box but will not
-		// actually be within the object bounding box circle(that
-		// perfectly fits inside of the object bounding box)
-
-		// objectPoint EP is defined to be within distance of
-		// point WP (node's objects point location) if:
-		// (EP_x - WP_x)^2 + (EP_y - WP_y)^2 <= distance^2
-		double distanceSquared = Math.pow(distance, 2);
-		double leftSideOfEquation = (Math.pow((EP_x - WP_x), 2) + Math
-			.pow((EP_y - WP_y), 2));
-
-		if (leftSideOfEquation <= distanceSquared) {
-		    System.out.println(((BinTreeLeafNode<?, E>) node)
-			    .getElement().toString());
-		}
-		// don't print out information about element since
-		// point is not close enough to the object
-		return 1; // to add to the counter of how many nodes are visited
-	    } else {
-		return 0;
-	    }
+    @Override
+    public int regionSearch(double objectX, double objectY,
+	    double objectDistance, RegionSearchVisitor<E> visitor) {
+	this.query.setCircle(objectX, objectY, objectDistance,
+		this.isMatchingGreatCircleDistance);
+	this.setSearchRules(this.query, this.isAcceptingSubtrees);
+
+	if (this.isSearchedInParallel(this.query)) {
+	    return this.regionSearchInParallel(this.query, visitor);
 	}
-	return 0;
+	int numberOfNodesVisited = 0;
+	for (int i = 0; i < this.query.numberOfBoxes; i++) {
+	    numberOfNodesVisited += this.regionSearchBox(this.query, i,
+		    visitor);
+	}
+	return numberOfNodesVisited;
     }
 
     /**
-     * @param node
-     * @param currentWorld
-     * @param objectBoundingBox
-     * @param objectPoint
-     * @param objectDistance
-     * @param isSplittingXAxis
-     * @return The number of internal nodes that were visited.
-     */
-    public int regionSearchInternalNode(BinTreeNode<E> node,
-	    BoundingBox currentWorld, BoundingBox objectBoundingBox,
-	    Point objectPoint, double objectDistance, boolean isSplittingXAxis) {
-	if (isSplittingXAxis) {
-	    if (BoundingBox.isOverlapping(currentWorld, objectBoundingBox)) {
-		// current node should go to left subtree
-		double worldX = currentWorld.getBottomLeftPoint().getX();
-		double worldY = currentWorld.getBottomLeftPoint().getY();
-
-		BoundingBox leftWorld = new BoundingBox(new Point(worldX,
-			worldY), currentWorld.getWidth(),
-			currentWorld.getHeight());
-		leftWorld.changeToLeftHalfBoundingBox();
-
-		// current node should go to right subtree
-		BoundingBox rightWorld = new BoundingBox(new Point(worldX,
-			worldY), currentWorld.getWidth(),
-			currentWorld.getHeight());
-		rightWorld.changeToRightHalfBoundingBox();
-
-		return 1
-			+ this.regionSearchHelp(
-				((BinTreeInternalNode<E>) node).getLeftChild(),
-				leftWorld, objectBoundingBox, objectPoint,
-				objectDistance, !isSplittingXAxis)
-			+ this.regionSearchHelp(
-				((BinTreeInternalNode<E>) node).getRightChild(),
-				rightWorld, objectBoundingBox, objectPoint,
-				objectDistance, !isSplittingXAxis);
-	    } else {
-		return 0;
-	    }
-	} else {
-	    if (BoundingBox.isOverlapping(currentWorld, objectBoundingBox)) {
-		// current node should go to left subtree
-		double worldX = currentWorld.getBottomLeftPoint().getX();
-		double worldY = currentWorld.getBottomLeftPoint().getY();
-		BoundingBox leftWorld = new BoundingBox(new Point(worldX,
-			worldY), currentWorld.getWidth(),
-			currentWorld.getHeight());
-		leftWorld.changeToBottomHalfBoundingBox();
-
-		// current node should go to right subtree
-		BoundingBox rightWorld = new BoundingBox(new Point(worldX,
-			worldY), currentWorld.getWidth(),
-			currentWorld.getHeight());
-		rightWorld.changeToTopHalfBoundingBox();
-
-		return 1
-			+ this.regionSearchHelp(
-				((BinTreeInternalNode<E>) node).getLeftChild(),
-				leftWorld, objectBoundingBox, objectPoint,
-				objectDistance, !isSplittingXAxis)
-			+ this.regionSearchHelp(
-				((BinTreeInternalNode<E>) node).getRightChild(),
-				rightWorld, objectBoundingBox, objectPoint,
-				objectDistance, !isSplittingXAxis);
-	    } else {
-		return 0;
-	    }
+     * Search large regions with a fork/join pool. A region search whose boxes
+     * cover at least minimumWorldCoverage of the world then has the subtrees
+     * of the upper levels of the bin tree searched in parallel. The elements
+     * are still given to the visitor on the calling thread in the same order
+     * and the same number of nodes are visited as a sequential search.
+     *
+     * The bin tree must not be changed while a region search is running.
+     *
+     * @param pool
+     *            The pool to search with, or null to search every region on
+     *            the calling thread.
+     * @param minimumWorldCoverage
+     *            Fraction of the world between 0 and 1.
+     */
+    public void setParallelRegionSearch(ForkJoinPool pool,
+	    double minimumWorldCoverage) {
+	if (minimumWorldCoverage < 0.0 || minimumWorldCoverage > 1.0) {
+	    throw new IllegalArgumentException(
+		    "In method setParallelRegionSearch of class BinTree2D "
+			    + "the minimum world coverage must be between 0 "
+			    + "and 1");
 	}
+	this.regionSearchPool = pool;
+	this.minimumParallelWorldCoverage = minimumWorldCoverage;
     }
 
     /**
-     * Remove all nodes in bin tree and replace root node with empty node
-     * flyweight.
+     * Choose how planar region searches prune the cells of the bin tree. The
+     * same elements are found either way but the number of nodes visited
+     * differs.
+     *
+     * @param isPruningExactly
+     *            If true, skip every cell whose nearest point lies outside of
+     *            the search circle; otherwise skip only the cells outside of
+     *            the circle's bounding box.
      */
-    public void clear() {
-	this.rootNode = this.emptyLeafNodeFlyweight;
-	this.size = 0;
+    @Override
+    public void setExactCirclePruning(boolean isPruningExactly) {
+	this.isPruningExactly = isPruningExactly;
     }
 
     /**
-     * @return the number of BinTreeNodes in this bin tree.
+     * @return true if planar region searches prune exactly by the search
+     *         circle.
      */
+    @Override
+    public boolean isPruningExactly() {
+	return this.isPruningExactly;
+    }
+
+    /**
+     * Choose whether planar region searches accept the cells within the
+     * search circle whole. The same elements are found in the same order and
+     * the same number of nodes is reported either way.
+     *
+     * @param isAcceptingSubtrees
+     *            If true, give the records below a cell within the search
+     *            circle to the visitor without checking their distance and
+     *            count the nodes below it from its subtree size.
+     */
+    public void setSubtreeAcceptance(boolean isAcceptingSubtrees) {
+	this.isAcceptingSubtrees = isAcceptingSubtrees;
+    }
+
+    /**
+     * @return true if planar region searches accept the cells within the
+     *         search circle whole.
+     */
+    public boolean isAcceptingSubtrees() {
+	return this.isAcceptingSubtrees;
+    }
+
+    /**
+     * Give the query the pruning of this bin tree and choose whether it
+     * accepts the cells within its circle whole.
+     *
+     * @param regionQuery
+     * @param isAccepting
+     */
+    private void setSearchRules(RegionQuery regionQuery, boolean isAccepting) {
+	regionQuery.isPruningExactly = this.isPruningExactly;
+	regionQuery.setAcceptingContainedCells(isAccepting, this.minimumXAxis,
+		this.maximumXAxis, this.minimumYAxis, this.maximumYAxis);
+    }
+
+    /**
+     * Count the nodes a region search of the circle visits under both ways
+     * of pruning in a single walk without matching any records. A cell that
+     * the circle reaches lies within the bounding box of the circle and so
+     * does its parent's cell, so the nodes visited with exact pruning are
+     * exactly the nodes visited with bounding box pruning whose own cell the
+     * circle reaches.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @return The number of nodes visited with bounding box pruning at index
+     *         0 and with exact pruning at index 1. Both are the same for a
+     *         great circle bin tree.
+     */
+    public int[] countNodesVisitedByPruningRule(double objectX,
+	    double objectY, double objectDistance) {
+	this.query.setCircle(objectX, objectY, objectDistance,
+		this.isMatchingGreatCircleDistance);
+	this.query.isPruningExactly = false;
+	this.query.isAcceptingContainedCells = false;
+
+	int[] numberOfNodesVisited = new int[2];
+	this.pruningRuleCountWalk.numberOfNodesVisited = numberOfNodesVisited;
+	for (int i = 0; i < this.query.numberOfBoxes; i++) {
+	    this.walkBox(this.pruningRuleCountWalk, this.query, i);
+	}
+	this.pruningRuleCountWalk.numberOfNodesVisited = null;
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Count the records within the circle without finding them. A cell within
+     * the circle adds the number of records in its subtree without being
+     * descended into, so only the nodes along the boundary of the circle are
+     * visited. A great circle bin tree checks every record it reaches.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @return The number of elements a region search of the circle finds.
+     */
+    public int countInRegion(double objectX, double objectY,
+	    double objectDistance) {
+	this.query.setCircle(objectX, objectY, objectDistance,
+		this.isMatchingGreatCircleDistance);
+	this.query.isPruningExactly = true;
+	this.query.setAcceptingContainedCells(true, this.minimumXAxis,
+		this.maximumXAxis, this.minimumYAxis, this.maximumYAxis);
+
+	this.recordCountWalk.numberOfRecords = 0;
+	for (int i = 0; i < this.query.numberOfBoxes; i++) {
+	    this.walkBox(this.recordCountWalk, this.query, i);
+	}
+	return this.recordCountWalk.numberOfRecords;
+    }
+
+    /**
+     * Search the circle with the given plan instead of always walking the
+     * bin tree. The elements are given to the visitor in the same order and
+     * the same number of visited nodes is returned as by regionSearch, so
+     * the plan only changes how long the search takes.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @param plan
+     *            How to search. A LINEAR_SCAN is only allowed when
+     *            isVisitingEveryNode holds for the circle.
+     * @param visitor
+     *            Receives each element within the search circle in preorder.
+     * @return The number of nodes that were visited.
+     */
+    public int regionSearch(double objectX, double objectY,
+	    double objectDistance, RegionSearchPlan plan,
+	    RegionSearchVisitor<E> visitor) {
+	if (plan == RegionSearchPlan.TREE_WALK) {
+	    return this.regionSearch(objectX, objectY, objectDistance,
+		    visitor);
+	}
+	if (this.isMatchingGreatCircleDistance) {
+	    throw new IllegalStateException("In method regionSearch of class "
+		    + "BinTree2D only a planar bin tree can be searched with "
+		    + "the plan " + plan);
+	}
+	if (plan == RegionSearchPlan.LINEAR_SCAN) {
+	    if (!this.isVisitingEveryNode(objectX, objectY, objectDistance)) {
+		throw new IllegalArgumentException("In method regionSearch of "
+			+ "class BinTree2D a linear scan can only stand in for "
+			+ "a region search that visits every node");
+	    }
+	    return this.regionSearchByLinearScan(visitor);
+	}
+	this.query.setPlanar(objectX, objectY, objectDistance);
+	this.setSearchRules(this.query, true);
+	return this.regionSearchBox(this.query, 0, visitor);
+    }
+
+    /**
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @return the fraction of the world covered by the boxes a region search
+     *         of the circle visits, from 0 to 1.
+     */
+    public double getWorldCoverage(double objectX, double objectY,
+	    double objectDistance) {
+	this.query.setCircle(objectX, objectY, objectDistance,
+		this.isMatchingGreatCircleDistance);
+	return this.query.getWorldCoverage(this.minimumXAxis,
+		this.maximumXAxis, this.minimumYAxis, this.maximumYAxis);
+    }
+
+    /**
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @return true if a planar region search of the circle reaches every
+     *         cell of the world and so visits every node of the bin tree.
+     */
+    public boolean isVisitingEveryNode(double objectX, double objectY,
+	    double objectDistance) {
+	if (this.isMatchingGreatCircleDistance) {
+	    return false;
+	}
+	this.query.setPlanar(objectX, objectY, objectDistance);
+	boolean isBoxCoveringWorld = this.query.boxMinimumX[0]
+		<= this.minimumXAxis
+		&& this.query.boxMaximumX[0] >= this.maximumXAxis
+		&& this.query.boxMinimumY[0] <= this.minimumYAxis
+		&& this.query.boxMaximumY[0] >= this.maximumYAxis;
+	if (!isBoxCoveringWorld || !this.isPruningExactly) {
+	    return isBoxCoveringWorld;
+	}
+	// every cell is reached when the whole world is within the circle
+	return this.query.isContainingCell(this.minimumXAxis,
+		this.minimumYAxis, this.maximumXAxis - this.minimumXAxis,
+		this.maximumYAxis - this.minimumYAxis);
+    }
+
+    /**
+     * Estimate the work of a planar region search of the circle from the
+     * record and node counts of the subtrees at the cells it reaches. A cell
+     * within the circle adds its subtree to the contained counts without
+     * being descended into. A cell the circle only partly covers is descended
+     * into until its subtree holds at most ESTIMATED_SUBTREE_NUMBER_OF_NODES
+     * nodes and is then added whole to the boundary counts, so the boundary
+     * counts are at least the work of the search along the boundary.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @param estimate
+     *            Array of at least 4 counts that is filled with the number of
+     *            nodes and of records in cells the circle reaches but does
+     *            not contain at index 0 and 1 and the number of nodes and of
+     *            records in cells within the circle at index 2 and 3.
+     */
+    public void estimateRegionSearch(double objectX, double objectY,
+	    double objectDistance, int[] estimate) {
+	if (this.isMatchingGreatCircleDistance) {
+	    throw new IllegalStateException("In method estimateRegionSearch of "
+		    + "class BinTree2D only a planar region search can be "
+		    + "estimated");
+	}
+	this.query.setPlanar(objectX, objectY, objectDistance);
+	this.setSearchRules(this.query, true);
+	Arrays.fill(estimate, 0, 4, 0);
+	this.estimateWalk.estimate = estimate;
+	for (int i = 0; i < this.query.numberOfBoxes; i++) {
+	    this.walkBox(this.estimateWalk, this.query, i);
+	}
+	this.estimateWalk.estimate = null;
+    }
+
+    /**
+     * Give every element of the subtree to the visitor in preorder without
+     * checking any cell or distance.
+     *
+     * @param subtreeRootNode
+     * @param visitor
+     */
+    @SuppressWarnings("unchecked")
+    private void enumerateSubtree(BinTreeNode<E> subtreeRootNode,
+	    RegionSearchVisitor<E> visitor) {
+	int stackSize = 0;
+	this.enumerationNodeStack[stackSize++] = subtreeRootNode;
+	while (stackSize > 0) {
+	    stackSize--;
+	    BinTreeNode<E> node =
+		    (BinTreeNode<E>) this.enumerationNodeStack[stackSize];
+	    this.enumerationNodeStack[stackSize] = null;
+	    if (node instanceof BinTreeInternalNode<?>) {
+		BinTreeInternalNode<E> internalNode =
+			(BinTreeInternalNode<E>) node;
+		if (stackSize + 2 > this.enumerationNodeStack.length) {
+		    this.enumerationNodeStack = Arrays.copyOf(
+			    this.enumerationNodeStack,
+			    this.enumerationNodeStack.length * 2);
+		}
+		this.enumerationNodeStack[stackSize++] =
+			internalNode.getRightChild();
+		this.enumerationNodeStack[stackSize++] =
+			internalNode.getLeftChild();
+	    } else if (node instanceof BinTreeLeafNode<?, ?>) {
+		BinTreeLeafNode<?, E> leafNode = (BinTreeLeafNode<?, E>) node;
+		for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+		    visitor.visit(leafNode.getElement(i));
+		}
+	    }
+	}
+    }
+
+    /**
+     * Check every record of the preorder snapshot against the planar search
+     * circle of this.query.
+     *
+     * @return The number of nodes in the bin tree, which a region search
+     *         visiting every node visits.
+     */
+    @SuppressWarnings("unchecked")
+    private int regionSearchByLinearScan(RegionSearchVisitor<E> visitor) {
+	if (!this.isScanSnapshotCurrent) {
+	    this.updateScanSnapshot();
+	}
+	for (int i = 0; i < this.size; i++) {
+	    if (this.query.isMatch(0, this.scanKeys[i * 2],
+		    this.scanKeys[i * 2 + 1], null, 0)) {
+		visitor.visit((E) this.scanElements[i]);
+	    }
+	}
+	return this.scanNumberOfNodes;
+    }
+
+    /**
+     * Copy the records of the bin tree into the linear scan arrays in
+     * preorder and count its nodes.
+     */
+    @SuppressWarnings("unchecked")
+    private void updateScanSnapshot() {
+	if (this.scanElements.length < this.size) {
+	    this.scanElements = new Object[this.size];
+	    this.scanKeys = new double[this.size * 2];
+	}
+	int numberOfRecords = 0;
+	int numberOfNodes = 0;
+	int stackSize = 0;
+	this.enumerationNodeStack[stackSize++] = this.rootNode;
+	while (stackSize > 0) {
+	    stackSize--;
+	    BinTreeNode<E> node =
+		    (BinTreeNode<E>) this.enumerationNodeStack[stackSize];
+	    this.enumerationNodeStack[stackSize] = null;
+	    numberOfNodes++;
+	    if (node instanceof BinTreeInternalNode<?>) {
+		BinTreeInternalNode<E> internalNode =
+			(BinTreeInternalNode<E>) node;
+		if (stackSize + 2 > this.enumerationNodeStack.length) {
+		    this.enumerationNodeStack = Arrays.copyOf(
+			    this.enumerationNodeStack,
+			    this.enumerationNodeStack.length * 2);
+		}
+		this.enumerationNodeStack[stackSize++] =
+			internalNode.getRightChild();
+		this.enumerationNodeStack[stackSize++] =
+			internalNode.getLeftChild();
+	    } else if (node instanceof BinTreeLeafNode<?, ?>) {
+		BinTreeLeafNode<K, E> leafNode = (BinTreeLeafNode<K, E>) node;
+		for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+		    this.scanElements[numberOfRecords] = leafNode.getElement(i);
+		    this.scanKeys[numberOfRecords * 2] = leafNode.getKey(i)
+			    .getX();
+		    this.scanKeys[numberOfRecords * 2 + 1] = leafNode
+			    .getKey(i).getY();
+		    numberOfRecords++;
+		}
+	    }
+	}
+	// forget records removed since the last snapshot
+	Arrays.fill(this.scanElements, numberOfRecords,
+		this.scanElements.length, null);
+	this.scanNumberOfNodes = numberOfNodes;
+	this.isScanSnapshotCurrent = true;
+    }
+
+    /**
+     * @param regionQuery
+     * @return true if the search region is large enough to be searched in
+     *         parallel.
+     */
+    boolean isSearchedInParallel(RegionQuery regionQuery) {
+	return this.regionSearchPool != null
+		&& regionQuery.getWorldCoverage(this.minimumXAxis,
+			this.maximumXAxis, this.minimumYAxis,
+			this.maximumYAxis) >= this.minimumParallelWorldCoverage;
+    }
+
+    /**
+     * Search each box of the search circle with the fork/join pool and then
+     * give the found elements to the visitor in preorder.
+     *
+     * @param regionQuery
+     * @param visitor
+     * @return The number of nodes that were visited.
+     */
+    int regionSearchInParallel(RegionQuery regionQuery,
+	    RegionSearchVisitor<E> visitor) {
+	int numberOfNodesVisited = 0;
+	for (int i = 0; i < regionQuery.numberOfBoxes; i++) {
+	    RegionSearchTask<E> task = new RegionSearchTask<E>(regionQuery, i,
+		    this.rootNode, this.minimumXAxis, this.minimumYAxis,
+		    this.maximumXAxis - this.minimumXAxis, this.maximumYAxis
+			    - this.minimumYAxis, true, 0);
+	    numberOfNodesVisited += this.regionSearchPool.invoke(task);
+	    task.giveElementsTo(visitor);
+	}
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * @param regionQuery
+     *            The search circle.
+     * @param boxIndex
+     *            The box of the search circle to search.
+     * @param visitor
+     *            Receives each element within the search circle and the box.
+     * @return The number of nodes that were visited.
+     */
+    int regionSearchBox(RegionQuery regionQuery, int boxIndex,
+	    RegionSearchVisitor<E> visitor) {
+	this.searchWalk.visitor = visitor;
+	this.searchWalk.numberOfNodesVisited = 0;
+	this.walkBox(this.searchWalk, regionQuery, boxIndex);
+	this.searchWalk.visitor = null;
+	return this.searchWalk.numberOfNodesVisited;
+    }
+
+    /**
+     * Search many circles at once with a single walk of the bin tree. Each
+     * node carries only the search regions whose boxes overlap its cell, so
+     * the upper levels of the tree are visited once for the whole batch
+     * instead of once per circle.
+     *
+     * The elements of each circle are given to the visitor in the same order
+     * and each circle visits the same number of nodes as a regionSearch of
+     * that circle alone. The tree is walked once for the first box of every
+     * circle and once more for the second boxes of the great circles split at
+     * the 0/360 seam, so a split circle gives the elements of its first box
+     * before those of its second. Circles large enough to be searched in
+     * parallel are searched on their own before the walks.
+     *
+     * @param objectX
+     *            x coordinates of the centers of the search circles.
+     * @param objectY
+     *            y coordinates of the centers of the search circles.
+     * @param objectDistance
+     *            radii of the search circles.
+     * @param numberOfQueries
+     *            The number of search circles in the arrays to search.
+     * @param visitor
+     *            Receives each element within a search circle with the index
+     *            of the circle.
+     * @return The number of nodes that were visited for each search circle.
+     */
+    @Override
+    public int[] regionSearch(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    BatchRegionSearchVisitor<E> visitor) {
+	int[] numberOfNodesVisited = new int[numberOfQueries];
+	if (numberOfQueries == 0) {
+	    return numberOfNodesVisited;
+	}
+	this.queryIndexVisitor.batchVisitor = visitor;
+	this.searchBatch(objectX, objectY, objectDistance, numberOfQueries,
+		numberOfNodesVisited);
+	this.queryIndexVisitor.batchVisitor = null;
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * The walk of a batch region search, giving the elements found to the
+     * batch visitor of the queryIndexVisitor.
+     *
+     * @param numberOfNodesVisited
+     *            Receives the number of nodes visited for each circle.
+     */
+    private void searchBatch(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    int[] numberOfNodesVisited) {
+	this.batch.setCircles(objectX, objectY, objectDistance,
+		numberOfQueries, this.isMatchingGreatCircleDistance);
+	for (int i = 0; i < numberOfQueries; i++) {
+	    RegionQuery regionQuery = this.batch.getQuery(i);
+	    this.setSearchRules(regionQuery, this.isAcceptingSubtrees);
+	    if (this.isSearchedInParallel(regionQuery)) {
+		// a circle covering much of the world gains little from
+		// sharing the walk and is searched in parallel on its own
+		this.batch.setSearchedAlone(i);
+		this.queryIndexVisitor.queryIndex = i;
+		numberOfNodesVisited[i] = this.regionSearchInParallel(
+			regionQuery, this.queryIndexVisitor);
+	    }
+	}
+
+	for (int boxIndex = 0; boxIndex < RegionQuery.MAXIMUM_NUMBER_OF_BOXES;
+		boxIndex++) {
+	    int arenaTop = this.batch.addBoxes(boxIndex, numberOfQueries);
+	    if (arenaTop > 0) {
+		this.batchWalk.numberOfNodesVisited = numberOfNodesVisited;
+		this.walk(this.batchWalk, arenaTop);
+		this.batchWalk.numberOfNodesVisited = null;
+	    }
+	}
+    }
+
+    /**
+     * Walk the bin tree from the root node with the region search stack,
+     * visiting the left child of each internal node before its right child.
+     * The cell walk decides at each node whether the walk goes on below it
+     * and is given each leaf node the walk reaches.
+     *
+     * @param cellWalk
+     * @param numberOfActiveRegions
+     *            The number of search regions at the bottom of the active
+     *            query arena that are active at the root node, or 0 if the
+     *            walk does not use the arena.
+     */
+    @SuppressWarnings("unchecked")
+    private void walk(CellWalk cellWalk, int numberOfActiveRegions) {
+	this.pushSearchFrame(0, this.rootNode, this.minimumXAxis,
+		this.minimumYAxis, this.maximumXAxis - this.minimumXAxis,
+		this.maximumYAxis - this.minimumYAxis, true);
+	this.pushSearchRange(0, 0, numberOfActiveRegions);
+	int stackSize = 1;
+
+	while (stackSize > 0) {
+	    stackSize--;
+	    BinTreeNode<E> node =
+		    (BinTreeNode<E>) this.searchNodeStack[stackSize];
+	    this.searchNodeStack[stackSize] = null;
+	    int cellIndex = stackSize * 4;
+	    double cellX = this.searchCellStack[cellIndex];
+	    double cellY = this.searchCellStack[cellIndex + 1];
+	    double cellWidth = this.searchCellStack[cellIndex + 2];
+	    double cellHeight = this.searchCellStack[cellIndex + 3];
+	    boolean isSplittingXAxis = this.searchAxisStack[stackSize];
+	    if (!cellWalk.visitCell(node, cellX, cellY, cellWidth, cellHeight,
+		    stackSize)) {
+		continue;
+	    }
+
+	    if (node instanceof BinTreeInternalNode<?>) {
+		BinTreeInternalNode<E> internalNode =
+			(BinTreeInternalNode<E>) node;
+		// the right child is pushed first so the left child is
+		// visited first
+		if (isSplittingXAxis) {
+		    double halfWidth = cellWidth / 2;
+		    this.pushSearchFrame(stackSize,
+			    internalNode.getRightChild(), cellX + halfWidth,
+			    cellY, halfWidth, cellHeight, false);
+		    this.pushSearchRange(stackSize++, cellWalk.activeStart,
+			    cellWalk.activeCount);
+		    this.pushSearchFrame(stackSize,
+			    internalNode.getLeftChild(), cellX, cellY,
+			    halfWidth, cellHeight, false);
+		    this.pushSearchRange(stackSize++, cellWalk.activeStart,
+			    cellWalk.activeCount);
+		} else {
+		    double halfHeight = cellHeight / 2;
+		    this.pushSearchFrame(stackSize,
+			    internalNode.getRightChild(), cellX, cellY
+				    + halfHeight, cellWidth, halfHeight, true);
+		    this.pushSearchRange(stackSize++, cellWalk.activeStart,
+			    cellWalk.activeCount);
+		    this.pushSearchFrame(stackSize,
+			    internalNode.getLeftChild(), cellX, cellY,
+			    cellWidth, halfHeight, true);
+		    this.pushSearchRange(stackSize++, cellWalk.activeStart,
+			    cellWalk.activeCount);
+		}
+	    } else if (node instanceof BinTreeLeafNode<?, ?>) {
+		cellWalk.visitLeafNode((BinTreeLeafNode<?, E>) node);
+	    }
+	}
+    }
+
+    /**
+     * Walk the bin tree for one box of a search circle.
+     *
+     * @param boxWalk
+     * @param regionQuery
+     *            The search circle.
+     * @param boxIndex
+     *            The box of the search circle to walk.
+     */
+    private void walkBox(BoxWalk boxWalk, RegionQuery regionQuery,
+	    int boxIndex) {
+	boxWalk.regionQuery = regionQuery;
+	boxWalk.boxIndex = boxIndex;
+	this.walk(boxWalk, 0);
+	boxWalk.regionQuery = null;
+    }
+
+    /**
+     * What a walk of the region search stack does at each node it pops.
+     */
+    private abstract class CellWalk {
+	/**
+	 * The start and length within the active query arena of the search
+	 * regions still active below the node last given to visitCell.
+	 */
+	int activeStart;
+	int activeCount;
+
+	/**
+	 * @param node
+	 * @param cellX
+	 * @param cellY
+	 * @param cellWidth
+	 * @param cellHeight
+	 * @param stackIndex
+	 *            The index of the node on the region search stack.
+	 * @return true if the walk goes on to the node's children or records.
+	 */
+	abstract boolean visitCell(BinTreeNode<E> node, double cellX,
+		double cellY, double cellWidth, double cellHeight,
+		int stackIndex);
+
+	/**
+	 * @param leafNode
+	 *            A leaf node the walk goes on to.
+	 */
+	abstract void visitLeafNode(BinTreeLeafNode<?, E> leafNode);
+    }
+
+    /**
+     * A walk of one box of a search circle. The walk skips the cells the box
+     * does not reach and stops at the cells the circle accepts whole.
+     */
+    private abstract class BoxWalk extends CellWalk {
+	RegionQuery regionQuery;
+	int boxIndex;
+
+	@Override
+	boolean visitCell(BinTreeNode<E> node, double cellX, double cellY,
+		double cellWidth, double cellHeight, int stackIndex) {
+	    if (!this.regionQuery.isReachingCell(this.boxIndex, cellX, cellY,
+		    cellWidth, cellHeight)) {
+		return false;
+	    }
+	    if (this.regionQuery.isAcceptingCell(cellX, cellY, cellWidth,
+		    cellHeight)) {
+		this.visitAcceptedSubtree(node);
+		return false;
+	    }
+	    return this.visitBoundaryCell(node, cellX, cellY, cellWidth,
+		    cellHeight);
+	}
+
+	/**
+	 * @param node
+	 *            The root node of a subtree whose records are all within
+	 *            the circle.
+	 */
+	abstract void visitAcceptedSubtree(BinTreeNode<E> node);
+
+	/**
+	 * @param node
+	 *            A node whose cell the box reaches but the circle does not
+	 *            accept whole.
+	 * @param cellX
+	 * @param cellY
+	 * @param cellWidth
+	 * @param cellHeight
+	 * @return true if the walk goes on to the node's children or records.
+	 */
+	abstract boolean visitBoundaryCell(BinTreeNode<E> node, double cellX,
+		double cellY, double cellWidth, double cellHeight);
+    }
+
+    /**
+     * Counts the nodes visited under both ways of pruning.
+     */
+    private class PruningRuleCountWalk extends BoxWalk {
+	int[] numberOfNodesVisited;
+
+	@Override
+	void visitAcceptedSubtree(BinTreeNode<E> node) {
+	    // both rules reach every cell within the circle
+	    this.numberOfNodesVisited[0] += node.getSubtreeNumberOfNodes();
+	    this.numberOfNodesVisited[1] += node.getSubtreeNumberOfNodes();
+	}
+
+	@Override
+	boolean visitBoundaryCell(BinTreeNode<E> node, double cellX,
+		double cellY, double cellWidth, double cellHeight) {
+	    if (!this.regionQuery.isGreatCircle
+		    && this.regionQuery.isContainingCell(cellX, cellY,
+			    cellWidth, cellHeight)) {
+		this.visitAcceptedSubtree(node);
+		return false;
+	    }
+	    this.numberOfNodesVisited[0]++;
+	    if (this.regionQuery.isGreatCircle
+		    || this.regionQuery.isReachingCircle(cellX, cellY,
+			    cellWidth, cellHeight)) {
+		this.numberOfNodesVisited[1]++;
+	    }
+	    return true;
+	}
+
+	@Override
+	void visitLeafNode(BinTreeLeafNode<?, E> leafNode) {
+	    // only nodes are counted
+	}
+    }
+
+    /**
+     * Counts the records within the circle.
+     */
+    private class RecordCountWalk extends BoxWalk {
+	int numberOfRecords;
+
+	@Override
+	void visitAcceptedSubtree(BinTreeNode<E> node) {
+	    this.numberOfRecords += node.getSubtreeNumberOfRecords();
+	}
+
+	@Override
+	boolean visitBoundaryCell(BinTreeNode<E> node, double cellX,
+		double cellY, double cellWidth, double cellHeight) {
+	    return true;
+	}
+
+	@Override
+	void visitLeafNode(BinTreeLeafNode<?, E> leafNode) {
+	    for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+		if (this.regionQuery.isMatch(this.boxIndex, leafNode, i)) {
+		    this.numberOfRecords++;
+		}
+	    }
+	}
+    }
+
+    /**
+     * Adds up the subtree counts of the cells a region search reaches.
+     */
+    private class EstimateWalk extends BoxWalk {
+	int[] estimate;
+
+	@Override
+	void visitAcceptedSubtree(BinTreeNode<E> node) {
+	    this.estimate[2] += node.getSubtreeNumberOfNodes();
+	    this.estimate[3] += node.getSubtreeNumberOfRecords();
+	}
+
+	@Override
+	boolean visitBoundaryCell(BinTreeNode<E> node, double cellX,
+		double cellY, double cellWidth, double cellHeight) {
+	    if (!(node instanceof BinTreeInternalNode<?>)
+		    || node.getSubtreeNumberOfNodes()
+		    <= ESTIMATED_SUBTREE_NUMBER_OF_NODES) {
+		this.estimate[0] += node.getSubtreeNumberOfNodes();
+		this.estimate[1] += node.getSubtreeNumberOfRecords();
+		return false;
+	    }
+	    this.estimate[0]++;
+	    return true;
+	}
+
+	@Override
+	void visitLeafNode(BinTreeLeafNode<?, E> leafNode) {
+	    // leaf nodes are added whole by visitBoundaryCell
+	}
+    }
+
+    /**
+     * Gives the elements within the circle to a visitor in preorder.
+     */
+    private class SearchWalk extends BoxWalk {
+	RegionSearchVisitor<E> visitor;
+	int numberOfNodesVisited;
+
+	@Override
+	void visitAcceptedSubtree(BinTreeNode<E> node) {
+	    this.numberOfNodesVisited += node.getSubtreeNumberOfNodes();
+	    BinTree2D.this.enumerateSubtree(node, this.visitor);
+	}
+
+	@Override
+	boolean visitBoundaryCell(BinTreeNode<E> node, double cellX,
+		double cellY, double cellWidth, double cellHeight) {
+	    this.numberOfNodesVisited++;
+	    return true;
+	}
+
+	@Override
+	void visitLeafNode(BinTreeLeafNode<?, E> leafNode) {
+	    for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+		if (this.regionQuery.isMatch(this.boxIndex, leafNode, i)) {
+		    this.visitor.visit(leafNode.getElement(i));
+		}
+	    }
+	}
+    }
+
+    /**
+     * Searches the search regions of a batch region search at once. Each node
+     * carries only the search regions whose boxes overlap its cell and gives
+     * the elements found to the batch visitor of the queryIndexVisitor.
+     */
+    private class BatchWalk extends CellWalk {
+	int[] numberOfNodesVisited;
+
+	@Override
+	boolean visitCell(BinTreeNode<E> node, double cellX, double cellY,
+		double cellWidth, double cellHeight, int stackIndex) {
+	    int[] searchRangeStack = BinTree2D.this.searchRangeStack;
+	    int parentStart = searchRangeStack[stackIndex * 2];
+	    int parentEnd = parentStart + searchRangeStack[stackIndex * 2 + 1];
+	    RegionQueryBatch batch = BinTree2D.this.batch;
+	    int arenaTop = batch.addReachingRegions(parentStart, parentEnd,
+		    cellX, cellY, cellWidth, cellHeight,
+		    this.numberOfNodesVisited);
+	    for (int i = 0; i < batch.getNumberOfAcceptedQueries(); i++) {
+		// the circle's search of this subtree ends here
+		int queryIndex = batch.getAcceptedQuery(i);
+		this.numberOfNodesVisited[queryIndex] += node
+			.getSubtreeNumberOfNodes();
+		BinTree2D.this.queryIndexVisitor.queryIndex = queryIndex;
+		BinTree2D.this.enumerateSubtree(node,
+			BinTree2D.this.queryIndexVisitor);
+	    }
+	    this.activeStart = parentEnd;
+	    this.activeCount = arenaTop - parentEnd;
+	    return this.activeCount > 0;
+	}
+
+	@Override
+	void visitLeafNode(BinTreeLeafNode<?, E> leafNode) {
+	    BatchRegionSearchVisitor<E> visitor =
+		    BinTree2D.this.queryIndexVisitor.batchVisitor;
+	    int activeEnd = this.activeStart + this.activeCount;
+	    for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+		for (int j = this.activeStart; j < activeEnd; j++) {
+		    if (BinTree2D.this.batch.isMatch(j, leafNode, i)) {
+			visitor.visit(BinTree2D.this.batch.getQueryIndex(j),
+				leafNode.getElement(i));
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Store the range of a stacked node's parent's active search regions.
+     *
+     * @param index
+     * @param parentStart
+     * @param parentCount
+     */
+    private void pushSearchRange(int index, int parentStart, int parentCount) {
+	this.searchRangeStack[index * 2] = parentStart;
+	this.searchRangeStack[index * 2 + 1] = parentCount;
+    }
+
+    /**
+     * Store a node and the bounds of its cell at the given index of the
+     * region search stack, growing the stack if it is full.
+     *
+     * @param index
+     * @param node
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @param isSplittingXAxis
+     */
+    private void pushSearchFrame(int index, BinTreeNode<E> node, double cellX,
+	    double cellY, double cellWidth, double cellHeight,
+	    boolean isSplittingXAxis) {
+	if (index == this.searchNodeStack.length) {
+	    int newLength = this.searchNodeStack.length * 2;
+	    this.searchNodeStack = Arrays.copyOf(this.searchNodeStack,
+		    newLength);
+	    this.searchCellStack = Arrays.copyOf(this.searchCellStack,
+		    newLength * 4);
+	    this.searchAxisStack = Arrays.copyOf(this.searchAxisStack,
+		    newLength);
+	    this.searchRangeStack = Arrays.copyOf(this.searchRangeStack,
+		    newLength * 2);
+	}
+	this.searchNodeStack[index] = node;
+	int cellIndex = index * 4;
+	this.searchCellStack[cellIndex] = cellX;
+	this.searchCellStack[cellIndex + 1] = cellY;
+	this.searchCellStack[cellIndex + 2] = cellWidth;
+	this.searchCellStack[cellIndex + 3] = cellHeight;
+	this.searchAxisStack[index] = isSplittingXAxis;
+    }
+
+    /**
+     * Find the k elements nearest to the search point with a best first walk
+     * of the bin tree. The cells still to visit are kept in a min heap
+     * ordered by their distance from the search point, so the cells are
+     * visited nearest first. Once k candidates are found, a cell no nearer
+     * than the farthest candidate is never added to the heap and the walk
+     * stops when the nearest cell left is that far away. Leaf nodes are only
+     * visited if they can hold one of the k nearest elements.
+     *
+     * The heap and the result buffer are reused between searches, so once
+     * both have grown a search allocates nothing.
+     *
+     * @param objectX
+     *            x coordinate of the search point.
+     * @param objectY
+     *            y coordinate of the search point.
+     * @param k
+     *            The number of elements to find.
+     * @param nearestElements
+     *            Receives the k nearest elements ordered from nearest to
+     *            farthest along with their distances.
+     * @return The number of nodes that were visited.
+     */
+    @SuppressWarnings("unchecked")
+    public int nearestNeighborSearch(double objectX, double objectY, int k,
+	    NearestNeighborBuffer<E> nearestElements) {
+	if (k < 1) {
+	    throw new IllegalArgumentException(
+		    "In method nearestNeighborSearch of class BinTree2D k must "
+			    + "be at least 1");
+	}
+	if (this.isMatchingGreatCircleDistance) {
+	    throw new IllegalStateException(
+		    "In method nearestNeighborSearch of class BinTree2D only "
+			    + "distance in the (x, y) plane can be searched");
+	}
+	nearestElements.startSearch(k);
+	int numberOfNodesVisited = 0;
+	int heapSize = 0;
+	if (!(this.rootNode instanceof BinTreeEmptyNode<?>)) {
+	    double worldWidth = this.maximumXAxis - this.minimumXAxis;
+	    double worldHeight = this.maximumYAxis - this.minimumYAxis;
+	    heapSize = this.pushNearestCell(heapSize, this.rootNode,
+		    RegionQuery.getDistanceSquaredToCell(objectX, objectY,
+			    this.minimumXAxis, this.minimumYAxis, worldWidth,
+			    worldHeight), this.minimumXAxis,
+		    this.minimumYAxis, worldWidth, worldHeight, true);
+	}
+
+	while (heapSize > 0) {
+	    BinTreeNode<E> node = (BinTreeNode<E>) this.nearestCellNodes[0];
+	    double distanceSquared = this.nearestCellDistances[0];
+	    double cellX = this.nearestCellBounds[0];
+	    double cellY = this.nearestCellBounds[1];
+	    double cellWidth = this.nearestCellBounds[2];
+	    double cellHeight = this.nearestCellBounds[3];
+	    boolean isSplittingXAxis = this.nearestCellAxes[0];
+	    heapSize = this.popNearestCell(heapSize);
+
+	    if (nearestElements.isFull()
+		    && distanceSquared >= nearestElements
+			    .getFarthestDistanceSquared()) {
+		// every cell left is at least as far away
+		break;
+	    }
+	    numberOfNodesVisited++;
+
+	    if (node instanceof BinTreeInternalNode<?>) {
+		BinTreeInternalNode<E> internalNode =
+			(BinTreeInternalNode<E>) node;
+		if (isSplittingXAxis) {
+		    double halfWidth = cellWidth / 2;
+		    heapSize = this.pushNearestCell(heapSize,
+			    internalNode.getLeftChild(), objectX, objectY,
+			    cellX, cellY, halfWidth, cellHeight, false,
+			    nearestElements);
+		    heapSize = this.pushNearestCell(heapSize,
+			    internalNode.getRightChild(), objectX, objectY,
+			    cellX + halfWidth, cellY, halfWidth, cellHeight,
+			    false, nearestElements);
+		} else {
+		    double halfHeight = cellHeight / 2;
+		    heapSize = this.pushNearestCell(heapSize,
+			    internalNode.getLeftChild(), objectX, objectY,
+			    cellX, cellY, cellWidth, halfHeight, true,
+			    nearestElements);
+		    heapSize = this.pushNearestCell(heapSize,
+			    internalNode.getRightChild(), objectX, objectY,
+			    cellX, cellY + halfHeight, cellWidth, halfHeight,
+			    true, nearestElements);
+		}
+	    } else {
+		BinTreeLeafNode<K, E> leafNode = (BinTreeLeafNode<K, E>) node;
+		for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+		    double differenceX = objectX - leafNode.getKey(i).getX();
+		    double differenceY = objectY - leafNode.getKey(i).getY();
+		    nearestElements.offer(leafNode.getElement(i), differenceX
+			    * differenceX + differenceY * differenceY);
+		}
+	    }
+	}
+	Arrays.fill(this.nearestCellNodes, 0, heapSize, null);
+	nearestElements.finishSearch();
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Add the cell of a child node to the nearest neighbor heap unless the
+     * child is empty or too far away to hold one of the k nearest elements.
+     *
+     * @return The new size of the heap.
+     */
+    private int pushNearestCell(int heapSize, BinTreeNode<E> node,
+	    double objectX, double objectY, double cellX, double cellY,
+	    double cellWidth, double cellHeight, boolean isSplittingXAxis,
+	    NearestNeighborBuffer<E> nearestElements) {
+	if (node instanceof BinTreeEmptyNode<?>) {
+	    return heapSize;
+	}
+	double distanceSquared = RegionQuery.getDistanceSquaredToCell(objectX,
+		objectY, cellX, cellY, cellWidth, cellHeight);
+	if (nearestElements.isFull()
+		&& distanceSquared >= nearestElements
+			.getFarthestDistanceSquared()) {
+	    return heapSize;
+	}
+	return this.pushNearestCell(heapSize, node, distanceSquared, cellX,
+		cellY, cellWidth, cellHeight, isSplittingXAxis);
+    }
+
+    /**
+     * Add a cell to the nearest neighbor heap and move it up until its
+     * parent is nearer.
+     *
+     * @return The new size of the heap.
+     */
+    private int pushNearestCell(int heapSize, BinTreeNode<E> node,
+	    double distanceSquared, double cellX, double cellY,
+	    double cellWidth, double cellHeight, boolean isSplittingXAxis) {
+	if (heapSize == this.nearestCellNodes.length) {
+	    int newLength = heapSize * 2;
+	    this.nearestCellNodes = Arrays.copyOf(this.nearestCellNodes,
+		    newLength);
+	    this.nearestCellDistances = Arrays.copyOf(
+		    this.nearestCellDistances, newLength);
+	    this.nearestCellBounds = Arrays.copyOf(this.nearestCellBounds,
+		    newLength * 4);
+	    this.nearestCellAxes = Arrays.copyOf(this.nearestCellAxes,
+		    newLength);
+	}
+	int index = heapSize;
+	while (index > 0) {
+	    int parent = (index - 1) / 2;
+	    if (this.nearestCellDistances[parent] <= distanceSquared) {
+		break;
+	    }
+	    this.moveNearestCell(parent, index);
+	    index = parent;
+	}
+	this.nearestCellNodes[index] = node;
+	this.nearestCellDistances[index] = distanceSquared;
+	this.nearestCellBounds[index * 4] = cellX;
+	this.nearestCellBounds[index * 4 + 1] = cellY;
+	this.nearestCellBounds[index * 4 + 2] = cellWidth;
+	this.nearestCellBounds[index * 4 + 3] = cellHeight;
+	this.nearestCellAxes[index] = isSplittingXAxis;
+	return heapSize + 1;
+    }
+
+    /**
+     * Remove the nearest cell from the nearest neighbor heap by moving the
+     * last cell down from the top until its children are farther.
+     *
+     * @return The new size of the heap.
+     */
+    private int popNearestCell(int heapSize) {
+	int last = heapSize - 1;
+	double distanceSquared = this.nearestCellDistances[last];
+	int index = 0;
+	while (true) {
+	    int child = index * 2 + 1;
+	    if (child >= last) {
+		break;
+	    }
+	    if (child + 1 < last
+		    && this.nearestCellDistances[child + 1] < this
+			    .nearestCellDistances[child]) {
+		child++;
+	    }
+	    if (this.nearestCellDistances[child] >= distanceSquared) {
+		break;
+	    }
+	    this.moveNearestCell(child, index);
+	    index = child;
+	}
+	this.moveNearestCell(last, index);
+	this.nearestCellNodes[last] = null;
+	return last;
+    }
+
+    private void moveNearestCell(int from, int to) {
+	this.nearestCellNodes[to] = this.nearestCellNodes[from];
+	this.nearestCellDistances[to] = this.nearestCellDistances[from];
+	System.arraycopy(this.nearestCellBounds, from * 4,
+		this.nearestCellBounds, to * 4, 4);
+	this.nearestCellAxes[to] = this.nearestCellAxes[from];
+    }
+
+    /**
+     * Build the bin tree from a batch of records instead of inserting them
+     * one at a time. The records are split into the cells of the bin tree by
+     * stable partitions along alternating axes, which puts them into the
+     * Morton order of the bin tree, and every node is created once. The
+     * result is the same bin tree as inserting the records in list order.
+     *
+     * @param keys
+     * @param elements
+     *            The element of each key.
+     * @param pool
+     *            The pool to build large subtrees in parallel with, or null
+     *            to build on the calling thread.
+     */
+    @Override
+    public void bulkLoad(List<K> keys, List<E> elements, ForkJoinPool pool) {
+	if (keys.size() != elements.size()) {
+	    throw new IllegalArgumentException("In method bulkLoad of class "
+		    + "BinTree2D there must be one element per key");
+	}
+	if (this.size != 0) {
+	    throw new IllegalStateException("In method bulkLoad of class "
+		    + "BinTree2D the bin tree must be empty");
+	}
+	int[] records = new int[keys.size()];
+	for (int i = 0; i < records.length; i++) {
+	    records[i] = i;
+	}
+	BulkLoadTask task = new BulkLoadTask(keys, elements, records,
+		new int[records.length], 0, records.length, this.minimumXAxis,
+		this.minimumYAxis, this.maximumXAxis - this.minimumXAxis,
+		this.maximumYAxis - this.minimumYAxis, true, 0);
+	this.rootNode = pool == null ? task.buildSubtree() : pool.invoke(task);
+	this.size = records.length;
+	this.isScanSnapshotCurrent = false;
+    }
+
+    /**
+     * Builds the subtree of one cell from the records in a range of the
+     * record array. Subtrees of many records are built by forked tasks.
+     */
+    private class BulkLoadTask extends RecursiveTask<BinTreeNode<E>> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Subtrees of fewer records are built on the task that reaches them.
+	 */
+	private static final int SEQUENTIAL_CUTOFF = 4096;
+
+	private final List<K> keys;
+	private final List<E> elements;
+	private final int[] records;
+	private final int[] buffer;
+	private final int start;
+	private final int end;
+	private final double cellX;
+	private final double cellY;
+	private final double cellWidth;
+	private final double cellHeight;
+	private final boolean isSplittingXAxis;
+	private final int depth;
+
+	/**
+	 * Tasks of the left and right half of the cell once partitioned.
+	 */
+	private BulkLoadTask leftTask;
+	private BulkLoadTask rightTask;
+
+	BulkLoadTask(List<K> keys, List<E> elements, int[] records,
+		int[] buffer, int start, int end, double cellX, double cellY,
+		double cellWidth, double cellHeight, boolean isSplittingXAxis,
+		int depth) {
+	    this.keys = keys;
+	    this.elements = elements;
+	    this.records = records;
+	    this.buffer = buffer;
+	    this.start = start;
+	    this.end = end;
+	    this.cellX = cellX;
+	    this.cellY = cellY;
+	    this.cellWidth = cellWidth;
+	    this.cellHeight = cellHeight;
+	    this.isSplittingXAxis = isSplittingXAxis;
+	    this.depth = depth;
+	}
+
+	@Override
+	protected BinTreeNode<E> compute() {
+	    if (this.end - this.start < SEQUENTIAL_CUTOFF
+		    || this.isLeafNodeRange()) {
+		return this.buildSubtree();
+	    }
+	    this.partition();
+	    this.rightTask.fork();
+	    BinTreeInternalNode<E> internalNode = new BinTreeInternalNode<E>();
+	    internalNode.setLeftChild(this.leftTask.compute());
+	    internalNode.setRightChild(this.rightTask.join());
+	    this.leftTask = null;
+	    this.rightTask = null;
+	    return internalNode;
+	}
+
+	/**
+	 * @return the subtree built on this thread.
+	 */
+	BinTreeNode<E> buildSubtree() {
+	    if (this.start == this.end) {
+		return BinTree2D.this.emptyLeafNodeFlyweight;
+	    } else if (this.isLeafNodeRange()) {
+		int record = this.records[this.start];
+		BinTreeLeafNode<K, E> leafNode = new BinTreeLeafNode<K, E>(
+			this.keys.get(record), this.elements.get(record),
+			BinTree2D.this.leafBucketCapacity,
+			BinTree2D.this.isMatchingGreatCircleDistance);
+		for (int i = this.start + 1; i < this.end; i++) {
+		    record = this.records[i];
+		    leafNode.addRecord(this.keys.get(record),
+			    this.elements.get(record));
+		}
+		return leafNode;
+	    }
+	    this.partition();
+	    BinTreeInternalNode<E> internalNode = new BinTreeInternalNode<E>();
+	    internalNode.setLeftChild(this.leftTask.buildSubtree());
+	    internalNode.setRightChild(this.rightTask.buildSubtree());
+	    // finished tasks are released so only the tasks along the current
+	    // path are kept
+	    this.leftTask = null;
+	    this.rightTask = null;
+	    return internalNode;
+	}
+
+	/**
+	 * @return true if the records of the range fit into one leaf node, the
+	 *         same rule as insertIntoSubtree.
+	 */
+	private boolean isLeafNodeRange() {
+	    if (this.end - this.start <= BinTree2D.this.leafBucketCapacity
+		    || this.depth >= BinTree2D.this.maximumDepth) {
+		return true;
+	    }
+	    K key = this.keys.get(this.records[this.start]);
+	    for (int i = this.start + 1; i < this.end; i++) {
+		if (!key.equals(this.keys.get(this.records[i]))) {
+		    return false;
+		}
+	    }
+	    return true;
+	}
+
+	/**
+	 * Stable partition of the range into the records of the left and right
+	 * half of the cell, compared the same way as insertIntoSubtree, and
+	 * create the tasks of both halves.
+	 */
+	private void partition() {
+	    double midpoint;
+	    if (this.isSplittingXAxis) {
+		midpoint = (this.cellX + (this.cellX + this.cellWidth)) / 2;
+	    } else {
+		midpoint = (this.cellY + (this.cellY + this.cellHeight)) / 2;
+	    }
+	    int leftEnd = this.start;
+	    int numberOfRightRecords = 0;
+	    for (int i = this.start; i < this.end; i++) {
+		int record = this.records[i];
+		K key = this.keys.get(record);
+		double coordinate = this.isSplittingXAxis ? key.getX() : key
+			.getY();
+		if (coordinate < midpoint) {
+		    this.records[leftEnd++] = record;
+		} else {
+		    this.buffer[this.start + numberOfRightRecords++] = record;
+		}
+	    }
+	    System.arraycopy(this.buffer, this.start, this.records, leftEnd,
+		    numberOfRightRecords);
+
+	    if (this.isSplittingXAxis) {
+		double halfWidth = this.cellWidth / 2;
+		this.leftTask = new BulkLoadTask(this.keys, this.elements,
+			this.records, this.buffer, this.start, leftEnd,
+			this.cellX, this.cellY, halfWidth, this.cellHeight,
+			false, this.depth + 1);
+		this.rightTask = new BulkLoadTask(this.keys, this.elements,
+			this.records, this.buffer, leftEnd, this.end,
+			this.cellX + halfWidth, this.cellY, halfWidth,
+			this.cellHeight, false, this.depth + 1);
+	    } else {
+		double halfHeight = this.cellHeight / 2;
+		this.leftTask = new BulkLoadTask(this.keys, this.elements,
+			this.records, this.buffer, this.start, leftEnd,
+			this.cellX, this.cellY, this.cellWidth, halfHeight,
+			true, this.depth + 1);
+		this.rightTask = new BulkLoadTask(this.keys, this.elements,
+			this.records, this.buffer, leftEnd, this.end,
+			this.cellX, this.cellY + halfHeight, this.cellWidth,
+			halfHeight, true, this.depth + 1);
+	    }
+	}
+    }
+
+    /**
+     * Remove all nodes in bin tree and replace root node with empty node
+     * flyweight.
+     */
+    @Override
+    public void clear() {
+	this.rootNode = this.emptyLeafNodeFlyweight;
+	this.size = 0;
+	this.isScanSnapshotCurrent = false;
+    }
+
+    /**
+     * @return the number of records in this bin tree.
+     */
+    @Override
     public int size() {
 	return this.size;
     }
 
+    /**
+     * @return the number of records a leaf node holds before it is split.
+     */
+    @Override
+    public int getLeafBucketCapacity() {
+	return this.leafBucketCapacity;
+    }
+
+    /**
+     * @return true if region searches match records by great circle distance.
+     */
+    @Override
+    public boolean isMatchingGreatCircleDistance() {
+	return this.isMatchingGreatCircleDistance;
+    }
+
+    /**
+     * @return the depth below which leaf nodes are never split.
+     */
+    @Override
+    public int getMaximumDepth() {
+	return this.maximumDepth;
+    }
+
+    /**
+     * Count the leaf nodes holding records at each depth to check the shape
+     * of a bin tree. A healthy bin tree has its leaf nodes around the depth
+     * of log2 of its number of leaf nodes, while a run of deep leaf nodes
+     * points to keys clustered closer together than the world's cells.
+     *
+     * @return the number of leaf nodes holding records at each depth from 0
+     *         to the depth of the deepest leaf node. The array is empty for
+     *         an empty bin tree.
+     */
+    public int[] getLeafDepthHistogram() {
+	int[] histogram = new int[0];
+	int stackSize = 0;
+	Object[] nodeStack = new Object[64];
+	int[] depthStack = new int[nodeStack.length];
+	nodeStack[stackSize] = this.rootNode;
+	depthStack[stackSize++] = 0;
+	while (stackSize > 0) {
+	    stackSize--;
+	    @SuppressWarnings("unchecked")
+	    BinTreeNode<E> node = (BinTreeNode<E>) nodeStack[stackSize];
+	    int depth = depthStack[stackSize];
+	    if (node instanceof BinTreeInternalNode<?>) {
+		if (stackSize + 2 > nodeStack.length) {
+		    nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+		    depthStack = Arrays.copyOf(depthStack, nodeStack.length);
+		}
+		BinTreeInternalNode<E> internalNode =
+			(BinTreeInternalNode<E>) node;
+		nodeStack[stackSize] = internalNode.getRightChild();
+		depthStack[stackSize++] = depth + 1;
+		nodeStack[stackSize] = internalNode.getLeftChild();
+		depthStack[stackSize++] = depth + 1;
+	    } else if (node instanceof BinTreeLeafNode<?, ?>) {
+		if (depth >= histogram.length) {
+		    histogram = Arrays.copyOf(histogram, depth + 1);
+		}
+		histogram[depth]++;
+	    }
+	}
+	return histogram;
+    }
+
     /**
      * @param node
      *            The rootNode of a bin tree to begin preorder traversal.
@@ -692,6 +2241,14 @@ public class BinTree2D<K extends Point, E> {
 	return stringBuilder.toString();
     }
 
+    /**
+     * @return the preorder traversal of the whole bin tree.
+     */
+    @Override
+    public String debugTraversal() {
+	return this.preorderTraversal(this.rootNode);
+    }
+
     /**
      * @return the root node.
      */
@@ -705,5 +2262,6 @@ public class BinTree2D<K extends Point, E> {
      */
     void setRootNode(BinTreeNode<E> rootNode) {
 	this.rootNode = rootNode;
+	this.isScanSnapshotCurrent = false;
     }
 }
@@ -30,6 +30,16 @@ public class BinTreeEmptyNode<E> extends BinTreeNode<E> {
 	return emptyBinTreeNode;
     }
 
+    @Override
+    public int getSubtreeNumberOfRecords() {
+	return 0;
+    }
+
+    @Override
+    public int getSubtreeNumberOfNodes() {
+	return 1;
+    }
+
     @Override
     public String toString() {
 	StringBuilder stringBuilder = new StringBuilder();
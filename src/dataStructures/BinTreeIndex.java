@@ -0,0 +1,62 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+/**
+ * The operations shared by the bin tree engines, BinTree2D and
+ * ArrayBinTree2D. Both build the same bin tree for the same records, find the
+ * same elements in the same order and visit the same number of nodes.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <K>
+ *            a 2 dimensional point type in space such as a (x, y) coordinate
+ *            that extends the Point class
+ * @param <E>
+ *            the item type to be stored in the leaf nodes of the bin tree
+ */
+interface BinTreeIndex<K extends Point, E> extends SpatialIndex<K, E> {
+    /**
+     * Print every element within a radius of 2 * magnitude^3 of the given
+     * point.
+     *
+     * @param keyXCoordinate
+     * @param keyYCoordinate
+     * @param magnitude
+     * @return A string describing how many nodes were visited during the
+     *         search.
+     */
+    public String regionSearch(double keyXCoordinate, double keyYCoordinate,
+	    double magnitude);
+
+    /**
+     * Choose how planar region searches prune the cells of the bin tree.
+     *
+     * @param isPruningExactly
+     *            If true, skip every cell whose nearest point lies outside of
+     *            the search circle; otherwise skip only the cells outside of
+     *            the circle's bounding box.
+     */
+    public void setExactCirclePruning(boolean isPruningExactly);
+
+    /**
+     * @return true if planar region searches prune exactly by the search
+     *         circle.
+     */
+    public boolean isPruningExactly();
+
+    /**
+     * @return the number of records a leaf node holds before it is split.
+     */
+    public int getLeafBucketCapacity();
+
+    /**
+     * @return true if region searches match records by great circle distance.
+     */
+    public boolean isMatchingGreatCircleDistance();
+
+    /**
+     * @return the depth below which leaf nodes are never split.
+     */
+    public int getMaximumDepth();
+}
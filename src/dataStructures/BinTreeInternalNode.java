@@ -1,7 +1,10 @@
 package dataStructures;
 /**
- * The internal nodes of a bin tree only store references to it's left and right
- * child.
+ * The internal nodes of a bin tree store references to it's left and right
+ * child along with the size of their subtree. The size is recomputed from the
+ * children whenever a child is set, so a bin tree keeps the sizes current by
+ * setting the child of every internal node on the path of a change from the
+ * bottom up.
  *
  * @author Quinn Liu (quinnliu@vt.edu)
  * @version Oct 12, 2013
@@ -18,6 +21,12 @@ public class BinTreeInternalNode<E> extends BinTreeNode<E> {
      */
     BinTreeNode<E> rightChild;
 
+    /**
+     * Number of records and number of nodes in the subtree of this node.
+     */
+    private int subtreeNumberOfRecords;
+    private int subtreeNumberOfNodes;
+
     /**
      * Create a new BinTreeInternalNode object with 2 empty bin tree leaf nodes.
      */
@@ -25,6 +34,7 @@ public class BinTreeInternalNode<E> extends BinTreeNode<E> {
     public BinTreeInternalNode() {
 	this.leftChild = BinTreeEmptyNode.getInstance();
 	this.rightChild = BinTreeEmptyNode.getInstance();
+	this.updateSubtreeSize();
     }
 
     /**
@@ -40,6 +50,7 @@ public class BinTreeInternalNode<E> extends BinTreeNode<E> {
      */
     public void setLeftChild(BinTreeNode<E> leftChild) {
 	this.leftChild = leftChild;
+	this.updateSubtreeSize();
     }
 
     /**
@@ -55,6 +66,31 @@ public class BinTreeInternalNode<E> extends BinTreeNode<E> {
      */
     public void setRightChild(BinTreeNode<E> rightChild) {
 	this.rightChild = rightChild;
+	this.updateSubtreeSize();
+    }
+
+    @Override
+    public int getSubtreeNumberOfRecords() {
+	return this.subtreeNumberOfRecords;
+    }
+
+    @Override
+    public int getSubtreeNumberOfNodes() {
+	return this.subtreeNumberOfNodes;
+    }
+
+    /**
+     * Recompute the size of this node's subtree from the sizes of its
+     * children, for example after a record was added to or removed from a
+     * leaf node below this node without setting a child.
+     */
+    void updateSubtreeSize() {
+	this.subtreeNumberOfRecords = this.leftChild
+		.getSubtreeNumberOfRecords()
+		+ this.rightChild.getSubtreeNumberOfRecords();
+	this.subtreeNumberOfNodes = 1
+		+ this.leftChild.getSubtreeNumberOfNodes()
+		+ this.rightChild.getSubtreeNumberOfNodes();
     }
 
     @Override
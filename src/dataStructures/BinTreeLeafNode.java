@@ -2,7 +2,13 @@ package dataStructures;
 
 import customDataStructures.Point;
 
+import java.util.Arrays;
+
 /**
+ * A bin tree leaf node is a bucket of up to a fixed number of records. When
+ * the bucket capacity is 1 this is the classic PR bin tree leaf that holds a
+ * single key and element.
+ *
  * @author Quinn Liu (quinnliu@vt.edu)
  * @version Oct 12, 2013
  * @param <K>
@@ -13,8 +19,19 @@ import customDataStructures.Point;
  */
 public class BinTreeLeafNode<K extends Point, E> extends
 	BinTreeNode<E> {
-    private K key;
-    private E element;
+    private Object[] keys;
+    private Object[] elements;
+
+    /**
+     * The x, y and z components of the unit vector of each record's key on
+     * the sphere, or null if this leaf node does not cache them.
+     */
+    private double[] unitVectors;
+
+    /**
+     * Number of records currently stored in this leaf node's bucket.
+     */
+    private int numberOfRecords;
 
     /**
      * Create a new BinTreeLeafNode object.
@@ -23,22 +40,60 @@ public class BinTreeLeafNode<K extends Point, E> extends
      * @param element
      */
     public BinTreeLeafNode(K key, E element) {
-	this.key = key;
-	this.element = element;
+	this(key, element, 1);
+    }
+
+    /**
+     * Create a new BinTreeLeafNode object with room for bucketCapacity records
+     * before the bucket needs to grow.
+     *
+     * @param key
+     * @param element
+     * @param bucketCapacity
+     *            The number of records this leaf node's bucket can initially
+     *            hold.
+     */
+    public BinTreeLeafNode(K key, E element, int bucketCapacity) {
+	this(key, element, bucketCapacity, false);
+    }
+
+    /**
+     * Create a new BinTreeLeafNode object that may also cache the unit vector
+     * of each record's key so great circle distances can be checked with a
+     * dot product.
+     *
+     * @param key
+     * @param element
+     * @param bucketCapacity
+     *            The number of records this leaf node's bucket can initially
+     *            hold.
+     * @param isCachingUnitVectors
+     *            If true, store the unit vector of every record's key with x
+     *            as longitude and y as latitude + 90 in degrees.
+     */
+    public BinTreeLeafNode(K key, E element, int bucketCapacity,
+	    boolean isCachingUnitVectors) {
+	this.keys = new Object[Math.max(1, bucketCapacity)];
+	this.elements = new Object[this.keys.length];
+	if (isCachingUnitVectors) {
+	    this.unitVectors = new double[this.keys.length * 3];
+	}
+	this.numberOfRecords = 0;
+	this.addRecord(key, element);
     }
 
     /**
      * @return the key stored in this bin tree leaf node
      */
     public K getKey() {
-	return this.key;
+	return this.getKey(0);
     }
 
     /**
      * @return the element stored in this bin tree leaf node.
      */
     public E getElement() {
-	return this.element;
+	return this.getElement(0);
     }
 
     /**
@@ -46,13 +101,158 @@ public class BinTreeLeafNode<K extends Point, E> extends
      *            the new element being stored in this leaf node.
      */
     public void setElement(E element) {
-	this.element = element;
+	this.elements[0] = element;
+    }
+
+    /**
+     * @param index
+     *            Index of the record within this leaf node's bucket.
+     * @return the key of the record at the given index.
+     */
+    @SuppressWarnings("unchecked")
+    public K getKey(int index) {
+	return (K) this.keys[index];
+    }
+
+    /**
+     * @param index
+     *            Index of the record within this leaf node's bucket.
+     * @return the element of the record at the given index.
+     */
+    @SuppressWarnings("unchecked")
+    public E getElement(int index) {
+	return (E) this.elements[index];
+    }
+
+    /**
+     * @return the number of records stored in this leaf node.
+     */
+    public int getNumberOfRecords() {
+	return this.numberOfRecords;
+    }
+
+    @Override
+    public int getSubtreeNumberOfRecords() {
+	return this.numberOfRecords;
+    }
+
+    @Override
+    public int getSubtreeNumberOfNodes() {
+	return 1;
+    }
+
+    /**
+     * @return the x, y and z components of the unit vector of each record's
+     *         key one after another, or null if they are not cached.
+     */
+    double[] getUnitVectors() {
+	return this.unitVectors;
+    }
+
+    /**
+     * Add a record to the end of this leaf node's bucket. The bucket grows if
+     * it is already full.
+     *
+     * @param key
+     * @param element
+     */
+    public void addRecord(K key, E element) {
+	if (this.numberOfRecords == this.keys.length) {
+	    Object[] largerKeys = new Object[this.keys.length * 2];
+	    Object[] largerElements = new Object[this.keys.length * 2];
+	    System.arraycopy(this.keys, 0, largerKeys, 0, this.numberOfRecords);
+	    System.arraycopy(this.elements, 0, largerElements, 0,
+		    this.numberOfRecords);
+	    this.keys = largerKeys;
+	    this.elements = largerElements;
+	    if (this.unitVectors != null) {
+		this.unitVectors = Arrays.copyOf(this.unitVectors,
+			largerKeys.length * 3);
+	    }
+	}
+	this.keys[this.numberOfRecords] = key;
+	this.elements[this.numberOfRecords] = element;
+	if (this.unitVectors != null) {
+	    RegionQuery.storeUnitVector(key.getX(), key.getY(),
+		    this.unitVectors, this.numberOfRecords * 3);
+	}
+	this.numberOfRecords++;
+    }
+
+    /**
+     * Remove the record at the given index. Records after it keep their order.
+     *
+     * @param index
+     *            Index of the record within this leaf node's bucket.
+     */
+    public void removeRecord(int index) {
+	int numberOfRecordsToShift = this.numberOfRecords - index - 1;
+	System.arraycopy(this.keys, index + 1, this.keys, index,
+		numberOfRecordsToShift);
+	System.arraycopy(this.elements, index + 1, this.elements, index,
+		numberOfRecordsToShift);
+	if (this.unitVectors != null) {
+	    System.arraycopy(this.unitVectors, (index + 1) * 3,
+		    this.unitVectors, index * 3, numberOfRecordsToShift * 3);
+	}
+	this.numberOfRecords--;
+	this.keys[this.numberOfRecords] = null;
+	this.elements[this.numberOfRecords] = null;
+    }
+
+    /**
+     * @param key
+     * @param element
+     * @return index of the record with the given key and element; otherwise
+     *         return -1.
+     */
+    public int indexOfRecord(K key, E element) {
+	for (int i = 0; i < this.numberOfRecords; i++) {
+	    if (element.equals(this.elements[i]) && key.equals(this.keys[i])) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * @param key
+     * @return index of the first record with the given key; otherwise return
+     *         -1.
+     */
+    public int indexOfKey(K key) {
+	for (int i = 0; i < this.numberOfRecords; i++) {
+	    if (key.equals(this.keys[i])) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * @param key
+     * @return true if every record in this leaf node has the given key. Such a
+     *         bucket can never be separated by splitting.
+     */
+    public boolean isHoldingOnlyKey(K key) {
+	for (int i = 0; i < this.numberOfRecords; i++) {
+	    if (!key.equals(this.keys[i])) {
+		return false;
+	    }
+	}
+	return true;
     }
 
     @Override
     public String toString() {
+	// each record is printed on its own line
 	StringBuilder stringBuilder = new StringBuilder();
-	stringBuilder.append(this.element.toString());
+	for (int i = 0; i < this.numberOfRecords; i++) {
+	    if (i > 0) {
+		stringBuilder.append("\n");
+	    }
+	    stringBuilder.append(this.elements[i].toString());
+	}
 	String binTreeInformation = stringBuilder.toString();
 	return binTreeInformation;
     }
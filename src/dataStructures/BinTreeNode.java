@@ -7,4 +7,15 @@ package dataStructures;
  */
 public abstract class BinTreeNode<E> {
     public abstract String toString();
+
+    /**
+     * @return the number of records stored in the subtree of this node.
+     */
+    public abstract int getSubtreeNumberOfRecords();
+
+    /**
+     * @return the number of nodes in the subtree of this node including this
+     *         node and every empty leaf node.
+     */
+    public abstract int getSubtreeNumberOfNodes();
 }
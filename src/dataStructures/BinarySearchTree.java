@@ -1,5 +1,9 @@
 package dataStructures;
 import java.lang.Comparable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Quinn Liu (quinnliu@vt.edu)
@@ -33,16 +37,69 @@ public class BinarySearchTree<K extends Comparable<? super K>, E> implements
 	this.numberOfNodes++;
     }
 
+    /**
+     * Look up the key and insert the record with a single descent. The new
+     * node is linked where insert would have linked it.
+     */
+    @Override
+    public E putIfAbsent(K key, E element) {
+	BinarySearchTreeNode<K, E> parentNode = null;
+	BinarySearchTreeNode<K, E> node = this.rootNode;
+	int comparison = 0;
+	while (node != null) {
+	    comparison = node.getKey().compareTo(key);
+	    if (comparison == 0) {
+		return node.getValue();
+	    }
+	    parentNode = node;
+	    node = comparison > 0 ? node.getLeftChild() : node.getRightChild();
+	}
+
+	BinarySearchTreeNode<K, E> newNode = this.createNode(key, element);
+	if (parentNode == null) {
+	    this.rootNode = newNode;
+	} else if (comparison > 0) {
+	    parentNode.setLeftChild(newNode);
+	} else {
+	    parentNode.setRightChild(newNode);
+	}
+	this.numberOfNodes++;
+	return null;
+    }
+
+    /**
+     * Find and unlink the node to remove with a single descent, comparing the
+     * key once per node.
+     */
     @Override
     public E remove(K key) {
-	// first find the node to remove
-	E nodeToRemove = this.findHelp(this.rootNode, key);
-	if (nodeToRemove != null) {
-	    // now remove the found node
-	    this.rootNode = this.removeHelp(this.rootNode, key);
-	    this.numberOfNodes--;
+	BinarySearchTreeNode<K, E> parentNode = null;
+	BinarySearchTreeNode<K, E> node = this.rootNode;
+	boolean isLeftChild = false;
+	while (node != null) {
+	    int comparison = node.getKey().compareTo(key);
+	    if (comparison == 0) {
+		break;
+	    }
+	    parentNode = node;
+	    isLeftChild = comparison > 0;
+	    node = isLeftChild ? node.getLeftChild() : node.getRightChild();
+	}
+	if (node == null) {
+	    return null;
 	}
-	return nodeToRemove;
+
+	E removedElement = node.getValue();
+	BinarySearchTreeNode<K, E> replacementNode = this.unlinkNode(node);
+	if (parentNode == null) {
+	    this.rootNode = replacementNode;
+	} else if (isLeftChild) {
+	    parentNode.setLeftChild(replacementNode);
+	} else {
+	    parentNode.setRightChild(replacementNode);
+	}
+	this.numberOfNodes--;
+	return removedElement;
     }
 
     /**
@@ -54,7 +111,7 @@ public class BinarySearchTree<K extends Comparable<? super K>, E> implements
 	    return null;
 	}
 	E randomeNodeToRemove = this.rootNode.getValue();
-	this.rootNode = this.removeHelp(this.rootNode, this.rootNode.getKey());
+	this.rootNode = this.unlinkNode(this.rootNode);
 	this.numberOfNodes--;
 	return randomeNodeToRemove;
     }
@@ -69,6 +126,89 @@ public class BinarySearchTree<K extends Comparable<? super K>, E> implements
 	return this.numberOfNodes;
     }
 
+    /**
+     * Replace the contents of this binary search tree by a balanced binary
+     * search tree of the given records. The records are sorted by key with
+     * the pool and every node is then linked once, instead of descending the
+     * tree for every insert.
+     *
+     * @param keys
+     *            The keys of the records. No two keys may be equal.
+     * @param elements
+     *            The element of each key.
+     * @param pool
+     *            The pool to sort with, or null to sort on the calling thread.
+     */
+    public void bulkLoad(List<K> keys, List<E> elements, ForkJoinPool pool) {
+	if (keys.size() != elements.size()) {
+	    throw new IllegalArgumentException("In method bulkLoad of class "
+		    + "BinarySearchTree there must be one element per key");
+	}
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	BinarySearchTreeNode<K, E>[] nodes = new BinarySearchTreeNode[keys
+		.size()];
+	for (int i = 0; i < nodes.length; i++) {
+	    nodes[i] = this.createNode(keys.get(i), elements.get(i));
+	}
+	ParallelMergeSort.sort(nodes,
+		new Comparator<BinarySearchTreeNode<K, E>>() {
+		    @Override
+		    public int compare(BinarySearchTreeNode<K, E> node1,
+			    BinarySearchTreeNode<K, E> node2) {
+			return node1.getKey().compareTo(node2.getKey());
+		    }
+		}, pool);
+	for (int i = 1; i < nodes.length; i++) {
+	    if (nodes[i - 1].getKey().compareTo(nodes[i].getKey()) == 0) {
+		throw new IllegalArgumentException("In method bulkLoad of "
+			+ "class BinarySearchTree the key " + nodes[i].getKey()
+			+ " is duplicated");
+	    }
+	}
+
+	this.rootNode = this.linkBalanced(nodes, 0, nodes.length);
+	this.numberOfNodes = nodes.length;
+    }
+
+    /**
+     * @param key
+     * @param element
+     * @return A new node without children holding the record.
+     */
+    BinarySearchTreeNode<K, E> createNode(K key, E element) {
+	return new BinarySearchTreeNode<K, E>(key, element, null, null);
+    }
+
+    /**
+     * @param rootNode
+     *            The new root node of this binary search tree.
+     * @param numberOfNodes
+     *            The number of nodes below and including the new root node.
+     */
+    void setRootNode(BinarySearchTreeNode<K, E> rootNode, int numberOfNodes) {
+	this.rootNode = rootNode;
+	this.numberOfNodes = numberOfNodes;
+    }
+
+    /**
+     * @param sortedNodes
+     * @param start
+     * @param end
+     * @return The root node of a balanced binary search tree of the nodes
+     *         from start up to but not including end.
+     */
+    BinarySearchTreeNode<K, E> linkBalanced(
+	    BinarySearchTreeNode<K, E>[] sortedNodes, int start, int end) {
+	if (start == end) {
+	    return null;
+	}
+	int middle = (start + end) >>> 1;
+	BinarySearchTreeNode<K, E> node = sortedNodes[middle];
+	node.setLeftChild(this.linkBalanced(sortedNodes, start, middle));
+	node.setRightChild(this.linkBalanced(sortedNodes, middle + 1, end));
+	return node;
+    }
+
     /**
      * @param node
      *            The node to find within the binary search tree.
@@ -78,16 +218,14 @@ public class BinarySearchTree<K extends Comparable<? super K>, E> implements
      * @return The found element; otherwise return null.
      */
     E findHelp(BinarySearchTreeNode<K, E> node, K key) {
-	if (node == null) {
-	    return null;
-	}
-	if (node.getKey().compareTo(key) > 0) {
-	    return this.findHelp(node.getLeftChild(), key);
-	} else if (node.getKey().compareTo(key) == 0) {
-	    return node.getValue();
-	} else {
-	    return this.findHelp(node.getRightChild(), key);
+	while (node != null) {
+	    int comparison = node.getKey().compareTo(key);
+	    if (comparison == 0) {
+		return node.getValue();
+	    }
+	    node = comparison > 0 ? node.getLeftChild() : node.getRightChild();
 	}
+	return null;
     }
 
     /**
@@ -103,53 +241,100 @@ public class BinarySearchTree<K extends Comparable<? super K>, E> implements
      */
     BinarySearchTreeNode<K, E> insertHelp(BinarySearchTreeNode<K, E> node,
 	    K key, E element) {
+	BinarySearchTreeNode<K, E> newNode = this.createNode(key, element);
 	if (node == null) {
-	    return new BinarySearchTreeNode<K, E>(key, element, null, null);
+	    return newNode;
 	}
-	if (node.getKey().compareTo(key) > 0) {
-	    node.setLeftChild(this.insertHelp(node.getLeftChild(), key, element));
-	} else {
-	    node.setRightChild(this.insertHelp(node.getRightChild(), key,
-		    element));
+	BinarySearchTreeNode<K, E> parentNode = node;
+	while (true) {
+	    if (parentNode.getKey().compareTo(key) > 0) {
+		if (parentNode.getLeftChild() == null) {
+		    parentNode.setLeftChild(newNode);
+		    return node;
+		}
+		parentNode = parentNode.getLeftChild();
+	    } else {
+		if (parentNode.getRightChild() == null) {
+		    parentNode.setRightChild(newNode);
+		    return node;
+		}
+		parentNode = parentNode.getRightChild();
+	    }
 	}
-	return node;
     }
 
     /**
+     * Remove the first node found with the key from the subtree with a
+     * single descent.
+     *
      * @param node
-     *            The node to be removed.
+     *            The root node of the subtree to remove the node from.
      * @param key
      *            Used to find the node in the binary search tree.
-     * @return The removed node if it exists within the binary search tree;
-     *         otherwise return null.
+     * @return The root node of the subtree after removing the node, which is
+     *         null if the subtree is empty afterwards.
      */
     BinarySearchTreeNode<K, E> removeHelp(BinarySearchTreeNode<K, E> node, K key) {
-	if (node == null) {
-	    return null;
-	}
-	if (node.getKey().compareTo(key) > 0) {
-	    node.setLeftChild(this.removeHelp(node.getLeftChild(), key));
-	} else if (node.getKey().compareTo(key) < 0) {
-	    node.setRightChild(this.removeHelp(node.getRightChild(), key));
-	} else { // found node to remove and it is now denoted as rootNode
-	    if (node.getLeftChild() == null) {
-		return node.getRightChild();
-	    } else if (node.getRightChild() == null) {
-		return node.getLeftChild();
-	    } else {
-		// there are 2 children when deleting a node that has 2
-		// non-empty children, the deleted node is replaced with the
-		// greatest valued node in the left subtree
-		BinarySearchTreeNode<K, E> greatestNodeInLeftStubtree = this
-			.getNodeWithMaximumValue(node.getLeftChild());
-
-		node.setValue(greatestNodeInLeftStubtree.getValue());
-		node.setKey(greatestNodeInLeftStubtree.getKey());
-
-		// delete greatestNodeInLeftSubtree
-		node.setLeftChild(this.deleteNodeWithMaximumValue(node
-			.getLeftChild()));
+	BinarySearchTreeNode<K, E> parentNode = null;
+	BinarySearchTreeNode<K, E> nodeToRemove = node;
+	boolean isLeftChild = false;
+	while (nodeToRemove != null) {
+	    int comparison = nodeToRemove.getKey().compareTo(key);
+	    if (comparison == 0) {
+		break;
 	    }
+	    parentNode = nodeToRemove;
+	    isLeftChild = comparison > 0;
+	    nodeToRemove = isLeftChild ? nodeToRemove.getLeftChild()
+		    : nodeToRemove.getRightChild();
+	}
+	if (nodeToRemove == null) {
+	    return node;
+	}
+
+	BinarySearchTreeNode<K, E> replacementNode = this
+		.unlinkNode(nodeToRemove);
+	if (parentNode == null) {
+	    return replacementNode;
+	} else if (isLeftChild) {
+	    parentNode.setLeftChild(replacementNode);
+	} else {
+	    parentNode.setRightChild(replacementNode);
+	}
+	return node;
+    }
+
+    /**
+     * @param node
+     *            The node to remove from the binary search tree.
+     * @return The node to link in place of the removed node, or null if it
+     *         had no children.
+     */
+    private BinarySearchTreeNode<K, E> unlinkNode(
+	    BinarySearchTreeNode<K, E> node) {
+	if (node.getLeftChild() == null) {
+	    return node.getRightChild();
+	} else if (node.getRightChild() == null) {
+	    return node.getLeftChild();
+	}
+	// there are 2 children when deleting a node that has 2 non-empty
+	// children, the deleted node is replaced with the greatest valued
+	// node in the left subtree, which is found and unlinked in one walk
+	BinarySearchTreeNode<K, E> parentOfGreatestNode = null;
+	BinarySearchTreeNode<K, E> greatestNodeInLeftSubtree = node
+		.getLeftChild();
+	while (greatestNodeInLeftSubtree.getRightChild() != null) {
+	    parentOfGreatestNode = greatestNodeInLeftSubtree;
+	    greatestNodeInLeftSubtree = greatestNodeInLeftSubtree
+		    .getRightChild();
+	}
+	node.setValue(greatestNodeInLeftSubtree.getValue());
+	node.setKey(greatestNodeInLeftSubtree.getKey());
+	if (parentOfGreatestNode == null) {
+	    node.setLeftChild(greatestNodeInLeftSubtree.getLeftChild());
+	} else {
+	    parentOfGreatestNode.setRightChild(greatestNodeInLeftSubtree
+		    .getLeftChild());
 	}
 	return node;
     }
@@ -161,10 +346,10 @@ public class BinarySearchTree<K extends Comparable<? super K>, E> implements
      */
     BinarySearchTreeNode<K, E> getNodeWithMaximumValue(
 	    BinarySearchTreeNode<K, E> node) {
-	if (node.getRightChild() == null) {
-	    return node;
+	while (node.getRightChild() != null) {
+	    node = node.getRightChild();
 	}
-	return this.getNodeWithMaximumValue(node.getRightChild());
+	return node;
     }
 
     /**
@@ -179,7 +364,11 @@ public class BinarySearchTree<K extends Comparable<? super K>, E> implements
 	if (node.getRightChild() == null) {
 	    return node.getLeftChild();
 	}
-	node.setRightChild(this.deleteNodeWithMaximumValue(node.getRightChild()));
+	BinarySearchTreeNode<K, E> parentNode = node;
+	while (parentNode.getRightChild().getRightChild() != null) {
+	    parentNode = parentNode.getRightChild();
+	}
+	parentNode.setRightChild(parentNode.getRightChild().getLeftChild());
 	return node;
     }
 
@@ -202,28 +391,43 @@ public class BinarySearchTree<K extends Comparable<? super K>, E> implements
      *         number of ".." is printed infront of the node's value to
      *         textually represent that node's depth.
      */
+    @SuppressWarnings("unchecked")
     public String inorderTraversal(BinarySearchTreeNode<K, E> node,
 	    int nodeDepth) {
 	StringBuilder stringBuilder = new StringBuilder();
-	if (node != null) {
 
-	    stringBuilder.append(this.inorderTraversal(node.getLeftChild(),
-		    ++nodeDepth));
+	// the nodes whose left subtree is being printed, kept on an explicit
+	// stack so a tree built from sorted keys does not overflow the call
+	// stack
+	Object[] nodeStack = new Object[16];
+	int[] depthStack = new int[nodeStack.length];
+	int stackSize = 0;
+	while (node != null || stackSize > 0) {
+	    while (node != null) {
+		if (stackSize == nodeStack.length) {
+		    nodeStack = Arrays.copyOf(nodeStack, stackSize * 2);
+		    depthStack = Arrays.copyOf(depthStack, stackSize * 2);
+		}
+		nodeStack[stackSize] = node;
+		depthStack[stackSize] = nodeDepth;
+		stackSize++;
+		node = node.getLeftChild();
+		nodeDepth++;
+	    }
+	    stackSize--;
+	    node = (BinarySearchTreeNode<K, E>) nodeStack[stackSize];
+	    nodeDepth = depthStack[stackSize];
 
-	    // print (depth of current node - 1) * 2 "dots" to represent
-	    // how deep the current node is within the binary search tree
-	    for (int i = 0; i < (nodeDepth - 1); i++) {
+	    // print depth of current node * 2 "dots" to represent how deep
+	    // the current node is within the binary search tree
+	    for (int i = 0; i < nodeDepth; i++) {
 		stringBuilder.append("..");
 	    }
-	    nodeDepth = nodeDepth - 1;
+	    stringBuilder.append(node.getValue().toString()).append('\n');
 
-	    stringBuilder.append(node.getValue().toString() + "\n");
-
-	    stringBuilder.append(this.inorderTraversal(node.getRightChild(),
-		    ++nodeDepth));
-	    return stringBuilder.toString();
-	} else {
-	    return "";
+	    node = node.getRightChild();
+	    nodeDepth++;
 	}
+	return stringBuilder.toString();
     }
 }
@@ -18,6 +18,16 @@ public interface DictionaryInterface<Key, E> {
      */
     public void insert(Key key, E element);
 
+    /**
+     * Insert a record unless a record with an equal key exists.
+     *
+     * @param key
+     * @param element
+     * @return The element of the existing record with key value matching
+     *         parameter key; otherwise return null after inserting.
+     */
+    public E putIfAbsent(Key key, E element);
+
     /**
      * Remove and return a record.
      *
@@ -0,0 +1,545 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A uniform grid that stores 2 dimensional keys in square cells of a fixed
+ * size. Each cell is a bucket of parallel primitive arrays holding the
+ * coordinates and elements of its records in insertion order. A region search
+ * only scans the cells overlapping the box of the search circle, so searching
+ * with a radius close to the cell size costs a few bucket scans and no tree
+ * descent.
+ *
+ * The number of nodes visited by a region search is the number of cells
+ * searched plus the number of records scanned.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <K>
+ *            a 2 dimensional point type in space such as a (x, y) coordinate
+ *            that extends the Point class
+ * @param <E>
+ *            the item type to be stored in the grid
+ */
+public class GridIndex2D<K extends Point, E> implements SpatialIndex<K, E> {
+    private static final int INITIAL_BUCKET_CAPACITY = 4;
+
+    private double minimumXAxis;
+    private double maximumXAxis;
+    private double minimumYAxis;
+    private double maximumYAxis;
+
+    private double cellSize;
+    private int numberOfColumns;
+    private int numberOfRows;
+
+    private boolean isMatchingGreatCircleDistance;
+
+    /**
+     * Coordinates, elements and unit vectors of the records of each cell. The
+     * cells are numbered row by row and a cell's arrays are null until a
+     * record is added to it.
+     */
+    private double[][] cellXs;
+    private double[][] cellYs;
+    private Object[][] cellElements;
+    private double[][] cellUnitVectors;
+    private int[] cellSizes;
+
+    private int size;
+
+    /**
+     * Reusable search circle of the current region search.
+     */
+    private RegionQuery query;
+
+    /**
+     * Reusable visitor that hands the elements found for one circle of a
+     * batch region search to the batch visitor.
+     */
+    private final QueryIndexVisitor<E> queryIndexVisitor =
+	    new QueryIndexVisitor<E>();
+
+    /**
+     * Create a new GridIndex2D object.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param cellSize
+     *            Width and height of a cell.
+     */
+    public GridIndex2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis, double cellSize) {
+	this(minimumXAxis, maximumXAxis, minimumYAxis, maximumYAxis, cellSize,
+		false);
+    }
+
+    /**
+     * Create a new GridIndex2D object that can match records by great circle
+     * distance the same way as BinTree2D.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param cellSize
+     *            Width and height of a cell.
+     * @param isMatchingGreatCircleDistance
+     *            If true, match records by great circle distance.
+     */
+    public GridIndex2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis, double cellSize,
+	    boolean isMatchingGreatCircleDistance) {
+	if (!(cellSize > 0.0)) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class GridIndex2D the cell size must "
+			    + "be greater than 0");
+	}
+	if (isMatchingGreatCircleDistance
+		&& (minimumXAxis != 0.0 || maximumXAxis != 360.0
+			|| minimumYAxis != 0.0 || maximumYAxis != 180.0)) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class GridIndex2D a great circle "
+			    + "grid must span 0 to 360 along the x-axis and 0 "
+			    + "to 180 along the y-axis");
+	}
+	double numberOfColumns = Math.max(1.0,
+		Math.ceil((maximumXAxis - minimumXAxis) / cellSize));
+	double numberOfRows = Math.max(1.0,
+		Math.ceil((maximumYAxis - minimumYAxis) / cellSize));
+	if (numberOfColumns * numberOfRows > Integer.MAX_VALUE) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class GridIndex2D the cell size is too "
+			    + "small for the world");
+	}
+	this.minimumXAxis = minimumXAxis;
+	this.maximumXAxis = maximumXAxis;
+	this.minimumYAxis = minimumYAxis;
+	this.maximumYAxis = maximumYAxis;
+	this.cellSize = cellSize;
+	this.numberOfColumns = (int) numberOfColumns;
+	this.numberOfRows = (int) numberOfRows;
+	this.isMatchingGreatCircleDistance = isMatchingGreatCircleDistance;
+
+	int numberOfCells = this.numberOfColumns * this.numberOfRows;
+	this.cellXs = new double[numberOfCells][];
+	this.cellYs = new double[numberOfCells][];
+	this.cellElements = new Object[numberOfCells][];
+	if (isMatchingGreatCircleDistance) {
+	    this.cellUnitVectors = new double[numberOfCells][];
+	}
+	this.cellSizes = new int[numberOfCells];
+	this.size = 0;
+
+	this.query = new RegionQuery();
+    }
+
+    /**
+     * Insert a new element after every record of its cell.
+     *
+     * @param key
+     *            Only the x and y coordinates of the key are stored.
+     * @param element
+     *            The element to be stored.
+     */
+    @Override
+    public void insert(K key, E element) {
+	int cell = this.getCell(key.getX(), key.getY());
+	this.ensureBucketCapacity(cell, this.cellSizes[cell] + 1);
+	this.setRecord(cell, this.cellSizes[cell], key.getX(), key.getY(),
+		element);
+	this.cellSizes[cell]++;
+	this.size++;
+    }
+
+    /**
+     * Scan the cell of the key once and append the record only when no
+     * record of the cell has the key.
+     *
+     * @param key
+     * @param element
+     * @return true if the record was inserted; otherwise return false because
+     *         the key is already in the grid.
+     */
+    @Override
+    public boolean insertIfAbsent(K key, E element) {
+	int cell = this.getCell(key.getX(), key.getY());
+	for (int i = 0; i < this.cellSizes[cell]; i++) {
+	    if (this.isKey(cell, i, key.getX(), key.getY())) {
+		return false;
+	    }
+	}
+	this.ensureBucketCapacity(cell, this.cellSizes[cell] + 1);
+	this.setRecord(cell, this.cellSizes[cell], key.getX(), key.getY(),
+		element);
+	this.cellSizes[cell]++;
+	this.size++;
+	return true;
+    }
+
+    /**
+     * Add the given records to an empty grid. The records of each cell are
+     * counted first so every bucket is allocated once. Bucketing the records
+     * is a single pass so the pool is not used.
+     *
+     * @param keys
+     * @param elements
+     *            The element of each key.
+     * @param pool
+     *            Ignored by the grid.
+     */
+    @Override
+    public void bulkLoad(List<K> keys, List<E> elements, ForkJoinPool pool) {
+	if (keys.size() != elements.size()) {
+	    throw new IllegalArgumentException("In method bulkLoad of class "
+		    + "GridIndex2D there must be one element per key");
+	}
+	if (this.size != 0) {
+	    throw new IllegalStateException("In method bulkLoad of class "
+		    + "GridIndex2D the grid must be empty");
+	}
+	int numberOfRecords = keys.size();
+	int[] recordCells = new int[numberOfRecords];
+	for (int i = 0; i < numberOfRecords; i++) {
+	    recordCells[i] = this.getCell(keys.get(i).getX(), keys.get(i)
+		    .getY());
+	    this.cellSizes[recordCells[i]]++;
+	}
+	for (int cell = 0; cell < this.cellSizes.length; cell++) {
+	    this.ensureBucketCapacity(cell, this.cellSizes[cell]);
+	    this.cellSizes[cell] = 0;
+	}
+	for (int i = 0; i < numberOfRecords; i++) {
+	    int cell = recordCells[i];
+	    K key = keys.get(i);
+	    this.setRecord(cell, this.cellSizes[cell], key.getX(), key.getY(),
+		    elements.get(i));
+	    this.cellSizes[cell]++;
+	}
+	this.size = numberOfRecords;
+    }
+
+    /**
+     * @param key
+     *            The key of the element to remove.
+     * @param element
+     *            The element to remove.
+     * @return true if element with key was removed from the grid; otherwise
+     *         return false.
+     */
+    @Override
+    public boolean remove(K key, E element) {
+	int cell = this.getCell(key.getX(), key.getY());
+	int index = this.indexOfRecord(cell, key, element);
+	if (index == -1) {
+	    return false;
+	}
+	// shift the later records down so the cell keeps insertion order
+	int numberOfRecordsToShift = this.cellSizes[cell] - index - 1;
+	System.arraycopy(this.cellXs[cell], index + 1, this.cellXs[cell],
+		index, numberOfRecordsToShift);
+	System.arraycopy(this.cellYs[cell], index + 1, this.cellYs[cell],
+		index, numberOfRecordsToShift);
+	System.arraycopy(this.cellElements[cell], index + 1,
+		this.cellElements[cell], index, numberOfRecordsToShift);
+	if (this.cellUnitVectors != null) {
+	    System.arraycopy(this.cellUnitVectors[cell], (index + 1) * 3,
+		    this.cellUnitVectors[cell], index * 3,
+		    numberOfRecordsToShift * 3);
+	}
+	this.cellSizes[cell]--;
+	this.cellElements[cell][this.cellSizes[cell]] = null;
+	this.size--;
+	return true;
+    }
+
+    /**
+     * @param key
+     *            Used to search through the grid.
+     * @param element
+     *            The element to find within the grid.
+     * @return The element in the grid if the given element with the given
+     *         key exists within the grid. If the given element does not exist
+     *         within the grid return null.
+     */
+    @Override
+    public E find(K key, E element) {
+	int cell = this.getCell(key.getX(), key.getY());
+	return this.indexOfRecord(cell, key, element) == -1 ? null : element;
+    }
+
+    /**
+     * @param key
+     * @return true if key exists within the grid; otherwise return false.
+     */
+    @Override
+    public boolean findKey(K key) {
+	int cell = this.getCell(key.getX(), key.getY());
+	for (int i = 0; i < this.cellSizes[cell]; i++) {
+	    if (this.isKey(cell, i, key.getX(), key.getY())) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Give every element within the search circle to the visitor, cell by
+     * cell and row by row. A region search allocates nothing.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @param visitor
+     *            Receives each element within the search circle.
+     * @return The number of cells searched plus the number of records
+     *         scanned.
+     */
+    @Override
+    public int regionSearch(double objectX, double objectY,
+	    double objectDistance, RegionSearchVisitor<E> visitor) {
+	this.query.setCircle(objectX, objectY, objectDistance,
+		this.isMatchingGreatCircleDistance);
+
+	int numberOfNodesVisited = 0;
+	for (int i = 0; i < this.query.numberOfBoxes; i++) {
+	    numberOfNodesVisited += this.regionSearchBox(this.query, i,
+		    visitor);
+	}
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Search each circle on its own. The grid has no tree to share between
+     * circles so this only saves the caller a visitor per circle.
+     *
+     * @param objectX
+     *            x coordinate of the center of each search circle.
+     * @param objectY
+     *            y coordinate of the center of each search circle.
+     * @param objectDistance
+     *            radius of each search circle.
+     * @param numberOfQueries
+     *            Number of search circles to read from the arrays.
+     * @param visitor
+     *            Receives each element along with the index of its circle.
+     * @return The number of nodes visited for each circle.
+     */
+    @Override
+    public int[] regionSearch(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    BatchRegionSearchVisitor<E> visitor) {
+	int[] numberOfNodesVisited = new int[numberOfQueries];
+	this.queryIndexVisitor.batchVisitor = visitor;
+	for (int i = 0; i < numberOfQueries; i++) {
+	    this.queryIndexVisitor.queryIndex = i;
+	    numberOfNodesVisited[i] = this.regionSearch(objectX[i], objectY[i],
+		    objectDistance[i], this.queryIndexVisitor);
+	}
+	this.queryIndexVisitor.batchVisitor = null;
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * @param regionQuery
+     *            The search circle.
+     * @param boxIndex
+     *            The box of the search circle to search.
+     * @param visitor
+     *            Receives each element within the search circle and the box.
+     * @return The number of cells searched plus the number of records
+     *         scanned.
+     */
+    @SuppressWarnings("unchecked")
+    int regionSearchBox(RegionQuery regionQuery, int boxIndex,
+	    RegionSearchVisitor<E> visitor) {
+	if (regionQuery.boxMaximumX[boxIndex] < this.minimumXAxis
+		|| regionQuery.boxMinimumX[boxIndex] > this.maximumXAxis
+		|| regionQuery.boxMaximumY[boxIndex] < this.minimumYAxis
+		|| regionQuery.boxMinimumY[boxIndex] > this.maximumYAxis) {
+	    return 0;
+	}
+	int minimumColumn = this.getColumn(regionQuery.boxMinimumX[boxIndex]);
+	int maximumColumn = this.getColumn(regionQuery.boxMaximumX[boxIndex]);
+	int minimumRow = this.getRow(regionQuery.boxMinimumY[boxIndex]);
+	int maximumRow = this.getRow(regionQuery.boxMaximumY[boxIndex]);
+
+	int numberOfNodesVisited = 0;
+	for (int row = minimumRow; row <= maximumRow; row++) {
+	    int firstCell = row * this.numberOfColumns + minimumColumn;
+	    int lastCell = row * this.numberOfColumns + maximumColumn;
+	    for (int cell = firstCell; cell <= lastCell; cell++) {
+		numberOfNodesVisited++;
+		int numberOfRecords = this.cellSizes[cell];
+		if (numberOfRecords == 0) {
+		    continue;
+		}
+		double[] xs = this.cellXs[cell];
+		double[] ys = this.cellYs[cell];
+		Object[] elements = this.cellElements[cell];
+		double[] unitVectors = this.cellUnitVectors == null ? null
+			: this.cellUnitVectors[cell];
+		for (int i = 0; i < numberOfRecords; i++) {
+		    numberOfNodesVisited++;
+		    if (regionQuery.isMatch(boxIndex, xs[i], ys[i],
+			    unitVectors, i * 3)) {
+			visitor.visit((E) elements[i]);
+		    }
+		}
+	    }
+	}
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Remove all records from the grid and release the buckets.
+     */
+    @Override
+    public void clear() {
+	Arrays.fill(this.cellXs, null);
+	Arrays.fill(this.cellYs, null);
+	Arrays.fill(this.cellElements, null);
+	if (this.cellUnitVectors != null) {
+	    Arrays.fill(this.cellUnitVectors, null);
+	}
+	Arrays.fill(this.cellSizes, 0);
+	this.size = 0;
+    }
+
+    /**
+     * @return the number of records in the grid.
+     */
+    @Override
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * @return the width and height of a cell.
+     */
+    public double getCellSize() {
+	return this.cellSize;
+    }
+
+    /**
+     * @return true if region searches match records by great circle distance.
+     */
+    public boolean isMatchingGreatCircleDistance() {
+	return this.isMatchingGreatCircleDistance;
+    }
+
+    /**
+     * @return every element on its own line, cell by cell and row by row.
+     */
+    public String cellOrderTraversal() {
+	StringBuilder stringBuilder = new StringBuilder();
+	for (int cell = 0; cell < this.cellSizes.length; cell++) {
+	    for (int i = 0; i < this.cellSizes[cell]; i++) {
+		stringBuilder.append(this.cellElements[cell][i].toString()
+			+ "\n");
+	    }
+	}
+	return stringBuilder.toString();
+    }
+
+    /**
+     * @return the cell order traversal of the grid.
+     */
+    @Override
+    public String debugTraversal() {
+	return this.cellOrderTraversal();
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the number of the cell holding (x, y). Points outside of the
+     *         world are given the nearest cell.
+     */
+    int getCell(double x, double y) {
+	return this.getRow(y) * this.numberOfColumns + this.getColumn(x);
+    }
+
+    private int getColumn(double x) {
+	return toCell((x - this.minimumXAxis) / this.cellSize,
+		this.numberOfColumns);
+    }
+
+    private int getRow(double y) {
+	return toCell((y - this.minimumYAxis) / this.cellSize,
+		this.numberOfRows);
+    }
+
+    private static int toCell(double numberOfCellSizes, int numberOfCells) {
+	if (!(numberOfCellSizes > 0.0)) {
+	    return 0;
+	}
+	return (int) Math.min(numberOfCells - 1,
+		Math.floor(numberOfCellSizes));
+    }
+
+    private int indexOfRecord(int cell, K key, E element) {
+	for (int i = 0; i < this.cellSizes[cell]; i++) {
+	    if (element.equals(this.cellElements[cell][i])
+		    && this.isKey(cell, i, key.getX(), key.getY())) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    private boolean isKey(int cell, int index, double x, double y) {
+	// the same comparison as Point.equals
+	return Double.doubleToLongBits(this.cellXs[cell][index]) == Double
+		.doubleToLongBits(x)
+		&& Double.doubleToLongBits(this.cellYs[cell][index]) == Double
+			.doubleToLongBits(y);
+    }
+
+    private void setRecord(int cell, int index, double x, double y,
+	    E element) {
+	this.cellXs[cell][index] = x;
+	this.cellYs[cell][index] = y;
+	this.cellElements[cell][index] = element;
+	if (this.cellUnitVectors != null) {
+	    RegionQuery.storeUnitVector(x, y, this.cellUnitVectors[cell],
+		    index * 3);
+	}
+    }
+
+    private void ensureBucketCapacity(int cell, int numberOfRecords) {
+	int capacity = this.cellXs[cell] == null ? 0
+		: this.cellXs[cell].length;
+	if (numberOfRecords <= capacity) {
+	    return;
+	}
+	int newLength = Math.max(numberOfRecords,
+		Math.max(INITIAL_BUCKET_CAPACITY, capacity * 2));
+	if (capacity == 0) {
+	    this.cellXs[cell] = new double[newLength];
+	    this.cellYs[cell] = new double[newLength];
+	    this.cellElements[cell] = new Object[newLength];
+	    if (this.cellUnitVectors != null) {
+		this.cellUnitVectors[cell] = new double[newLength * 3];
+	    }
+	    return;
+	}
+	this.cellXs[cell] = Arrays.copyOf(this.cellXs[cell], newLength);
+	this.cellYs[cell] = Arrays.copyOf(this.cellYs[cell], newLength);
+	this.cellElements[cell] = Arrays.copyOf(this.cellElements[cell],
+		newLength);
+	if (this.cellUnitVectors != null) {
+	    this.cellUnitVectors[cell] = Arrays.copyOf(
+		    this.cellUnitVectors[cell], newLength * 3);
+	}
+    }
+}
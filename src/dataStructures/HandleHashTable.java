@@ -0,0 +1,308 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * A hash table of int handles to records that are stored elsewhere, such as
+ * rows of parallel arrays. A slot holds only a handle and the cached hash
+ * code of its record's key, so there is no object per record, and a probe
+ * only asks a HandleMatcher about a handle whose cached hash code matches.
+ * Collisions are resolved by linear probing and removing a handle shifts the
+ * handles after it back instead of leaving a marker, so lookups never slow
+ * down from churn.
+ *
+ * This is the one open addressing implementation behind both the
+ * OpenAddressingHashTable of keys and the name index of the watcher table,
+ * which differ only in how a handle's key is compared.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class HandleHashTable {
+    /**
+     * The handle of no record. Every other handle must not be negative.
+     */
+    public static final int NO_HANDLE = -1;
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    /**
+     * Multiplier that spreads the bits of a hash code over the slot index.
+     */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    /**
+     * A slot holds a record if its handle is not NO_HANDLE.
+     */
+    private int[] handles;
+    private int[] hashes;
+
+    /**
+     * The number of slots minus 1. The number of slots is a power of 2.
+     */
+    private int mask;
+
+    /**
+     * 32 minus the base 2 logarithm of the number of slots.
+     */
+    private int shift;
+
+    private int numberOfHandles;
+
+    /**
+     * Create a new empty HandleHashTable object with enough slots for the
+     * given number of handles.
+     *
+     * @param expectedNumberOfHandles
+     *            The number of handles expected to be inserted, so the table
+     *            does not need to grow while they are.
+     */
+    public HandleHashTable(int expectedNumberOfHandles) {
+	if (expectedNumberOfHandles < 0) {
+	    throw new IllegalArgumentException("In method HandleHashTable of "
+		    + "class HandleHashTable the expected number of handles "
+		    + "can not be negative");
+	}
+	int capacity = MINIMUM_CAPACITY;
+	while (capacity - capacity / 4 < expectedNumberOfHandles) {
+	    capacity *= 2;
+	}
+	this.allocate(capacity);
+    }
+
+    /**
+     * Remove every handle. The table keeps its number of slots.
+     */
+    public void clear() {
+	Arrays.fill(this.handles, NO_HANDLE);
+	this.numberOfHandles = 0;
+    }
+
+    /**
+     * Insert a handle even if a handle with an equal key exists. find then
+     * returns the handle that was inserted first.
+     *
+     * @param hash
+     *            The hash code of the handle's key.
+     * @param handle
+     */
+    public void insert(int hash, int handle) {
+	this.growIfFull();
+	int slot = this.getSlot(hash);
+	while (this.handles[slot] != NO_HANDLE) {
+	    slot = (slot + 1) & this.mask;
+	}
+	this.fillSlot(slot, hash, handle);
+    }
+
+    /**
+     * Insert the handle unless a handle with the key exists. The key is
+     * looked up and the handle is inserted with the same probe.
+     *
+     * @param hash
+     *            The hash code of the key.
+     * @param handle
+     * @param matcher
+     *            Matches the handles whose record has the key.
+     * @return The handle with the key; otherwise NO_HANDLE after the given
+     *         handle was inserted.
+     */
+    public int putIfAbsent(int hash, int handle, HandleMatcher matcher) {
+	int slot = this.getSlot(hash);
+	while (this.handles[slot] != NO_HANDLE) {
+	    if (this.hashes[slot] == hash
+		    && matcher.isMatch(this.handles[slot])) {
+		return this.handles[slot];
+	    }
+	    slot = (slot + 1) & this.mask;
+	}
+	if (this.isFull()) {
+	    this.insert(hash, handle);
+	} else {
+	    this.fillSlot(slot, hash, handle);
+	}
+	return NO_HANDLE;
+    }
+
+    /**
+     * @param hash
+     *            The hash code of the key.
+     * @param matcher
+     *            Matches the handles whose record has the key.
+     * @return The first handle with the key; otherwise NO_HANDLE.
+     */
+    public int find(int hash, HandleMatcher matcher) {
+	int slot = this.findSlot(hash, matcher);
+	return slot < 0 ? NO_HANDLE : this.handles[slot];
+    }
+
+    /**
+     * Remove the first handle with the key.
+     *
+     * @param hash
+     *            The hash code of the key.
+     * @param matcher
+     *            Matches the handles whose record has the key.
+     * @return The removed handle; otherwise NO_HANDLE.
+     */
+    public int remove(int hash, HandleMatcher matcher) {
+	int slot = this.findSlot(hash, matcher);
+	if (slot < 0) {
+	    return NO_HANDLE;
+	}
+	int removedHandle = this.handles[slot];
+	this.emptySlot(slot);
+	return removedHandle;
+    }
+
+    /**
+     * Remove a handle without comparing any key.
+     *
+     * @param hash
+     *            The hash code of the handle's key.
+     * @param handle
+     *            A handle in this table.
+     */
+    public void removeHandle(int hash, int handle) {
+	this.emptySlot(this.findHandleSlot(hash, handle));
+    }
+
+    /**
+     * Replace a handle by another handle to the same record, for example
+     * after the record has moved to another row.
+     *
+     * @param hash
+     *            The hash code of the handle's key.
+     * @param handle
+     *            A handle in this table.
+     * @param newHandle
+     */
+    public void replaceHandle(int hash, int handle, int newHandle) {
+	this.handles[this.findHandleSlot(hash, handle)] = newHandle;
+    }
+
+    /**
+     * @return the number of handles in this table.
+     */
+    public int size() {
+	return this.numberOfHandles;
+    }
+
+    /**
+     * @return The number of slots, which is a power of 2 at least 4/3 of the
+     *         number of handles.
+     */
+    public int getCapacity() {
+	return this.handles.length;
+    }
+
+    /**
+     * @return The slot of the first handle with the key; otherwise -1.
+     */
+    private int findSlot(int hash, HandleMatcher matcher) {
+	int slot = this.getSlot(hash);
+	while (this.handles[slot] != NO_HANDLE) {
+	    if (this.hashes[slot] == hash
+		    && matcher.isMatch(this.handles[slot])) {
+		return slot;
+	    }
+	    slot = (slot + 1) & this.mask;
+	}
+	return -1;
+    }
+
+    private int findHandleSlot(int hash, int handle) {
+	int slot = this.getSlot(hash);
+	while (this.handles[slot] != handle) {
+	    if (this.handles[slot] == NO_HANDLE) {
+		throw new IllegalArgumentException("In method findHandleSlot "
+			+ "of class HandleHashTable the handle " + handle
+			+ " is not in the table");
+	    }
+	    slot = (slot + 1) & this.mask;
+	}
+	return slot;
+    }
+
+    /**
+     * Empty the slot and move back each following handle of its cluster
+     * whose probe would otherwise pass over the empty slot.
+     *
+     * @param slot
+     *            A slot holding a handle.
+     */
+    private void emptySlot(int slot) {
+	int emptySlot = slot;
+	int nextSlot = slot;
+	while (true) {
+	    nextSlot = (nextSlot + 1) & this.mask;
+	    if (this.handles[nextSlot] == NO_HANDLE) {
+		break;
+	    }
+	    // the handle moves back if the probe for it starts at or before
+	    // the empty slot
+	    int homeSlot = this.getSlot(this.hashes[nextSlot]);
+	    if (((nextSlot - homeSlot) & this.mask) >= ((nextSlot - emptySlot)
+		    & this.mask)) {
+		this.handles[emptySlot] = this.handles[nextSlot];
+		this.hashes[emptySlot] = this.hashes[nextSlot];
+		emptySlot = nextSlot;
+	    }
+	}
+	this.handles[emptySlot] = NO_HANDLE;
+	this.numberOfHandles--;
+    }
+
+    private void fillSlot(int slot, int hash, int handle) {
+	this.handles[slot] = handle;
+	this.hashes[slot] = hash;
+	this.numberOfHandles++;
+    }
+
+    /**
+     * @return true if one more handle would fill more than 3/4 of the slots.
+     */
+    private boolean isFull() {
+	return this.numberOfHandles + 1 > this.handles.length
+		- this.handles.length / 4;
+    }
+
+    /**
+     * Double the number of slots if the table is full. Handles are moved to
+     * their new slots by their cached hash codes.
+     */
+    private void growIfFull() {
+	if (!this.isFull()) {
+	    return;
+	}
+	int[] oldHandles = this.handles;
+	int[] oldHashes = this.hashes;
+	this.allocate(oldHandles.length * 2);
+	for (int i = 0; i < oldHandles.length; i++) {
+	    if (oldHandles[i] != NO_HANDLE) {
+		int slot = this.getSlot(oldHashes[i]);
+		while (this.handles[slot] != NO_HANDLE) {
+		    slot = (slot + 1) & this.mask;
+		}
+		this.handles[slot] = oldHandles[i];
+		this.hashes[slot] = oldHashes[i];
+	    }
+	}
+    }
+
+    private void allocate(int capacity) {
+	this.handles = new int[capacity];
+	Arrays.fill(this.handles, NO_HANDLE);
+	this.hashes = new int[capacity];
+	this.mask = capacity - 1;
+	this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * @param hash
+     * @return The slot the probe for a key with the hash code starts at.
+     */
+    private int getSlot(int hash) {
+	return (hash * GOLDEN_RATIO) >>> this.shift;
+    }
+}
@@ -0,0 +1,21 @@
+package dataStructures;
+/**
+ * Decides whether the record behind an int handle has the key a
+ * HandleHashTable is probing for, so the table never needs to know how keys
+ * are stored. ArrayBinTree2D.removeRecord asks one the same way about the
+ * index of each record at the key being removed.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public interface HandleMatcher {
+    /**
+     * Called for each handle along the probe whose cached hash code matches
+     * the hash code of the key.
+     *
+     * @param handle
+     *            A handle stored in the table.
+     * @return true if the record of the handle has the key.
+     */
+    public boolean isMatch(int handle);
+}
@@ -0,0 +1,22 @@
+package dataStructures;
+/**
+ * Receives the int handle of every element found by a batch region search
+ * along with the index of the search region the element was found in, so
+ * the handles of a structure that stores them in an int column are never
+ * boxed.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public interface IntBatchRegionSearchVisitor {
+    /**
+     * Called once for each element within a search region. The handles of
+     * one search region are given in the order they are found.
+     *
+     * @param queryIndex
+     *            Index of the search region the element is within.
+     * @param handle
+     *            The handle of an element within the search region.
+     */
+    public void visit(int queryIndex, int handle);
+}
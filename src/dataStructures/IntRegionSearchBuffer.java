@@ -0,0 +1,63 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * Collects the int handles found by a region search into an array that is
+ * reused between searches, the same way as RegionSearchBuffer collects
+ * elements, without boxing a handle.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class IntRegionSearchBuffer {
+    private int[] handles;
+    private int size;
+
+    /**
+     * Create a new IntRegionSearchBuffer object.
+     */
+    public IntRegionSearchBuffer() {
+	this.handles = new int[16];
+	this.size = 0;
+    }
+
+    /**
+     * @param handle
+     *            A handle within the search region.
+     */
+    public void visit(int handle) {
+	if (this.size == this.handles.length) {
+	    this.handles = Arrays.copyOf(this.handles, this.size * 2);
+	}
+	this.handles[this.size] = handle;
+	this.size++;
+    }
+
+    /**
+     * @param index
+     * @return The handle found at the given position.
+     */
+    public int get(int index) {
+	if (index < 0 || index >= this.size) {
+	    throw new IndexOutOfBoundsException(
+		    "In method get of class IntRegionSearchBuffer the index "
+			    + index + " is not within the buffer");
+	}
+	return this.handles[index];
+    }
+
+    /**
+     * @return The number of handles collected.
+     */
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * Forget all collected handles but keep the buffer for the next search.
+     */
+    public void clear() {
+	this.size = 0;
+    }
+}
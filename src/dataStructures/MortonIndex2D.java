@@ -0,0 +1,697 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A linear quadtree that stores 2 dimensional keys as Morton codes. The world
+ * is divided into a grid of 2^BITS_PER_AXIS by 2^BITS_PER_AXIS cells and the
+ * bits of a key's column and row are interleaved, x before y, into a Morton
+ * code. Records are kept in parallel primitive arrays sorted by their code,
+ * so every quadrant of the grid is a contiguous run of the arrays.
+ *
+ * A region search splits the box of the search circle into quadrants whose
+ * code ranges are then scanned in order. The number of nodes visited is the
+ * number of code ranges searched plus the number of records scanned, which is
+ * comparable to the number of nodes a BinTree2D search visits.
+ *
+ * To learn more about linear quadtrees please visit:
+ * http://en.wikipedia.org/wiki/Z-order_curve
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <K>
+ *            a 2 dimensional point type in space such as a (x, y) coordinate
+ *            that extends the Point class
+ * @param <E>
+ *            the item type to be stored in the index
+ */
+public class MortonIndex2D<K extends Point, E> implements
+	SpatialIndex<K, E> {
+    /**
+     * Number of bits of a key's column and of its row within a Morton code.
+     */
+    static final int BITS_PER_AXIS = 26;
+
+    /**
+     * Quadrants smaller than this level are not split any further when
+     * finding the code ranges of a search box. Their records are filtered by
+     * the search circle instead.
+     */
+    static final int MAXIMUM_RANGE_LEVEL = 8;
+
+    private static final int GRID_LENGTH = 1 << BITS_PER_AXIS;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double minimumXAxis;
+    private double maximumXAxis;
+    private double minimumYAxis;
+    private double maximumYAxis;
+
+    private boolean isMatchingGreatCircleDistance;
+
+    /**
+     * Morton code, coordinates and element of each record sorted by code.
+     * Records with the same code are kept in insertion order.
+     */
+    private long[] codes;
+    private double[] xs;
+    private double[] ys;
+    private Object[] elements;
+
+    /**
+     * The x, y and z components of the unit vector of each record, or null if
+     * this index does not match by great circle distance.
+     */
+    private double[] unitVectors;
+
+    private int size;
+
+    /**
+     * Reusable search circle of the current region search.
+     */
+    private RegionQuery query;
+
+    /**
+     * Reusable first and last codes of the ranges of the current search box.
+     */
+    private long[] rangeStarts;
+    private long[] rangeEnds;
+    private int numberOfRanges;
+
+    /**
+     * Reusable visitor that hands the elements found for one circle of a
+     * batch region search to the batch visitor.
+     */
+    private final QueryIndexVisitor<E> queryIndexVisitor =
+	    new QueryIndexVisitor<E>();
+
+    /**
+     * Create a new MortonIndex2D object.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     */
+    public MortonIndex2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis) {
+	this(minimumXAxis, maximumXAxis, minimumYAxis, maximumYAxis, false);
+    }
+
+    /**
+     * Create a new MortonIndex2D object that can match records by great
+     * circle distance the same way as BinTree2D.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param isMatchingGreatCircleDistance
+     *            If true, match records by great circle distance.
+     */
+    public MortonIndex2D(double minimumXAxis, double maximumXAxis,
+	    double minimumYAxis, double maximumYAxis,
+	    boolean isMatchingGreatCircleDistance) {
+	if (isMatchingGreatCircleDistance
+		&& (minimumXAxis != 0.0 || maximumXAxis != 360.0
+			|| minimumYAxis != 0.0 || maximumYAxis != 180.0)) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class MortonIndex2D a great circle "
+			    + "index must span 0 to 360 along the x-axis and 0 "
+			    + "to 180 along the y-axis");
+	}
+	this.minimumXAxis = minimumXAxis;
+	this.maximumXAxis = maximumXAxis;
+	this.minimumYAxis = minimumYAxis;
+	this.maximumYAxis = maximumYAxis;
+	this.isMatchingGreatCircleDistance = isMatchingGreatCircleDistance;
+
+	this.codes = new long[INITIAL_CAPACITY];
+	this.xs = new double[INITIAL_CAPACITY];
+	this.ys = new double[INITIAL_CAPACITY];
+	this.elements = new Object[INITIAL_CAPACITY];
+	if (isMatchingGreatCircleDistance) {
+	    this.unitVectors = new double[INITIAL_CAPACITY * 3];
+	}
+	this.size = 0;
+
+	this.query = new RegionQuery();
+	this.rangeStarts = new long[64];
+	this.rangeEnds = new long[64];
+    }
+
+    /**
+     * Insert a new element after every record with the same Morton code.
+     *
+     * @param key
+     *            Only the x and y coordinates of the key are stored.
+     * @param element
+     *            The element to be stored.
+     */
+    @Override
+    public void insert(K key, E element) {
+	long code = this.getMortonCode(key.getX(), key.getY());
+	this.insertAt(this.getFirstIndexAfter(code), code, key, element);
+    }
+
+    /**
+     * Binary search for the first record with the Morton code of the key
+     * once. The records with that code are scanned for the key and when none
+     * has it the new record is inserted after them.
+     *
+     * @param key
+     * @param element
+     * @return true if the record was inserted; otherwise return false because
+     *         the key is already in the index.
+     */
+    @Override
+    public boolean insertIfAbsent(K key, E element) {
+	long code = this.getMortonCode(key.getX(), key.getY());
+	int index = this.getFirstIndexOf(code);
+	for (; index < this.size && this.codes[index] == code; index++) {
+	    if (this.isKey(index, key.getX(), key.getY())) {
+		return false;
+	    }
+	}
+	this.insertAt(index, code, key, element);
+	return true;
+    }
+
+    /**
+     * Replace the contents of this index by the given records. The records
+     * are sorted by Morton code once instead of being inserted one at a time.
+     * Records with the same code keep their list order.
+     *
+     * @param keys
+     * @param elements
+     *            The element of each key.
+     */
+    public void bulkLoad(List<K> keys, List<E> elements) {
+	if (keys.size() != elements.size()) {
+	    throw new IllegalArgumentException("In method bulkLoad of class "
+		    + "MortonIndex2D there must be one element per key");
+	}
+	int numberOfRecords = keys.size();
+	long[] recordCodes = new long[numberOfRecords];
+	int[] records = new int[numberOfRecords];
+	for (int i = 0; i < numberOfRecords; i++) {
+	    recordCodes[i] = this.getMortonCode(keys.get(i).getX(), keys.get(i)
+		    .getY());
+	    records[i] = i;
+	}
+	sortByCode(records, new int[numberOfRecords], recordCodes, 0,
+		numberOfRecords);
+
+	this.clear();
+	this.ensureCapacity(numberOfRecords);
+	for (int i = 0; i < numberOfRecords; i++) {
+	    int record = records[i];
+	    K key = keys.get(record);
+	    this.setRecord(i, recordCodes[record], key.getX(), key.getY(),
+		    elements.get(record));
+	}
+	this.size = numberOfRecords;
+    }
+
+    /**
+     * Add the given records to an empty index the same way as
+     * bulkLoad(keys, elements). Sorting the codes of the records is cheap
+     * next to computing them so the pool is not used.
+     *
+     * @param keys
+     * @param elements
+     *            The element of each key.
+     * @param pool
+     *            Ignored by the Morton index.
+     */
+    @Override
+    public void bulkLoad(List<K> keys, List<E> elements, ForkJoinPool pool) {
+	if (this.size != 0) {
+	    throw new IllegalStateException("In method bulkLoad of class "
+		    + "MortonIndex2D the index must be empty");
+	}
+	this.bulkLoad(keys, elements);
+    }
+
+    /**
+     * @param key
+     *            The key of the element to remove.
+     * @param element
+     *            The element to remove.
+     * @return true if element with key was removed from the index; otherwise
+     *         return false.
+     */
+    @Override
+    public boolean remove(K key, E element) {
+	int index = this.indexOfRecord(key, element);
+	if (index == -1) {
+	    return false;
+	}
+	int numberOfRecordsToShift = this.size - index - 1;
+	System.arraycopy(this.codes, index + 1, this.codes, index,
+		numberOfRecordsToShift);
+	System.arraycopy(this.xs, index + 1, this.xs, index,
+		numberOfRecordsToShift);
+	System.arraycopy(this.ys, index + 1, this.ys, index,
+		numberOfRecordsToShift);
+	System.arraycopy(this.elements, index + 1, this.elements, index,
+		numberOfRecordsToShift);
+	if (this.unitVectors != null) {
+	    System.arraycopy(this.unitVectors, (index + 1) * 3,
+		    this.unitVectors, index * 3, numberOfRecordsToShift * 3);
+	}
+	this.size--;
+	this.elements[this.size] = null;
+	return true;
+    }
+
+    /**
+     * @param key
+     *            Used to search through the index.
+     * @param element
+     *            The element to find within the index.
+     * @return The element in the index if the given element with the given
+     *         key exists within the index. If the given element does not
+     *         exist within the index return null.
+     */
+    @Override
+    public E find(K key, E element) {
+	return this.indexOfRecord(key, element) == -1 ? null : element;
+    }
+
+    /**
+     * @param key
+     * @return true if key exists within the index; otherwise return false.
+     */
+    @Override
+    public boolean findKey(K key) {
+	long code = this.getMortonCode(key.getX(), key.getY());
+	for (int i = this.getFirstIndexOf(code); i < this.size
+		&& this.codes[i] == code; i++) {
+	    if (this.isKey(i, key.getX(), key.getY())) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Give every element within the search circle to the visitor in Morton
+     * order. Once the range arrays have grown to fit the search a region
+     * search allocates nothing.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @param visitor
+     *            Receives each element within the search circle.
+     * @return The number of code ranges searched plus the number of records
+     *         scanned.
+     */
+    @Override
+    public int regionSearch(double objectX, double objectY,
+	    double objectDistance, RegionSearchVisitor<E> visitor) {
+	this.query.setCircle(objectX, objectY, objectDistance,
+		this.isMatchingGreatCircleDistance);
+
+	int numberOfNodesVisited = 0;
+	for (int i = 0; i < this.query.numberOfBoxes; i++) {
+	    numberOfNodesVisited += this.regionSearchBox(this.query, i,
+		    visitor);
+	}
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Search each circle on its own. Every circle is split into its own code
+     * ranges so this only saves the caller a visitor per circle.
+     *
+     * @param objectX
+     *            x coordinate of the center of each search circle.
+     * @param objectY
+     *            y coordinate of the center of each search circle.
+     * @param objectDistance
+     *            radius of each search circle.
+     * @param numberOfQueries
+     *            Number of search circles to read from the arrays.
+     * @param visitor
+     *            Receives each element along with the index of its circle.
+     * @return The number of nodes visited for each circle.
+     */
+    @Override
+    public int[] regionSearch(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    BatchRegionSearchVisitor<E> visitor) {
+	int[] numberOfNodesVisited = new int[numberOfQueries];
+	this.queryIndexVisitor.batchVisitor = visitor;
+	for (int i = 0; i < numberOfQueries; i++) {
+	    this.queryIndexVisitor.queryIndex = i;
+	    numberOfNodesVisited[i] = this.regionSearch(objectX[i], objectY[i],
+		    objectDistance[i], this.queryIndexVisitor);
+	}
+	this.queryIndexVisitor.batchVisitor = null;
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * @param regionQuery
+     *            The search circle.
+     * @param boxIndex
+     *            The box of the search circle to search.
+     * @param visitor
+     *            Receives each element within the search circle and the box.
+     * @return The number of code ranges searched plus the number of records
+     *         scanned.
+     */
+    @SuppressWarnings("unchecked")
+    int regionSearchBox(RegionQuery regionQuery, int boxIndex,
+	    RegionSearchVisitor<E> visitor) {
+	if (regionQuery.boxMaximumX[boxIndex] < this.minimumXAxis
+		|| regionQuery.boxMinimumX[boxIndex] > this.maximumXAxis
+		|| regionQuery.boxMaximumY[boxIndex] < this.minimumYAxis
+		|| regionQuery.boxMinimumY[boxIndex] > this.maximumYAxis) {
+	    return 0;
+	}
+	int minimumColumn = this.getColumn(regionQuery.boxMinimumX[boxIndex]);
+	int maximumColumn = this.getColumn(regionQuery.boxMaximumX[boxIndex]);
+	int minimumRow = this.getRow(regionQuery.boxMinimumY[boxIndex]);
+	int maximumRow = this.getRow(regionQuery.boxMaximumY[boxIndex]);
+
+	this.numberOfRanges = 0;
+	this.addRanges(0, 0, 0, minimumColumn, maximumColumn, minimumRow,
+		maximumRow);
+
+	int numberOfNodesVisited = this.numberOfRanges;
+	for (int i = 0; i < this.numberOfRanges; i++) {
+	    long lastCode = this.rangeEnds[i];
+	    for (int j = this.getFirstIndexOf(this.rangeStarts[i]);
+		    j < this.size && this.codes[j] <= lastCode; j++) {
+		numberOfNodesVisited++;
+		if (regionQuery.isMatch(boxIndex, this.xs[j], this.ys[j],
+			this.unitVectors, j * 3)) {
+		    visitor.visit((E) this.elements[j]);
+		}
+	    }
+	}
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Add the code ranges of the parts of a quadrant that overlap the cells
+     * of a search box in Morton order. Ranges that follow each other are
+     * joined.
+     *
+     * @param level
+     *            0 for the whole grid.
+     * @param quadrantColumn
+     *            Column of the quadrant's bottom left cell.
+     * @param quadrantRow
+     *            Row of the quadrant's bottom left cell.
+     * @param minimumColumn
+     * @param maximumColumn
+     * @param minimumRow
+     * @param maximumRow
+     */
+    private void addRanges(int level, int quadrantColumn, int quadrantRow,
+	    int minimumColumn, int maximumColumn, int minimumRow,
+	    int maximumRow) {
+	int quadrantLength = GRID_LENGTH >>> level;
+	int lastColumn = quadrantColumn + quadrantLength - 1;
+	int lastRow = quadrantRow + quadrantLength - 1;
+	if (lastColumn < minimumColumn || quadrantColumn > maximumColumn
+		|| lastRow < minimumRow || quadrantRow > maximumRow) {
+	    return;
+	}
+	boolean isInsideBox = quadrantColumn >= minimumColumn
+		&& lastColumn <= maximumColumn && quadrantRow >= minimumRow
+		&& lastRow <= maximumRow;
+	if (isInsideBox || level == MAXIMUM_RANGE_LEVEL) {
+	    long firstCode = interleave(quadrantColumn, quadrantRow);
+	    long lastCode = firstCode + (long) quadrantLength * quadrantLength
+		    - 1;
+	    this.addRange(firstCode, lastCode);
+	    return;
+	}
+
+	// children in Morton order with x before y
+	int halfLength = quadrantLength / 2;
+	this.addRanges(level + 1, quadrantColumn, quadrantRow, minimumColumn,
+		maximumColumn, minimumRow, maximumRow);
+	this.addRanges(level + 1, quadrantColumn, quadrantRow + halfLength,
+		minimumColumn, maximumColumn, minimumRow, maximumRow);
+	this.addRanges(level + 1, quadrantColumn + halfLength, quadrantRow,
+		minimumColumn, maximumColumn, minimumRow, maximumRow);
+	this.addRanges(level + 1, quadrantColumn + halfLength, quadrantRow
+		+ halfLength, minimumColumn, maximumColumn, minimumRow,
+		maximumRow);
+    }
+
+    private void addRange(long firstCode, long lastCode) {
+	if (this.numberOfRanges > 0
+		&& this.rangeEnds[this.numberOfRanges - 1] + 1 == firstCode) {
+	    this.rangeEnds[this.numberOfRanges - 1] = lastCode;
+	    return;
+	}
+	if (this.numberOfRanges == this.rangeStarts.length) {
+	    this.rangeStarts = Arrays.copyOf(this.rangeStarts,
+		    this.numberOfRanges * 2);
+	    this.rangeEnds = Arrays.copyOf(this.rangeEnds,
+		    this.numberOfRanges * 2);
+	}
+	this.rangeStarts[this.numberOfRanges] = firstCode;
+	this.rangeEnds[this.numberOfRanges] = lastCode;
+	this.numberOfRanges++;
+    }
+
+    /**
+     * Remove all records from the index.
+     */
+    @Override
+    public void clear() {
+	Arrays.fill(this.elements, 0, this.size, null);
+	this.size = 0;
+    }
+
+    /**
+     * @return the number of records in the index.
+     */
+    @Override
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * @return true if region searches match records by great circle distance.
+     */
+    public boolean isMatchingGreatCircleDistance() {
+	return this.isMatchingGreatCircleDistance;
+    }
+
+    /**
+     * @return every element on its own line in Morton order.
+     */
+    public String mortonOrderTraversal() {
+	StringBuilder stringBuilder = new StringBuilder();
+	for (int i = 0; i < this.size; i++) {
+	    stringBuilder.append(this.elements[i].toString() + "\n");
+	}
+	return stringBuilder.toString();
+    }
+
+    /**
+     * @return the Morton order traversal of the index.
+     */
+    @Override
+    public String debugTraversal() {
+	return this.mortonOrderTraversal();
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the Morton code of the grid cell holding (x, y). Points outside
+     *         of the world are given the code of the nearest cell.
+     */
+    long getMortonCode(double x, double y) {
+	return interleave(this.getColumn(x), this.getRow(y));
+    }
+
+    private int getColumn(double x) {
+	return toCell((x - this.minimumXAxis)
+		/ (this.maximumXAxis - this.minimumXAxis));
+    }
+
+    private int getRow(double y) {
+	return toCell((y - this.minimumYAxis)
+		/ (this.maximumYAxis - this.minimumYAxis));
+    }
+
+    private static int toCell(double fractionOfWorld) {
+	if (!(fractionOfWorld > 0.0)) {
+	    return 0;
+	}
+	return (int) Math.min(GRID_LENGTH - 1,
+		Math.floor(fractionOfWorld * GRID_LENGTH));
+    }
+
+    /**
+     * @param column
+     * @param row
+     * @return the bits of the column and row interleaved with each column bit
+     *         above the row bit of the same significance.
+     */
+    static long interleave(int column, int row) {
+	return (spreadBits(column) << 1) | spreadBits(row);
+    }
+
+    /**
+     * @param value
+     * @return the bits of value with a 0 bit inserted above each of them.
+     */
+    private static long spreadBits(int value) {
+	long bits = value & 0xFFFFFFFFL;
+	bits = (bits | (bits << 16)) & 0x0000FFFF0000FFFFL;
+	bits = (bits | (bits << 8)) & 0x00FF00FF00FF00FFL;
+	bits = (bits | (bits << 4)) & 0x0F0F0F0F0F0F0F0FL;
+	bits = (bits | (bits << 2)) & 0x3333333333333333L;
+	bits = (bits | (bits << 1)) & 0x5555555555555555L;
+	return bits;
+    }
+
+    /**
+     * Stable merge sort of a range of record indices by their codes.
+     */
+    private static void sortByCode(int[] records, int[] buffer,
+	    long[] recordCodes, int start, int end) {
+	if (end - start < 2) {
+	    return;
+	}
+	int middle = (start + end) >>> 1;
+	sortByCode(records, buffer, recordCodes, start, middle);
+	sortByCode(records, buffer, recordCodes, middle, end);
+	if (recordCodes[records[middle - 1]] <= recordCodes[records[middle]]) {
+	    return; // already in order
+	}
+	System.arraycopy(records, start, buffer, start, end - start);
+	int left = start;
+	int right = middle;
+	for (int i = start; i < end; i++) {
+	    if (right == end
+		    || (left < middle && recordCodes[buffer[left]]
+			    <= recordCodes[buffer[right]])) {
+		records[i] = buffer[left++];
+	    } else {
+		records[i] = buffer[right++];
+	    }
+	}
+    }
+
+    /**
+     * @return index of the first record whose code is at least the given
+     *         code.
+     */
+    private int getFirstIndexOf(long code) {
+	int low = 0;
+	int high = this.size;
+	while (low < high) {
+	    int middle = (low + high) >>> 1;
+	    if (this.codes[middle] < code) {
+		low = middle + 1;
+	    } else {
+		high = middle;
+	    }
+	}
+	return low;
+    }
+
+    /**
+     * @return index of the first record whose code is greater than the given
+     *         code.
+     */
+    private int getFirstIndexAfter(long code) {
+	int low = 0;
+	int high = this.size;
+	while (low < high) {
+	    int middle = (low + high) >>> 1;
+	    if (this.codes[middle] <= code) {
+		low = middle + 1;
+	    } else {
+		high = middle;
+	    }
+	}
+	return low;
+    }
+
+    private int indexOfRecord(K key, E element) {
+	long code = this.getMortonCode(key.getX(), key.getY());
+	for (int i = this.getFirstIndexOf(code); i < this.size
+		&& this.codes[i] == code; i++) {
+	    if (element.equals(this.elements[i])
+		    && this.isKey(i, key.getX(), key.getY())) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    private boolean isKey(int index, double x, double y) {
+	// the same comparison as Point.equals
+	return Double.doubleToLongBits(this.xs[index]) == Double
+		.doubleToLongBits(x)
+		&& Double.doubleToLongBits(this.ys[index]) == Double
+			.doubleToLongBits(y);
+    }
+
+    private void insertAt(int index, long code, K key, E element) {
+	this.ensureCapacity(this.size + 1);
+
+	int numberOfRecordsToShift = this.size - index;
+	System.arraycopy(this.codes, index, this.codes, index + 1,
+		numberOfRecordsToShift);
+	System.arraycopy(this.xs, index, this.xs, index + 1,
+		numberOfRecordsToShift);
+	System.arraycopy(this.ys, index, this.ys, index + 1,
+		numberOfRecordsToShift);
+	System.arraycopy(this.elements, index, this.elements, index + 1,
+		numberOfRecordsToShift);
+	if (this.unitVectors != null) {
+	    System.arraycopy(this.unitVectors, index * 3, this.unitVectors,
+		    (index + 1) * 3, numberOfRecordsToShift * 3);
+	}
+	this.setRecord(index, code, key.getX(), key.getY(), element);
+	this.size++;
+    }
+
+    private void setRecord(int index, long code, double x, double y,
+	    E element) {
+	this.codes[index] = code;
+	this.xs[index] = x;
+	this.ys[index] = y;
+	this.elements[index] = element;
+	if (this.unitVectors != null) {
+	    RegionQuery.storeUnitVector(x, y, this.unitVectors, index * 3);
+	}
+    }
+
+    private void ensureCapacity(int numberOfRecords) {
+	if (numberOfRecords <= this.codes.length) {
+	    return;
+	}
+	int newLength = Math.max(numberOfRecords, this.codes.length * 2);
+	this.codes = Arrays.copyOf(this.codes, newLength);
+	this.xs = Arrays.copyOf(this.xs, newLength);
+	this.ys = Arrays.copyOf(this.ys, newLength);
+	this.elements = Arrays.copyOf(this.elements, newLength);
+	if (this.unitVectors != null) {
+	    this.unitVectors = Arrays.copyOf(this.unitVectors, newLength * 3);
+	}
+    }
+}
@@ -0,0 +1,401 @@
+package dataStructures;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Stores names as UTF-8 bytes packed into large shared pages instead of as a
+ * String object and backing array per name. A name is addressed by an int
+ * reference made of its page and its offset within the page, and its bytes
+ * are preceded by their length in 1 or 2 bytes. A name never spans 2 pages.
+ *
+ * A name to look up is encoded once into a reusable buffer so it can be
+ * hashed and compared against the stored bytes without allocating. The
+ * bytes of a removed name of 4 to 255 bytes are reused by the next name of
+ * the same length.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class NameArena {
+    /**
+     * The reference of no name.
+     */
+    public static final int NO_NAME = -1;
+
+    /**
+     * The longest name in bytes that fits a 2 byte length.
+     */
+    public static final int MAXIMUM_NAME_LENGTH = 0x7FFF;
+
+    private static final int DEFAULT_PAGE_BITS = 20;
+    private static final int MAXIMUM_REUSED_LENGTH = 255;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int pageBits;
+    private final int pageSize;
+    private byte[][] pages;
+    private int numberOfPages;
+
+    /**
+     * The offset within the last page where the next name is stored.
+     */
+    private int pageTop;
+
+    /**
+     * The reference of the last removed name of each length in bytes, or
+     * NO_NAME. The first 4 bytes of a removed name hold the reference of the
+     * name removed before it.
+     */
+    private final int[] removedNames;
+
+    private long numberOfNameBytes;
+    private long numberOfRemovedBytes;
+
+    /**
+     * The name last given to encode.
+     */
+    private byte[] encodedName;
+
+    /**
+     * Create a new empty NameArena object with pages of 1 MB.
+     */
+    public NameArena() {
+	this(DEFAULT_PAGE_BITS);
+    }
+
+    /**
+     * Create a new empty NameArena object.
+     *
+     * @param pageBits
+     *            The base 2 logarithm of the page size in bytes, from 16 to
+     *            30.
+     */
+    public NameArena(int pageBits) {
+	if (pageBits < 16 || pageBits > 30) {
+	    throw new IllegalArgumentException("In method NameArena of class "
+		    + "NameArena the page size must be from 2^16 to 2^30 "
+		    + "bytes");
+	}
+	this.pageBits = pageBits;
+	this.pageSize = 1 << pageBits;
+	this.pages = new byte[4][];
+	this.removedNames = new int[MAXIMUM_REUSED_LENGTH + 1];
+	this.encodedName = new byte[64];
+	this.clear();
+    }
+
+    /**
+     * Remove every name. The first page is kept.
+     */
+    public void clear() {
+	if (this.pages[0] == null) {
+	    this.pages[0] = new byte[this.pageSize];
+	}
+	Arrays.fill(this.pages, 1, this.pages.length, null);
+	this.numberOfPages = 1;
+	this.pageTop = 0;
+	Arrays.fill(this.removedNames, NO_NAME);
+	this.numberOfNameBytes = 0;
+	this.numberOfRemovedBytes = 0;
+    }
+
+    /**
+     * @param name
+     * @return The reference of the stored name.
+     */
+    public int add(String name) {
+	return this.addEncoded(this.encode(name));
+    }
+
+    /**
+     * Encode the name as UTF-8 into the buffer of this arena, replacing the
+     * name encoded before. A name of ASCII characters is encoded without
+     * allocating.
+     *
+     * @param name
+     * @return The length of the encoded name in bytes.
+     */
+    public int encode(String name) {
+	int numberOfCharacters = name.length();
+	if (numberOfCharacters > this.encodedName.length) {
+	    this.encodedName = new byte[Math.max(numberOfCharacters,
+		    this.encodedName.length * 2)];
+	}
+	for (int i = 0; i < numberOfCharacters; i++) {
+	    char character = name.charAt(i);
+	    if (character >= 0x80) {
+		byte[] bytes = name.getBytes(UTF_8);
+		if (bytes.length > this.encodedName.length) {
+		    this.encodedName = new byte[bytes.length];
+		}
+		System.arraycopy(bytes, 0, this.encodedName, 0, bytes.length);
+		return this.checkLength(bytes.length);
+	    }
+	    this.encodedName[i] = (byte) character;
+	}
+	return this.checkLength(numberOfCharacters);
+    }
+
+    /**
+     * Store the name last given to encode.
+     *
+     * @param length
+     *            The length returned by encode.
+     * @return The reference of the stored name.
+     */
+    public int addEncoded(int length) {
+	int ref = NO_NAME;
+	if (length >= 4 && length <= MAXIMUM_REUSED_LENGTH
+		&& this.removedNames[length] != NO_NAME) {
+	    ref = this.removedNames[length];
+	    this.removedNames[length] = this.readInt(ref,
+		    this.getLengthSize(length));
+	    this.numberOfRemovedBytes -= this.getLengthSize(length) + length;
+	} else {
+	    int size = this.getLengthSize(length) + length;
+	    if (this.pageTop + size > this.pageSize) {
+		this.addPage();
+	    }
+	    ref = ((this.numberOfPages - 1) << this.pageBits) | this.pageTop;
+	    this.pageTop += size;
+	    byte[] page = this.pages[this.numberOfPages - 1];
+	    int offset = ref & (this.pageSize - 1);
+	    if (length < 0x80) {
+		page[offset] = (byte) length;
+	    } else {
+		page[offset] = (byte) (0x80 | (length >>> 8));
+		page[offset + 1] = (byte) length;
+	    }
+	}
+	System.arraycopy(this.encodedName, 0, this.getPage(ref),
+		this.getNameOffset(ref), length);
+	this.numberOfNameBytes += length;
+	return ref;
+    }
+
+    /**
+     * Remove the name so its bytes can be reused. The reference must not be
+     * used afterwards.
+     *
+     * @param ref
+     */
+    public void remove(int ref) {
+	int length = this.getLength(ref);
+	this.numberOfNameBytes -= length;
+	this.numberOfRemovedBytes += this.getLengthSize(length) + length;
+	if (length >= 4 && length <= MAXIMUM_REUSED_LENGTH) {
+	    this.writeInt(ref, this.getLengthSize(length),
+		    this.removedNames[length]);
+	    this.removedNames[length] = ref;
+	}
+    }
+
+    /**
+     * @param ref
+     * @return The name stored at the reference.
+     */
+    public String getName(int ref) {
+	return new String(this.getPage(ref), this.getNameOffset(ref),
+		this.getLength(ref), UTF_8);
+    }
+
+    /**
+     * @param ref
+     * @return The length in bytes of the name stored at the reference.
+     */
+    public int getLength(int ref) {
+	byte[] page = this.getPage(ref);
+	int offset = ref & (this.pageSize - 1);
+	int firstByte = page[offset] & 0xFF;
+	if (firstByte < 0x80) {
+	    return firstByte;
+	}
+	return ((firstByte & 0x7F) << 8) | (page[offset + 1] & 0xFF);
+    }
+
+    /**
+     * @param ref
+     * @return The hash code of the name stored at the reference, which is the
+     *         same as encodedHashCode of the name once encoded.
+     */
+    public int hashCode(int ref) {
+	byte[] page = this.getPage(ref);
+	int start = this.getNameOffset(ref);
+	int end = start + this.getLength(ref);
+	int hash = 0;
+	for (int i = start; i < end; i++) {
+	    hash = 31 * hash + page[i];
+	}
+	return hash;
+    }
+
+    /**
+     * @param length
+     *            The length returned by encode.
+     * @return The hash code of the name last given to encode.
+     */
+    public int encodedHashCode(int length) {
+	int hash = 0;
+	for (int i = 0; i < length; i++) {
+	    hash = 31 * hash + this.encodedName[i];
+	}
+	return hash;
+    }
+
+    /**
+     * @param ref
+     * @param length
+     *            The length returned by encode.
+     * @return true if the name stored at the reference is the name last
+     *         given to encode.
+     */
+    public boolean isEncodedName(int ref, int length) {
+	if (this.getLength(ref) != length) {
+	    return false;
+	}
+	byte[] page = this.getPage(ref);
+	int offset = this.getNameOffset(ref);
+	for (int i = 0; i < length; i++) {
+	    if (page[offset + i] != this.encodedName[i]) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * @param ref
+     * @param length
+     *            The length returned by encode.
+     * @return A negative number, zero or a positive number as the name
+     *         stored at the reference is less than, equal to or greater than
+     *         the name last given to encode, in the order of
+     *         String.compareTo.
+     */
+    public int compareToEncodedName(int ref, int length) {
+	return compare(this.getPage(ref), this.getNameOffset(ref),
+		this.getLength(ref), this.encodedName, 0, length);
+    }
+
+    /**
+     * @param ref1
+     * @param ref2
+     * @return A negative number, zero or a positive number as the name
+     *         stored at ref1 is less than, equal to or greater than the name
+     *         stored at ref2, in the order of String.compareTo.
+     */
+    public int compareNames(int ref1, int ref2) {
+	return compare(this.getPage(ref1), this.getNameOffset(ref1),
+		this.getLength(ref1), this.getPage(ref2),
+		this.getNameOffset(ref2), this.getLength(ref2));
+    }
+
+    /**
+     * @return The number of bytes of the names stored, not counting their
+     *         lengths.
+     */
+    public long getNumberOfNameBytes() {
+	return this.numberOfNameBytes;
+    }
+
+    /**
+     * @return The number of bytes of removed names, including their lengths,
+     *         that have not been reused yet.
+     */
+    public long getNumberOfRemovedBytes() {
+	return this.numberOfRemovedBytes;
+    }
+
+    /**
+     * @return The number of bytes of the pages allocated.
+     */
+    public long getNumberOfPageBytes() {
+	return (long) this.numberOfPages * this.pageSize;
+    }
+
+    /**
+     * Compare 2 names by their UTF-8 bytes in the order String.compareTo
+     * compares their UTF-16 characters.
+     */
+    private static int compare(byte[] bytes1, int offset1, int length1,
+	    byte[] bytes2, int offset2, int length2) {
+	int length = Math.min(length1, length2);
+	for (int i = 0; i < length; i++) {
+	    int byte1 = bytes1[offset1 + i] & 0xFF;
+	    int byte2 = bytes2[offset2 + i] & 0xFF;
+	    if (byte1 != byte2) {
+		// UTF-8 orders a character beyond U+FFFF after U+E000 to
+		// U+FFFF, which start with 0xEE or 0xEF, but its UTF-16
+		// surrogates come before them
+		if (byte1 >= 0xF0 && (byte2 == 0xEE || byte2 == 0xEF)) {
+		    return -1;
+		} else if (byte2 >= 0xF0 && (byte1 == 0xEE || byte1 == 0xEF)) {
+		    return 1;
+		}
+		return byte1 - byte2;
+	    }
+	}
+	return length1 - length2;
+    }
+
+    private int checkLength(int length) {
+	if (length > MAXIMUM_NAME_LENGTH) {
+	    throw new IllegalArgumentException("In method encode of class "
+		    + "NameArena a name can not be longer than "
+		    + MAXIMUM_NAME_LENGTH + " bytes");
+	}
+	return length;
+    }
+
+    private void addPage() {
+	if (this.numberOfPages == 1 << (31 - this.pageBits)) {
+	    throw new IllegalStateException("In method addPage of class "
+		    + "NameArena every page a reference can address is full");
+	}
+	if (this.numberOfPages == this.pages.length) {
+	    this.pages = Arrays.copyOf(this.pages, this.pages.length * 2);
+	}
+	this.pages[this.numberOfPages] = new byte[this.pageSize];
+	this.numberOfPages++;
+	this.pageTop = 0;
+    }
+
+    private byte[] getPage(int ref) {
+	return this.pages[ref >>> this.pageBits];
+    }
+
+    /**
+     * @return The offset within its page of the first byte of the name
+     *         stored at the reference.
+     */
+    private int getNameOffset(int ref) {
+	int offset = ref & (this.pageSize - 1);
+	return offset + ((this.pages[ref >>> this.pageBits][offset] & 0x80)
+		== 0 ? 1 : 2);
+    }
+
+    /**
+     * @return The number of bytes a length is stored in.
+     */
+    private int getLengthSize(int length) {
+	return length < 0x80 ? 1 : 2;
+    }
+
+    private int readInt(int ref, int lengthSize) {
+	byte[] page = this.getPage(ref);
+	int offset = (ref & (this.pageSize - 1)) + lengthSize;
+	return ((page[offset] & 0xFF) << 24)
+		| ((page[offset + 1] & 0xFF) << 16)
+		| ((page[offset + 2] & 0xFF) << 8) | (page[offset + 3] & 0xFF);
+    }
+
+    private void writeInt(int ref, int lengthSize, int value) {
+	byte[] page = this.getPage(ref);
+	int offset = (ref & (this.pageSize - 1)) + lengthSize;
+	page[offset] = (byte) (value >>> 24);
+	page[offset + 1] = (byte) (value >>> 16);
+	page[offset + 2] = (byte) (value >>> 8);
+	page[offset + 3] = (byte) value;
+    }
+}
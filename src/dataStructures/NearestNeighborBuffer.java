@@ -0,0 +1,225 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * Collects the k elements nearest to a search point along with their
+ * distances. While a search runs the candidates are kept in a bounded max
+ * heap on parallel arrays whose root is the farthest candidate, so a closer
+ * candidate replaces it in log k steps. The arrays are reused between
+ * searches, so collecting candidates allocates nothing once the buffer has
+ * grown to the largest k.
+ *
+ * Once the search is finished the elements are ordered from nearest to
+ * farthest. Elements at the same distance are ordered by when the search
+ * found them.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <E>
+ *            The type of element collected.
+ */
+public class NearestNeighborBuffer<E> {
+    private Object[] elements;
+
+    /**
+     * Squared distance of each candidate while a search runs and its distance
+     * once the search is finished.
+     */
+    private double[] distances;
+
+    /**
+     * The order in which the search found each candidate.
+     */
+    private int[] foundOrders;
+
+    private int size;
+    private int maximumSize;
+    private int numberOfCandidatesFound;
+
+    /**
+     * Create a new NearestNeighborBuffer object.
+     */
+    public NearestNeighborBuffer() {
+	this.elements = new Object[16];
+	this.distances = new double[16];
+	this.foundOrders = new int[16];
+	this.size = 0;
+	this.maximumSize = 0;
+	this.numberOfCandidatesFound = 0;
+    }
+
+    /**
+     * @param index
+     * @return The element found at the given position, where position 0 is
+     *         the nearest element.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+	this.checkIndex("get", index);
+	return (E) this.elements[index];
+    }
+
+    /**
+     * @param index
+     * @return The distance of the element at the given position from the
+     *         search point.
+     */
+    public double getDistance(int index) {
+	this.checkIndex("getDistance", index);
+	return this.distances[index];
+    }
+
+    /**
+     * @return The number of elements collected, which is k unless fewer
+     *         elements were searched.
+     */
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * Forget all collected elements but keep the buffer for the next search.
+     */
+    public void clear() {
+	Arrays.fill(this.elements, 0, this.size, null);
+	this.size = 0;
+	this.numberOfCandidatesFound = 0;
+    }
+
+    /**
+     * Clear the buffer for a search of the k nearest elements.
+     *
+     * @param k
+     */
+    void startSearch(int k) {
+	this.clear();
+	if (k > this.elements.length) {
+	    this.elements = new Object[k];
+	    this.distances = new double[k];
+	    this.foundOrders = new int[k];
+	}
+	this.maximumSize = k;
+    }
+
+    /**
+     * @return true if k candidates have been found, so only a closer
+     *         candidate can still change the result.
+     */
+    boolean isFull() {
+	return this.size == this.maximumSize;
+    }
+
+    /**
+     * @return the squared distance of the farthest candidate.
+     */
+    double getFarthestDistanceSquared() {
+	return this.distances[0];
+    }
+
+    /**
+     * Keep the candidate if fewer than k candidates were found or if it is
+     * closer than the farthest candidate, which it then replaces.
+     *
+     * @param element
+     * @param distanceSquared
+     */
+    void offer(E element, double distanceSquared) {
+	int foundOrder = this.numberOfCandidatesFound++;
+	if (this.size < this.maximumSize) {
+	    // sift the new candidate up from the end of the heap
+	    int index = this.size++;
+	    while (index > 0) {
+		int parent = (index - 1) / 2;
+		if (!this.isFartherThan(distanceSquared, foundOrder, parent)) {
+		    break;
+		}
+		this.move(parent, index);
+		index = parent;
+	    }
+	    this.set(index, element, distanceSquared, foundOrder);
+	} else if (this.size > 0 && distanceSquared < this.distances[0]) {
+	    this.siftDown(element, distanceSquared, foundOrder, this.size);
+	}
+    }
+
+    /**
+     * Order the candidates from nearest to farthest and turn their squared
+     * distances into distances.
+     */
+    void finishSearch() {
+	// heap sort, every pass moves the farthest candidate left in the heap
+	// to the end
+	for (int end = this.size - 1; end > 0; end--) {
+	    Object element = this.elements[end];
+	    double distanceSquared = this.distances[end];
+	    int foundOrder = this.foundOrders[end];
+	    this.move(0, end);
+	    this.siftDown(element, distanceSquared, foundOrder, end);
+	}
+	for (int i = 0; i < this.size; i++) {
+	    this.distances[i] = Math.sqrt(this.distances[i]);
+	}
+    }
+
+    /**
+     * Put the candidate at the root of the heap of the given size and move
+     * it down until both of its children are nearer.
+     */
+    private void siftDown(Object element, double distanceSquared,
+	    int foundOrder, int heapSize) {
+	int index = 0;
+	while (true) {
+	    int child = index * 2 + 1;
+	    if (child >= heapSize) {
+		break;
+	    }
+	    if (child + 1 < heapSize
+		    && this.isFartherThan(this.distances[child + 1],
+			    this.foundOrders[child + 1], child)) {
+		child++;
+	    }
+	    if (!this.isFartherThan(this.distances[child],
+		    this.foundOrders[child], distanceSquared, foundOrder)) {
+		break;
+	    }
+	    this.move(child, index);
+	    index = child;
+	}
+	this.set(index, element, distanceSquared, foundOrder);
+    }
+
+    private boolean isFartherThan(double distanceSquared, int foundOrder,
+	    int index) {
+	return this.isFartherThan(distanceSquared, foundOrder,
+		this.distances[index], this.foundOrders[index]);
+    }
+
+    private boolean isFartherThan(double distanceSquared, int foundOrder,
+	    double otherDistanceSquared, int otherFoundOrder) {
+	return distanceSquared > otherDistanceSquared
+		|| (distanceSquared == otherDistanceSquared
+		&& foundOrder > otherFoundOrder);
+    }
+
+    private void move(int from, int to) {
+	this.elements[to] = this.elements[from];
+	this.distances[to] = this.distances[from];
+	this.foundOrders[to] = this.foundOrders[from];
+    }
+
+    private void set(int index, Object element, double distanceSquared,
+	    int foundOrder) {
+	this.elements[index] = element;
+	this.distances[index] = distanceSquared;
+	this.foundOrders[index] = foundOrder;
+    }
+
+    private void checkIndex(String methodName, int index) {
+	if (index < 0 || index >= this.size) {
+	    throw new IndexOutOfBoundsException("In method " + methodName
+		    + " of class NearestNeighborBuffer the index " + index
+		    + " is not within the buffer");
+	}
+    }
+}
@@ -0,0 +1,207 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * A dictionary that finds a record by the hash code of its key instead of by
+ * comparing keys along the path of a tree, so a lookup costs about the same
+ * at any size. Records are stored in rows of parallel arrays of keys and
+ * elements and are found through a HandleHashTable of their rows, so there
+ * is no node object per record and a probe only calls equals on a key whose
+ * cached hash code matches. Removing a record moves the last row into its
+ * row, so the rows stay packed and lookups never slow down from churn.
+ *
+ * Keys are unordered. Keep an ordered dictionary next to this one where an
+ * ordered traversal is needed.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <K>
+ * @param <E>
+ */
+public class OpenAddressingHashTable<K, E> implements
+	DictionaryInterface<K, E> {
+    private static final int MINIMUM_NUMBER_OF_ROWS = 16;
+
+    /**
+     * The row of each record in the table of rows.
+     */
+    private final HandleHashTable rowTable;
+
+    /**
+     * The key and element of each record in rows 0 to numberOfRecords - 1.
+     */
+    private Object[] keys;
+    private Object[] elements;
+
+    private int numberOfRecords;
+
+    /**
+     * Matches the rows whose key equals the key being looked up.
+     */
+    private final KeyMatcher keyMatcher = new KeyMatcher();
+
+    /**
+     * Create a new empty OpenAddressingHashTable object.
+     */
+    public OpenAddressingHashTable() {
+	this(0);
+    }
+
+    /**
+     * Create a new empty OpenAddressingHashTable object with enough slots
+     * and rows for the given number of records.
+     *
+     * @param expectedNumberOfRecords
+     *            The number of records expected to be inserted, so the table
+     *            does not need to grow while they are.
+     */
+    public OpenAddressingHashTable(int expectedNumberOfRecords) {
+	if (expectedNumberOfRecords < 0) {
+	    throw new IllegalArgumentException("In method "
+		    + "OpenAddressingHashTable of class "
+		    + "OpenAddressingHashTable the expected number of records "
+		    + "can not be negative");
+	}
+	this.rowTable = new HandleHashTable(expectedNumberOfRecords);
+	int numberOfRows = Math.max(MINIMUM_NUMBER_OF_ROWS,
+		expectedNumberOfRecords);
+	this.keys = new Object[numberOfRows];
+	this.elements = new Object[numberOfRows];
+    }
+
+    @Override
+    public void clear() {
+	this.rowTable.clear();
+	Arrays.fill(this.keys, 0, this.numberOfRecords, null);
+	Arrays.fill(this.elements, 0, this.numberOfRecords, null);
+	this.numberOfRecords = 0;
+    }
+
+    /**
+     * Insert a record even if a record with an equal key exists. find then
+     * returns the element of the record that was inserted first.
+     */
+    @Override
+    public void insert(K key, E element) {
+	this.rowTable.insert(this.hash(key), this.numberOfRecords);
+	this.addRow(key, element);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E putIfAbsent(K key, E element) {
+	this.keyMatcher.key = key;
+	int row = this.rowTable.putIfAbsent(this.hash(key),
+		this.numberOfRecords, this.keyMatcher);
+	this.keyMatcher.key = null;
+	if (row != HandleHashTable.NO_HANDLE) {
+	    return (E) this.elements[row];
+	}
+	this.addRow(key, element);
+	return null;
+    }
+
+    @Override
+    public E remove(K key) {
+	this.keyMatcher.key = key;
+	int row = this.rowTable.remove(this.hash(key), this.keyMatcher);
+	this.keyMatcher.key = null;
+	return row == HandleHashTable.NO_HANDLE ? null : this.removeRow(row);
+    }
+
+    /**
+     * Removes the record in the last row, so removing a record costs the
+     * same however many records are left.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E removeRandomElement() {
+	if (this.numberOfRecords == 0) {
+	    return null;
+	}
+	int row = this.numberOfRecords - 1;
+	this.rowTable.removeHandle(this.hash((K) this.keys[row]), row);
+	return this.removeRow(row);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E find(K key) {
+	this.keyMatcher.key = key;
+	int row = this.rowTable.find(this.hash(key), this.keyMatcher);
+	this.keyMatcher.key = null;
+	return row == HandleHashTable.NO_HANDLE ? null : (E) this.elements[row];
+    }
+
+    @Override
+    public int size() {
+	return this.numberOfRecords;
+    }
+
+    /**
+     * @return The number of slots, which is a power of 2 at least 4/3 of the
+     *         number of records.
+     */
+    public int getCapacity() {
+	return this.rowTable.getCapacity();
+    }
+
+    /**
+     * Store a record in the row after the last one, growing the rows if
+     * they are full.
+     */
+    private void addRow(K key, E element) {
+	if (this.numberOfRecords == this.keys.length) {
+	    this.keys = Arrays.copyOf(this.keys, this.keys.length * 2);
+	    this.elements = Arrays.copyOf(this.elements,
+		    this.elements.length * 2);
+	}
+	this.keys[this.numberOfRecords] = key;
+	this.elements[this.numberOfRecords] = element;
+	this.numberOfRecords++;
+    }
+
+    /**
+     * Empty a row that is no longer in the table of rows by moving the
+     * record of the last row into it.
+     *
+     * @param row
+     * @return The element of the removed record.
+     */
+    @SuppressWarnings("unchecked")
+    private E removeRow(int row) {
+	E removedElement = (E) this.elements[row];
+	int lastRow = this.numberOfRecords - 1;
+	if (row != lastRow) {
+	    this.rowTable.replaceHandle(this.hash((K) this.keys[lastRow]),
+		    lastRow, row);
+	    this.keys[row] = this.keys[lastRow];
+	    this.elements[row] = this.elements[lastRow];
+	}
+	this.keys[lastRow] = null;
+	this.elements[lastRow] = null;
+	this.numberOfRecords--;
+	return removedElement;
+    }
+
+    private int hash(K key) {
+	if (key == null) {
+	    throw new IllegalArgumentException("In method hash of class "
+		    + "OpenAddressingHashTable a key can not be null");
+	}
+	return key.hashCode();
+    }
+
+    /**
+     * Matches the rows whose key equals the key being looked up.
+     */
+    private class KeyMatcher implements HandleMatcher {
+	private Object key;
+
+	@Override
+	public boolean isMatch(int row) {
+	    return OpenAddressingHashTable.this.keys[row].equals(this.key);
+	}
+    }
+}
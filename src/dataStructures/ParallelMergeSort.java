@@ -0,0 +1,97 @@
+package dataStructures;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A stable merge sort whose halves are sorted and merged by forked tasks.
+ * Ranges shorter than a cutoff are sorted with Arrays.sort on the task that
+ * reaches them.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+final class ParallelMergeSort {
+    /**
+     * Ranges shorter than this are sorted sequentially.
+     */
+    static final int SEQUENTIAL_CUTOFF = 8192;
+
+    private ParallelMergeSort() {
+    }
+
+    /**
+     * Sort the items in ascending order. Equal items keep their order.
+     *
+     * @param items
+     * @param comparator
+     * @param pool
+     *            The pool to sort with, or null to sort on the calling thread.
+     */
+    static <T> void sort(T[] items, Comparator<? super T> comparator,
+	    ForkJoinPool pool) {
+	if (pool == null || items.length < SEQUENTIAL_CUTOFF) {
+	    Arrays.sort(items, comparator);
+	    return;
+	}
+	T[] buffer = Arrays.copyOf(items, items.length);
+	pool.invoke(new SortTask<T>(items, buffer, 0, items.length,
+		comparator));
+    }
+
+    /**
+     * Sorts a range of the items using the same range of the buffer.
+     */
+    private static class SortTask<T> extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final T[] items;
+	private final T[] buffer;
+	private final int start;
+	private final int end;
+	private final Comparator<? super T> comparator;
+
+	SortTask(T[] items, T[] buffer, int start, int end,
+		Comparator<? super T> comparator) {
+	    this.items = items;
+	    this.buffer = buffer;
+	    this.start = start;
+	    this.end = end;
+	    this.comparator = comparator;
+	}
+
+	@Override
+	protected void compute() {
+	    if (this.end - this.start < SEQUENTIAL_CUTOFF) {
+		Arrays.sort(this.items, this.start, this.end, this.comparator);
+		return;
+	    }
+	    int middle = (this.start + this.end) >>> 1;
+	    invokeAll(new SortTask<T>(this.items, this.buffer, this.start,
+		    middle, this.comparator), new SortTask<T>(this.items,
+		    this.buffer, middle, this.end, this.comparator));
+
+	    // merge both sorted halves through the buffer, taking from the
+	    // left half on ties so the sort stays stable
+	    System.arraycopy(this.items, this.start, this.buffer, this.start,
+		    this.end - this.start);
+	    int left = this.start;
+	    int right = middle;
+	    int target = this.start;
+	    while (left < middle && right < this.end) {
+		if (this.comparator.compare(this.buffer[right],
+			this.buffer[left]) < 0) {
+		    this.items[target++] = this.buffer[right++];
+		} else {
+		    this.items[target++] = this.buffer[left++];
+		}
+	    }
+	    System.arraycopy(this.buffer, left, this.items, target, middle
+		    - left);
+	    System.arraycopy(this.buffer, right, this.items, target, this.end
+		    - right);
+	}
+    }
+}
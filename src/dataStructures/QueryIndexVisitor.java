@@ -0,0 +1,28 @@
+package dataStructures;
+
+/**
+ * Hands the elements found for one circle of a batch region search to the
+ * batch visitor along with the index of the circle, so an index can search
+ * a circle of a batch with its single circle region search.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <E>
+ *            The type of element stored in the searched data structure.
+ */
+class QueryIndexVisitor<E> implements RegionSearchVisitor<E> {
+    /**
+     * The index of the circle being searched.
+     */
+    int queryIndex;
+
+    /**
+     * Receives the elements of every circle of the batch.
+     */
+    BatchRegionSearchVisitor<E> batchVisitor;
+
+    @Override
+    public void visit(E element) {
+	this.batchVisitor.visit(this.queryIndex, element);
+    }
+}
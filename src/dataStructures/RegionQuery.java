@@ -0,0 +1,393 @@
+package dataStructures;
+/**
+ * The search circle of a bin tree region search along with the boxes of the
+ * bin tree world that can contain records within the circle.
+ *
+ * A planar query is a circle in the (x, y) plane and has a single box. A
+ * great circle query treats x as longitude and y as latitude + 90 in degrees
+ * and its radius as an angle of arc. Its boxes wrap around the 0/360
+ * longitude seam and widen towards the poles, so up to two boxes are needed.
+ * Records are matched with the dot product of unit vectors instead of trig
+ * per record.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+final class RegionQuery {
+    /**
+     * Most boxes a query can be split into.
+     */
+    static final int MAXIMUM_NUMBER_OF_BOXES = 2;
+
+    double centerX;
+    double centerY;
+    double radius;
+    double radiusSquared;
+
+    boolean isGreatCircle;
+
+    /**
+     * If true, a planar query only reaches the cells whose nearest point lies
+     * within the circle instead of every cell overlapping the circle's
+     * bounding box. Cells in the corners of the bounding box are then pruned
+     * without being visited. A great circle query always prunes by its boxes.
+     */
+    boolean isPruningExactly;
+
+    /**
+     * If true, a planar query accepts every cell within the circle whole so
+     * the records of its subtree are found without checking their distance.
+     * Cells on the edge of the world are never accepted because their leaf
+     * nodes may hold keys outside of the world.
+     */
+    boolean isAcceptingContainedCells;
+    double worldMinimumX;
+    double worldMaximumX;
+    double worldMinimumY;
+    double worldMaximumY;
+
+    double centerUnitX;
+    double centerUnitY;
+    double centerUnitZ;
+
+    /**
+     * A unit vector is within the great circle radius of the center when its
+     * dot product with the center's unit vector is at least this value.
+     */
+    double minimumDotProduct;
+
+    int numberOfBoxes;
+    final double[] boxMinimumX = new double[MAXIMUM_NUMBER_OF_BOXES];
+    final double[] boxMaximumX = new double[MAXIMUM_NUMBER_OF_BOXES];
+    final double[] boxMinimumY = new double[MAXIMUM_NUMBER_OF_BOXES];
+    final double[] boxMaximumY = new double[MAXIMUM_NUMBER_OF_BOXES];
+
+    /**
+     * Reusable storage for the unit vector of the center.
+     */
+    private final double[] unitVector = new double[3];
+
+    /**
+     * Set this query to the circle of the given radius in the (x, y) plane.
+     *
+     * @param x
+     * @param y
+     * @param radius
+     */
+    void setPlanar(double x, double y, double radius) {
+	this.setCenter(x, y, radius);
+	this.isGreatCircle = false;
+
+	// same arithmetic as the bounding box of the search circle
+	this.numberOfBoxes = 1;
+	this.boxMinimumX[0] = x - radius;
+	this.boxMinimumY[0] = y - radius;
+	this.boxMaximumX[0] = this.boxMinimumX[0] + radius * 2;
+	this.boxMaximumY[0] = this.boxMinimumY[0] + radius * 2;
+    }
+
+    /**
+     * Set this query to the small circle of the given angular radius on the
+     * sphere where x is longitude in [0, 360] and y is latitude + 90 in [0,
+     * 180].
+     *
+     * @param x
+     * @param y
+     * @param radius
+     *            Angular radius in degrees.
+     */
+    void setGreatCircle(double x, double y, double radius) {
+	this.setCenter(x, y, radius);
+	this.isGreatCircle = true;
+
+	storeUnitVector(x, y, this.unitVector, 0);
+	this.centerUnitX = this.unitVector[0];
+	this.centerUnitY = this.unitVector[1];
+	this.centerUnitZ = this.unitVector[2];
+	this.minimumDotProduct = radius >= 180.0 ? -1.0 : Math.cos(Math
+		.toRadians(radius));
+
+	double minimumY = Math.max(0.0, y - radius);
+	double maximumY = Math.min(180.0, y + radius);
+	if (y - radius <= 0.0 || y + radius >= 180.0) {
+	    // the circle contains a pole so every longitude is reached
+	    this.setBox(0, 0.0, 360.0, minimumY, maximumY);
+	    this.numberOfBoxes = 1;
+	    return;
+	}
+
+	// widest longitude reached by a small circle that does not contain a
+	// pole
+	double latitude = Math.toRadians(y - 90.0);
+	double halfWidth = Math.toDegrees(Math.asin(Math.sin(Math
+		.toRadians(radius)) / Math.cos(latitude)));
+	double minimumX = x - halfWidth;
+	double maximumX = x + halfWidth;
+
+	if (halfWidth >= 180.0) {
+	    this.setBox(0, 0.0, 360.0, minimumY, maximumY);
+	    this.numberOfBoxes = 1;
+	} else if (minimumX < 0.0) {
+	    // wrap around the seam at longitude 0
+	    this.setBox(0, 0.0, maximumX, minimumY, maximumY);
+	    this.setBox(1, minimumX + 360.0, 360.0, minimumY, maximumY);
+	    this.numberOfBoxes = 2;
+	} else if (maximumX > 360.0) {
+	    // wrap around the seam at longitude 360
+	    this.setBox(0, minimumX, 360.0, minimumY, maximumY);
+	    this.setBox(1, 0.0, maximumX - 360.0, minimumY, maximumY);
+	    this.numberOfBoxes = 2;
+	} else {
+	    this.setBox(0, minimumX, maximumX, minimumY, maximumY);
+	    this.numberOfBoxes = 1;
+	}
+    }
+
+    /**
+     * Set this query to the search circle of an index that matches records by
+     * great circle distance or by distance in the (x, y) plane.
+     *
+     * @param x
+     * @param y
+     * @param radius
+     * @param isGreatCircle
+     *            If true, set a great circle query, otherwise a planar one.
+     */
+    void setCircle(double x, double y, double radius, boolean isGreatCircle) {
+	if (isGreatCircle) {
+	    this.setGreatCircle(x, y, radius);
+	} else {
+	    this.setPlanar(x, y, radius);
+	}
+    }
+
+    /**
+     * @param boxIndex
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @return true if the cell overlaps the box with the given index, using
+     *         the same test as BoundingBox.isOverlapping.
+     */
+    boolean isOverlappingBox(int boxIndex, double cellX, double cellY,
+	    double cellWidth, double cellHeight) {
+	return cellX <= this.boxMaximumX[boxIndex]
+		&& cellX + cellWidth >= this.boxMinimumX[boxIndex]
+		&& cellY + cellHeight >= this.boxMinimumY[boxIndex]
+		&& cellY <= this.boxMaximumY[boxIndex];
+    }
+
+    /**
+     * @param boxIndex
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @return true if a region search must visit the cell: the cell overlaps
+     *         the box with the given index and, if this query prunes exactly,
+     *         the nearest point of the cell lies within the circle.
+     */
+    boolean isReachingCell(int boxIndex, double cellX, double cellY,
+	    double cellWidth, double cellHeight) {
+	if (!this.isOverlappingBox(boxIndex, cellX, cellY, cellWidth,
+		cellHeight)) {
+	    return false;
+	}
+	return !this.isPruningExactly || this.isGreatCircle
+		|| this.isReachingCircle(cellX, cellY, cellWidth, cellHeight);
+    }
+
+    /**
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @return true if the nearest point of the cell lies within the planar
+     *         circle of this query.
+     */
+    boolean isReachingCircle(double cellX, double cellY, double cellWidth,
+	    double cellHeight) {
+	return getDistanceSquaredToCell(this.centerX, this.centerY, cellX,
+		cellY, cellWidth, cellHeight) <= this.radiusSquared;
+    }
+
+    /**
+     * Choose whether this query accepts the cells within its circle whole.
+     *
+     * @param isAccepting
+     * @param minimumX
+     * @param maximumX
+     * @param minimumY
+     * @param maximumY
+     *            Bounds of the world of the searched bin tree.
+     */
+    void setAcceptingContainedCells(boolean isAccepting, double minimumX,
+	    double maximumX, double minimumY, double maximumY) {
+	this.isAcceptingContainedCells = isAccepting;
+	this.worldMinimumX = minimumX;
+	this.worldMaximumX = maximumX;
+	this.worldMinimumY = minimumY;
+	this.worldMaximumY = maximumY;
+    }
+
+    /**
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @return true if every record within the subtree of the cell is a match
+     *         of this query without checking its distance.
+     */
+    boolean isAcceptingCell(double cellX, double cellY, double cellWidth,
+	    double cellHeight) {
+	return this.isAcceptingContainedCells && !this.isGreatCircle
+		&& cellX > this.worldMinimumX && cellY > this.worldMinimumY
+		&& cellX + cellWidth < this.worldMaximumX
+		&& cellY + cellHeight < this.worldMaximumY
+		&& this.isContainingCell(cellX, cellY, cellWidth, cellHeight);
+    }
+
+    /**
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @return true if the farthest corner of the cell lies strictly within
+     *         the planar circle of this query, so every record within the
+     *         cell is a match.
+     */
+    boolean isContainingCell(double cellX, double cellY, double cellWidth,
+	    double cellHeight) {
+	double differenceX = Math.max(Math.abs(cellX - this.centerX),
+		Math.abs(cellX + cellWidth - this.centerX));
+	double differenceY = Math.max(Math.abs(cellY - this.centerY),
+		Math.abs(cellY + cellHeight - this.centerY));
+	return differenceX * differenceX + differenceY * differenceY
+		< this.radiusSquared;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @return the squared distance from the point to the nearest point of
+     *         the cell, which is 0 if the point is within the cell.
+     */
+    static double getDistanceSquaredToCell(double x, double y, double cellX,
+	    double cellY, double cellWidth, double cellHeight) {
+	double differenceX = Math.max(0.0,
+		Math.max(cellX - x, x - (cellX + cellWidth)));
+	double differenceY = Math.max(0.0,
+		Math.max(cellY - y, y - (cellY + cellHeight)));
+	return differenceX * differenceX + differenceY * differenceY;
+    }
+
+    /**
+     * @param minimumX
+     * @param maximumX
+     * @param minimumY
+     * @param maximumY
+     * @return the fraction of the given world's area that is covered by the
+     *         boxes of this query.
+     */
+    double getWorldCoverage(double minimumX, double maximumX,
+	    double minimumY, double maximumY) {
+	double coveredArea = 0.0;
+	for (int i = 0; i < this.numberOfBoxes; i++) {
+	    double width = Math.min(maximumX, this.boxMaximumX[i])
+		    - Math.max(minimumX, this.boxMinimumX[i]);
+	    double height = Math.min(maximumY, this.boxMaximumY[i])
+		    - Math.max(minimumY, this.boxMinimumY[i]);
+	    if (width > 0.0 && height > 0.0) {
+		coveredArea += width * height;
+	    }
+	}
+	return coveredArea / ((maximumX - minimumX) * (maximumY - minimumY));
+    }
+
+    /**
+     * @param boxIndex
+     *            The box that is being searched.
+     * @param leafNode
+     * @param recordIndex
+     * @return true if the record is within the search circle. A great circle
+     *         record is only matched by the box it lies in so it is never
+     *         matched twice.
+     */
+    boolean isMatch(int boxIndex, BinTreeLeafNode<?, ?> leafNode,
+	    int recordIndex) {
+	return this.isMatch(boxIndex, leafNode.getKey(recordIndex).getX(),
+		leafNode.getKey(recordIndex).getY(), leafNode.getUnitVectors(),
+		recordIndex * 3);
+    }
+
+    /**
+     * @param boxIndex
+     *            The box that is being searched.
+     * @param x
+     * @param y
+     * @param unitVectors
+     *            Cached unit vectors, only read by a great circle query.
+     * @param offset
+     *            Index of the first component of the record's unit vector.
+     * @return true if the record at (x, y) is within the search circle.
+     */
+    boolean isMatch(int boxIndex, double x, double y, double[] unitVectors,
+	    int offset) {
+	if (this.isGreatCircle) {
+	    if (x < this.boxMinimumX[boxIndex]
+		    || x > this.boxMaximumX[boxIndex]) {
+		return false;
+	    }
+	    return this.centerUnitX * unitVectors[offset] + this.centerUnitY
+		    * unitVectors[offset + 1] + this.centerUnitZ
+		    * unitVectors[offset + 2] >= this.minimumDotProduct;
+	}
+	// (EP_x - WP_x)^2 + (EP_y - WP_y)^2 <= distance^2
+	double differenceX = this.centerX - x;
+	double differenceY = this.centerY - y;
+	return differenceX * differenceX + differenceY * differenceY
+		<= this.radiusSquared;
+    }
+
+    /**
+     * Store the unit vector of the point on the sphere with longitude x and
+     * latitude y - 90 in degrees.
+     *
+     * @param x
+     * @param y
+     * @param target
+     *            Array to store the 3 components in.
+     * @param offset
+     *            Index of the first component within target.
+     */
+    static void storeUnitVector(double x, double y, double[] target,
+	    int offset) {
+	double longitude = Math.toRadians(x);
+	// y is the angle from the south pole
+	double angleFromSouthPole = Math.toRadians(y);
+	double distanceFromAxis = Math.sin(angleFromSouthPole);
+	target[offset] = distanceFromAxis * Math.cos(longitude);
+	target[offset + 1] = distanceFromAxis * Math.sin(longitude);
+	target[offset + 2] = -Math.cos(angleFromSouthPole);
+    }
+
+    private void setCenter(double x, double y, double radius) {
+	this.centerX = x;
+	this.centerY = y;
+	this.radius = radius;
+	this.radiusSquared = radius * radius;
+    }
+
+    private void setBox(int boxIndex, double minimumX, double maximumX,
+	    double minimumY, double maximumY) {
+	this.boxMinimumX[boxIndex] = minimumX;
+	this.boxMaximumX[boxIndex] = maximumX;
+	this.boxMinimumY[boxIndex] = minimumY;
+	this.boxMaximumY[boxIndex] = maximumY;
+    }
+}
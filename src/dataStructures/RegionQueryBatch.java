@@ -0,0 +1,242 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * The search circles of a batch region search of a bin tree and the arena
+ * holding the search regions active at each node on the region search stack.
+ * A search region is a query index times RegionQuery.MAXIMUM_NUMBER_OF_BOXES
+ * plus the index of one of its boxes. The region search stack of the bin tree
+ * keeps the start and length of each stacked node's parent's search regions
+ * within the arena.
+ *
+ * Both bin tree engines walk a batch with it, so they visit the same nodes and
+ * find the same elements in the same order for each circle.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+final class RegionQueryBatch {
+    private RegionQuery[] queries;
+    private int[] activeQueryArena;
+
+    /**
+     * The circles searched on their own instead of by the walks of the batch.
+     */
+    private boolean[] isSearchedAlone;
+
+    /**
+     * The query indices of the circles that accepted the cell given to the
+     * last call of addReachingRegions whole.
+     */
+    private int[] acceptedQueries;
+    private int numberOfAcceptedQueries;
+
+    /**
+     * Create a new RegionQueryBatch object.
+     *
+     * @param initialArenaLength
+     *            The number of search regions the arena can hold before it
+     *            grows.
+     */
+    RegionQueryBatch(int initialArenaLength) {
+	this.queries = new RegionQuery[0];
+	this.activeQueryArena = new int[initialArenaLength];
+	this.isSearchedAlone = new boolean[0];
+	this.acceptedQueries = new int[0];
+    }
+
+    /**
+     * Set the search circles of the batch, reusing the queries of earlier
+     * batches. No circle is searched alone until setSearchedAlone is called.
+     *
+     * @param objectX
+     *            x coordinates of the centers of the search circles.
+     * @param objectY
+     *            y coordinates of the centers of the search circles.
+     * @param objectDistance
+     *            radii of the search circles.
+     * @param numberOfQueries
+     *            The number of search circles in the arrays to search.
+     * @param isGreatCircle
+     *            If true, set great circle queries, otherwise planar ones.
+     */
+    void setCircles(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    boolean isGreatCircle) {
+	if (this.queries.length < numberOfQueries) {
+	    int oldLength = this.queries.length;
+	    this.queries = Arrays.copyOf(this.queries, numberOfQueries);
+	    for (int i = oldLength; i < numberOfQueries; i++) {
+		this.queries[i] = new RegionQuery();
+	    }
+	    this.isSearchedAlone = new boolean[numberOfQueries];
+	    this.acceptedQueries = new int[numberOfQueries];
+	}
+	for (int i = 0; i < numberOfQueries; i++) {
+	    this.queries[i].setCircle(objectX[i], objectY[i],
+		    objectDistance[i], isGreatCircle);
+	    this.isSearchedAlone[i] = false;
+	}
+    }
+
+    /**
+     * @param queryIndex
+     * @return The search circle with the given index.
+     */
+    RegionQuery getQuery(int queryIndex) {
+	return this.queries[queryIndex];
+    }
+
+    /**
+     * Leave the circle with the given index out of the walks of the batch.
+     *
+     * @param queryIndex
+     */
+    void setSearchedAlone(int queryIndex) {
+	this.isSearchedAlone[queryIndex] = true;
+    }
+
+    /**
+     * Put the search region of the given box of every circle that has the
+     * box and is not searched alone at the bottom of the arena, where the
+     * root node's parent's search regions are kept.
+     *
+     * @param boxIndex
+     * @param numberOfQueries
+     * @return The number of search regions active at the root node's parent.
+     */
+    int addBoxes(int boxIndex, int numberOfQueries) {
+	int arenaTop = 0;
+	for (int i = 0; i < numberOfQueries; i++) {
+	    if (boxIndex < this.queries[i].numberOfBoxes
+		    && !this.isSearchedAlone[i]) {
+		arenaTop = this.addActiveQuery(arenaTop, i
+			* RegionQuery.MAXIMUM_NUMBER_OF_BOXES + boxIndex);
+	    }
+	}
+	return arenaTop;
+    }
+
+    /**
+     * Store the search regions of a node's parent that reach the node's cell
+     * right above them in the arena and count a visit of the node for their
+     * circles. Every node stacked after the node has been searched so the
+     * arena above the parent's search regions is free. A circle that accepts
+     * the cell whole does not go on below it and is kept with the accepted
+     * queries instead, for the caller to enumerate the node's subtree.
+     *
+     * @param parentStart
+     *            The index of the parent's first search region in the arena.
+     * @param parentEnd
+     *            The index right after the parent's last search region.
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @param numberOfNodesVisited
+     *            Counts the nodes visited for each circle.
+     * @return The index of the first free slot of the arena.
+     */
+    int addReachingRegions(int parentStart, int parentEnd, double cellX,
+	    double cellY, double cellWidth, double cellHeight,
+	    int[] numberOfNodesVisited) {
+	this.numberOfAcceptedQueries = 0;
+	int arenaTop = parentEnd;
+	for (int i = parentStart; i < parentEnd; i++) {
+	    int searchRegion = this.activeQueryArena[i];
+	    int queryIndex = searchRegion / RegionQuery.MAXIMUM_NUMBER_OF_BOXES;
+	    RegionQuery regionQuery = this.queries[queryIndex];
+	    if (!regionQuery.isReachingCell(searchRegion
+		    % RegionQuery.MAXIMUM_NUMBER_OF_BOXES, cellX, cellY,
+		    cellWidth, cellHeight)) {
+		continue;
+	    }
+	    if (regionQuery.isAcceptingCell(cellX, cellY, cellWidth,
+		    cellHeight)) {
+		this.acceptedQueries[this.numberOfAcceptedQueries++] =
+			queryIndex;
+		continue;
+	    }
+	    numberOfNodesVisited[queryIndex]++;
+	    arenaTop = this.addActiveQuery(arenaTop, searchRegion);
+	}
+	return arenaTop;
+    }
+
+    /**
+     * @return The number of circles that accepted the cell given to the last
+     *         call of addReachingRegions whole.
+     */
+    int getNumberOfAcceptedQueries() {
+	return this.numberOfAcceptedQueries;
+    }
+
+    /**
+     * @param index
+     * @return The query index of an accepted circle.
+     */
+    int getAcceptedQuery(int index) {
+	return this.acceptedQueries[index];
+    }
+
+    /**
+     * @param arenaIndex
+     * @return The query index of the search region at the given index of the
+     *         arena.
+     */
+    int getQueryIndex(int arenaIndex) {
+	return this.activeQueryArena[arenaIndex]
+		/ RegionQuery.MAXIMUM_NUMBER_OF_BOXES;
+    }
+
+    /**
+     * @param arenaIndex
+     * @param leafNode
+     * @param i
+     * @return true if the record of the leaf node is within the search
+     *         region at the given index of the arena.
+     */
+    boolean isMatch(int arenaIndex, BinTreeLeafNode<?, ?> leafNode, int i) {
+	int searchRegion = this.activeQueryArena[arenaIndex];
+	return this.queries[searchRegion / RegionQuery.MAXIMUM_NUMBER_OF_BOXES]
+		.isMatch(searchRegion % RegionQuery.MAXIMUM_NUMBER_OF_BOXES,
+			leafNode, i);
+    }
+
+    /**
+     * @param arenaIndex
+     * @param x
+     * @param y
+     * @param unitVectors
+     * @param offset
+     * @return true if the record at (x, y) with the unit vector at the given
+     *         offset is within the search region at the given index of the
+     *         arena.
+     */
+    boolean isMatch(int arenaIndex, double x, double y, double[] unitVectors,
+	    int offset) {
+	int searchRegion = this.activeQueryArena[arenaIndex];
+	return this.queries[searchRegion / RegionQuery.MAXIMUM_NUMBER_OF_BOXES]
+		.isMatch(searchRegion % RegionQuery.MAXIMUM_NUMBER_OF_BOXES, x,
+			y, unitVectors, offset);
+    }
+
+    /**
+     * Store a search region at the top of the arena, growing the arena if it
+     * is full.
+     *
+     * @param arenaTop
+     *            Index of the first free slot of the arena.
+     * @param searchRegion
+     * @return The new index of the first free slot of the arena.
+     */
+    private int addActiveQuery(int arenaTop, int searchRegion) {
+	if (arenaTop == this.activeQueryArena.length) {
+	    this.activeQueryArena = Arrays.copyOf(this.activeQueryArena,
+		    arenaTop * 2);
+	}
+	this.activeQueryArena[arenaTop] = searchRegion;
+	return arenaTop + 1;
+    }
+}
@@ -0,0 +1,64 @@
+package dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * A region search visitor that collects the found elements into an array that
+ * is reused between searches, so collecting matches allocates nothing once the
+ * buffer has grown to the largest result.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <E>
+ *            The type of element collected.
+ */
+public class RegionSearchBuffer<E> implements RegionSearchVisitor<E> {
+    private Object[] elements;
+    private int size;
+
+    /**
+     * Create a new RegionSearchBuffer object.
+     */
+    public RegionSearchBuffer() {
+	this.elements = new Object[16];
+	this.size = 0;
+    }
+
+    @Override
+    public void visit(E element) {
+	if (this.size == this.elements.length) {
+	    this.elements = Arrays.copyOf(this.elements, this.size * 2);
+	}
+	this.elements[this.size] = element;
+	this.size++;
+    }
+
+    /**
+     * @param index
+     * @return The element found at the given position.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+	if (index < 0 || index >= this.size) {
+	    throw new IndexOutOfBoundsException(
+		    "In method get of class RegionSearchBuffer the index "
+			    + index + " is not within the buffer");
+	}
+	return (E) this.elements[index];
+    }
+
+    /**
+     * @return The number of elements collected.
+     */
+    public int size() {
+	return this.size;
+    }
+
+    /**
+     * Forget all collected elements but keep the buffer for the next search.
+     */
+    public void clear() {
+	Arrays.fill(this.elements, 0, this.size, null);
+	this.size = 0;
+    }
+}
@@ -0,0 +1,30 @@
+package dataStructures;
+/**
+ * The ways a planar bin tree region search can be run. Every plan finds the
+ * same elements in the same order and reports the same number of visited
+ * nodes, but each is cheapest for a different size of search circle.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public enum RegionSearchPlan {
+    /**
+     * Descend into every cell the search circle reaches and check the
+     * distance of every record in the leaf nodes reached.
+     */
+    TREE_WALK,
+
+    /**
+     * Walk the tree the same way, but once a cell lies entirely within the
+     * search circle enumerate the records of its subtree without checking
+     * any cell or distance.
+     */
+    SUBTREE_ENUMERATION,
+
+    /**
+     * Check the distance of every record in a flat preorder array of the bin
+     * tree's records without descending the tree. Only possible when the
+     * search would visit every node anyway.
+     */
+    LINEAR_SCAN
+}
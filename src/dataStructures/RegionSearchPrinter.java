@@ -0,0 +1,38 @@
+package dataStructures;
+
+/**
+ * Prints each element found by a region search on its own line, for the
+ * region search of a bin tree that reports to the console.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <E>
+ *            The type of element stored in the searched data structure.
+ */
+class RegionSearchPrinter<E> implements RegionSearchVisitor<E> {
+    @Override
+    public void visit(E element) {
+	System.out.println(element.toString());
+    }
+
+    /**
+     * Print every element of the index within a radius of 2 * magnitude^3 of
+     * the given point.
+     *
+     * @param index
+     * @param keyXCoordinate
+     * @param keyYCoordinate
+     * @param magnitude
+     * @return A string describing how many nodes were visited during the
+     *         search.
+     */
+    String regionSearch(SpatialIndex<?, E> index, double keyXCoordinate,
+	    double keyYCoordinate, double magnitude) {
+	double radius = Math.pow(magnitude, 3) * 2;
+
+	int numberOfBinTreeNodesVisited = index.regionSearch(keyXCoordinate,
+		keyYCoordinate, radius, this);
+	return "Watcher search caused " + numberOfBinTreeNodesVisited
+		+ " bintree nodes to be visited.";
+    }
+}
@@ -0,0 +1,214 @@
+package dataStructures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Searches one box of a region search within a subtree of a bin tree. The
+ * subtrees of the upper levels of the bin tree are searched by forked tasks
+ * and the elements each task finds are kept in the task, so they can be given
+ * to a visitor afterwards in the same preorder as a sequential search.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <E>
+ *            The type of element stored in the bin tree.
+ */
+final class RegionSearchTask<E> extends RecursiveTask<Integer> {
+    /**
+     * Nodes deeper than this are searched sequentially by the task that
+     * reaches them.
+     */
+    static final int MAXIMUM_FORKING_DEPTH = 8;
+
+    private static final long serialVersionUID = 1L;
+
+    private final RegionQuery regionQuery;
+    private final int boxIndex;
+    private final BinTreeNode<E> node;
+    private final double cellX;
+    private final double cellY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final boolean isSplittingXAxis;
+    private final int depth;
+
+    /**
+     * Tasks searching the children of this task's node, or null if this task
+     * searched its subtree itself.
+     */
+    private RegionSearchTask<E> leftTask;
+    private RegionSearchTask<E> rightTask;
+
+    /**
+     * Elements found by this task when it searched its subtree itself.
+     */
+    private List<E> elements;
+
+    /**
+     * Create a new RegionSearchTask object.
+     *
+     * @param regionQuery
+     *            The search circle. It must not change while searching.
+     * @param boxIndex
+     *            The box of the search circle to search.
+     * @param node
+     *            Root of the subtree to search.
+     * @param cellX
+     * @param cellY
+     * @param cellWidth
+     * @param cellHeight
+     * @param isSplittingXAxis
+     * @param depth
+     *            Depth of the node within the bin tree.
+     */
+    RegionSearchTask(RegionQuery regionQuery, int boxIndex,
+	    BinTreeNode<E> node, double cellX, double cellY, double cellWidth,
+	    double cellHeight, boolean isSplittingXAxis, int depth) {
+	this.regionQuery = regionQuery;
+	this.boxIndex = boxIndex;
+	this.node = node;
+	this.cellX = cellX;
+	this.cellY = cellY;
+	this.cellWidth = cellWidth;
+	this.cellHeight = cellHeight;
+	this.isSplittingXAxis = isSplittingXAxis;
+	this.depth = depth;
+    }
+
+    /**
+     * @return The number of nodes of the subtree that were visited.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Integer compute() {
+	if (!(this.node instanceof BinTreeInternalNode<?>)
+		|| this.depth >= MAXIMUM_FORKING_DEPTH) {
+	    this.elements = new ArrayList<E>();
+	    return this.searchSubtree(this.node, this.cellX, this.cellY,
+		    this.cellWidth, this.cellHeight, this.isSplittingXAxis);
+	}
+	if (!this.regionQuery.isReachingCell(this.boxIndex, this.cellX,
+		this.cellY, this.cellWidth, this.cellHeight)) {
+	    return 0;
+	}
+	if (this.regionQuery.isAcceptingCell(this.cellX, this.cellY,
+		this.cellWidth, this.cellHeight)) {
+	    this.elements = new ArrayList<E>();
+	    this.addSubtree(this.node);
+	    return this.node.getSubtreeNumberOfNodes();
+	}
+
+	BinTreeInternalNode<E> internalNode =
+		(BinTreeInternalNode<E>) this.node;
+	if (this.isSplittingXAxis) {
+	    double halfWidth = this.cellWidth / 2;
+	    this.leftTask = new RegionSearchTask<E>(this.regionQuery,
+		    this.boxIndex, internalNode.getLeftChild(), this.cellX,
+		    this.cellY, halfWidth, this.cellHeight, false,
+		    this.depth + 1);
+	    this.rightTask = new RegionSearchTask<E>(this.regionQuery,
+		    this.boxIndex, internalNode.getRightChild(), this.cellX
+			    + halfWidth, this.cellY, halfWidth,
+		    this.cellHeight, false, this.depth + 1);
+	} else {
+	    double halfHeight = this.cellHeight / 2;
+	    this.leftTask = new RegionSearchTask<E>(this.regionQuery,
+		    this.boxIndex, internalNode.getLeftChild(), this.cellX,
+		    this.cellY, this.cellWidth, halfHeight, true,
+		    this.depth + 1);
+	    this.rightTask = new RegionSearchTask<E>(this.regionQuery,
+		    this.boxIndex, internalNode.getRightChild(), this.cellX,
+		    this.cellY + halfHeight, this.cellWidth, halfHeight, true,
+		    this.depth + 1);
+	}
+	this.rightTask.fork();
+	int numberOfNodesVisited = 1 + this.leftTask.compute();
+	return numberOfNodesVisited + this.rightTask.join();
+    }
+
+    /**
+     * Give every element found by this task and the tasks it forked to the
+     * visitor in preorder. Must only be called once this task is done.
+     *
+     * @param visitor
+     */
+    void giveElementsTo(RegionSearchVisitor<E> visitor) {
+	if (this.leftTask != null) {
+	    this.leftTask.giveElementsTo(visitor);
+	    this.rightTask.giveElementsTo(visitor);
+	} else if (this.elements != null) {
+	    for (int i = 0; i < this.elements.size(); i++) {
+		visitor.visit(this.elements.get(i));
+	    }
+	}
+    }
+
+    /**
+     * Search the subtree of the given node on this thread.
+     *
+     * @return The number of nodes of the subtree that were visited.
+     */
+    @SuppressWarnings("unchecked")
+    private int searchSubtree(BinTreeNode<E> subtreeNode, double x, double y,
+	    double width, double height, boolean isSplittingX) {
+	if (!this.regionQuery.isReachingCell(this.boxIndex, x, y, width,
+		height)) {
+	    return 0;
+	}
+	if (this.regionQuery.isAcceptingCell(x, y, width, height)) {
+	    this.addSubtree(subtreeNode);
+	    return subtreeNode.getSubtreeNumberOfNodes();
+	}
+
+	if (subtreeNode instanceof BinTreeInternalNode<?>) {
+	    BinTreeInternalNode<E> internalNode =
+		    (BinTreeInternalNode<E>) subtreeNode;
+	    if (isSplittingX) {
+		double halfWidth = width / 2;
+		return 1
+			+ this.searchSubtree(internalNode.getLeftChild(), x,
+				y, halfWidth, height, false)
+			+ this.searchSubtree(internalNode.getRightChild(), x
+				+ halfWidth, y, halfWidth, height, false);
+	    } else {
+		double halfHeight = height / 2;
+		return 1
+			+ this.searchSubtree(internalNode.getLeftChild(), x,
+				y, width, halfHeight, true)
+			+ this.searchSubtree(internalNode.getRightChild(), x, y
+				+ halfHeight, width, halfHeight, true);
+	    }
+	} else if (subtreeNode instanceof BinTreeLeafNode<?, ?>) {
+	    BinTreeLeafNode<?, E> leafNode =
+		    (BinTreeLeafNode<?, E>) subtreeNode;
+	    for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+		if (this.regionQuery.isMatch(this.boxIndex, leafNode, i)) {
+		    this.elements.add(leafNode.getElement(i));
+		}
+	    }
+	}
+	return 1;
+    }
+
+    /**
+     * Add every element of the subtree to the elements found in preorder
+     * without checking their distance.
+     */
+    @SuppressWarnings("unchecked")
+    private void addSubtree(BinTreeNode<E> subtreeNode) {
+	if (subtreeNode instanceof BinTreeInternalNode<?>) {
+	    BinTreeInternalNode<E> internalNode =
+		    (BinTreeInternalNode<E>) subtreeNode;
+	    this.addSubtree(internalNode.getLeftChild());
+	    this.addSubtree(internalNode.getRightChild());
+	} else if (subtreeNode instanceof BinTreeLeafNode<?, ?>) {
+	    BinTreeLeafNode<?, E> leafNode =
+		    (BinTreeLeafNode<?, E>) subtreeNode;
+	    for (int i = 0; i < leafNode.getNumberOfRecords(); i++) {
+		this.elements.add(leafNode.getElement(i));
+	    }
+	}
+    }
+}
@@ -0,0 +1,20 @@
+package dataStructures;
+/**
+ * Receives every element found by a region search so the caller decides what
+ * to do with the matches instead of the search printing them.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <E>
+ *            The type of element stored in the searched data structure.
+ */
+public interface RegionSearchVisitor<E> {
+    /**
+     * Called once for each element within the search region in the order
+     * the elements are found.
+     *
+     * @param element
+     *            An element within the search region.
+     */
+    public void visit(E element);
+}
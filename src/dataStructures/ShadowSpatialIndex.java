@@ -0,0 +1,346 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs a shadow index alongside a trusted primary index so a new index engine
+ * can be evaluated on real traffic. Every change is applied to both indexes
+ * and every lookup and region search runs on both, but only the results of
+ * the primary are given back to the caller.
+ *
+ * For each region search one line is written to the report with the time in
+ * nanoseconds, the nodes visited and the number of matches of each index. The
+ * circles of a batch region search are searched one at a time on each index
+ * so each of them is timed on its own. When the shadow finds different
+ * elements than the primary, the elements it missed and the extra elements it
+ * found are added to the line, which then ends with MISMATCH. Lookups and
+ * removes whose results differ are reported on a line ending with MISMATCH
+ * too, as are inserts of a key only one of the indexes already held.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <K>
+ *            a 2 dimensional point type in space such as a (x, y) coordinate
+ *            that extends the Point class
+ * @param <E>
+ *            the item type to be stored in the indexes
+ */
+public class ShadowSpatialIndex<K extends Point, E> implements
+	SpatialIndex<K, E> {
+    private SpatialIndex<K, E> primaryIndex;
+    private SpatialIndex<K, E> shadowIndex;
+    private PrintStream report;
+
+    private int numberOfMismatches;
+
+    /**
+     * Matches of each circle of the current region search. The buffers are
+     * reused for every search.
+     */
+    private List<RegionSearchBuffer<E>> primaryMatches;
+    private List<RegionSearchBuffer<E>> shadowMatches;
+
+    /**
+     * The number of times each element was found by the primary but not yet
+     * by the shadow while the matches of a search are compared. Both indexes
+     * are given the same element objects, so elements are told apart by
+     * identity, which needs neither equals nor hashCode.
+     */
+    private IdentityHashMap<E, int[]> unmatchedCounts;
+
+    /**
+     * The index of the circle being searched.
+     */
+    private int queryIndex;
+
+    /**
+     * Hands each element the primary finds to the caller's visitor, or to the
+     * caller's batch visitor for a batch region search, and collects it for
+     * the comparison.
+     */
+    private RegionSearchVisitor<E> primaryVisitor;
+    private BatchRegionSearchVisitor<E> primaryBatchVisitor;
+    private final RegionSearchVisitor<E> forwardingVisitor =
+	    new RegionSearchVisitor<E>() {
+	@Override
+	public void visit(E element) {
+	    primaryMatches.get(queryIndex).visit(element);
+	    if (primaryBatchVisitor == null) {
+		primaryVisitor.visit(element);
+	    } else {
+		primaryBatchVisitor.visit(queryIndex, element);
+	    }
+	}
+    };
+
+    /**
+     * Create a new ShadowSpatialIndex object over two indexes holding the
+     * same records, usually both empty.
+     *
+     * @param primaryIndex
+     *            The index whose results are given to the caller.
+     * @param shadowIndex
+     *            The index being evaluated.
+     * @param report
+     *            Where each search and each difference is reported.
+     */
+    public ShadowSpatialIndex(SpatialIndex<K, E> primaryIndex,
+	    SpatialIndex<K, E> shadowIndex, PrintStream report) {
+	if (primaryIndex.size() != shadowIndex.size()) {
+	    throw new IllegalArgumentException(
+		    "In constructor of class ShadowSpatialIndex the primary "
+			    + "and shadow index must hold the same records");
+	}
+	this.primaryIndex = primaryIndex;
+	this.shadowIndex = shadowIndex;
+	this.report = report;
+	this.numberOfMismatches = 0;
+	this.primaryMatches = new ArrayList<RegionSearchBuffer<E>>();
+	this.shadowMatches = new ArrayList<RegionSearchBuffer<E>>();
+	this.unmatchedCounts = new IdentityHashMap<E, int[]>();
+    }
+
+    @Override
+    public void insert(K key, E element) {
+	this.primaryIndex.insert(key, element);
+	this.shadowIndex.insert(key, element);
+    }
+
+    @Override
+    public boolean insertIfAbsent(K key, E element) {
+	boolean isPrimaryInserted = this.primaryIndex.insertIfAbsent(key,
+		element);
+	boolean isShadowInserted = this.shadowIndex.insertIfAbsent(key,
+		element);
+	if (isPrimaryInserted != isShadowInserted) {
+	    this.reportMismatch("insertIfAbsent " + key + " " + element
+		    + ": primary " + isPrimaryInserted + ", shadow "
+		    + isShadowInserted);
+	}
+	return isPrimaryInserted;
+    }
+
+    @Override
+    public boolean remove(K key, E element) {
+	boolean isPrimaryRemoved = this.primaryIndex.remove(key, element);
+	boolean isShadowRemoved = this.shadowIndex.remove(key, element);
+	if (isPrimaryRemoved != isShadowRemoved) {
+	    this.reportMismatch("remove " + key + " " + element + ": primary "
+		    + isPrimaryRemoved + ", shadow " + isShadowRemoved);
+	}
+	return isPrimaryRemoved;
+    }
+
+    @Override
+    public E find(K key, E element) {
+	E primaryElement = this.primaryIndex.find(key, element);
+	E shadowElement = this.shadowIndex.find(key, element);
+	if ((primaryElement == null) != (shadowElement == null)) {
+	    this.reportMismatch("find " + key + " " + element + ": primary "
+		    + primaryElement + ", shadow " + shadowElement);
+	}
+	return primaryElement;
+    }
+
+    @Override
+    public boolean findKey(K key) {
+	boolean isPrimaryFound = this.primaryIndex.findKey(key);
+	boolean isShadowFound = this.shadowIndex.findKey(key);
+	if (isPrimaryFound != isShadowFound) {
+	    this.reportMismatch("findKey " + key + ": primary "
+		    + isPrimaryFound + ", shadow " + isShadowFound);
+	}
+	return isPrimaryFound;
+    }
+
+    @Override
+    public int regionSearch(double objectX, double objectY,
+	    double objectDistance, RegionSearchVisitor<E> visitor) {
+	this.clearMatches(1);
+	this.primaryVisitor = visitor;
+	int numberOfNodesVisited = this.searchBoth(objectX, objectY,
+		objectDistance, 0);
+	this.primaryVisitor = null;
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Search the circles one at a time on each index instead of with a batch
+     * region search, so the latency of every circle is reported for both
+     * indexes. The caller's visitor is given the elements of one circle after
+     * another, each circle in the order of a region search of it alone, which
+     * is also the order a batch region search gives them in.
+     */
+    @Override
+    public int[] regionSearch(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    BatchRegionSearchVisitor<E> visitor) {
+	this.clearMatches(numberOfQueries);
+	this.primaryBatchVisitor = visitor;
+	int[] numberOfNodesVisited = new int[numberOfQueries];
+	for (int i = 0; i < numberOfQueries; i++) {
+	    numberOfNodesVisited[i] = this.searchBoth(objectX[i], objectY[i],
+		    objectDistance[i], i);
+	}
+	this.primaryBatchVisitor = null;
+	return numberOfNodesVisited;
+    }
+
+    /**
+     * Time a region search of the circle on each index and report it.
+     *
+     * @param objectX
+     * @param objectY
+     * @param objectDistance
+     * @param queryIndex
+     *            The index of the circle's match buffers.
+     * @return The number of nodes the primary visited.
+     */
+    private int searchBoth(double objectX, double objectY,
+	    double objectDistance, int queryIndex) {
+	this.queryIndex = queryIndex;
+	long startTime = System.nanoTime();
+	int numberOfPrimaryNodesVisited = this.primaryIndex.regionSearch(
+		objectX, objectY, objectDistance, this.forwardingVisitor);
+	long primaryTime = System.nanoTime() - startTime;
+
+	startTime = System.nanoTime();
+	int numberOfShadowNodesVisited = this.shadowIndex.regionSearch(
+		objectX, objectY, objectDistance,
+		this.shadowMatches.get(queryIndex));
+	long shadowTime = System.nanoTime() - startTime;
+
+	this.reportSearch(objectX, objectY, objectDistance, queryIndex,
+		"primary " + primaryTime + " ns " + numberOfPrimaryNodesVisited,
+		"shadow " + shadowTime + " ns " + numberOfShadowNodesVisited);
+	return numberOfPrimaryNodesVisited;
+    }
+
+    @Override
+    public void bulkLoad(List<K> keys, List<E> elements, ForkJoinPool pool) {
+	this.primaryIndex.bulkLoad(keys, elements, pool);
+	this.shadowIndex.bulkLoad(keys, elements, pool);
+    }
+
+    @Override
+    public void clear() {
+	this.primaryIndex.clear();
+	this.shadowIndex.clear();
+    }
+
+    @Override
+    public int size() {
+	return this.primaryIndex.size();
+    }
+
+    /**
+     * @return the debug traversal of the primary index.
+     */
+    @Override
+    public String debugTraversal() {
+	return this.primaryIndex.debugTraversal();
+    }
+
+    /**
+     * @return the index whose results are given to the caller.
+     */
+    public SpatialIndex<K, E> getPrimaryIndex() {
+	return this.primaryIndex;
+    }
+
+    /**
+     * @return the index being evaluated.
+     */
+    public SpatialIndex<K, E> getShadowIndex() {
+	return this.shadowIndex;
+    }
+
+    /**
+     * @return the number of searches, lookups, inserts and removes whose
+     *         results differed between the indexes.
+     */
+    public int getNumberOfMismatches() {
+	return this.numberOfMismatches;
+    }
+
+    private void clearMatches(int numberOfQueries) {
+	while (this.primaryMatches.size() < numberOfQueries) {
+	    this.primaryMatches.add(new RegionSearchBuffer<E>());
+	    this.shadowMatches.add(new RegionSearchBuffer<E>());
+	}
+	for (int i = 0; i < numberOfQueries; i++) {
+	    this.primaryMatches.get(i).clear();
+	    this.shadowMatches.get(i).clear();
+	}
+    }
+
+    /**
+     * Report the cost of a search and compare the matches of both indexes.
+     * The matches are counted by identity, so the comparison takes time
+     * proportional to their number even for a search circle that holds
+     * nearly every record.
+     */
+    private void reportSearch(double objectX, double objectY,
+	    double objectDistance, int queryIndex, String primaryCost,
+	    String shadowCost) {
+	RegionSearchBuffer<E> primaryElements = this.primaryMatches
+		.get(queryIndex);
+	RegionSearchBuffer<E> shadowElements = this.shadowMatches
+		.get(queryIndex);
+	String line = "search (" + objectX + ", " + objectY + ") radius "
+		+ objectDistance + ": " + primaryCost + " nodes "
+		+ primaryElements.size() + " matches, " + shadowCost
+		+ " nodes " + shadowElements.size() + " matches";
+
+	// count every primary match, then take away every shadow match. What
+	// the shadow found beyond the counts was only found by the shadow
+	for (int i = 0; i < primaryElements.size(); i++) {
+	    E element = primaryElements.get(i);
+	    int[] count = this.unmatchedCounts.get(element);
+	    if (count == null) {
+		this.unmatchedCounts.put(element, new int[] { 1 });
+	    } else {
+		count[0]++;
+	    }
+	}
+	List<E> extraElements = new ArrayList<E>();
+	for (int i = 0; i < shadowElements.size(); i++) {
+	    E element = shadowElements.get(i);
+	    int[] count = this.unmatchedCounts.get(element);
+	    if (count != null && count[0] > 0) {
+		count[0]--;
+	    } else {
+		extraElements.add(element);
+	    }
+	}
+	// what is left of the counts was only found by the primary. Each count
+	// is removed rather than clearing the map, which would take time
+	// proportional to the largest search so far
+	List<E> missingElements = new ArrayList<E>();
+	for (int i = 0; i < primaryElements.size(); i++) {
+	    E element = primaryElements.get(i);
+	    int[] count = this.unmatchedCounts.remove(element);
+	    for (int j = 0; count != null && j < count[0]; j++) {
+		missingElements.add(element);
+	    }
+	}
+
+	if (missingElements.isEmpty() && extraElements.isEmpty()) {
+	    this.report.println(line);
+	} else {
+	    this.reportMismatch(line + " missing " + missingElements
+		    + " extra " + extraElements);
+	}
+    }
+
+    private void reportMismatch(String line) {
+	this.numberOfMismatches++;
+	this.report.println(line + " MISMATCH");
+    }
+}
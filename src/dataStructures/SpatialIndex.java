@@ -0,0 +1,132 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Stores elements by 2 dimensional key and finds the elements within a search
+ * circle. Every implementation finds the same elements for the same records,
+ * but the order they are found in and how the visited node count is measured
+ * depend on the implementation.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ * @param <K>
+ *            a 2 dimensional point type in space such as a (x, y) coordinate
+ *            that extends the Point class
+ * @param <E>
+ *            the item type to be stored in the index
+ */
+public interface SpatialIndex<K extends Point, E> {
+    /**
+     * Insert a record.
+     *
+     * @param key
+     * @param element
+     */
+    public void insert(K key, E element);
+
+    /**
+     * Insert a record unless an element is already stored with the key. The
+     * key is looked up and the record is inserted with the same descent.
+     *
+     * @param key
+     * @param element
+     * @return true if the record was inserted; otherwise return false because
+     *         the key is already in the index.
+     */
+    public boolean insertIfAbsent(K key, E element);
+
+    /**
+     * @param key
+     *            The key of the element to remove.
+     * @param element
+     *            The element to remove.
+     * @return true if element with key was removed; otherwise return false.
+     */
+    public boolean remove(K key, E element);
+
+    /**
+     * @param key
+     * @param element
+     * @return The given element if it is stored with the given key; otherwise
+     *         return null.
+     */
+    public E find(K key, E element);
+
+    /**
+     * @param key
+     * @return true if an element is stored with the key; otherwise return
+     *         false.
+     */
+    public boolean findKey(K key);
+
+    /**
+     * Give every element within the search circle to the visitor.
+     *
+     * @param objectX
+     *            x coordinate of the center of the search circle.
+     * @param objectY
+     *            y coordinate of the center of the search circle.
+     * @param objectDistance
+     *            radius of the search circle.
+     * @param visitor
+     *            Receives each element within the search circle.
+     * @return The number of nodes visited during the search.
+     */
+    public int regionSearch(double objectX, double objectY,
+	    double objectDistance, RegionSearchVisitor<E> visitor);
+
+    /**
+     * Give every element within each of the search circles to the visitor.
+     * The elements of one circle are given in the same order as a region
+     * search of that circle alone.
+     *
+     * @param objectX
+     *            x coordinate of the center of each search circle.
+     * @param objectY
+     *            y coordinate of the center of each search circle.
+     * @param objectDistance
+     *            radius of each search circle.
+     * @param numberOfQueries
+     *            Number of search circles to read from the arrays.
+     * @param visitor
+     *            Receives each element along with the index of its circle.
+     * @return The number of nodes visited for each circle, the same as a
+     *         region search of that circle alone.
+     */
+    public int[] regionSearch(double[] objectX, double[] objectY,
+	    double[] objectDistance, int numberOfQueries,
+	    BatchRegionSearchVisitor<E> visitor);
+
+    /**
+     * Add the given records to an empty index. The index is the same as when
+     * the records are inserted in list order.
+     *
+     * @param keys
+     * @param elements
+     *            The element of each key.
+     * @param pool
+     *            The pool to build with, or null to build on the calling
+     *            thread.
+     */
+    public void bulkLoad(List<K> keys, List<E> elements, ForkJoinPool pool);
+
+    /**
+     * Remove all records.
+     */
+    public void clear();
+
+    /**
+     * @return the number of records in the index.
+     */
+    public int size();
+
+    /**
+     * @return the records of the index as printed by the debug command, one
+     *         node per line.
+     */
+    public String debugTraversal();
+}
@@ -264,6 +264,624 @@ public class EarthquakeWatcherServiceTest extends student.TestCase {
 		.trim());
     }
 
+    /**
+     * Assert watchers at the same location are accepted when the bin tree
+     * leaf nodes are buckets.
+     */
+    public void test_processWatcherAddRequestWithLeafBuckets() {
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	this.EWS = new EarthquakeWatcherService(args, 4);
+
+	assertTrue(this.EWS.processWatcherAddRequest(new Watcher("Quinn", 10,
+		16)));
+	assertTrue(this.EWS.processWatcherAddRequest(new Watcher("Byron", 10,
+		16)));
+	assertTrue(this.EWS.processWatcherDeleteRequest("Quinn"));
+	assertFuzzyEquals("Quinn -170.0 -74.0 is added to the BST"
+		+ "\nQuinn -170.0 -74.0 is added to the bintree"
+		+ "\nByron -170.0 -74.0 is added to the BST"
+		+ "\nByron -170.0 -74.0 is added to the bintree"
+		+ "\nQuinn -170.0 -74.0 is removed from the BST"
+		+ "\nQuinn -170.0 -74.0 is removed from the bintree", outContent
+		.toString().trim());
+    }
+
+    /**
+     * Assert a service storing watchers in a grid prints the same messages
+     * and rejects the same duplicates as one storing them in a bin tree.
+     */
+    public void test_processWatcherAddRequestWithGridIndex() {
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	this.EWS = new EarthquakeWatcherService(args,
+		new dataStructures.GridIndex2D<Point, Watcher>(0.0, 360.0, 0.0,
+			180.0, 10.0));
+
+	assertTrue(this.EWS.processWatcherAddRequest(new Watcher("Quinn", 10,
+		16)));
+	assertFalse(this.EWS.processWatcherAddRequest(new Watcher("Byron", 10,
+		16)));
+	assertTrue(this.EWS.processWatcherDeleteRequest("Quinn"));
+	assertFuzzyEquals("Quinn -170.0 -74.0 is added to the BST"
+		+ "\nQuinn -170.0 -74.0 is added to the bintree"
+		+ "\nByron -170.0 -74.0 is added to the BST"
+		+ "\n-170.0 -74.0 duplicates a watcher already in the bintree"
+		+ "\nByron is removed from the BST"
+		+ "\nQuinn -170.0 -74.0 is removed from the BST"
+		+ "\nQuinn -170.0 -74.0 is removed from the bintree", outContent
+		.toString().trim());
+
+	try {
+	    this.EWS.setParallelRegionSearch(null, 0.5);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert the index engine flag is removed from the other commands and
+     * every engine prints the same messages as the bin tree.
+     */
+    public void test_indexEngineFlag() {
+	String[] args = { "Wsmall2.txt", "--index=grid:10", "EQsmallP2.json" };
+	this.EWS = new EarthquakeWatcherService(args);
+	assertEquals("Wsmall2.txt", this.EWS.getWatcherFileName());
+	assertEquals("EQsmallP2.json", this.EWS.getEarthquakeFileName());
+	assertEquals("grid:10", EarthquakeWatcherService.getIndexEngine(args));
+	assertEquals("bintree", EarthquakeWatcherService
+		.getIndexEngine(new String[] { "debug", "live" }));
+
+	String[] indexEngines = { "bintree", "arraybintree", "morton", "grid",
+		"grid:2.5" };
+	String binTreeOutput = null;
+	for (int i = 0; i < indexEngines.length; i++) {
+	    String[] engineArgs = { "--index=" + indexEngines[i],
+		    "Wsmall2.txt", "EQsmallP2.json" };
+	    this.EWS = new EarthquakeWatcherService(engineArgs);
+	    outContent.reset();
+	    this.EWS.processWatcherAddRequest(new Watcher("Quinn", 10, 16));
+	    this.EWS.processWatcherAddRequest(new Watcher("Byron", 10, 16));
+	    this.EWS.processWatcherAddRequest(new Watcher("Sam", 200, 100));
+	    this.EWS.processWatcherDeleteRequest("Quinn");
+	    if (binTreeOutput == null) {
+		binTreeOutput = outContent.toString();
+	    }
+	    assertEquals(binTreeOutput, outContent.toString());
+	}
+
+	try {
+	    new EarthquakeWatcherService(new String[] { "--index=kdtree",
+		    "Wsmall2.txt", "EQsmallP2.json" });
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In method createWatcherIndex of class "
+		    + "EarthquakeWatcherService the index engine kdtree is "
+		    + "unknown", expected.getMessage());
+	}
+    }
+
+    /**
+     * Assert shadow mode keeps the console output of the bin tree and applies
+     * every watcher change to the shadow index too.
+     */
+    public void test_setShadowIndex() {
+	ByteArrayOutputStream reportContent = new ByteArrayOutputStream();
+	dataStructures.GridIndex2D<Point, Watcher> grid =
+		new dataStructures.GridIndex2D<Point, Watcher>(0.0, 360.0, 0.0,
+			180.0, 10.0);
+	dataStructures.ShadowSpatialIndex<Point, Watcher> shadowModeIndex =
+		this.EWS.setShadowIndex(grid, new PrintStream(reportContent));
+
+	assertTrue(this.EWS.processWatcherAddRequest(new Watcher("Quinn", 10,
+		16)));
+	assertFalse(this.EWS.processWatcherAddRequest(new Watcher("Byron", 10,
+		16)));
+	assertTrue(this.EWS.processWatcherAddRequest(new Watcher("Sam", 200,
+		100)));
+	assertTrue(this.EWS.processWatcherDeleteRequest("Quinn"));
+	assertFuzzyEquals("Quinn -170.0 -74.0 is added to the BST"
+		+ "\nQuinn -170.0 -74.0 is added to the bintree"
+		+ "\nByron -170.0 -74.0 is added to the BST"
+		+ "\n-170.0 -74.0 duplicates a watcher already in the bintree"
+		+ "\nByron is removed from the BST"
+		+ "\nSam 20.0 10.0 is added to the BST"
+		+ "\nSam 20.0 10.0 is added to the bintree"
+		+ "\nQuinn -170.0 -74.0 is removed from the BST"
+		+ "\nQuinn -170.0 -74.0 is removed from the bintree", outContent
+		.toString().trim());
+	assertEquals(1, grid.size());
+	assertEquals(0, shadowModeIndex.getNumberOfMismatches());
+	assertEquals("", reportContent.toString());
+
+	try {
+	    this.EWS.setShadowIndex(grid, new PrintStream(reportContent));
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert a great circle service prints the same alerts in shadow mode,
+     * where each earthquake is searched alone, as with its batch region
+     * searches, even for earthquakes reaching across the 180 degree
+     * longitude line.
+     */
+    public void test_setShadowIndexAlerts() {
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	EarthquakeWatcherService batchService = new EarthquakeWatcherService(
+		args, 1, true);
+	EarthquakeWatcherService shadowService = new EarthquakeWatcherService(
+		args, 1, true);
+	ByteArrayOutputStream reportContent = new ByteArrayOutputStream();
+	dataStructures.ShadowSpatialIndex<Point, Watcher> shadowModeIndex =
+		shadowService.setShadowIndex(
+			new dataStructures.MortonIndex2D<Point, Watcher>(0.0,
+				360.0, 0.0, 180.0, true), new PrintStream(
+				reportContent));
+	java.util.Random random = new java.util.Random(12);
+	for (int i = 0; i < 2000; i++) {
+	    Watcher watcher = new Watcher("W" + i, random.nextDouble() * 360.0,
+		    random.nextDouble() * 180.0);
+	    batchService.processWatcherAddRequest(watcher);
+	    shadowService.processWatcherAddRequest(watcher);
+	}
+
+	ArrayList<Earthquake> earthquakes = new ArrayList<Earthquake>();
+	double[][] epicenters = { { 164.285, -10.324 }, { -176.0, 20.0 },
+		{ 0.0, 0.0 } };
+	for (int i = 0; i < epicenters.length; i++) {
+	    earthquakes.add(new Earthquake(new Coordinate(epicenters[i][0],
+		    epicenters[i][1], 1.0), 2.22, "Quake " + i, 1000 + i,
+		    "www.walnutiq.com", 1, 1.0, 2.0, "red", "event", 1, "id",
+		    3.0, 4.0, 5.0));
+	}
+	outContent.reset();
+	batchService.processNewEarthquakes(earthquakes);
+	String batchAlerts = outContent.toString();
+	outContent.reset();
+	shadowService.processNewEarthquakes(earthquakes);
+	assertEquals(batchAlerts, outContent.toString());
+	assertTrue(batchAlerts.matches("(?s).*\\nW[0-9]+ .*"));
+	assertEquals(0, shadowModeIndex.getNumberOfMismatches());
+    }
+
+    /**
+     * Assert the closest watchers to an epicenter are found nearest first.
+     */
+    public void test_findClosestWatchers() {
+	this.EWS.processWatcherAddRequest(new Watcher("Quinn", 10, 16));
+	this.EWS.processWatcherAddRequest(new Watcher("Sam", 200, 100));
+	this.EWS.processWatcherAddRequest(new Watcher("Byron", 13, 20));
+	dataStructures.NearestNeighborBuffer<Watcher> closestWatchers =
+		new dataStructures.NearestNeighborBuffer<Watcher>();
+	assertTrue(this.EWS.findClosestWatchers(-170.0, -74.0, 2,
+		closestWatchers) > 0);
+	assertEquals(2, closestWatchers.size());
+	assertEquals("Quinn", closestWatchers.get(0).getName());
+	assertEquals(0.0, closestWatchers.getDistance(0), 0.0);
+	assertEquals("Byron", closestWatchers.get(1).getName());
+	assertEquals(5.0, closestWatchers.getDistance(1), 1e-9);
+
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json", "--index=grid" };
+	EarthquakeWatcherService gridService = new EarthquakeWatcherService(
+		args);
+	try {
+	    gridService.findClosestWatchers(0.0, 0.0, 1, closestWatchers);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert watchers added by name in sorted order are stored in a balanced
+     * name index.
+     */
+    public void test_setBalancedNameIndex() {
+	this.EWS.setBalancedNameIndex(true);
+	for (int i = 0; i < 7; i++) {
+	    this.EWS.processWatcherAddRequest(new Watcher("W" + i, i, i));
+	}
+	outContent.reset();
+	ArrayList<String> commands = new ArrayList<String>();
+	commands.add("debug");
+	this.EWS.processCommands(commands);
+	assertTrue(outContent.toString().startsWith("....W0 -180.0 -90.0\n"
+		+ "..W1 -179.0 -89.0\n....W2 -178.0 -88.0\nW3 -177.0 -87.0\n"
+		+ "....W4 -176.0 -86.0\n..W5 -175.0 -85.0\n"
+		+ "....W6 -174.0 -84.0\n"));
+	assertTrue(this.EWS.processWatcherDeleteRequest("W3"));
+	assertFalse(this.EWS.processWatcherDeleteRequest("W3"));
+
+	try {
+	    this.EWS.setBalancedNameIndex(false);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert looking up watchers by name in a hash table prints the same
+     * output as looking them up in the BST alone.
+     */
+    public void test_setHashedNameLookups() {
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	EarthquakeWatcherService hashedService = new EarthquakeWatcherService(
+		args);
+	hashedService.setHashedNameLookups(true);
+	ArrayList<String> commands = new ArrayList<String>();
+	commands.add("add -105.7 -24.3 Riley");
+	commands.add("add 21.2 -38.6 Taylor");
+	commands.add("add 21.2 -38.6 Sam");
+	commands.add("add 10.0 10.0 Riley");
+	commands.add("delete Sam");
+	commands.add("delete Taylor");
+	commands.add("delete Taylor");
+	commands.add("add 21.2 -38.6 Sam");
+	commands.add("debug");
+	outContent.reset();
+	this.EWS.processCommands(commands);
+	String expectedOutput = outContent.toString();
+	outContent.reset();
+	hashedService.processCommands(commands);
+	assertEquals(expectedOutput, outContent.toString());
+	assertTrue(expectedOutput.contains("Sam is removed from the BST"));
+
+	try {
+	    hashedService.setHashedNameLookups(false);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert a watcher table prints the same adds, deletes and debug output
+     * as the BST, also after a bulk load.
+     */
+    public void test_setWatcherTable() {
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	EarthquakeWatcherService tabledService = new EarthquakeWatcherService(
+		args);
+	tabledService.setWatcherTable(true);
+	ArrayList<String> commands = new ArrayList<String>();
+	commands.add("add -105.7 -24.3 Riley");
+	commands.add("add 21.2 -38.6 Taylor");
+	commands.add("add 21.2 -38.6 Sam");
+	commands.add("add 10.0 10.0 Riley");
+	commands.add("delete Sam");
+	commands.add("delete Taylor");
+	commands.add("delete Taylor");
+	commands.add("add 21.2 -38.6 Sam");
+	commands.add("add -170.0 -80.0 Ann");
+	commands.add("add -100.0 -20.0 Quinn");
+	commands.add("add -90.0 -20.0 Byron");
+	commands.add("add -80.0 -20.0 Zed");
+	commands.add("add -70.0 -20.0 Pat");
+	commands.add("delete Riley");
+	outContent.reset();
+	this.EWS.processCommands(commands);
+	String expectedOutput = outContent.toString();
+	outContent.reset();
+	tabledService.processCommands(commands);
+	assertEquals(expectedOutput, outContent.toString());
+
+	ArrayList<String> debugCommand = new ArrayList<String>();
+	debugCommand.add("debug");
+	outContent.reset();
+	this.EWS.processCommands(debugCommand);
+	String bstDebug = outContent.toString();
+	outContent.reset();
+	tabledService.processCommands(debugCommand);
+	assertTrue(bstDebug.startsWith("..Ann -170.0 -80.0\n"
+		+ "....Byron -90.0 -20.0\n......Pat -70.0 -20.0\n"
+		+ "Quinn -100.0 -20.0\n"));
+	assertEquals(bstDebug, outContent.toString());
+
+	try {
+	    tabledService.setWatcherTable(false);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+
+	EarthquakeWatcherService bulkService = new EarthquakeWatcherService(
+		args);
+	bulkService.setWatcherTable(true);
+	ArrayList<Watcher> watchers = new ArrayList<Watcher>();
+	watchers.add(new Watcher("Sam", 5, 8));
+	watchers.add(new Watcher("Sam", 50, 80));
+	watchers.add(new Watcher("Quinn", 5, 8));
+	watchers.add(new Watcher("Quinn", 10, 16));
+	watchers.add(new Watcher("Ann", 20, 30));
+	watchers.add(new Watcher("Zed", 40, 30));
+	assertEquals(4, bulkService.bulkLoadWatchers(watchers, null));
+	EarthquakeWatcherService bulkBSTService = new EarthquakeWatcherService(
+		args);
+	assertEquals(4, bulkBSTService.bulkLoadWatchers(watchers, null));
+	outContent.reset();
+	bulkBSTService.processCommands(debugCommand);
+	String bulkBSTDebug = outContent.toString();
+	outContent.reset();
+	bulkService.processCommands(debugCommand);
+	assertTrue(bulkBSTDebug.startsWith("....Ann -160.0 -60.0\n"
+		+ "..Quinn -170.0 -74.0\nSam -175.0 -82.0\n"));
+	assertEquals(bulkBSTDebug, outContent.toString());
+
+	assertFalse(bulkService.processWatcherAddRequest(new Watcher("Quinn",
+		1, 1)));
+	assertTrue(bulkService.processWatcherDeleteRequest("Quinn"));
+	assertTrue(bulkService.processWatcherAddRequest(new Watcher("Quinn",
+		1, 1)));
+    }
+
+    /**
+     * Assert a service storing watchers in a watcher table prints the same
+     * alerts and numbers of visited nodes as one storing them in a bin tree
+     * and only supports the bin tree features its handle index has.
+     */
+    public void test_setWatcherTableAlerts() {
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	EarthquakeWatcherService tabledService = new EarthquakeWatcherService(
+		args);
+	this.EWS.setExactCirclePruning(true);
+	tabledService.setExactCirclePruning(true);
+	tabledService.setWatcherTable(true);
+	java.util.Random random = new java.util.Random(25);
+	for (int i = 0; i < 500; i++) {
+	    Watcher watcher = new Watcher("W" + i, random.nextInt(360),
+		    random.nextInt(180));
+	    this.EWS.processWatcherAddRequest(watcher);
+	    tabledService.processWatcherAddRequest(watcher);
+	}
+	for (int i = 0; i < 500; i += 3) {
+	    this.EWS.processWatcherDeleteRequest("W" + i);
+	    tabledService.processWatcherDeleteRequest("W" + i);
+	}
+
+	ArrayList<Earthquake> earthquakes = new ArrayList<Earthquake>();
+	double[] magnitudes = { 1.0, 2.5, 4.0 };
+	for (int i = 0; i < magnitudes.length; i++) {
+	    earthquakes.add(new Earthquake(new Coordinate(-40.0 * i, 10.0 * i,
+		    1.0), magnitudes[i], "Quake " + i, 1000 + i,
+		    "www.walnutiq.com", 1, 1.0, 2.0, "red", "event", 1, "id",
+		    3.0, 4.0, 5.0));
+	}
+	outContent.reset();
+	this.EWS.processNewEarthquakes(earthquakes);
+	String binTreeAlerts = outContent.toString();
+	outContent.reset();
+	tabledService.processNewEarthquakes(earthquakes);
+	assertEquals(binTreeAlerts, outContent.toString());
+	assertTrue(binTreeAlerts.matches("(?s).*\\nW[0-9]+ .*"));
+
+	try {
+	    tabledService.countWatchersInRange(0.0, 0.0, 1.0);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+	try {
+	    tabledService.setRegionSearchPlanning(true);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+	// the debug output of a watcher table has the depths of the BST
+	EarthquakeWatcherService balancedService = new EarthquakeWatcherService(
+		args);
+	balancedService.setBalancedNameIndex(true);
+	try {
+	    balancedService.setWatcherTable(true);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertEquals("In method setWatcherTable of class "
+		    + "EarthquakeWatcherService a watcher table can not "
+		    + "balance its names", expected.getMessage());
+	}
+	EarthquakeWatcherService unbalancedService =
+		new EarthquakeWatcherService(args);
+	unbalancedService.setWatcherTable(true);
+	try {
+	    unbalancedService.setBalancedNameIndex(true);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+
+	EarthquakeWatcherService emptyTabledService =
+		new EarthquakeWatcherService(args);
+	emptyTabledService.setWatcherTable(true);
+	dataStructures.GridIndex2D<Point, Watcher> grid =
+		new dataStructures.GridIndex2D<Point, Watcher>(0.0, 360.0, 0.0,
+			180.0, 5.0);
+	try {
+	    emptyTabledService.setShadowIndex(grid, new PrintStream(
+		    new ByteArrayOutputStream()));
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+
+	String[] gridArgs = { "Wsmall2.txt", "EQsmallP2.json", "--index=grid" };
+	EarthquakeWatcherService gridService = new EarthquakeWatcherService(
+		gridArgs);
+	try {
+	    gridService.setWatcherTable(true);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert the watchers in range of an earthquake are counted without
+     * printing any alerts.
+     */
+    public void test_countWatchersInRange() {
+	this.EWS.processWatcherAddRequest(new Watcher("Quinn", 10, 16));
+	this.EWS.processWatcherAddRequest(new Watcher("Sam", 200, 100));
+	this.EWS.processWatcherAddRequest(new Watcher("Byron", 13, 20));
+	outContent.reset();
+	// magnitude 1 reaches 2 degrees and magnitude 2 reaches 16 degrees
+	assertEquals(1, this.EWS.countWatchersInRange(-170.0, -74.0, 1.0));
+	assertEquals(2, this.EWS.countWatchersInRange(-170.0, -74.0, 2.0));
+	assertEquals(0, this.EWS.countWatchersInRange(100.0, 50.0, 1.0));
+	assertEquals("", outContent.toString());
+
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json", "--index=grid" };
+	EarthquakeWatcherService gridService = new EarthquakeWatcherService(
+		args);
+	try {
+	    gridService.countWatchersInRange(0.0, 0.0, 1.0);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert planned region searches print the same alerts as walking the
+     * bin tree and record the plan that ran for each earthquake.
+     */
+    public void test_setRegionSearchPlanning() {
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	EarthquakeWatcherService plannedService = new EarthquakeWatcherService(
+		args);
+	plannedService.setRegionSearchPlanning(true);
+	java.util.Random random = new java.util.Random(18);
+	for (int i = 0; i < 500; i++) {
+	    Watcher watcher = new Watcher("W" + i, random.nextInt(360),
+		    random.nextInt(180));
+	    this.EWS.processWatcherAddRequest(watcher);
+	    plannedService.processWatcherAddRequest(watcher);
+	}
+
+	// magnitudes 1, 4 and 7 reach 2, 128 and 686 degrees
+	ArrayList<Earthquake> earthquakes = new ArrayList<Earthquake>();
+	double[] magnitudes = { 1.0, 4.0, 7.0 };
+	for (int i = 0; i < magnitudes.length; i++) {
+	    earthquakes.add(new Earthquake(new Coordinate(0.0, 0.0, 1.0),
+		    magnitudes[i], "Quake " + i, 1000 + i, "www.walnutiq.com",
+		    1, 1.0, 2.0, "red", "event", 1, "id", 3.0, 4.0, 5.0));
+	}
+	outContent.reset();
+	this.EWS.processNewEarthquakes(earthquakes);
+	String walkedAlerts = outContent.toString();
+	outContent.reset();
+	plannedService.processNewEarthquakes(earthquakes);
+	assertEquals(walkedAlerts, outContent.toString());
+
+	java.util.List<dataStructures.RegionSearchPlan> plans =
+		plannedService.getRegionSearchPlans();
+	assertEquals(3, plans.size());
+	assertEquals(dataStructures.RegionSearchPlan.TREE_WALK, plans.get(0));
+	assertEquals(dataStructures.RegionSearchPlan.SUBTREE_ENUMERATION,
+		plans.get(1));
+	assertEquals(dataStructures.RegionSearchPlan.LINEAR_SCAN, plans.get(2));
+	assertEquals(dataStructures.RegionSearchPlan.TREE_WALK, this.EWS
+		.getRegionSearchPlans().get(2));
+
+	String[] gridArgs = { "Wsmall2.txt", "EQsmallP2.json", "--index=grid" };
+	EarthquakeWatcherService gridService = new EarthquakeWatcherService(
+		gridArgs);
+	try {
+	    gridService.setRegionSearchPlanning(true);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert the plan follows where the watchers are stored rather than how
+     * much of the world the circle covers. Watchers clustered around the
+     * epicenter fill cells within a small circle, so their subtrees are
+     * enumerated, while the same circle away from the cluster is walked.
+     */
+    public void test_setRegionSearchPlanningWithClusteredWatchers() {
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	EarthquakeWatcherService plannedService = new EarthquakeWatcherService(
+		args);
+	plannedService.setRegionSearchPlanning(true);
+	java.util.Random random = new java.util.Random(18);
+	for (int i = 0; i < 500; i++) {
+	    Watcher watcher = new Watcher("W" + i,
+		    178.0 + random.nextDouble() * 4.0,
+		    88.0 + random.nextDouble() * 4.0);
+	    this.EWS.processWatcherAddRequest(watcher);
+	    plannedService.processWatcherAddRequest(watcher);
+	}
+
+	// a magnitude of 1.5 reaches 6.75 degrees
+	ArrayList<Earthquake> earthquakes = new ArrayList<Earthquake>();
+	earthquakes.add(new Earthquake(new Coordinate(0.0, 0.0, 1.0), 1.5,
+		"Quake 0", 1000, "www.walnutiq.com", 1, 1.0, 2.0, "red",
+		"event", 1, "id", 3.0, 4.0, 5.0));
+	earthquakes.add(new Earthquake(new Coordinate(-100.0, 40.0, 1.0),
+		1.5, "Quake 1", 1001, "www.walnutiq.com", 1, 1.0, 2.0, "red",
+		"event", 1, "id", 3.0, 4.0, 5.0));
+	outContent.reset();
+	this.EWS.processNewEarthquakes(earthquakes);
+	String walkedAlerts = outContent.toString();
+	outContent.reset();
+	plannedService.processNewEarthquakes(earthquakes);
+	assertEquals(walkedAlerts, outContent.toString());
+
+	java.util.List<dataStructures.RegionSearchPlan> plans =
+		plannedService.getRegionSearchPlans();
+	assertEquals(dataStructures.RegionSearchPlan.SUBTREE_ENUMERATION,
+		plans.get(0));
+	assertEquals(dataStructures.RegionSearchPlan.TREE_WALK, plans.get(1));
+    }
+
+    /**
+     * Assert a bulk loaded snapshot of watchers rejects the same duplicates
+     * and builds the same bin tree as adding the watchers one at a time.
+     */
+    public void test_bulkLoadWatchers() {
+	ArrayList<Watcher> watchers = new ArrayList<Watcher>();
+	watchers.add(new Watcher("Sam", 5, 8));
+	watchers.add(new Watcher("Sam", 50, 80));
+	watchers.add(new Watcher("Quinn", 10, 16));
+	// duplicates Quinn's location so the name Byron stays free
+	watchers.add(new Watcher("Byron", 10, 16));
+	watchers.add(new Watcher("Byron", 200, 100));
+	watchers.add(new Watcher("Ann", 300, 170));
+
+	for (int i = 0; i < watchers.size(); i++) {
+	    this.EWS.processWatcherAddRequest(watchers.get(i));
+	}
+	outContent.reset();
+	ArrayList<String> commands = new ArrayList<String>();
+	commands.add("debug");
+	this.EWS.processCommands(commands);
+	String incrementalDebug = outContent.toString();
+
+	String[] args = { "Wsmall2.txt", "EQsmallP2.json" };
+	this.EWS = new EarthquakeWatcherService(args);
+	outContent.reset();
+	assertEquals(4, this.EWS.bulkLoadWatchers(watchers,
+		new java.util.concurrent.ForkJoinPool(2)));
+	assertEquals("", outContent.toString());
+	this.EWS.processCommands(commands);
+
+	// only the depths of the names in the BST differ
+	assertEquals(incrementalDebug.replaceAll("(?m)^\\.+", ""), outContent
+		.toString().replaceAll("(?m)^\\.+", ""));
+	assertFalse(this.EWS.processWatcherAddRequest(new Watcher("Ann", 1,
+		1)));
+
+	try {
+	    this.EWS.bulkLoadWatchers(watchers, null);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
     /**
      * Assert correct output was printed to console.
      */
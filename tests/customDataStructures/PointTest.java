@@ -33,6 +33,7 @@ public class PointTest extends junit.framework.TestCase {
 	Point point34 = new Point(3.0, 4.0);
 	Point samePoint = new Point(3.0, 4.0);
 	assertTrue(point34.equals(samePoint));
+	assertEquals(point34.hashCode(), samePoint.hashCode());
 
 	Point differentPoint = new Point(3.0, 5.0);
 	assertFalse(point34.equals(differentPoint));
@@ -0,0 +1,203 @@
+package customDataStructures;
+
+import dataStructures.BatchRegionSearchVisitor;
+import dataStructures.BinTree2D;
+import dataStructures.IntBatchRegionSearchVisitor;
+import dataStructures.IntRegionSearchBuffer;
+import dataStructures.RegionSearchBuffer;
+
+/**
+ * Tests all logic within class WatcherHandleBinTree.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class WatcherHandleBinTreeTest extends junit.framework.TestCase {
+    private WatcherTable watcherTable;
+    private WatcherHandleBinTree handleBinTree;
+
+    public void setUp() {
+	this.watcherTable = new WatcherTable();
+	this.handleBinTree = new WatcherHandleBinTree(this.watcherTable, 1,
+		false, BinTree2D.DEFAULT_MAXIMUM_DEPTH);
+    }
+
+    public void test_insertIfAbsent() {
+	int quinn = this.watcherTable.add("Quinn", 10.0, 16.0);
+	int sam = this.watcherTable.add("Sam", 200.0, 100.0);
+	int ann = this.watcherTable.add("Ann", 10.0, 16.0);
+	assertTrue(this.handleBinTree.insertIfAbsent(new Point(10.0, 16.0),
+		quinn));
+	assertTrue(this.handleBinTree.insertIfAbsent(new Point(200.0, 100.0),
+		sam));
+	assertFalse(this.handleBinTree.insertIfAbsent(new Point(10.0, 16.0),
+		ann));
+	assertEquals(2, this.handleBinTree.size());
+	assertEquals(Integer.valueOf(quinn), this.handleBinTree.find(
+		new Point(10.0, 16.0), quinn));
+    }
+
+    public void test_remove() {
+	int quinn = this.watcherTable.add("Quinn", 10.0, 16.0);
+	int sam = this.watcherTable.add("Sam", 10.0, 16.0);
+	this.handleBinTree.insert(new Point(10.0, 16.0), quinn);
+	this.handleBinTree.insert(new Point(10.0, 16.0), sam);
+
+	// a handle is matched by its value
+	Integer otherHandle = 7;
+	assertFalse(this.handleBinTree.remove(new Point(10.0, 16.0),
+		otherHandle));
+	Integer samHandle = sam;
+	assertTrue(this.handleBinTree.remove(new Point(10.0, 16.0),
+		samHandle));
+	assertEquals(1, this.handleBinTree.size());
+	assertTrue(this.handleBinTree.findKey(new Point(10.0, 16.0)));
+	Integer quinnHandle = quinn;
+	assertTrue(this.handleBinTree.remove(new Point(10.0, 16.0),
+		quinnHandle));
+	assertEquals(0, this.handleBinTree.size());
+    }
+
+    /**
+     * Assert an int handle is inserted and removed at the location the table
+     * holds for it.
+     */
+    public void test_insertHandle() {
+	int quinn = this.watcherTable.add("Quinn", 10.0, 16.0);
+	int sam = this.watcherTable.add("Sam", 200.0, 100.0);
+	int ann = this.watcherTable.add("Ann", 10.0, 16.0);
+	assertTrue(this.handleBinTree.insertIfAbsent(quinn));
+	assertFalse(this.handleBinTree.insertIfAbsent(ann));
+	this.handleBinTree.insert(sam);
+	this.handleBinTree.insert(ann);
+	assertEquals(3, this.handleBinTree.size());
+	Integer annHandle = ann;
+	assertEquals(annHandle, this.handleBinTree.find(
+		new Point(10.0, 16.0), annHandle));
+
+	assertTrue(this.handleBinTree.remove(ann));
+	assertFalse(this.handleBinTree.remove(ann));
+	assertTrue(this.handleBinTree.findKey(new Point(10.0, 16.0)));
+	assertTrue(this.handleBinTree.remove(quinn));
+	assertFalse(this.handleBinTree.findKey(new Point(10.0, 16.0)));
+	assertEquals(1, this.handleBinTree.size());
+
+	try {
+	    this.handleBinTree.insert(-1);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In method getLongitude of class WatcherTable the "
+		    + "handle -1 is not the handle of a watcher",
+		    expected.getMessage());
+	}
+	try {
+	    this.handleBinTree.bulkLoad(new int[] { quinn }, 1);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertEquals("In method bulkLoad of class WatcherHandleBinTree "
+		    + "the bin tree must be empty", expected.getMessage());
+	}
+    }
+
+    /**
+     * Assert the debug traversal prints the watcher of each handle the same
+     * as a bin tree of watchers prints its watchers.
+     */
+    public void test_debugTraversal() {
+	BinTree2D<Point, Watcher> watcherBinTree =
+		new BinTree2D<Point, Watcher>(0.0, 360.0, 0.0, 180.0);
+	String[] names = { "Quinn", "Sam", "Byron", "Riley" };
+	double[][] locations = { { 10.0, 16.0 }, { 200.0, 100.0 },
+		{ 13.0, 20.0 }, { 74.3, 65.7 } };
+	for (int i = 0; i < names.length; i++) {
+	    Watcher watcher = new Watcher(names[i], locations[i][0],
+		    locations[i][1]);
+	    Point location = new Point(locations[i][0], locations[i][1]);
+	    watcherBinTree.insert(location, watcher);
+	    this.handleBinTree.insert(location, this.watcherTable.add(
+		    names[i], watcher.getLongitude(), watcher.getLatitude()));
+	}
+	assertEquals(watcherBinTree.debugTraversal(),
+		this.handleBinTree.debugTraversal());
+	assertTrue(this.handleBinTree.debugTraversal().contains(
+		"Riley -105.7 -24.3"));
+    }
+
+    /**
+     * Assert a region search finds the handles of the watchers a bin tree of
+     * watchers finds, in the same order and visiting as many nodes.
+     */
+    public void test_regionSearch() {
+	BinTree2D<Point, Watcher> watcherBinTree =
+		new BinTree2D<Point, Watcher>(0.0, 360.0, 0.0, 180.0);
+	java.util.Random random = new java.util.Random(25);
+	for (int i = 0; i < 300; i++) {
+	    Watcher watcher = new Watcher("W" + i, random.nextInt(360),
+		    random.nextInt(180));
+	    Point location = new Point(watcher.getLongitude(),
+		    watcher.getLatitude());
+	    if (watcherBinTree.insertIfAbsent(location, watcher)) {
+		this.handleBinTree.insert(location, this.watcherTable.add(
+			watcher.getName(), watcher.getLongitude(),
+			watcher.getLatitude()));
+	    }
+	}
+
+	RegionSearchBuffer<Watcher> watchers =
+		new RegionSearchBuffer<Watcher>();
+	RegionSearchBuffer<Integer> handles =
+		new RegionSearchBuffer<Integer>();
+	assertEquals(watcherBinTree.regionSearch(100.0, 60.0, 40.0, watchers),
+		this.handleBinTree.regionSearch(100.0, 60.0, 40.0, handles));
+	assertTrue(watchers.size() > 10);
+	assertEquals(watchers.size(), handles.size());
+	for (int i = 0; i < watchers.size(); i++) {
+	    assertEquals(watchers.get(i).toString(), this.watcherTable
+		    .getWatcher(handles.get(i)).toString());
+	}
+    }
+
+    /**
+     * Assert a batch region search gives the same handles as ints in the same
+     * order and visits as many nodes as it does giving them as Integers.
+     */
+    public void test_regionSearchHandles() {
+	java.util.Random random = new java.util.Random(25);
+	int[] addedHandles = new int[300];
+	for (int i = 0; i < addedHandles.length; i++) {
+	    addedHandles[i] = this.watcherTable.add("W" + i,
+		    random.nextInt(360), random.nextInt(180));
+	}
+	this.handleBinTree.bulkLoad(addedHandles, addedHandles.length);
+	assertEquals(300, this.handleBinTree.size());
+
+	double[] xs = { 100.0, 300.0, 20.0 };
+	double[] ys = { 60.0, 150.0, 20.0 };
+	double[] radii = { 40.0, 25.0, 0.5 };
+	final java.util.List<String> boxedHandles =
+		new java.util.ArrayList<String>();
+	int[] boxedNodesVisited = this.handleBinTree.regionSearch(xs, ys,
+		radii, xs.length, new BatchRegionSearchVisitor<Integer>() {
+		    @Override
+		    public void visit(int queryIndex, Integer handle) {
+			boxedHandles.add(queryIndex + " " + handle);
+		    }
+		});
+	final java.util.List<String> intHandles =
+		new java.util.ArrayList<String>();
+	final IntRegionSearchBuffer buffer = new IntRegionSearchBuffer();
+	int[] intNodesVisited = this.handleBinTree.regionSearchHandles(xs, ys,
+		radii, xs.length, new IntBatchRegionSearchVisitor() {
+		    @Override
+		    public void visit(int queryIndex, int handle) {
+			intHandles.add(queryIndex + " " + handle);
+			buffer.visit(handle);
+		    }
+		});
+	assertTrue(boxedHandles.size() > 10);
+	assertEquals(boxedHandles, intHandles);
+	assertEquals(boxedHandles.size(), buffer.size());
+	assertTrue(java.util.Arrays.equals(boxedNodesVisited,
+		intNodesVisited));
+    }
+}
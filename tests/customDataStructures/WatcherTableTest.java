@@ -0,0 +1,204 @@
+package customDataStructures;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * This class tests all logic within class WatcherTable.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class WatcherTableTest extends junit.framework.TestCase {
+    private WatcherTable table;
+
+    public void setUp() {
+	this.table = new WatcherTable();
+	this.table.add("Quinn", 10, 16);
+	this.table.add("Byron", 13, 20);
+	this.table.add("Zo\u00eb", 200, 100);
+    }
+
+    /**
+     * Assert watchers are added, found and removed by name and handle.
+     */
+    public void test_add() {
+	int handle = this.table.find("Byron");
+	assertEquals(1, handle);
+	assertEquals("Byron", this.table.getName(handle));
+	assertEquals(13.0, this.table.getLongitude(handle), 0.0);
+	assertEquals(20.0, this.table.getLatitude(handle), 0.0);
+	assertEquals(new Watcher("Zo\u00eb", 200, 100),
+		this.table.getWatcher(this.table.find("Zo\u00eb")));
+	assertEquals(WatcherTable.NO_HANDLE, this.table.find("Zoe"));
+	assertEquals(WatcherTable.NO_HANDLE, this.table.add("Byron", 1, 1));
+	assertEquals(3, this.table.size());
+
+	this.table.remove(handle);
+	assertFalse(this.table.isInUse(handle));
+	assertEquals(WatcherTable.NO_HANDLE, this.table.find("Byron"));
+	assertEquals(2, this.table.size());
+	// the removed handle is given to the next watcher
+	assertEquals(handle, this.table.add("Sam", 5, 8));
+	assertEquals("Sam", this.table.getName(handle));
+
+	this.table.clear();
+	assertEquals(0, this.table.size());
+	assertEquals(WatcherTable.NO_HANDLE, this.table.find("Quinn"));
+	assertEquals(0, this.table.add("Quinn", 10, 16));
+    }
+
+    /**
+     * Assert a handle that is not the handle of a watcher is rejected.
+     */
+    public void test_checkHandle() {
+	int handle = this.table.find("Quinn");
+	this.table.remove(handle);
+	try {
+	    this.table.getName(handle);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In method getName of class WatcherTable the handle "
+		    + "0 is not the handle of a watcher",
+		    expected.getMessage());
+	}
+	try {
+	    this.table.remove(3);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(true);
+	}
+	try {
+	    new WatcherTable(-1);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert the views of the watchers are listed in name order.
+     */
+    public void test_getWatchersInNameOrder() {
+	this.table.add("Ann", 300, 170);
+	java.util.List<Watcher> watchers = this.table.getWatchersInNameOrder();
+	assertEquals(4, watchers.size());
+	assertEquals("Ann 120.0 80.0", watchers.get(0).toString());
+	assertEquals("Byron", watchers.get(1).getName());
+	assertEquals("Quinn", watchers.get(2).getName());
+	assertEquals("Zo\u00eb", watchers.get(3).getName());
+    }
+
+    /**
+     * Assert the inorder traversal prints the same depths as a
+     * BinarySearchTree of the names through random adds and removes, and
+     * after the name tree is balanced as by a bulk load.
+     */
+    public void test_inorderTraversal() {
+	this.table.clear();
+	dataStructures.BinarySearchTree<String, Watcher> BST =
+		new dataStructures.BinarySearchTree<String, Watcher>();
+	java.util.Map<String, Integer> handles =
+		new java.util.HashMap<String, Integer>();
+	java.util.Random random = new java.util.Random(25);
+	for (int i = 0; i < 3000; i++) {
+	    String name = "W" + random.nextInt(300);
+	    if (random.nextInt(3) > 0) {
+		int handle = this.table.add(name, i % 360, i % 180);
+		if (handle != WatcherTable.NO_HANDLE) {
+		    handles.put(name, handle);
+		    BST.insert(name, this.table.getWatcher(handle));
+		}
+	    } else if (handles.containsKey(name)) {
+		this.table.remove(handles.remove(name));
+		BST.remove(name);
+	    }
+	}
+	assertTrue(this.table.inorderTraversal().contains("\n........W"));
+	assertEquals(BST.inorderTraversal(BST.getRootNode(), 0),
+		this.table.inorderTraversal());
+
+	java.util.List<String> names = new java.util.ArrayList<String>();
+	java.util.List<Watcher> watchers = new java.util.ArrayList<Watcher>();
+	for (String name : handles.keySet()) {
+	    names.add(name);
+	    watchers.add(this.table.getWatcher(handles.get(name)));
+	}
+	BST.bulkLoad(names, watchers, null);
+	this.table.balanceNameTree();
+	assertEquals(BST.inorderTraversal(BST.getRootNode(), 0),
+		this.table.inorderTraversal());
+    }
+
+    /**
+     * Assert the table agrees with a java.util.HashMap through random adds
+     * and removes and that the columns only grow with the most watchers
+     * stored at once.
+     */
+    public void test_churn() {
+	this.table.clear();
+	java.util.Map<String, Integer> expected =
+		new java.util.HashMap<String, Integer>();
+	java.util.Random random = new java.util.Random(25);
+	int mostWatchers = 0;
+	for (int i = 0; i < 20000; i++) {
+	    String name = "Watcher" + random.nextInt(3000);
+	    if (random.nextInt(3) > 0) {
+		int handle = this.table.add(name, i % 360, i % 180);
+		if (expected.containsKey(name)) {
+		    assertEquals(WatcherTable.NO_HANDLE, handle);
+		} else {
+		    assertEquals(handle, this.table.find(name));
+		    expected.put(name, handle);
+		}
+	    } else if (expected.containsKey(name)) {
+		this.table.remove(expected.remove(name));
+	    } else {
+		assertEquals(WatcherTable.NO_HANDLE, this.table.find(name));
+	    }
+	    mostWatchers = Math.max(mostWatchers, expected.size());
+	}
+	assertEquals(expected.size(), this.table.size());
+	for (String name : expected.keySet()) {
+	    int handle = expected.get(name);
+	    assertEquals(handle, this.table.find(name));
+	    assertEquals(name, this.table.getName(handle));
+	}
+	assertTrue(this.table.getNumberOfRows() < 2 * mostWatchers);
+    }
+
+    /**
+     * Assert looking up names allocates nothing and storing a name takes
+     * only its bytes and its length in the arena.
+     */
+    public void test_findAllocation() {
+	int numberOfNames = 10000;
+	String[] names = new String[numberOfNames];
+	WatcherTable sizedTable = new WatcherTable(numberOfNames);
+	for (int i = 0; i < numberOfNames; i++) {
+	    names[i] = "Watcher" + i;
+	    assertEquals(i, sizedTable.add(names[i], i % 360, i % 180));
+	}
+	for (int i = 0; i < numberOfNames; i++) {
+	    assertEquals(i, sizedTable.find(names[i]));
+	}
+
+	com.sun.management.ThreadMXBean threadMXBean =
+		(com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+	long threadId = Thread.currentThread().getId();
+	long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+	for (int i = 0; i < numberOfNames; i++) {
+	    sizedTable.find(names[i]);
+	}
+	long bytesAllocated = threadMXBean.getThreadAllocatedBytes(threadId)
+		- bytesBefore;
+	assertTrue("finds allocated " + bytesAllocated + " bytes",
+		bytesAllocated < 1000);
+
+	// a String of 11 Latin-1 characters takes at least 24 bytes for
+	// itself and 32 bytes for its backing array
+	long bytesPerName = (sizedTable.getNameArena().getNumberOfNameBytes()
+		+ numberOfNames) / numberOfNames;
+	assertTrue(bytesPerName <= 12);
+    }
+}
@@ -0,0 +1,153 @@
+package dataStructures;
+/**
+ * This class tests all logic within class AVLTree.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class AVLTreeTest extends junit.framework.TestCase {
+    private AVLTree<Integer, String> AVL;
+
+    public void setUp() {
+	this.AVL = new AVLTree<Integer, String>();
+	// inserting in sorted order would build a linked list in a
+	// BinarySearchTree
+	for (int i = 0; i < 7; i++) {
+	    this.AVL.insert(i, "e" + i);
+	}
+    }
+
+    /**
+     * Assert keys inserted in sorted order build a balanced tree printed in
+     * the same format as a BinarySearchTree.
+     */
+    public void test_insert() {
+	assertEquals(7, this.AVL.size());
+	assertEquals("....e0\n..e1\n....e2\ne3\n....e4\n..e5\n....e6\n",
+		this.AVL.inorderTraversal(this.AVL.getRootNode(), 0));
+	assertEquals(3, ((AVLTreeNode<Integer, String>) this.AVL
+		.getRootNode()).getHeight());
+    }
+
+    /**
+     * Assert putIfAbsent gives back the existing element of a key and
+     * rebalances after inserting a new record.
+     */
+    public void test_putIfAbsent() {
+	assertEquals("e3", this.AVL.putIfAbsent(3, "again"));
+	assertEquals("e6", this.AVL.putIfAbsent(6, "again"));
+	assertEquals(7, this.AVL.size());
+
+	assertNull(this.AVL.putIfAbsent(7, "e7"));
+	assertNull(this.AVL.putIfAbsent(8, "e8"));
+	assertEquals(9, this.AVL.size());
+	assertEquals("....e0\n..e1\n....e2\ne3\n....e4\n..e5\n......e6\n"
+		+ "....e7\n......e8\n",
+		this.AVL.inorderTraversal(this.AVL.getRootNode(), 0));
+	assertEquals("e8", this.AVL.find(8));
+    }
+
+    /**
+     * Assert remove gives back the removed element and rebalances.
+     */
+    public void test_remove() {
+	assertNull(this.AVL.remove(9));
+	assertEquals(7, this.AVL.size());
+	assertEquals("e3", this.AVL.remove(3));
+	assertEquals("e0", this.AVL.remove(0));
+	assertEquals("e1", this.AVL.remove(1));
+	assertEquals(4, this.AVL.size());
+	assertNull(this.AVL.find(3));
+	assertEquals("..e2\n....e4\ne5\n..e6\n",
+		this.AVL.inorderTraversal(this.AVL.getRootNode(), 0));
+    }
+
+    /**
+     * Assert the root element is removed until the tree is empty.
+     */
+    public void test_removeRandomElement() {
+	for (int i = 0; i < 7; i++) {
+	    String rootElement = this.AVL.getRootNode().getValue();
+	    assertEquals(rootElement, this.AVL.removeRandomElement());
+	}
+	assertEquals(0, this.AVL.size());
+	assertNull(this.AVL.removeRandomElement());
+    }
+
+    /**
+     * Assert the tree stays balanced and ordered through many random inserts
+     * and removes.
+     */
+    public void test_balance() {
+	this.AVL.clear();
+	java.util.Random random = new java.util.Random(21);
+	java.util.TreeMap<Integer, String> expected =
+		new java.util.TreeMap<Integer, String>();
+	for (int i = 0; i < 5000; i++) {
+	    Integer key = random.nextInt(1000);
+	    if (random.nextBoolean()) {
+		assertEquals(expected.get(key),
+			this.AVL.putIfAbsent(key, "e" + i));
+		if (!expected.containsKey(key)) {
+		    expected.put(key, "e" + i);
+		}
+	    } else {
+		assertEquals(expected.remove(key), this.AVL.remove(key));
+	    }
+	    assertEquals(expected.size(), this.AVL.size());
+	}
+	this.assertBalanced(this.AVL.getRootNode(), null, null);
+	for (Integer key : expected.keySet()) {
+	    assertEquals(expected.get(key), this.AVL.find(key));
+	}
+    }
+
+    /**
+     * Assert a bulk loaded AVL tree has the heights of its nodes set and
+     * stays balanced afterwards.
+     */
+    public void test_bulkLoad() {
+	java.util.List<Integer> keys = new java.util.ArrayList<Integer>();
+	java.util.List<String> elements = new java.util.ArrayList<String>();
+	for (int i = 0; i < 100; i++) {
+	    keys.add(99 - i);
+	    elements.add("e" + (99 - i));
+	}
+	this.AVL.bulkLoad(keys, elements, null);
+	assertEquals(100, this.AVL.size());
+	this.assertBalanced(this.AVL.getRootNode(), null, null);
+	for (int i = 100; i < 200; i++) {
+	    this.AVL.insert(i, "e" + i);
+	}
+	assertEquals(200, this.AVL.size());
+	this.assertBalanced(this.AVL.getRootNode(), null, null);
+    }
+
+    /**
+     * Assert the subtree is ordered between the bounds, every node has its
+     * height set and no node's children differ in height by more than 1.
+     *
+     * @return The height of the subtree.
+     */
+    private int assertBalanced(BinarySearchTreeNode<Integer, String> node,
+	    Integer lowerBound, Integer upperBound) {
+	if (node == null) {
+	    return 0;
+	}
+	if (lowerBound != null) {
+	    assertTrue(node.getKey().compareTo(lowerBound) > 0);
+	}
+	if (upperBound != null) {
+	    assertTrue(node.getKey().compareTo(upperBound) < 0);
+	}
+	int leftHeight = this.assertBalanced(node.getLeftChild(), lowerBound,
+		node.getKey());
+	int rightHeight = this.assertBalanced(node.getRightChild(),
+		node.getKey(), upperBound);
+	assertTrue(Math.abs(leftHeight - rightHeight) <= 1);
+	int height = 1 + Math.max(leftHeight, rightHeight);
+	assertEquals(height,
+		((AVLTreeNode<Integer, String>) node).getHeight());
+	return height;
+    }
+}
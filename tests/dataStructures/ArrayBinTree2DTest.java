@@ -0,0 +1,79 @@
+package dataStructures;
+import customDataStructures.Point;
+
+/**
+ * The same behaviour is expected of the array bin tree as of BinTree2D, so
+ * every test of BinTree2DTest is run against the array bin tree.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class ArrayBinTree2DTest extends BinTree2DTest {
+    @Override
+    protected BinTreeIndex<Point, String> createBinTree(double minimumXAxis,
+	    double maximumXAxis, double minimumYAxis, double maximumYAxis,
+	    int leafBucketCapacity, boolean isMatchingGreatCircleDistance,
+	    int maximumDepth) {
+	return new ArrayBinTree2D<Point, String>(minimumXAxis, maximumXAxis,
+		minimumYAxis, maximumYAxis, leafBucketCapacity,
+		isMatchingGreatCircleDistance, maximumDepth);
+    }
+
+    /**
+     * Assert random inserts and removes that reuse freed nodes and records
+     * build the same bin tree as BinTree2D.
+     */
+    public void test_sameBinTreeAsBinTree2D() {
+	BinTree2D<Point, String> objectBinTree = new BinTree2D<Point, String>(
+		0.0, 100.0, 0.0, 100.0, 3);
+	ArrayBinTree2D<Point, String> arrayBinTree =
+		new ArrayBinTree2D<Point, String>(0.0, 100.0, 0.0, 100.0, 3);
+	java.util.Random random = new java.util.Random(7);
+	Point[] keys = new Point[300];
+	for (int i = 0; i < keys.length; i++) {
+	    // a coarse grid so many records share a key
+	    keys[i] = new Point(random.nextInt(40) * 2.5,
+		    random.nextInt(40) * 2.5);
+	    objectBinTree.insert(keys[i], "W" + i);
+	    arrayBinTree.insert(keys[i], "W" + i);
+	}
+	for (int round = 0; round < 3; round++) {
+	    for (int i = round; i < keys.length; i += 2) {
+		assertEquals(objectBinTree.remove(keys[i], "W" + i),
+			arrayBinTree.remove(keys[i], "W" + i));
+	    }
+	    for (int i = round; i < keys.length; i += 3) {
+		objectBinTree.insert(keys[i], "W" + i);
+		arrayBinTree.insert(keys[i], "W" + i);
+	    }
+	    assertEquals(objectBinTree.size(), arrayBinTree.size());
+	    assertEquals(
+		    objectBinTree.preorderTraversal(objectBinTree
+			    .getRootNode()), arrayBinTree.preorderTraversal());
+
+	    RegionSearchBuffer<String> objectElements =
+		    new RegionSearchBuffer<String>();
+	    RegionSearchBuffer<String> arrayElements =
+		    new RegionSearchBuffer<String>();
+	    assertEquals(objectBinTree.regionSearch(30.0, 60.0, 20.0,
+		    objectElements), arrayBinTree.regionSearch(30.0, 60.0,
+		    20.0, arrayElements));
+	    assertEquals(objectElements.size(), arrayElements.size());
+	    for (int i = 0; i < objectElements.size(); i++) {
+		assertEquals(objectElements.get(i), arrayElements.get(i));
+	    }
+	}
+
+	// both prune the same nodes by the exact search circle
+	objectBinTree.setExactCirclePruning(true);
+	arrayBinTree.setExactCirclePruning(true);
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	int numberOfNodesVisited = arrayBinTree.regionSearch(30.0, 60.0, 20.0,
+		foundElements);
+	assertEquals(objectBinTree.regionSearch(30.0, 60.0, 20.0,
+		foundElements), numberOfNodesVisited);
+	assertEquals(objectBinTree.countNodesVisitedByPruningRule(30.0, 60.0,
+		20.0)[1], numberOfNodesVisited);
+    }
+}
@@ -0,0 +1,319 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Benchmarks of the bin tree that assert on how much work an operation costs
+ * rather than on wall clock time.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class BinTree2DBenchmarkTest extends junit.framework.TestCase {
+    private BinTree2D<Point, String> binTree;
+    private Point[] keys;
+    private String[] elements;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    /**
+     * Counts the found elements without storing them.
+     */
+    private int numberOfElementsFound;
+    private RegionSearchVisitor<String> countingVisitor =
+	    new RegionSearchVisitor<String>() {
+	@Override
+	public void visit(String element) {
+	    numberOfElementsFound++;
+	}
+    };
+
+    public void setUp() {
+	this.binTree = new BinTree2D<Point, String>(0.0, 360.0, 0.0, 180.0);
+
+	// all watchers lie outside of the circle of radius 40 around the
+	// center of the world but many lie inside of its bounding box
+	Random random = new Random(3114);
+	this.keys = new Point[50000];
+	this.elements = new String[50000];
+	int numberOfWatchers = 0;
+	while (numberOfWatchers < 50000) {
+	    double x = random.nextDouble() * 360.0;
+	    double y = random.nextDouble() * 180.0;
+	    double differenceX = x - 180.0;
+	    double differenceY = y - 90.0;
+	    if (differenceX * differenceX + differenceY * differenceY
+		    > 41.0 * 41.0) {
+		this.keys[numberOfWatchers] = new Point(x, y);
+		this.elements[numberOfWatchers] = "W" + numberOfWatchers;
+		this.binTree.insert(this.keys[numberOfWatchers],
+			this.elements[numberOfWatchers]);
+		numberOfWatchers++;
+	    }
+	}
+
+	this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+		.getThreadMXBean();
+    }
+
+    /**
+     * Assert a region search allocates nothing once its stack has grown to the
+     * depth of the bin tree.
+     */
+    public void test_regionSearchAllocation() {
+	int numberOfSearches = 1000;
+	// warm up so the search stack has grown to its final size
+	int numberOfNodesVisited = 0;
+	for (int i = 0; i < numberOfSearches; i++) {
+	    numberOfNodesVisited = this.binTree.regionSearch(180.0, 90.0,
+		    40.0, this.countingVisitor);
+	}
+	assertTrue(numberOfNodesVisited > 1000);
+	assertEquals(0, this.numberOfElementsFound);
+
+	long threadId = Thread.currentThread().getId();
+	long bytesBefore = this.threadMXBean.getThreadAllocatedBytes(threadId);
+	for (int i = 0; i < numberOfSearches; i++) {
+	    this.binTree.regionSearch(180.0, 90.0, 40.0, this.countingVisitor);
+	}
+	long bytesAllocated = this.threadMXBean
+		.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+	// only the measurement itself may allocate a few bytes
+	assertTrue("region search allocated " + bytesAllocated + " bytes",
+		bytesAllocated < numberOfSearches);
+    }
+
+    /**
+     * Assert handing thousands of found elements to a visitor allocates
+     * nothing either.
+     */
+    public void test_regionSearchWithMatchesAllocation() {
+	int numberOfSearches = 1000;
+	for (int i = 0; i < numberOfSearches; i++) {
+	    this.binTree.regionSearch(60.0, 45.0, 30.0, this.countingVisitor);
+	}
+	assertTrue(this.numberOfElementsFound > 1000 * numberOfSearches);
+
+	long threadId = Thread.currentThread().getId();
+	long bytesBefore = this.threadMXBean.getThreadAllocatedBytes(threadId);
+	for (int i = 0; i < numberOfSearches; i++) {
+	    this.binTree.regionSearch(60.0, 45.0, 30.0, this.countingVisitor);
+	}
+	long bytesAllocated = this.threadMXBean
+		.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+	assertTrue("region search allocated " + bytesAllocated + " bytes",
+		bytesAllocated < numberOfSearches);
+    }
+
+    /**
+     * Assert a batch region search of a burst of 300 aftershocks reports the
+     * same visit count and number of found elements for every circle as
+     * searching the circles one at a time.
+     */
+    public void test_regionSearchBatchNodeVisits() {
+	int numberOfQueries = 300;
+	double[] x = new double[numberOfQueries];
+	double[] y = new double[numberOfQueries];
+	double[] radius = new double[numberOfQueries];
+	Random random = new Random(5);
+	for (int i = 0; i < numberOfQueries; i++) {
+	    // a burst of aftershocks around one epicenter
+	    x[i] = 100.0 + random.nextDouble() * 4.0;
+	    y[i] = 30.0 + random.nextDouble() * 4.0;
+	    radius[i] = 0.5;
+	}
+
+	final int[] numberOfBatchElements = new int[1];
+	int[] numberOfNodesVisited = this.binTree.regionSearch(x, y, radius,
+		numberOfQueries, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			numberOfBatchElements[0]++;
+		    }
+		});
+
+	this.numberOfElementsFound = 0;
+	for (int i = 0; i < numberOfQueries; i++) {
+	    assertEquals(this.binTree.regionSearch(x[i], y[i], radius[i],
+		    this.countingVisitor), numberOfNodesVisited[i]);
+	}
+	assertEquals(this.numberOfElementsFound, numberOfBatchElements[0]);
+    }
+
+    /**
+     * Assert a batch region search that enumerates contained subtrees
+     * allocates only the array of visit counts it returns.
+     */
+    public void test_regionSearchBatchAllocation() {
+	this.binTree.setSubtreeAcceptance(true);
+	double[] x = { 60.0, 100.0, 200.0, 300.0 };
+	double[] y = { 45.0, 30.0, 120.0, 150.0 };
+	double[] radius = { 30.0, 0.5, 20.0, 10.0 };
+	final int[] numberOfBatchElements = new int[1];
+	BatchRegionSearchVisitor<String> countingBatchVisitor =
+		new BatchRegionSearchVisitor<String>() {
+	    @Override
+	    public void visit(int queryIndex, String element) {
+		numberOfBatchElements[0]++;
+	    }
+	};
+	int numberOfSearches = 1000;
+	for (int i = 0; i < numberOfSearches; i++) {
+	    this.binTree.regionSearch(x, y, radius, 4, countingBatchVisitor);
+	}
+	assertTrue(numberOfBatchElements[0] > 1000 * numberOfSearches);
+
+	long threadId = Thread.currentThread().getId();
+	long bytesBefore = this.threadMXBean.getThreadAllocatedBytes(threadId);
+	for (int i = 0; i < numberOfSearches; i++) {
+	    this.binTree.regionSearch(x, y, radius, 4, countingBatchVisitor);
+	}
+	long bytesAllocated = this.threadMXBean
+		.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+	// an int[4] takes 32 bytes
+	assertTrue("batch region search allocated " + bytesAllocated
+		+ " bytes", bytesAllocated < 64 * numberOfSearches);
+    }
+
+    /**
+     * Assert a nearest neighbor search allocates nothing once its heap and
+     * buffer have grown and visits only a small part of the bin tree.
+     */
+    public void test_nearestNeighborSearchAllocation() {
+	NearestNeighborBuffer<String> nearestElements =
+		new NearestNeighborBuffer<String>();
+	int numberOfSearches = 1000;
+	int numberOfNodesVisited = 0;
+	for (int i = 0; i < numberOfSearches; i++) {
+	    numberOfNodesVisited = this.binTree.nearestNeighborSearch(
+		    this.keys[i].getX(), this.keys[i].getY(), 20,
+		    nearestElements);
+	}
+	assertEquals(20, nearestElements.size());
+	assertTrue("visited " + numberOfNodesVisited + " nodes",
+		numberOfNodesVisited < 500);
+
+	long threadId = Thread.currentThread().getId();
+	long bytesBefore = this.threadMXBean.getThreadAllocatedBytes(threadId);
+	for (int i = 0; i < numberOfSearches; i++) {
+	    this.binTree.nearestNeighborSearch(this.keys[i].getX(),
+		    this.keys[i].getY(), 20, nearestElements);
+	}
+	long bytesAllocated = this.threadMXBean
+		.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+	assertTrue("nearest neighbor search allocated " + bytesAllocated
+		+ " bytes", bytesAllocated < numberOfSearches);
+    }
+
+    /**
+     * Assert removing records allocates nothing once the remove path has
+     * grown to the depth of the bin tree.
+     */
+    public void test_removeAllocation() {
+	// warm up so the remove path has grown to its final size
+	for (int i = 0; i < 1000; i++) {
+	    assertTrue(this.binTree.remove(this.keys[i], this.elements[i]));
+	}
+
+	long threadId = Thread.currentThread().getId();
+	long bytesBefore = this.threadMXBean.getThreadAllocatedBytes(threadId);
+	for (int i = 1000; i < 2000; i++) {
+	    this.binTree.remove(this.keys[i], this.elements[i]);
+	}
+	long bytesAllocated = this.threadMXBean
+		.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+	assertEquals(48000, this.binTree.size());
+	assertTrue("removes allocated " + bytesAllocated + " bytes",
+		bytesAllocated < 1000);
+    }
+
+    /**
+     * Assert the cost of a remove grows with the depth of the bin tree rather
+     * than with its size. The bin tree of 50000 watchers is 25 times larger
+     * than one of 2000 watchers but only a few levels deeper. The cost is the
+     * number of levels a remove descends plus the number of internal nodes
+     * it prunes, so it does not depend on the speed of the machine.
+     */
+    public void test_removeCostIsFlat() {
+	long smallCost = this.countRemoveCost(2000, 1000);
+	long largeCost = this.countRemoveCost(50000, 1000);
+	assertTrue("removes from the large bin tree cost " + largeCost
+		+ ", from the small bin tree " + smallCost,
+		largeCost < smallCost * 2);
+    }
+
+    /**
+     * @return the number of levels descended plus the number of internal
+     *         nodes pruned by removing the first records from a bin tree of
+     *         the first watchers.
+     */
+    private long countRemoveCost(int numberOfWatchers, int numberOfRecords) {
+	CountingBinTree2D countingBinTree = new CountingBinTree2D();
+	CountedPoint[] countedKeys = new CountedPoint[numberOfWatchers];
+	for (int i = 0; i < numberOfWatchers; i++) {
+	    countedKeys[i] = new CountedPoint(this.keys[i].getX(),
+		    this.keys[i].getY());
+	    countingBinTree.insert(countedKeys[i], this.elements[i]);
+	}
+	CountedPoint.numberOfCoordinateReads = 0;
+	countingBinTree.numberOfPrunes = 0;
+	for (int i = 0; i < numberOfRecords; i++) {
+	    assertTrue(countingBinTree.remove(countedKeys[i],
+		    this.elements[i]));
+	}
+	assertEquals(numberOfWatchers - numberOfRecords,
+		countingBinTree.size());
+	return CountedPoint.numberOfCoordinateReads
+		+ countingBinTree.numberOfPrunes;
+    }
+
+    /**
+     * A point that counts how often a coordinate is read, once for each
+     * level a search for it descends.
+     */
+    private static class CountedPoint extends Point {
+	static long numberOfCoordinateReads;
+
+	CountedPoint(double x, double y) {
+	    super(x, y);
+	}
+
+	@Override
+	public double getX() {
+	    numberOfCoordinateReads++;
+	    return super.getX();
+	}
+
+	@Override
+	public double getY() {
+	    numberOfCoordinateReads++;
+	    return super.getY();
+	}
+    }
+
+    /**
+     * A bin tree that counts the internal nodes its removes prune.
+     */
+    private static class CountingBinTree2D extends BinTree2D<Point, String> {
+	long numberOfPrunes;
+
+	CountingBinTree2D() {
+	    super(0.0, 360.0, 0.0, 180.0);
+	}
+
+	@Override
+	BinTreeNode<String> pruneInternalNode(
+		BinTreeInternalNode<String> node) {
+	    this.numberOfPrunes++;
+	    return super.pruneInternalNode(node);
+	}
+    }
+}
@@ -0,0 +1,64 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.util.Random;
+
+/**
+ * Times removing records from bin trees of different sizes. It measures wall
+ * clock time, so it is run by hand rather than with the tests, which assert
+ * on the number of steps a remove takes instead.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class BinTree2DRemoveTiming {
+    private static final int NUMBER_OF_REMOVES = 1000;
+    private static final int NUMBER_OF_ROUNDS = 5;
+
+    /**
+     * Print the fastest of several rounds of removing and inserting again
+     * the first records of each bin tree.
+     *
+     * @param args
+     *            The sizes of the bin trees to time, 2000 and 50000 if none
+     *            are given.
+     */
+    public static void main(String[] args) {
+	int[] sizes = { 2000, 50000 };
+	if (args.length > 0) {
+	    sizes = new int[args.length];
+	    for (int i = 0; i < args.length; i++) {
+		sizes[i] = Integer.parseInt(args[i]);
+	    }
+	}
+	for (int size : sizes) {
+	    Random random = new Random(3114);
+	    BinTree2D<Point, String> binTree = new BinTree2D<Point, String>(
+		    0.0, 360.0, 0.0, 180.0);
+	    Point[] keys = new Point[size];
+	    String[] elements = new String[size];
+	    for (int i = 0; i < size; i++) {
+		keys[i] = new Point(random.nextDouble() * 360.0,
+			random.nextDouble() * 180.0);
+		elements[i] = "W" + i;
+		binTree.insert(keys[i], elements[i]);
+	    }
+
+	    long smallestTime = Long.MAX_VALUE;
+	    for (int round = 0; round < NUMBER_OF_ROUNDS; round++) {
+		long startTime = System.nanoTime();
+		for (int i = 0; i < NUMBER_OF_REMOVES; i++) {
+		    binTree.remove(keys[i], elements[i]);
+		}
+		smallestTime = Math.min(smallestTime, System.nanoTime()
+			- startTime);
+		for (int i = 0; i < NUMBER_OF_REMOVES; i++) {
+		    binTree.insert(keys[i], elements[i]);
+		}
+	    }
+	    System.out.println(size + " watchers: " + NUMBER_OF_REMOVES
+		    + " removes took " + smallestTime + " ns");
+	}
+    }
+}
@@ -1,68 +1,124 @@
 package dataStructures;
 import customDataStructures.Point;
 
-import customDataStructures.BoundingBox;
 
 import java.io.PrintStream;
 import java.io.ByteArrayOutputStream;
 
 /**
+ * Tests the bin tree engine created by createBinTree, a BinTree2D unless a
+ * subclass creates another engine. The tests of the features only BinTree2D
+ * has are skipped for other engines.
+ *
  * @author Quinn Liu (quinnliu@vt.edu)
  * @version Oct 12, 2013
  */
 public class BinTree2DTest extends junit.framework.TestCase {
-    private BinTree2D<Point, String> binTree;
+    private BinTreeIndex<Point, String> binTree;
 
     private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
 
     public void setUp() {
-	this.binTree = new BinTree2D<Point, String>(0.0, 100.0, 0.0, 100.0);
+	this.binTree = this.createBinTree(1);
 
 	// set up stream
 	System.setOut(new PrintStream(outContent));
     }
 
+    /**
+     * Create a bin tree of the engine under test.
+     *
+     * @param minimumXAxis
+     * @param maximumXAxis
+     * @param minimumYAxis
+     * @param maximumYAxis
+     * @param leafBucketCapacity
+     * @param isMatchingGreatCircleDistance
+     * @param maximumDepth
+     * @return A new empty bin tree.
+     */
+    protected BinTreeIndex<Point, String> createBinTree(double minimumXAxis,
+	    double maximumXAxis, double minimumYAxis, double maximumYAxis,
+	    int leafBucketCapacity, boolean isMatchingGreatCircleDistance,
+	    int maximumDepth) {
+	return new BinTree2D<Point, String>(minimumXAxis, maximumXAxis,
+		minimumYAxis, maximumYAxis, leafBucketCapacity,
+		isMatchingGreatCircleDistance, maximumDepth);
+    }
+
+    /**
+     * @param leafBucketCapacity
+     * @return A new planar bin tree of the engine under test spanning 0 to
+     *         100 along both axes.
+     */
+    private BinTreeIndex<Point, String> createBinTree(int leafBucketCapacity) {
+	return this.createBinTree(0.0, 100.0, 0.0, 100.0, leafBucketCapacity,
+		false, BinTree2D.DEFAULT_MAXIMUM_DEPTH);
+    }
+
+    /**
+     * @param leafBucketCapacity
+     * @return A new great circle bin tree of the engine under test.
+     */
+    private BinTreeIndex<Point, String> createSphereBinTree(
+	    int leafBucketCapacity) {
+	return this.createBinTree(0.0, 360.0, 0.0, 180.0, leafBucketCapacity,
+		true, BinTree2D.DEFAULT_MAXIMUM_DEPTH);
+    }
+
+    /**
+     * @return The bin tree under test, or null if it is not a BinTree2D and
+     *         the tests of the features only BinTree2D has are skipped.
+     */
+    @SuppressWarnings("unchecked")
+    private BinTree2D<Point, String> getObjectBinTree() {
+	if (this.binTree instanceof BinTree2D<?, ?>) {
+	    return (BinTree2D<Point, String>) this.binTree;
+	}
+	return null;
+    }
+
     /**
      * Asserts inserts of nodes create the correct bin tree structure.
      */
     public void test_insert() {
-	assertEquals("E",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
-			.trim());
+	assertEquals("E", this.binTree.debugTraversal().trim());
 
 	this.binTree.insert(new Point(10.0, 45.0), "A");
-	assertEquals("A",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
-			.trim());
+	assertEquals("A", this.binTree.debugTraversal().trim());
 
 	this.binTree.insert(new Point(30.0, 70.0), "B");
-	assertEquals("I\nI\nA\nB\nE",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
-			.trim());
+	assertEquals("I\nI\nA\nB\nE", this.binTree.debugTraversal().trim());
 
 	this.binTree.insert(new Point(52.0, 65.0), "C");
-	assertEquals("I\nI\nA\nB\nC",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
-			.trim());
+	assertEquals("I\nI\nA\nB\nC", this.binTree.debugTraversal().trim());
 
 	// now we are going to add last element D that will dramatically change
 	// rootNodes right subtree since it's (x, y) position is very close to
 	// element C's (x, y) position
 	this.binTree.insert(new Point(55.0, 90.0), "D");
-	assertEquals("I\nI\nA\nB\nI\nE\nI\nI\nC\nD\nE", this.binTree
-		.preorderTraversal(this.binTree.getRootNode()).trim());
+	assertEquals("I\nI\nA\nB\nI\nE\nI\nI\nC\nD\nE",
+		this.binTree.debugTraversal().trim());
     }
 
     /**
      * Asserts inserts of nodes create the correct bin tree structure.
      */
-    public void test_insertHelp() {
+    public void test_insertIntoSubtree() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
 	BinTreeNode<String> leafNode = new BinTreeLeafNode<Point, String>(new Point(10.0, 45.0), "A");
 
-	BoundingBox currentWorld = new BoundingBox(new Point(0.0, 0.0), 100.0,
-		100.0);
-
-	this.binTree.insertHelp(leafNode, currentWorld, new Point(10.0, 55.0), "B", false);
+	BinTreeNode<String> subtree = objectBinTree.insertIntoSubtree(
+		leafNode, 0.0, 0.0, 100.0, 100.0, false, 0, new Point(10.0,
+			55.0), "B", false);
+	assertEquals("I\nA\nB", objectBinTree.preorderTraversal(subtree)
+		.trim());
+	assertNull(objectBinTree.insertIntoSubtree(subtree, 0.0, 0.0, 100.0,
+		100.0, false, 0, new Point(10.0, 55.0), "C", true));
+	assertEquals(3, subtree.getSubtreeNumberOfNodes());
     }
 
     /**
@@ -77,25 +133,21 @@ public class BinTree2DTest extends junit.framework.TestCase {
 	this.binTree.insert(new Point(52.0, 65.0), "C");
 	this.binTree.insert(new Point(55.0, 90.0), "D");
 
-	assertEquals("I\nI\nA\nB\nI\nE\nI\nI\nC\nD\nE", this.binTree
-		.preorderTraversal(this.binTree.getRootNode()).trim());
+	assertEquals("I\nI\nA\nB\nI\nE\nI\nI\nC\nD\nE",
+		this.binTree.debugTraversal().trim());
 	assertTrue(this.binTree.remove(new Point(10.0, 45.0), "A"));
-	assertEquals("I\nB\nI\nE\nI" + "\nI\nC\nD\nE", this.binTree
-		.preorderTraversal(this.binTree.getRootNode()).trim());
+	assertEquals("I\nB\nI\nE\nI" + "\nI\nC\nD\nE",
+		this.binTree.debugTraversal().trim());
 
 	assertTrue(this.binTree.remove(new Point(30.0, 70.0), "B"));
-	assertEquals("I\nE\nI\nE\nI\nI\nC\nD\nE", this.binTree
-		.preorderTraversal(this.binTree.getRootNode()).trim());
+	assertEquals("I\nE\nI\nE\nI\nI\nC\nD\nE",
+		this.binTree.debugTraversal().trim());
 
 	assertTrue(this.binTree.remove(new Point(52.0, 65.0), "C"));
-	assertEquals("D",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
-			.trim());
+	assertEquals("D", this.binTree.debugTraversal().trim());
 
 	assertTrue(this.binTree.remove(new Point(55.0, 90.0), "D"));
-	assertEquals("E",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
-			.trim());
+	assertEquals("E", this.binTree.debugTraversal().trim());
     }
 
     /**
@@ -154,6 +206,1022 @@ public class BinTree2DTest extends junit.framework.TestCase {
 		this.binTree.regionSearch(50.0, 50.0, 5.0));
     }
 
+    /**
+     * Assert the found elements are given to the visitor in preorder and the
+     * number of visited nodes is returned.
+     */
+    public void test_regionSearchWithVisitor() {
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	assertEquals(1, this.binTree.regionSearch(50.0, 50.0, 250.0,
+		foundElements));
+	assertEquals(0, foundElements.size());
+
+	this.binTree.insert(new Point(10.0, 45.0), "A");
+	this.binTree.insert(new Point(30.0, 70.0), "B");
+	this.binTree.insert(new Point(52.0, 65.0), "C");
+	this.binTree.insert(new Point(55.0, 90.0), "D");
+
+	assertEquals(11, this.binTree.regionSearch(50.0, 50.0, 250.0,
+		foundElements));
+	assertEquals(4, foundElements.size());
+	assertEquals("A", foundElements.get(0));
+	assertEquals("D", foundElements.get(3));
+
+	// only C lies within 16 of (50, 50) but 9 nodes are visited
+	foundElements.clear();
+	assertEquals(9, this.binTree.regionSearch(50.0, 50.0, 16.0,
+		foundElements));
+	assertEquals(1, foundElements.size());
+	assertEquals("C", foundElements.get(0));
+
+	// nothing is printed to the console
+	assertEquals("", this.outContent.toString());
+    }
+
+    /**
+     * Assert a batch region search finds the same elements and visits the
+     * same number of nodes for each circle as searching them one at a time.
+     */
+    public void test_regionSearchBatch() {
+	this.binTree.insert(new Point(10.0, 45.0), "A");
+	this.binTree.insert(new Point(30.0, 70.0), "B");
+	this.binTree.insert(new Point(52.0, 65.0), "C");
+	this.binTree.insert(new Point(55.0, 90.0), "D");
+
+	double[] x = { 50.0, 50.0, 95.0, 12.0 };
+	double[] y = { 50.0, 50.0, 5.0, 44.0 };
+	double[] radius = { 250.0, 16.0, 1.0, 3.0 };
+	final RegionSearchBuffer<String> batchElements =
+		new RegionSearchBuffer<String>();
+	final StringBuilder queryIndices = new StringBuilder();
+	int[] numberOfNodesVisited = this.binTree.regionSearch(x, y, radius,
+		4, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			queryIndices.append(queryIndex);
+			batchElements.visit(element);
+		    }
+		});
+
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	StringBuilder expectedQueryIndices = new StringBuilder();
+	for (int i = 0; i < 4; i++) {
+	    foundElements.clear();
+	    assertEquals(this.binTree.regionSearch(x[i], y[i], radius[i],
+		    foundElements), numberOfNodesVisited[i]);
+	    for (int j = 0; j < foundElements.size(); j++) {
+		expectedQueryIndices.append(i);
+	    }
+	}
+	assertEquals(11, numberOfNodesVisited[0]);
+	assertEquals(9, numberOfNodesVisited[1]);
+
+	// the leaf nodes are visited in preorder once for the whole batch
+	assertEquals("030010", queryIndices.toString());
+	assertEquals(expectedQueryIndices.length(), queryIndices.length());
+	assertEquals(6, batchElements.size());
+	assertEquals("A", batchElements.get(0));
+	assertEquals("A", batchElements.get(1));
+	assertEquals("C", batchElements.get(4));
+
+	assertEquals(0, this.binTree.regionSearch(x, y, radius, 0,
+		new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			fail("no search regions to search");
+		    }
+		}).length);
+    }
+
+    /**
+     * Assert exact circle pruning finds the same elements in the same order
+     * while visiting fewer nodes, and that both visit counts are reported by
+     * a single walk.
+     */
+    public void test_setExactCirclePruning() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
+	java.util.Random random = new java.util.Random(17);
+	for (int i = 0; i < 1000; i++) {
+	    objectBinTree.insert(new Point(random.nextDouble() * 100.0,
+		    random.nextDouble() * 100.0), "W" + i);
+	}
+	RegionSearchBuffer<String> boxElements =
+		new RegionSearchBuffer<String>();
+	RegionSearchBuffer<String> exactElements =
+		new RegionSearchBuffer<String>();
+	double[] x = { 50.0, 3.0, 70.0, 99.0 };
+	double[] y = { 50.0, 97.0, 20.0, 1.0 };
+	double[] radius = { 30.0, 10.0, 5.0, 60.0 };
+	for (int i = 0; i < x.length; i++) {
+	    boxElements.clear();
+	    exactElements.clear();
+	    objectBinTree.setExactCirclePruning(false);
+	    int boxNodesVisited = objectBinTree.regionSearch(x[i], y[i],
+		    radius[i], boxElements);
+	    objectBinTree.setExactCirclePruning(true);
+	    int exactNodesVisited = objectBinTree.regionSearch(x[i], y[i],
+		    radius[i], exactElements);
+	    assertTrue(exactNodesVisited < boxNodesVisited);
+	    assertEquals(boxElements.size(), exactElements.size());
+	    for (int j = 0; j < boxElements.size(); j++) {
+		assertEquals(boxElements.get(j), exactElements.get(j));
+	    }
+
+	    int[] numberOfNodesVisited = objectBinTree
+		    .countNodesVisitedByPruningRule(x[i], y[i], radius[i]);
+	    assertEquals(boxNodesVisited, numberOfNodesVisited[0]);
+	    assertEquals(exactNodesVisited, numberOfNodesVisited[1]);
+	}
+
+	// a batch search prunes each circle the same way
+	int[] batchNodesVisited = objectBinTree.regionSearch(x, y, radius,
+		x.length, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+		    }
+		});
+	for (int i = 0; i < x.length; i++) {
+	    assertEquals(objectBinTree.countNodesVisitedByPruningRule(x[i],
+		    y[i], radius[i])[1], batchNodesVisited[i]);
+	}
+	assertTrue(objectBinTree.isPruningExactly());
+    }
+
+    /**
+     * Assert the root node's subtree sizes count every record and node of the
+     * bin tree as records are inserted and removed.
+     */
+    public void test_getSubtreeNumberOfRecords() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
+	java.util.Random random = new java.util.Random(19);
+	Point[] keys = new Point[300];
+	for (int i = 0; i < keys.length; i++) {
+	    keys[i] = new Point(random.nextInt(100), random.nextInt(100));
+	    if (i % 3 == 0) {
+		objectBinTree.insertIfAbsent(keys[i], "W" + i);
+	    } else {
+		objectBinTree.insert(keys[i], "W" + i);
+	    }
+	    if (i % 5 == 4) {
+		objectBinTree.remove(keys[i - 2], "W" + (i - 2));
+	    }
+	}
+	for (int i = 0; i < keys.length; i += 2) {
+	    objectBinTree.remove(keys[i], "W" + i);
+	    BinTreeNode<String> rootNode = objectBinTree.getRootNode();
+	    assertEquals(objectBinTree.size(),
+		    rootNode.getSubtreeNumberOfRecords());
+	    // a circle covering the world visits every node
+	    assertEquals(objectBinTree.regionSearch(50.0, 50.0, 200.0,
+		    new RegionSearchBuffer<String>()),
+		    rootNode.getSubtreeNumberOfNodes());
+	}
+    }
+
+    /**
+     * Assert accepting the cells within the search circle whole finds the
+     * same elements in the same order and reports the same number of visited
+     * nodes in single, batch and parallel region searches.
+     */
+    public void test_setSubtreeAcceptance() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
+	java.util.Random random = new java.util.Random(20);
+	for (int i = 0; i < 1000; i++) {
+	    objectBinTree.insert(new Point(random.nextDouble() * 100.0,
+		    random.nextDouble() * 100.0), "W" + i);
+	}
+	// a key outside of the world is kept by a leaf node on its edge
+	objectBinTree.insert(new Point(101.0, 50.0), "Outside");
+	objectBinTree.setExactCirclePruning(true);
+
+	double[] x = { 50.0, 3.0, 70.0, 50.0 };
+	double[] y = { 50.0, 97.0, 20.0, 50.0 };
+	double[] radius = { 30.0, 10.0, 5.0, 49.0 };
+	RegionSearchBuffer<String> walkedElements =
+		new RegionSearchBuffer<String>();
+	RegionSearchBuffer<String> acceptedElements =
+		new RegionSearchBuffer<String>();
+	final StringBuilder walkedBatch = new StringBuilder();
+	final StringBuilder acceptedBatch = new StringBuilder();
+	java.util.concurrent.ForkJoinPool pool =
+		new java.util.concurrent.ForkJoinPool(4);
+	for (int i = 0; i < x.length; i++) {
+	    objectBinTree.setSubtreeAcceptance(false);
+	    walkedElements.clear();
+	    int numberOfNodesVisited = objectBinTree.regionSearch(x[i], y[i],
+		    radius[i], walkedElements);
+
+	    for (int parallel = 0; parallel < 2; parallel++) {
+		objectBinTree.setParallelRegionSearch(parallel == 0 ? null
+			: pool, 0.0);
+		objectBinTree.setSubtreeAcceptance(true);
+		acceptedElements.clear();
+		assertEquals(numberOfNodesVisited, objectBinTree.regionSearch(
+			x[i], y[i], radius[i], acceptedElements));
+		assertEquals(walkedElements.size(), acceptedElements.size());
+		for (int j = 0; j < walkedElements.size(); j++) {
+		    assertEquals(walkedElements.get(j),
+			    acceptedElements.get(j));
+		}
+	    }
+	    objectBinTree.setParallelRegionSearch(null, 0.0);
+	    assertEquals(numberOfNodesVisited, objectBinTree
+		    .countNodesVisitedByPruningRule(x[i], y[i], radius[i])[1]);
+	}
+
+	objectBinTree.setSubtreeAcceptance(false);
+	int[] walkedNodesVisited = objectBinTree.regionSearch(x, y, radius,
+		x.length, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			walkedBatch.append(queryIndex + element + ",");
+		    }
+		});
+	objectBinTree.setSubtreeAcceptance(true);
+	int[] acceptedNodesVisited = objectBinTree.regionSearch(x, y, radius,
+		x.length, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			acceptedBatch.append(queryIndex + element + ",");
+		    }
+		});
+	assertTrue(objectBinTree.isAcceptingSubtrees());
+	for (int i = 0; i < x.length; i++) {
+	    assertEquals(walkedNodesVisited[i], acceptedNodesVisited[i]);
+	}
+	assertEquals(walkedBatch.length(), acceptedBatch.length());
+	pool.shutdown();
+    }
+
+    /**
+     * Assert the records within a circle are counted the same as a region
+     * search finds them, including a key outside of the world.
+     */
+    public void test_countInRegion() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
+	assertEquals(0, objectBinTree.countInRegion(50.0, 50.0, 200.0));
+	java.util.Random random = new java.util.Random(21);
+	for (int i = 0; i < 1000; i++) {
+	    objectBinTree.insert(new Point(random.nextDouble() * 100.0,
+		    random.nextDouble() * 100.0), "W" + i);
+	}
+	// a key outside of the world is kept by a leaf node on its edge
+	objectBinTree.insert(new Point(101.0, 50.0), "Outside");
+
+	double[] x = { 50.0, 3.0, 70.0, 99.0, 50.0 };
+	double[] y = { 50.0, 97.0, 20.0, 50.0, 50.0 };
+	double[] radius = { 30.0, 10.0, 0.5, 5.0, 200.0 };
+	RegionSearchBuffer<String> elements = new RegionSearchBuffer<String>();
+	for (int i = 0; i < x.length; i++) {
+	    elements.clear();
+	    objectBinTree.regionSearch(x[i], y[i], radius[i], elements);
+	    assertEquals(elements.size(), objectBinTree.countInRegion(x[i],
+		    y[i], radius[i]));
+	}
+	assertEquals(1001, objectBinTree.countInRegion(50.0, 50.0, 200.0));
+
+	BinTree2D<Point, String> worldBinTree = new BinTree2D<Point, String>(
+		0.0, 360.0, 0.0, 180.0, 1, true);
+	for (int i = 0; i < 500; i++) {
+	    worldBinTree.insert(new Point(random.nextDouble() * 360.0,
+		    random.nextDouble() * 180.0), "W" + i);
+	}
+	// the circle is split at the 0/360 seam
+	elements.clear();
+	worldBinTree.regionSearch(2.0, 100.0, 40.0, elements);
+	assertTrue(elements.size() > 0);
+	assertEquals(elements.size(), worldBinTree.countInRegion(2.0, 100.0,
+		40.0));
+    }
+
+    /**
+     * Assert every plan finds the same elements in the same order and visits
+     * the same number of nodes as walking the bin tree.
+     */
+    public void test_regionSearchWithPlan() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
+	java.util.Random random = new java.util.Random(18);
+	for (int i = 0; i < 1000; i++) {
+	    objectBinTree.insert(new Point(random.nextDouble() * 100.0,
+		    random.nextDouble() * 100.0), "W" + i);
+	}
+	// a key outside of the world is kept by a leaf node on its edge
+	objectBinTree.insert(new Point(101.0, 50.0), "Outside");
+
+	RegionSearchBuffer<String> walkedElements =
+		new RegionSearchBuffer<String>();
+	RegionSearchBuffer<String> plannedElements =
+		new RegionSearchBuffer<String>();
+	double[] x = { 50.0, 90.0, 20.0, 50.0, 50.0 };
+	double[] y = { 50.0, 50.0, 70.0, 50.0, 50.0 };
+	double[] radius = { 30.0, 15.0, 2.0, 60.0, 80.0 };
+	boolean[] isExactPruning = { false, true };
+	for (boolean isPruningExactly : isExactPruning) {
+	    objectBinTree.setExactCirclePruning(isPruningExactly);
+	    for (int i = 0; i < x.length; i++) {
+		walkedElements.clear();
+		int numberOfNodesVisited = objectBinTree.regionSearch(x[i],
+			y[i], radius[i], walkedElements);
+		for (RegionSearchPlan plan : RegionSearchPlan.values()) {
+		    if (plan == RegionSearchPlan.LINEAR_SCAN
+			    && !objectBinTree.isVisitingEveryNode(x[i], y[i],
+				    radius[i])) {
+			continue;
+		    }
+		    plannedElements.clear();
+		    assertEquals(plan.toString(), numberOfNodesVisited,
+			    objectBinTree.regionSearch(x[i], y[i], radius[i],
+				    plan, plannedElements));
+		    assertEquals(walkedElements.size(),
+			    plannedElements.size());
+		    for (int j = 0; j < walkedElements.size(); j++) {
+			assertEquals(walkedElements.get(j),
+				plannedElements.get(j));
+		    }
+		}
+	    }
+	}
+
+	// the box of a radius of 60 covers the world but the circle does not
+	objectBinTree.setExactCirclePruning(false);
+	assertTrue(objectBinTree.isVisitingEveryNode(50.0, 50.0, 60.0));
+	assertEquals(1.0, objectBinTree.getWorldCoverage(50.0, 50.0, 60.0),
+		0.0);
+	objectBinTree.setExactCirclePruning(true);
+	assertFalse(objectBinTree.isVisitingEveryNode(50.0, 50.0, 60.0));
+	assertTrue(objectBinTree.isVisitingEveryNode(50.0, 50.0, 80.0));
+	try {
+	    objectBinTree.regionSearch(50.0, 50.0, 60.0,
+		    RegionSearchPlan.LINEAR_SCAN, plannedElements);
+	    fail("should've thrown an exception!");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In method regionSearch of class BinTree2D a linear "
+		    + "scan can only stand in for a region search that visits "
+		    + "every node", expected.getMessage());
+	}
+
+	// the linear scan sees records removed and inserted since the last
+	// scan
+	assertTrue(objectBinTree.remove(new Point(101.0, 50.0), "Outside"));
+	objectBinTree.insert(new Point(99.0, 1.0), "Corner");
+	walkedElements.clear();
+	plannedElements.clear();
+	assertEquals(objectBinTree.regionSearch(50.0, 50.0, 80.0,
+		walkedElements), objectBinTree.regionSearch(50.0, 50.0, 80.0,
+		RegionSearchPlan.LINEAR_SCAN, plannedElements));
+	assertEquals(1001, plannedElements.size());
+	assertEquals(walkedElements.get(1000), plannedElements.get(1000));
+
+	BinTree2D<Point, String> greatCircleBinTree =
+		new BinTree2D<Point, String>(0.0, 360.0, 0.0, 180.0, 1, true);
+	try {
+	    greatCircleBinTree.regionSearch(50.0, 50.0, 10.0,
+		    RegionSearchPlan.SUBTREE_ENUMERATION, plannedElements);
+	    fail("should've thrown an exception!");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+	assertFalse(greatCircleBinTree.isVisitingEveryNode(180.0, 90.0,
+		500.0));
+    }
+
+    /**
+     * Assert the estimate of a region search counts the records it finds and
+     * the nodes it visits from the subtrees at the cells the circle reaches.
+     */
+    public void test_estimateRegionSearch() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
+	java.util.Random random = new java.util.Random(18);
+	for (int i = 0; i < 1000; i++) {
+	    objectBinTree.insert(new Point(random.nextDouble() * 100.0,
+		    random.nextDouble() * 100.0), "W" + i);
+	}
+	objectBinTree.setExactCirclePruning(true);
+	int[] estimate = new int[4];
+	double[] x = { 50.0, 90.0, 20.0, 50.0 };
+	double[] y = { 50.0, 50.0, 70.0, 50.0 };
+	double[] radius = { 30.0, 15.0, 2.0, 60.0 };
+	for (int i = 0; i < x.length; i++) {
+	    objectBinTree.estimateRegionSearch(x[i], y[i], radius[i],
+		    estimate);
+	    int numberOfRecordsFound = objectBinTree.countInRegion(x[i], y[i],
+		    radius[i]);
+	    assertTrue(estimate[1] + estimate[3] >= numberOfRecordsFound);
+	    assertTrue(estimate[3] <= numberOfRecordsFound);
+	    assertTrue(estimate[0] + estimate[2] >= objectBinTree.regionSearch(
+		    x[i], y[i], radius[i], new RegionSearchBuffer<String>()));
+	}
+
+	// a circle around the whole world reaches every node, but a cell on
+	// the edge of the world is never accepted whole
+	objectBinTree.estimateRegionSearch(50.0, 50.0, 80.0, estimate);
+	assertEquals(objectBinTree.regionSearch(50.0, 50.0, 80.0,
+		new RegionSearchBuffer<String>()), estimate[0] + estimate[2]);
+	assertEquals(1000, estimate[1] + estimate[3]);
+	assertTrue(estimate[2] > estimate[0]);
+    }
+
+    /**
+     * Asserts a parallel region search finds the same elements in the same
+     * order and visits the same number of nodes as a sequential one.
+     */
+    public void test_regionSearchInParallel() {
+	if (this.getObjectBinTree() == null) {
+	    return;
+	}
+	BinTree2D<Point, String> worldBinTree = new BinTree2D<Point, String>(
+		0.0, 360.0, 0.0, 180.0, 1, true);
+	java.util.Random random = new java.util.Random(6);
+	for (int i = 0; i < 2000; i++) {
+	    worldBinTree.insert(new Point(random.nextDouble() * 360.0,
+		    random.nextDouble() * 180.0), "W" + i);
+	}
+
+	// the second circle is split at the 0/360 seam
+	double[] x = { 180.0, 2.0, 90.0 };
+	double[] y = { 90.0, 100.0, 20.0 };
+	double[] radius = { 60.0, 40.0, 5.0 };
+	RegionSearchBuffer<String> sequentialBuffer =
+		new RegionSearchBuffer<String>();
+	RegionSearchBuffer<String> parallelBuffer =
+		new RegionSearchBuffer<String>();
+	java.util.concurrent.ForkJoinPool pool =
+		new java.util.concurrent.ForkJoinPool(4);
+	for (int i = 0; i < x.length; i++) {
+	    worldBinTree.setParallelRegionSearch(null, 0.0);
+	    sequentialBuffer.clear();
+	    int numberOfNodesVisited = worldBinTree.regionSearch(x[i], y[i],
+		    radius[i], sequentialBuffer);
+
+	    worldBinTree.setParallelRegionSearch(pool, 0.0);
+	    parallelBuffer.clear();
+	    assertEquals(numberOfNodesVisited, worldBinTree.regionSearch(x[i],
+		    y[i], radius[i], parallelBuffer));
+	    assertTrue(sequentialBuffer.size() > 0);
+	    assertEquals(sequentialBuffer.size(), parallelBuffer.size());
+	    for (int j = 0; j < sequentialBuffer.size(); j++) {
+		assertEquals(sequentialBuffer.get(j), parallelBuffer.get(j));
+	    }
+	}
+
+	// only the large circle of a batch is searched in parallel
+	final StringBuilder queryIndices = new StringBuilder();
+	worldBinTree.setParallelRegionSearch(pool, 0.1);
+	int[] numberOfNodesVisited = worldBinTree.regionSearch(x, y, radius,
+		x.length, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			queryIndices.append(queryIndex);
+		    }
+		});
+	worldBinTree.setParallelRegionSearch(null, 0.0);
+	for (int i = 0; i < x.length; i++) {
+	    sequentialBuffer.clear();
+	    assertEquals(worldBinTree.regionSearch(x[i], y[i], radius[i],
+		    sequentialBuffer), numberOfNodesVisited[i]);
+	}
+	assertEquals('0', queryIndices.charAt(0));
+	pool.shutdown();
+
+	try {
+	    worldBinTree.setParallelRegionSearch(pool, 1.5);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert a bulk loaded bin tree is the same as inserting the records one
+     * at a time, whether it is built in parallel or not.
+     */
+    public void test_bulkLoad() {
+	java.util.Random random = new java.util.Random(8);
+	java.util.List<Point> keys = new java.util.ArrayList<Point>();
+	java.util.List<String> elements = new java.util.ArrayList<String>();
+	BinTreeIndex<Point, String> insertedBinTree = this.createBinTree(2);
+	for (int i = 0; i < 20000; i++) {
+	    // a coarse grid so many records share a key
+	    Point key = new Point(random.nextInt(400) * 0.25,
+		    random.nextInt(400) * 0.25);
+	    keys.add(key);
+	    elements.add("W" + i);
+	    insertedBinTree.insert(key, "W" + i);
+	}
+	String expectedPreorder = insertedBinTree.debugTraversal();
+
+	BinTreeIndex<Point, String> loadedBinTree = this.createBinTree(2);
+	loadedBinTree.bulkLoad(keys, elements, null);
+	assertEquals(20000, loadedBinTree.size());
+	assertEquals(expectedPreorder,
+		loadedBinTree.debugTraversal());
+
+	loadedBinTree.clear();
+	loadedBinTree.bulkLoad(keys, elements,
+		new java.util.concurrent.ForkJoinPool(4));
+	assertEquals(expectedPreorder,
+		loadedBinTree.debugTraversal());
+	assertTrue(loadedBinTree.remove(keys.get(7), "W7"));
+
+	try {
+	    loadedBinTree.bulkLoad(keys, elements, null);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertEquals("In method bulkLoad of class "
+		    + loadedBinTree.getClass().getSimpleName()
+		    + " the bin tree must be empty", expected.getMessage());
+	}
+    }
+
+    /**
+     * Asserts a bucket bin tree only splits a leaf node when it overflows.
+     */
+    public void test_insertWithLeafBuckets() {
+	BinTreeIndex<Point, String> bucketBinTree = this.createBinTree(2);
+
+	bucketBinTree.insert(new Point(10.0, 45.0), "A");
+	bucketBinTree.insert(new Point(30.0, 70.0), "B");
+	assertEquals("A\nB", bucketBinTree.debugTraversal().trim());
+
+	bucketBinTree.insert(new Point(52.0, 65.0), "C");
+	bucketBinTree.insert(new Point(55.0, 90.0), "D");
+	assertEquals("I\nA\nB\nC\nD", bucketBinTree.debugTraversal().trim());
+
+	bucketBinTree.insert(new Point(60.0, 70.0), "F");
+	assertEquals("I\nA\nB\nI\nE\nI\nI\nC\nF\nD\nE",
+		bucketBinTree.debugTraversal().trim());
+	assertEquals(5, bucketBinTree.size());
+    }
+
+    /**
+     * Assert records with the same key share a leaf node instead of splitting
+     * forever.
+     */
+    public void test_insertWithSameKey() {
+	BinTreeIndex<Point, String> bucketBinTree = this.createBinTree(2);
+
+	bucketBinTree.insert(new Point(10.0, 10.0), "A");
+	bucketBinTree.insert(new Point(10.0, 10.0), "B");
+	bucketBinTree.insert(new Point(10.0, 10.0), "C");
+	assertEquals("A\nB\nC", bucketBinTree.debugTraversal().trim());
+
+	bucketBinTree.insert(new Point(90.0, 90.0), "D");
+	assertEquals("I\nA\nB\nC\nD", bucketBinTree.debugTraversal().trim());
+	assertEquals("B", bucketBinTree.find(new Point(10.0, 10.0), "B"));
+	assertNull(bucketBinTree.find(new Point(10.0, 10.0), "D"));
+
+	// the classic bin tree also keeps records with the same key together
+	this.binTree.insert(new Point(10.0, 10.0), "A");
+	this.binTree.insert(new Point(10.0, 10.0), "B");
+	assertEquals("A\nB", this.binTree.debugTraversal().trim());
+    }
+
+    /**
+     * Assert insertIfAbsent builds the same index as findKey followed by
+     * insert and rejects the same records in every index.
+     */
+    public void test_insertIfAbsent() {
+	int[] leafBucketCapacities = { 1, 3 };
+	for (int capacity : leafBucketCapacities) {
+	    BinTree2D<Point, String> expectedBinTree =
+		    new BinTree2D<Point, String>(0.0, 100.0, 0.0, 100.0,
+			    capacity);
+	    BinTreeIndex<Point, String> testedBinTree =
+		    this.createBinTree(capacity);
+	    MortonIndex2D<Point, String> mortonIndex =
+		    new MortonIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0);
+	    GridIndex2D<Point, String> grid = new GridIndex2D<Point, String>(
+		    0.0, 100.0, 0.0, 100.0, 10.0);
+	    java.util.Random random = new java.util.Random(50 + capacity);
+	    for (int i = 0; i < 2000; i++) {
+		Point key = new Point(random.nextInt(40) * 2.5,
+			random.nextInt(40) * 2.5);
+		boolean isAbsent = !expectedBinTree.findKey(key);
+		if (isAbsent) {
+		    expectedBinTree.insert(key, "W" + i);
+		}
+		assertEquals(isAbsent, testedBinTree.insertIfAbsent(key, "W"
+			+ i));
+		assertEquals(isAbsent, mortonIndex.insertIfAbsent(key, "W"
+			+ i));
+		assertEquals(isAbsent, grid.insertIfAbsent(key, "W" + i));
+	    }
+	    assertEquals(expectedBinTree.debugTraversal(),
+		    testedBinTree.debugTraversal());
+	    assertEquals(expectedBinTree.size(), testedBinTree.size());
+	    assertEquals(expectedBinTree.size(), mortonIndex.size());
+	    assertEquals(expectedBinTree.size(), grid.size());
+	}
+    }
+
+    /**
+     * Assert a nearest neighbor search finds the same elements and distances
+     * as sorting every record by distance.
+     */
+    public void test_nearestNeighborSearch() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
+	int[] leafBucketCapacities = { 1, 4 };
+	for (int capacity : leafBucketCapacities) {
+	    BinTree2D<Point, String> bucketBinTree =
+		    new BinTree2D<Point, String>(0.0, 100.0, 0.0, 100.0,
+			    capacity);
+	    java.util.Random random = new java.util.Random(60 + capacity);
+	    Point[] keys = new Point[2000];
+	    for (int i = 0; i < keys.length; i++) {
+		keys[i] = new Point(random.nextInt(400) * 0.25,
+			random.nextInt(400) * 0.25);
+		bucketBinTree.insert(keys[i], "W" + i);
+	    }
+
+	    NearestNeighborBuffer<String> nearestElements =
+		    new NearestNeighborBuffer<String>();
+	    double[][] searchPoints = { { 50.0, 50.0 }, { 0.0, 0.0 },
+		    { 99.9, 12.3 }, { 150.0, -20.0 } };
+	    for (double[] searchPoint : searchPoints) {
+		int numberOfNodesVisited = bucketBinTree.nearestNeighborSearch(
+			searchPoint[0], searchPoint[1], 10, nearestElements);
+		assertTrue(numberOfNodesVisited > 0);
+		assertTrue(numberOfNodesVisited < keys.length / 4);
+
+		double[] distances = new double[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+		    distances[i] = Math.sqrt(Math.pow(keys[i].getX()
+			    - searchPoint[0], 2)
+			    + Math.pow(keys[i].getY() - searchPoint[1], 2));
+		}
+		java.util.Arrays.sort(distances);
+		assertEquals(10, nearestElements.size());
+		for (int i = 0; i < 10; i++) {
+		    assertEquals(distances[i], nearestElements.getDistance(i),
+			    1e-9);
+		    int record = Integer.parseInt(nearestElements.get(i)
+			    .substring(1));
+		    assertEquals(distances[i], Math.sqrt(Math.pow(
+			    keys[record].getX() - searchPoint[0], 2)
+			    + Math.pow(keys[record].getY() - searchPoint[1],
+				    2)), 1e-9);
+		}
+	    }
+	}
+
+	// asking for more elements than are stored finds all of them
+	objectBinTree.insert(new Point(10.0, 10.0), "A");
+	objectBinTree.insert(new Point(90.0, 90.0), "B");
+	objectBinTree.insert(new Point(20.0, 10.0), "C");
+	NearestNeighborBuffer<String> nearestElements =
+		new NearestNeighborBuffer<String>();
+	objectBinTree.nearestNeighborSearch(85.0, 90.0, 5, nearestElements);
+	assertEquals(3, nearestElements.size());
+	assertEquals("B", nearestElements.get(0));
+	assertEquals(5.0, nearestElements.getDistance(0), 0.0);
+	assertEquals("C", nearestElements.get(1));
+	assertEquals("A", nearestElements.get(2));
+
+	assertEquals(0, new BinTree2D<Point, String>(0.0, 100.0, 0.0, 100.0)
+		.nearestNeighborSearch(50.0, 50.0, 1, nearestElements));
+	assertEquals(0, nearestElements.size());
+	try {
+	    objectBinTree.nearestNeighborSearch(50.0, 50.0, 0, nearestElements);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(true);
+	}
+	try {
+	    new BinTree2D<Point, String>(0.0, 360.0, 0.0, 180.0, 1, true)
+		    .nearestNeighborSearch(50.0, 50.0, 1, nearestElements);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert leaf nodes at the maximum depth are not split, whether the
+     * records are inserted or bulk loaded.
+     */
+    public void test_maximumDepth() {
+	BinTreeIndex<Point, String> shallowBinTree = this.createBinTree(0.0,
+		100.0, 0.0, 100.0, 1, false, 4);
+	java.util.List<Point> keys = new java.util.ArrayList<Point>();
+	keys.add(new Point(10.0, 10.0));
+	keys.add(new Point(11.0, 11.0));
+	keys.add(new Point(12.0, 12.0));
+	keys.add(new Point(90.0, 90.0));
+	java.util.List<String> elements = java.util.Arrays.asList("A", "B",
+		"C", "D");
+	for (int i = 0; i < keys.size(); i++) {
+	    shallowBinTree.insert(keys.get(i), elements.get(i));
+	}
+	assertEquals(4, shallowBinTree.getMaximumDepth());
+	assertEquals("I\nI\nI\nI\nA\nB\nC\nE\nE\nE\nD",
+		shallowBinTree.debugTraversal().trim());
+
+	BinTreeIndex<Point, String> loadedBinTree = this.createBinTree(0.0,
+		100.0, 0.0, 100.0, 1, false, 4);
+	loadedBinTree.bulkLoad(keys, elements, null);
+	assertEquals(shallowBinTree.debugTraversal(),
+		loadedBinTree.debugTraversal());
+
+	assertTrue(shallowBinTree.remove(new Point(11.0, 11.0), "B"));
+	assertTrue(shallowBinTree.remove(new Point(12.0, 12.0), "C"));
+	assertEquals("I\nA\nD", shallowBinTree.debugTraversal().trim());
+
+	try {
+	    this.createBinTree(0.0, 100.0, 0.0, 100.0, 1, false, -1);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In constructor of class "
+		    + this.binTree.getClass().getSimpleName()
+		    + " the maximum depth must be at least 0",
+		    expected.getMessage());
+	}
+    }
+
+    /**
+     * Assert the depth histogram counts the leaf nodes holding records at
+     * each depth.
+     */
+    public void test_getLeafDepthHistogram() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
+	BinTree2D<Point, String> shallowBinTree = new BinTree2D<Point, String>(
+		0.0, 100.0, 0.0, 100.0, 1, false, 4);
+	shallowBinTree.insert(new Point(10.0, 10.0), "A");
+	shallowBinTree.insert(new Point(11.0, 11.0), "B");
+	shallowBinTree.insert(new Point(12.0, 12.0), "C");
+	shallowBinTree.insert(new Point(90.0, 90.0), "D");
+	assertEquals("[0, 1, 0, 0, 1]",
+		java.util.Arrays.toString(shallowBinTree
+			.getLeafDepthHistogram()));
+
+	assertTrue(shallowBinTree.remove(new Point(11.0, 11.0), "B"));
+	assertTrue(shallowBinTree.remove(new Point(12.0, 12.0), "C"));
+	assertEquals("[0, 2]", java.util.Arrays.toString(shallowBinTree
+		.getLeafDepthHistogram()));
+
+	// no split separates two keys outside of the world
+	objectBinTree.insert(new Point(200.0, 200.0), "E");
+	objectBinTree.insert(new Point(201.0, 201.0), "F");
+	int[] histogram = objectBinTree.getLeafDepthHistogram();
+	assertEquals(BinTree2D.DEFAULT_MAXIMUM_DEPTH + 1, histogram.length);
+	assertEquals(1, histogram[BinTree2D.DEFAULT_MAXIMUM_DEPTH]);
+	assertEquals(0, new BinTree2D<Point, String>(0.0, 100.0, 0.0, 100.0)
+		.getLeafDepthHistogram().length);
+    }
+
+    /**
+     * Assert leaf node buckets are merged back together when records are
+     * removed.
+     */
+    public void test_removeWithLeafBuckets() {
+	BinTreeIndex<Point, String> bucketBinTree = this.createBinTree(2);
+	bucketBinTree.insert(new Point(10.0, 45.0), "A");
+	bucketBinTree.insert(new Point(30.0, 70.0), "B");
+	bucketBinTree.insert(new Point(52.0, 65.0), "C");
+	bucketBinTree.insert(new Point(55.0, 90.0), "D");
+	bucketBinTree.insert(new Point(60.0, 70.0), "F");
+
+	assertTrue(bucketBinTree.remove(new Point(55.0, 90.0), "D"));
+	assertEquals("I\nA\nB\nC\nF", bucketBinTree.debugTraversal().trim());
+
+	assertTrue(bucketBinTree.remove(new Point(10.0, 45.0), "A"));
+	assertEquals("I\nB\nC\nF", bucketBinTree.debugTraversal().trim());
+
+	assertFalse(bucketBinTree.remove(new Point(52.0, 65.0), "Z"));
+	assertTrue(bucketBinTree.remove(new Point(52.0, 65.0), "C"));
+	assertEquals("B\nF", bucketBinTree.debugTraversal().trim());
+	assertEquals(2, bucketBinTree.size());
+    }
+
+    /**
+     * Assert pruning only the path of each removed record leaves the engine
+     * under test with the same tree as BinTree2D. Without buckets the shape
+     * of a bin tree depends only on its keys, so it is also the tree built
+     * from scratch from the records left.
+     */
+    public void test_removeChurn() {
+	int[] leafBucketCapacities = { 1, 3 };
+	for (int capacity : leafBucketCapacities) {
+	    BinTree2D<Point, String> objectBinTree =
+		    new BinTree2D<Point, String>(0.0, 100.0, 0.0, 100.0,
+			    capacity);
+	    BinTreeIndex<Point, String> testedBinTree =
+		    this.createBinTree(capacity);
+	    java.util.Random random = new java.util.Random(40 + capacity);
+	    java.util.List<Point> keys = new java.util.ArrayList<Point>();
+	    java.util.List<String> elements = new java.util.ArrayList<String>();
+	    for (int i = 0; i < 3000; i++) {
+		if (keys.isEmpty() || random.nextInt(5) < 3) {
+		    // only bucket leaf nodes may hold the same key twice
+		    Point key = capacity == 1 ? new Point(
+			    random.nextDouble() * 100.0,
+			    random.nextDouble() * 100.0) : new Point(
+			    random.nextInt(40) * 2.5, random.nextInt(40) * 2.5);
+		    keys.add(key);
+		    elements.add("W" + i);
+		    objectBinTree.insert(key, "W" + i);
+		    testedBinTree.insert(key, "W" + i);
+		} else {
+		    int record = random.nextInt(keys.size());
+		    assertTrue(objectBinTree.remove(keys.get(record),
+			    elements.get(record)));
+		    assertTrue(testedBinTree.remove(keys.get(record),
+			    elements.get(record)));
+		    keys.remove(record);
+		    elements.remove(record);
+		}
+		if (i % 100 == 0) {
+		    assertEquals(testedBinTree.debugTraversal(),
+			    objectBinTree.debugTraversal());
+		}
+		if (i % 500 == 0 && capacity == 1) {
+		    BinTree2D<Point, String> referenceBinTree =
+			    new BinTree2D<Point, String>(0.0, 100.0, 0.0,
+				    100.0, capacity);
+		    for (int j = 0; j < keys.size(); j++) {
+			referenceBinTree.insert(keys.get(j), elements.get(j));
+		    }
+		    assertEquals(referenceBinTree.debugTraversal(),
+			    objectBinTree.debugTraversal());
+		}
+	    }
+	    assertFalse(testedBinTree.remove(new Point(1.0, 1.0), "W0"));
+	    while (!keys.isEmpty()) {
+		Point key = keys.remove(0);
+		String element = elements.remove(0);
+		assertTrue(objectBinTree.remove(key, element));
+		assertTrue(testedBinTree.remove(key, element));
+	    }
+	    assertEquals("E\n", objectBinTree.debugTraversal());
+	    assertEquals(0, objectBinTree.size());
+	    assertEquals("E\n", testedBinTree.debugTraversal());
+	    assertEquals(0, testedBinTree.size());
+	}
+    }
+
+    /**
+     * Assert a bucket bin tree visits fewer nodes than the classic bin tree
+     * while finding the same records.
+     */
+    public void test_regionSearchWithLeafBuckets() {
+	BinTreeIndex<Point, String> bucketBinTree = this.createBinTree(2);
+	bucketBinTree.insert(new Point(10.0, 45.0), "A");
+	bucketBinTree.insert(new Point(30.0, 70.0), "B");
+	bucketBinTree.insert(new Point(52.0, 65.0), "C");
+	bucketBinTree.insert(new Point(55.0, 90.0), "D");
+
+	assertEquals("Watcher search caused 3 bintree nodes to be visited.",
+		bucketBinTree.regionSearch(50.0, 50.0, 5.0));
+	assertEquals("A\nB\nC\nD", this.outContent.toString().trim());
+    }
+
+    /**
+     * Assert a great circle region search reaches watchers across the 0/360
+     * longitude seam.
+     */
+    public void test_regionSearchGreatCircleAcrossSeam() {
+	BinTreeIndex<Point, String> sphereBinTree =
+		this.createSphereBinTree(1);
+	// longitudes 179.9 and -179.9 shifted by 180
+	sphereBinTree.insert(new Point(359.9, 90.0), "East");
+	sphereBinTree.insert(new Point(0.1, 90.0), "West");
+	sphereBinTree.insert(new Point(180.0, 90.0), "Far");
+
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	sphereBinTree.regionSearch(359.9, 90.0, 1.0, foundElements);
+	assertEquals(2, foundElements.size());
+	assertEquals("East", foundElements.get(0));
+	assertEquals("West", foundElements.get(1));
+
+	// the planar bin tree does not reach across the seam
+	this.binTree = this.createBinTree(0.0, 360.0, 0.0, 180.0, 1, false,
+		BinTree2D.DEFAULT_MAXIMUM_DEPTH);
+	this.binTree.insert(new Point(359.9, 90.0), "East");
+	this.binTree.insert(new Point(0.1, 90.0), "West");
+	foundElements.clear();
+	this.binTree.regionSearch(359.9, 90.0, 1.0, foundElements);
+	assertEquals(1, foundElements.size());
+    }
+
+    /**
+     * Assert a batch region search gives the elements of a great circle split
+     * at the 0/360 seam in the same order as searching it alone.
+     */
+    public void test_regionSearchBatchAcrossSeam() {
+	BinTreeIndex<Point, String> sphereBinTree =
+		this.createSphereBinTree(1);
+	java.util.Random random = new java.util.Random(5);
+	for (int i = 0; i < 2000; i++) {
+	    sphereBinTree.insert(new Point(random.nextDouble() * 360.0,
+		    random.nextDouble() * 180.0), "" + i);
+	}
+
+	double[] x = { 344.285, 180.0, 3.5 };
+	double[] y = { 79.676, 90.0, 120.0 };
+	double[] radius = { 21.89, 10.0, 15.0 };
+	final StringBuilder[] batchElements = new StringBuilder[3];
+	for (int i = 0; i < 3; i++) {
+	    batchElements[i] = new StringBuilder();
+	}
+	int[] numberOfNodesVisited = sphereBinTree.regionSearch(x, y, radius,
+		3, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			batchElements[queryIndex].append(element).append(' ');
+		    }
+		});
+
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	for (int i = 0; i < 3; i++) {
+	    foundElements.clear();
+	    assertEquals(sphereBinTree.regionSearch(x[i], y[i], radius[i],
+		    foundElements), numberOfNodesVisited[i]);
+	    StringBuilder expectedElements = new StringBuilder();
+	    for (int j = 0; j < foundElements.size(); j++) {
+		expectedElements.append(foundElements.get(j)).append(' ');
+	    }
+	    assertEquals(expectedElements.toString(),
+		    batchElements[i].toString());
+	}
+	assertTrue(batchElements[0].length() > 0);
+	assertTrue(batchElements[2].length() > 0);
+    }
+
+    /**
+     * Assert great circle distances near a pole are not distorted and a
+     * record in a leaf node searched by both boxes is found only once.
+     */
+    public void test_regionSearchGreatCircleNearPole() {
+	BinTreeIndex<Point, String> sphereBinTree =
+		this.createSphereBinTree(4);
+	// 5 degrees of arc from the north pole, on opposite sides of it
+	sphereBinTree.insert(new Point(10.0, 175.0), "A");
+	sphereBinTree.insert(new Point(190.0, 175.0), "B");
+	// 40 degrees of longitude away but only about 3.4 degrees of arc
+	sphereBinTree.insert(new Point(50.0, 175.0), "C");
+
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	sphereBinTree.regionSearch(10.0, 175.0, 4.0, foundElements);
+	assertEquals(2, foundElements.size());
+	assertEquals("A", foundElements.get(0));
+	assertEquals("C", foundElements.get(1));
+
+	foundElements.clear();
+	sphereBinTree.regionSearch(10.0, 175.0, 10.5, foundElements);
+	assertEquals(3, foundElements.size());
+
+	// a seam query over a single leaf node visits it once per box
+	foundElements.clear();
+	assertEquals(2, sphereBinTree.regionSearch(1.0, 100.0, 20.0,
+		foundElements));
+	assertEquals(0, foundElements.size());
+    }
+
+    /**
+     * Assert a great circle bin tree must cover the whole sphere.
+     */
+    public void test_greatCircleWorld() {
+	try {
+	    this.createBinTree(0.0, 100.0, 0.0, 100.0, 1, true,
+		    BinTree2D.DEFAULT_MAXIMUM_DEPTH);
+	    fail("should've thrown an exception!");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In constructor of class "
+		    + this.binTree.getClass().getSimpleName()
+		    + " a great circle bin tree must span 0 to 360 along the "
+		    + "x-axis and 0 to 180 along the y-axis",
+		    expected.getMessage());
+	}
+    }
+
     /**
      * Assert a bin tree can be correclty cleared.
      */
@@ -161,12 +1229,12 @@ public class BinTree2DTest extends junit.framework.TestCase {
 	this.binTree.insert(new Point(10.0, 45.0), "A");
 	this.binTree.insert(new Point(30.0, 70.0), "B");
 	assertEquals(2, this.binTree.size());
-	assertFalse(this.binTree.getRootNode() instanceof BinTreeEmptyNode<?>);
+	assertFalse("E\n".equals(this.binTree.debugTraversal()));
 
 	this.binTree.clear();
 
 	assertEquals(0, this.binTree.size());
-	assertTrue(this.binTree.getRootNode() instanceof BinTreeEmptyNode<?>);
+	assertEquals("E\n", this.binTree.debugTraversal());
     }
 
     /**
@@ -210,15 +1278,19 @@ public class BinTree2DTest extends junit.framework.TestCase {
      * method will create an incorrect preorder print out.
      */
     public void test_preorderTraversal() {
+	BinTree2D<Point, String> objectBinTree = this.getObjectBinTree();
+	if (objectBinTree == null) {
+	    return;
+	}
 	assertEquals("E",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
+		objectBinTree.preorderTraversal(objectBinTree.getRootNode())
 			.trim());
 
 	BinTreeNode<String> rootNode = new BinTreeInternalNode<String>();
-	this.binTree.setRootNode(rootNode);
+	objectBinTree.setRootNode(rootNode);
 
 	assertEquals("I\nE\nE",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
+		objectBinTree.preorderTraversal(objectBinTree.getRootNode())
 			.trim());
 
 	BinTreeInternalNode<String> internalRootNode = ((BinTreeInternalNode<String>) rootNode);
@@ -230,7 +1302,7 @@ public class BinTree2DTest extends junit.framework.TestCase {
 		.getLeftChild();
 
 	assertEquals("I\nI\nE\nE\nE",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
+		objectBinTree.preorderTraversal(objectBinTree.getRootNode())
 			.trim());
 
 	internalRootNodeLeftChild
@@ -241,7 +1313,7 @@ public class BinTree2DTest extends junit.framework.TestCase {
 			30.0, 70.0), "B"));
 
 	assertEquals("I\nI\nA\nB\nE",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
+		objectBinTree.preorderTraversal(objectBinTree.getRootNode())
 			.trim());
 
 	// Set C & D correctly in right subtree of rootNode by first creating
@@ -252,14 +1324,14 @@ public class BinTree2DTest extends junit.framework.TestCase {
 		.getRightChild();
 
 	assertEquals("I\nI\nA\nB\nI\nE\nE",
-		this.binTree.preorderTraversal(this.binTree.getRootNode())
+		objectBinTree.preorderTraversal(objectBinTree.getRootNode())
 			.trim());
 
 	internalRootNodeRightChild
 		.setRightChild(new BinTreeInternalNode<String>());
 
-	assertEquals("I\nI\nA\nB\nI\nE\nI\nE\nE", this.binTree
-		.preorderTraversal(this.binTree.getRootNode()).trim());
+	assertEquals("I\nI\nA\nB\nI\nE\nI\nE\nE", objectBinTree
+		.preorderTraversal(objectBinTree.getRootNode()).trim());
 
 	BinTreeInternalNode<String> internalRootNodeRightRightChild = (BinTreeInternalNode<String>) internalRootNodeRightChild
 		.getRightChild();
@@ -267,8 +1339,8 @@ public class BinTree2DTest extends junit.framework.TestCase {
 	internalRootNodeRightRightChild
 		.setLeftChild(new BinTreeInternalNode<String>());
 
-	assertEquals("I\nI\nA\nB\nI\nE\nI\nI\nE\nE\nE", this.binTree
-		.preorderTraversal(this.binTree.getRootNode()).trim());
+	assertEquals("I\nI\nA\nB\nI\nE\nI\nI\nE\nE\nE", objectBinTree
+		.preorderTraversal(objectBinTree.getRootNode()).trim());
 
 	BinTreeInternalNode<String> internalRootNodeRightRightLeftChild = (BinTreeInternalNode<String>) internalRootNodeRightRightChild
 		.getLeftChild();
@@ -281,7 +1353,7 @@ public class BinTree2DTest extends junit.framework.TestCase {
 		.setRightChild(new BinTreeLeafNode<Point, String>(new Point(
 			55.0, 90.0), "D"));
 
-	assertEquals("I\nI\nA\nB\nI\nE\nI\nI\nC\nD\nE", this.binTree
-		.preorderTraversal(this.binTree.getRootNode()).trim());
+	assertEquals("I\nI\nA\nB\nI\nE\nI\nI\nC\nD\nE", objectBinTree
+		.preorderTraversal(objectBinTree.getRootNode()).trim());
     }
 }
@@ -1,4 +1,7 @@
 package dataStructures;
+
+import customDataStructures.Point;
+
 /**
  * This class tests all logic within class BinTreeInternalNode.
  *
@@ -24,4 +27,27 @@ public class BinTreeInternalNodeTest extends junit.framework.TestCase {
 		+ "\n========================="
 		+ "\n==========================", this.internalNode.toString());
     }
-}
\ No newline at end of file
+
+    /**
+     * Assert the subtree sizes follow the children that are set.
+     */
+    public void test_getSubtreeNumberOfRecords() {
+	assertEquals(0, this.internalNode.getSubtreeNumberOfRecords());
+	assertEquals(3, this.internalNode.getSubtreeNumberOfNodes());
+
+	BinTreeLeafNode<Point, String> leafNode =
+		new BinTreeLeafNode<Point, String>(new Point(1.0, 2.0), "A", 4);
+	leafNode.addRecord(new Point(1.0, 2.0), "B");
+	BinTreeInternalNode<String> childNode =
+		new BinTreeInternalNode<String>();
+	childNode.setLeftChild(leafNode);
+	this.internalNode.setRightChild(childNode);
+	assertEquals(2, this.internalNode.getSubtreeNumberOfRecords());
+	assertEquals(5, this.internalNode.getSubtreeNumberOfNodes());
+
+	this.internalNode.setLeftChild(
+		new BinTreeLeafNode<Point, String>(new Point(3.0, 4.0), "C"));
+	assertEquals(3, this.internalNode.getSubtreeNumberOfRecords());
+	assertEquals(5, this.internalNode.getSubtreeNumberOfNodes());
+    }
+}
@@ -28,4 +28,25 @@ public class BinTreeLeafNodeTest extends junit.framework.TestCase {
 
 	assertEquals("B", this.leafNode.toString());
     }
+
+    /**
+     * Assert records can be added to and removed from the leaf node bucket
+     * in order.
+     */
+    public void test_records() {
+	this.leafNode.addRecord(new Point(3.0, 4.0), "B");
+	this.leafNode.addRecord(new Point(1.0, 2.0), "C");
+	assertEquals(3, this.leafNode.getNumberOfRecords());
+	assertEquals("A\nB\nC", this.leafNode.toString());
+
+	assertEquals(1, this.leafNode.indexOfRecord(new Point(3.0, 4.0), "B"));
+	assertEquals(-1, this.leafNode.indexOfRecord(new Point(3.0, 4.0), "A"));
+	assertEquals(0, this.leafNode.indexOfKey(new Point(1.0, 2.0)));
+	assertFalse(this.leafNode.isHoldingOnlyKey(new Point(1.0, 2.0)));
+
+	this.leafNode.removeRecord(1);
+	assertEquals("A\nC", this.leafNode.toString());
+	assertTrue(this.leafNode.isHoldingOnlyKey(new Point(1.0, 2.0)));
+	assertEquals("C", this.leafNode.getElement(1));
+    }
 }
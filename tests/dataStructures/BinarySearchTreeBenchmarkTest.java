@@ -0,0 +1,128 @@
+package dataStructures;
+/**
+ * Benchmarks of the binary search tree that assert on how many key
+ * comparisons an operation costs rather than on wall clock time, and that a
+ * degenerate tree is handled without running out of stack.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class BinarySearchTreeBenchmarkTest extends junit.framework.TestCase {
+    private BinarySearchTree<CountedKey, String> BST;
+
+    /**
+     * A key that counts how often it is compared.
+     */
+    private static class CountedKey implements Comparable<CountedKey> {
+	private static int numberOfComparisons;
+	private final int value;
+
+	CountedKey(int value) {
+	    this.value = value;
+	}
+
+	@Override
+	public int compareTo(CountedKey otherKey) {
+	    numberOfComparisons++;
+	    return this.value < otherKey.value ? -1
+		    : (this.value == otherKey.value ? 0 : 1);
+	}
+    }
+
+    public void setUp() {
+	// a complete binary search tree of 4 levels with 7 at the root
+	java.util.List<CountedKey> keys = new java.util.ArrayList<CountedKey>();
+	java.util.List<String> elements = new java.util.ArrayList<String>();
+	for (int i = 0; i < 15; i++) {
+	    keys.add(new CountedKey(i));
+	    elements.add("e" + i);
+	}
+	this.BST = new BinarySearchTree<CountedKey, String>();
+	this.BST.bulkLoad(keys, elements, null);
+	CountedKey.numberOfComparisons = 0;
+    }
+
+    /**
+     * Assert a find compares the key once per node on its path. Comparing
+     * twice per node when going right, as a recursive find that first tests
+     * for less and then for equal does, would take 71 comparisons.
+     */
+    public void test_findComparisons() {
+	for (int i = 0; i < 15; i++) {
+	    assertEquals("e" + i, this.BST.find(new CountedKey(i)));
+	}
+	// 1 key at depth 0, 2 at depth 1, 4 at depth 2 and 8 at depth 3
+	assertEquals(1 * 1 + 2 * 2 + 4 * 3 + 8 * 4,
+		CountedKey.numberOfComparisons);
+
+	CountedKey.numberOfComparisons = 0;
+	assertNull(this.BST.find(new CountedKey(15)));
+	assertEquals(4, CountedKey.numberOfComparisons);
+    }
+
+    /**
+     * Assert a remove finds and unlinks its node in a single descent instead
+     * of finding the node first and then descending again to remove it.
+     */
+    public void test_removeComparisons() {
+	// a node without children at depth 3
+	assertEquals("e14", this.BST.remove(new CountedKey(14)));
+	assertEquals(4, CountedKey.numberOfComparisons);
+
+	// the root is replaced by the greatest node of its left subtree
+	// without comparing any more keys
+	CountedKey.numberOfComparisons = 0;
+	assertEquals("e7", this.BST.remove(new CountedKey(7)));
+	assertEquals(1, CountedKey.numberOfComparisons);
+	assertEquals(6, this.BST.getRootNode().getKey().value);
+
+	CountedKey.numberOfComparisons = 0;
+	assertNull(this.BST.remove(new CountedKey(7)));
+	assertEquals(4, CountedKey.numberOfComparisons);
+	assertEquals(13, this.BST.size());
+
+	CountedKey.numberOfComparisons = 0;
+	assertEquals("e6", this.BST.removeRandomElement());
+	assertEquals(0, CountedKey.numberOfComparisons);
+    }
+
+    /**
+     * Assert a tree of names inserted in sorted order, which is as deep as
+     * it is large, can be changed and searched on a thread with a small
+     * stack. A recursive descent needs a stack frame per level and runs out
+     * of stack long before the deepest name.
+     */
+    public void test_degenerateTree() throws InterruptedException {
+	final int numberOfNames = 20000;
+	final BinarySearchTree<String, String> degenerateBST =
+		new BinarySearchTree<String, String>();
+	final Throwable[] thrown = new Throwable[1];
+	Thread thread = new Thread(null, new Runnable() {
+	    @Override
+	    public void run() {
+		try {
+		    for (int i = 0; i < numberOfNames; i++) {
+			String name = String.format("W%05d", i);
+			degenerateBST.insert(name, name);
+		    }
+		    String deepestName = String.format("W%05d",
+			    numberOfNames - 1);
+		    assertEquals(deepestName, degenerateBST.find(deepestName));
+		    assertEquals(deepestName, degenerateBST.putIfAbsent(
+			    deepestName, "again"));
+		    assertEquals(deepestName, degenerateBST
+			    .remove(deepestName));
+		    assertNull(degenerateBST.find(deepestName));
+		    assertEquals("W00000", degenerateBST.removeRandomElement());
+		    assertEquals("W10000", degenerateBST.remove("W10000"));
+		} catch (Throwable throwable) {
+		    thrown[0] = throwable;
+		}
+	    }
+	}, "degenerate tree", 256 * 1024);
+	thread.start();
+	thread.join();
+	assertTrue(String.valueOf(thrown[0]), thrown[0] == null);
+	assertEquals(numberOfNames - 3, degenerateBST.size());
+    }
+}
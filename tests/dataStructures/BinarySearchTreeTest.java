@@ -11,14 +11,14 @@ public class BinarySearchTreeTest extends junit.framework.TestCase {
     public void setUp() {
 	this.BST = new BinarySearchTree<Integer, String>();
 	// insert the nodes in this order to create a well balanced tree
-	this.BST.insert(new Integer(4), "four");
-	this.BST.insert(new Integer(3), "three");
-	this.BST.insert(new Integer(6), "six");
-	this.BST.insert(new Integer(1), "one");
-	this.BST.insert(new Integer(2), "two");
-	this.BST.insert(new Integer(5), "five");
-	this.BST.insert(new Integer(7), "seven");
-	this.BST.insert(new Integer(0), "zero");
+	this.BST.insert(4, "four");
+	this.BST.insert(3, "three");
+	this.BST.insert(6, "six");
+	this.BST.insert(1, "one");
+	this.BST.insert(2, "two");
+	this.BST.insert(5, "five");
+	this.BST.insert(7, "seven");
+	this.BST.insert(0, "zero");
     }
 
     /**
@@ -36,18 +36,40 @@ public class BinarySearchTreeTest extends junit.framework.TestCase {
 	assertEquals(8, this.BST.size());
     }
 
+    /**
+     * Assert putIfAbsent gives back the existing element of a key and links
+     * a new node where insert would.
+     */
+    public void test_putIfAbsent() {
+	assertEquals("four", this.BST.putIfAbsent(4, "again"));
+	assertEquals("zero", this.BST.putIfAbsent(0, "again"));
+	assertEquals(8, this.BST.size());
+
+	assertNull(this.BST.putIfAbsent(8, "eight"));
+	assertNull(this.BST.putIfAbsent(-1, "minus one"));
+	assertEquals(10, this.BST.size());
+	assertEquals("........minus one\n......zero\n....one\n......two\n"
+		+ "..three\nfour\n....five\n..six\n....seven\n......eight",
+		this.BST.inorderTraversal(this.BST.getRootNode(), 0).trim());
+
+	this.BST.clear();
+	assertNull(this.BST.putIfAbsent(1, "one"));
+	assertEquals("one", this.BST.putIfAbsent(1, "again"));
+	assertEquals(1, this.BST.size());
+    }
+
     /**
      * Assert clear sets size of binary search tree correctly.
      */
     public void test_remove() {
-	assertEquals("zero", this.BST.remove(new Integer(0)));
-	assertEquals("one", this.BST.remove(new Integer(1)));
-	assertEquals("two", this.BST.remove(new Integer(2)));
-	assertEquals("three", this.BST.remove(new Integer(3)));
-	assertEquals("four", this.BST.remove(new Integer(4)));
-	assertEquals("five", this.BST.remove(new Integer(5)));
-	assertEquals("six", this.BST.remove(new Integer(6)));
-	assertEquals("seven", this.BST.remove(new Integer(7)));
+	assertEquals("zero", this.BST.remove(0));
+	assertEquals("one", this.BST.remove(1));
+	assertEquals("two", this.BST.remove(2));
+	assertEquals("three", this.BST.remove(3));
+	assertEquals("four", this.BST.remove(4));
+	assertEquals("five", this.BST.remove(5));
+	assertEquals("six", this.BST.remove(6));
+	assertEquals("seven", this.BST.remove(7));
     }
 
     /**
@@ -68,14 +90,14 @@ public class BinarySearchTreeTest extends junit.framework.TestCase {
      * Assert find correclty returns the found value.
      */
     public void test_find() {
-	assertEquals("zero", this.BST.find(new Integer(0)));
-	assertEquals("one", this.BST.find(new Integer(1)));
-	assertEquals("two", this.BST.find(new Integer(2)));
-	assertEquals("three", this.BST.find(new Integer(3)));
-	assertEquals("four", this.BST.find(new Integer(4)));
-	assertEquals("five", this.BST.find(new Integer(5)));
-	assertEquals("six", this.BST.find(new Integer(6)));
-	assertEquals("seven", this.BST.find(new Integer(7)));
+	assertEquals("zero", this.BST.find(0));
+	assertEquals("one", this.BST.find(1));
+	assertEquals("two", this.BST.find(2));
+	assertEquals("three", this.BST.find(3));
+	assertEquals("four", this.BST.find(4));
+	assertEquals("five", this.BST.find(5));
+	assertEquals("six", this.BST.find(6));
+	assertEquals("seven", this.BST.find(7));
     }
 
     /**
@@ -89,15 +111,15 @@ public class BinarySearchTreeTest extends junit.framework.TestCase {
      * Assert insertHelp() correctly inserts String elements with Integer keys.
      */
     public void test_insertHelp() {
-	assertEquals(10, this.BST.insertHelp(null, new Integer(10), "ten")
-		.getKey().intValue());
+	assertEquals(10, this.BST.insertHelp(null, 10, "ten").getKey()
+		.intValue());
     }
 
     /**
      * Assert removeHelp() return the correct value for null parameters.
      */
     public void test_removeHelp() {
-	assertNull(this.BST.removeHelp(null, new Integer(0)));
+	assertNull(this.BST.removeHelp(null, 0));
     }
 
     /**
@@ -130,6 +152,40 @@ public class BinarySearchTreeTest extends junit.framework.TestCase {
 			.trim());
     }
 
+    /**
+     * Assert the inorder traversal of a tree built from sorted keys, as deep
+     * as it has nodes, does not overflow a small call stack.
+     */
+    public void test_inorderTraversalOfSortedKeys()
+	    throws InterruptedException {
+	this.BST.clear();
+	for (int i = 0; i < 2000; i++) {
+	    this.BST.insert(i, "n");
+	}
+	final String[] traversal = new String[1];
+	final Throwable[] error = new Throwable[1];
+	Thread thread = new Thread(null, new Runnable() {
+	    @Override
+	    public void run() {
+		try {
+		    traversal[0] = BinarySearchTreeTest.this.BST
+			    .inorderTraversal(
+				    BinarySearchTreeTest.this.BST.getRootNode(),
+				    0);
+		} catch (StackOverflowError e) {
+		    error[0] = e;
+		}
+	    }
+	}, "inorderTraversal", 256 * 1024);
+	thread.start();
+	thread.join();
+
+	assertNull(error[0]);
+	// the node of key i is printed at depth i
+	assertEquals(2000 * 2000 + 2000, traversal[0].length());
+	assertTrue(traversal[0].startsWith("n\n..n\n....n\n"));
+    }
+
     /**
      * Assert isLeaf of the BST node class works correctly.
      */
@@ -140,4 +196,36 @@ public class BinarySearchTreeTest extends junit.framework.TestCase {
 	assertTrue(this.BST.getRootNode().getLeftChild().getLeftChild()
 		.getLeftChild().isLeaf());
     }
+
+    /**
+     * Assert a bulk loaded binary search tree is balanced and holds every
+     * record.
+     */
+    public void test_bulkLoad() {
+	java.util.List<Integer> keys = new java.util.ArrayList<Integer>();
+	java.util.List<String> elements = new java.util.ArrayList<String>();
+	for (int i = 0; i < 7; i++) {
+	    // inserting in this order would build a linked list
+	    keys.add(6 - i);
+	    elements.add("e" + (6 - i));
+	}
+	this.BST.bulkLoad(keys, elements, null);
+
+	assertEquals(7, this.BST.size());
+	assertEquals("....e0\n..e1\n....e2\ne3\n....e4\n..e5\n....e6\n",
+		this.BST.inorderTraversal(this.BST.getRootNode(), 0));
+	assertEquals("e2", this.BST.find(2));
+	assertEquals("e3", this.BST.remove(3));
+	assertNull(this.BST.find(3));
+
+	keys.add(4);
+	elements.add("again");
+	try {
+	    this.BST.bulkLoad(keys, elements, null);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In method bulkLoad of class BinarySearchTree the "
+		    + "key 4 is duplicated", expected.getMessage());
+	}
+    }
 }
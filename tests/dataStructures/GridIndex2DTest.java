@@ -0,0 +1,231 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class GridIndex2DTest extends junit.framework.TestCase {
+    private GridIndex2D<Point, String> grid;
+
+    public void setUp() {
+	this.grid = new GridIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0,
+		10.0);
+    }
+
+    /**
+     * Assert points are bucketed row by row and points on or outside of the
+     * world's edges are given the nearest cell.
+     */
+    public void test_getCell() {
+	assertEquals(0, this.grid.getCell(0.0, 0.0));
+	assertEquals(1, this.grid.getCell(10.0, 9.9));
+	assertEquals(10, this.grid.getCell(9.9, 10.0));
+	assertEquals(99, this.grid.getCell(100.0, 100.0));
+	assertEquals(0, this.grid.getCell(-5.0, -5.0));
+	assertEquals(99, this.grid.getCell(150.0, 150.0));
+
+	try {
+	    new GridIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0, 0.0);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In constructor of class GridIndex2D the cell size "
+		    + "must be greater than 0", expected.getMessage());
+	}
+    }
+
+    /**
+     * Assert records are kept in cell order and can be found and removed.
+     */
+    public void test_insertFindAndRemove() {
+	this.grid.insert(new Point(55.0, 90.0), "D");
+	this.grid.insert(new Point(10.0, 45.0), "A");
+	this.grid.insert(new Point(52.0, 65.0), "C");
+	this.grid.insert(new Point(30.0, 45.0), "B");
+	this.grid.insert(new Point(10.0, 45.0), "A2");
+	this.grid.insert(new Point(11.0, 46.0), "A3");
+	assertEquals(6, this.grid.size());
+	assertEquals("A\nA2\nA3\nB\nC\nD", this.grid.cellOrderTraversal()
+		.trim());
+
+	assertEquals("C", this.grid.find(new Point(52.0, 65.0), "C"));
+	assertNull(this.grid.find(new Point(52.0, 65.0), "Z"));
+	assertNull(this.grid.find(new Point(52.0, 65.1), "C"));
+	assertTrue(this.grid.findKey(new Point(30.0, 45.0)));
+	assertFalse(this.grid.findKey(new Point(30.0, 45.5)));
+
+	assertTrue(this.grid.remove(new Point(10.0, 45.0), "A"));
+	assertFalse(this.grid.remove(new Point(10.0, 45.0), "A"));
+	assertEquals("A2\nA3\nB\nC\nD", this.grid.cellOrderTraversal().trim());
+	assertEquals(5, this.grid.size());
+
+	this.grid.clear();
+	assertEquals(0, this.grid.size());
+	assertFalse(this.grid.findKey(new Point(30.0, 45.0)));
+	assertEquals("", this.grid.debugTraversal());
+    }
+
+    /**
+     * Assert a region search finds the same elements as a bin tree search and
+     * visits every cell the search box overlaps.
+     */
+    public void test_regionSearch() {
+	BinTree2D<Point, String> binTree = new BinTree2D<Point, String>(0.0,
+		100.0, 0.0, 100.0);
+	Random random = new Random(20);
+	for (int i = 0; i < 5000; i++) {
+	    Point key = new Point(random.nextDouble() * 100.0,
+		    random.nextDouble() * 100.0);
+	    this.grid.insert(key, "W" + i);
+	    binTree.insert(key, "W" + i);
+	}
+
+	double[][] circles = { { 50.0, 50.0, 16.0 }, { 0.0, 0.0, 7.0 },
+		{ 99.0, 20.0, 3.0 }, { 50.0, 50.0, 250.0 } };
+	for (int i = 0; i < circles.length; i++) {
+	    assertFoundSameElements(binTree, this.grid, circles[i]);
+	}
+
+	// the box from (45, 45) to (55, 55) overlaps 4 cells
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	GridIndex2D<Point, String> smallGrid = new GridIndex2D<Point, String>(
+		0.0, 100.0, 0.0, 100.0, 10.0);
+	smallGrid.insert(new Point(52.0, 52.0), "A");
+	smallGrid.insert(new Point(41.0, 41.0), "B");
+	assertEquals(4 + 2, smallGrid.regionSearch(50.0, 50.0, 5.0,
+		foundElements));
+	assertEquals(1, foundElements.size());
+	assertEquals("A", foundElements.get(0));
+
+	// a search outside of the world visits nothing
+	foundElements.clear();
+	assertEquals(0, this.grid.regionSearch(300.0, 300.0, 1.0,
+		foundElements));
+	assertEquals(0, foundElements.size());
+    }
+
+    /**
+     * Assert a great circle region search reaches across the 0/360 seam and
+     * over the poles.
+     */
+    public void test_regionSearchGreatCircle() {
+	GridIndex2D<Point, String> sphereGrid = new GridIndex2D<Point, String>(
+		0.0, 360.0, 0.0, 180.0, 5.0, true);
+	BinTree2D<Point, String> sphereBinTree = new BinTree2D<Point, String>(
+		0.0, 360.0, 0.0, 180.0, 1, true);
+	Random random = new Random(21);
+	for (int i = 0; i < 5000; i++) {
+	    Point key = new Point(random.nextDouble() * 360.0,
+		    random.nextDouble() * 180.0);
+	    sphereGrid.insert(key, "W" + i);
+	    sphereBinTree.insert(key, "W" + i);
+	}
+	assertFoundSameElements(sphereBinTree, sphereGrid, new double[] {
+		359.0, 100.0, 10.0 });
+	assertFoundSameElements(sphereBinTree, sphereGrid, new double[] {
+		30.0, 175.0, 12.0 });
+
+	try {
+	    new GridIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0, 5.0, true);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert a batch region search finds the same elements and visits the
+     * same number of nodes as searching the circles one at a time.
+     */
+    public void test_regionSearchBatch() {
+	Random random = new Random(22);
+	for (int i = 0; i < 2000; i++) {
+	    this.grid.insert(new Point(random.nextDouble() * 100.0, random
+		    .nextDouble() * 100.0), "W" + i);
+	}
+	double[] x = { 20.0, 80.0, 50.0 };
+	double[] y = { 20.0, 10.0, 50.0 };
+	double[] radius = { 5.0, 12.0, 2.0 };
+	final List<RegionSearchBuffer<String>> batchElements =
+		new ArrayList<RegionSearchBuffer<String>>();
+	for (int i = 0; i < x.length; i++) {
+	    batchElements.add(new RegionSearchBuffer<String>());
+	}
+	int[] numberOfNodesVisited = this.grid.regionSearch(x, y, radius,
+		x.length, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			batchElements.get(queryIndex).visit(element);
+		    }
+		});
+
+	for (int i = 0; i < x.length; i++) {
+	    RegionSearchBuffer<String> foundElements =
+		    new RegionSearchBuffer<String>();
+	    assertEquals(this.grid.regionSearch(x[i], y[i], radius[i],
+		    foundElements), numberOfNodesVisited[i]);
+	    assertTrue(foundElements.size() > 0);
+	    assertEquals(sorted(foundElements), sorted(batchElements.get(i)));
+	}
+    }
+
+    /**
+     * Assert a bulk load gives the same order as inserting one at a time.
+     */
+    public void test_bulkLoad() {
+	List<Point> keys = new ArrayList<Point>();
+	List<String> elements = new ArrayList<String>();
+	Random random = new Random(23);
+	for (int i = 0; i < 1000; i++) {
+	    Point key = new Point(random.nextInt(20) * 5.0,
+		    random.nextInt(20) * 5.0);
+	    keys.add(key);
+	    elements.add("W" + i);
+	    this.grid.insert(key, "W" + i);
+	}
+	GridIndex2D<Point, String> loadedGrid = new GridIndex2D<Point, String>(
+		0.0, 100.0, 0.0, 100.0, 10.0);
+	loadedGrid.bulkLoad(keys, elements, null);
+	assertEquals(1000, loadedGrid.size());
+	assertEquals(this.grid.cellOrderTraversal(),
+		loadedGrid.cellOrderTraversal());
+
+	try {
+	    loadedGrid.bulkLoad(keys, elements, null);
+	    fail("should have thrown an exception");
+	} catch (IllegalStateException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    private static void assertFoundSameElements(
+	    BinTree2D<Point, String> binTree, GridIndex2D<Point, String> grid,
+	    double[] circle) {
+	RegionSearchBuffer<String> binTreeElements =
+		new RegionSearchBuffer<String>();
+	RegionSearchBuffer<String> gridElements =
+		new RegionSearchBuffer<String>();
+	binTree.regionSearch(circle[0], circle[1], circle[2],
+		binTreeElements);
+	assertTrue(grid.regionSearch(circle[0], circle[1], circle[2],
+		gridElements) >= gridElements.size());
+	assertTrue(binTreeElements.size() > 0);
+	assertEquals(sorted(binTreeElements), sorted(gridElements));
+    }
+
+    private static String sorted(RegionSearchBuffer<String> buffer) {
+	String[] elements = new String[buffer.size()];
+	for (int i = 0; i < elements.length; i++) {
+	    elements[i] = buffer.get(i);
+	}
+	Arrays.sort(elements);
+	return Arrays.toString(elements);
+    }
+}
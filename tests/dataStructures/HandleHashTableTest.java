@@ -0,0 +1,123 @@
+package dataStructures;
+/**
+ * This class tests all logic within class HandleHashTable.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class HandleHashTableTest extends junit.framework.TestCase {
+    private HandleHashTable table;
+
+    /**
+     * The key of each handle.
+     */
+    private String[] keys;
+
+    /**
+     * Matches the handles whose key is the key being looked up.
+     */
+    private String searchKey;
+    private HandleMatcher keyMatcher = new HandleMatcher() {
+	@Override
+	public boolean isMatch(int handle) {
+	    return keys[handle].equals(searchKey);
+	}
+    };
+
+    public void setUp() {
+	this.table = new HandleHashTable(0);
+	this.keys = new String[] { "Quinn", "Byron", "Sam", "Riley" };
+	for (int i = 0; i < 3; i++) {
+	    this.table.insert(this.keys[i].hashCode(), i);
+	}
+    }
+
+    private int find(String key) {
+	this.searchKey = key;
+	return this.table.find(key.hashCode(), this.keyMatcher);
+    }
+
+    /**
+     * Assert handles are found, inserted and removed by key.
+     */
+    public void test_putIfAbsent() {
+	assertEquals(1, this.find("Byron"));
+	assertEquals(HandleHashTable.NO_HANDLE, this.find("Riley"));
+	this.searchKey = "Quinn";
+	assertEquals(0, this.table.putIfAbsent("Quinn".hashCode(), 3,
+		this.keyMatcher));
+	this.searchKey = "Riley";
+	assertEquals(HandleHashTable.NO_HANDLE, this.table.putIfAbsent(
+		"Riley".hashCode(), 3, this.keyMatcher));
+	assertEquals(3, this.find("Riley"));
+	assertEquals(4, this.table.size());
+
+	this.searchKey = "Byron";
+	assertEquals(1, this.table.remove("Byron".hashCode(),
+		this.keyMatcher));
+	assertEquals(HandleHashTable.NO_HANDLE, this.table.remove(
+		"Byron".hashCode(), this.keyMatcher));
+	this.table.removeHandle("Sam".hashCode(), 2);
+	assertEquals(HandleHashTable.NO_HANDLE, this.find("Sam"));
+	assertEquals(2, this.table.size());
+
+	this.table.clear();
+	assertEquals(0, this.table.size());
+	assertEquals(HandleHashTable.NO_HANDLE, this.find("Quinn"));
+    }
+
+    /**
+     * Assert a replaced handle is found in place of the old one and a
+     * handle that is not in the table is rejected.
+     */
+    public void test_replaceHandle() {
+	this.keys = new String[] { "Quinn", "Byron", "Sam", "Byron" };
+	this.table.replaceHandle("Byron".hashCode(), 1, 3);
+	assertEquals(3, this.find("Byron"));
+	try {
+	    this.table.removeHandle("Byron".hashCode(), 1);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In method findHandleSlot of class HandleHashTable "
+		    + "the handle 1 is not in the table",
+		    expected.getMessage());
+	}
+    }
+
+    /**
+     * Assert handles that collide are still found after handles before them
+     * in their cluster are removed and after the table grows.
+     */
+    public void test_removeWithCollisions() {
+	this.table.clear();
+	this.keys = new String[40];
+	for (int i = 0; i < this.keys.length; i++) {
+	    // two groups of keys, each group sharing a home slot
+	    this.keys[i] = "K" + i;
+	    this.searchKey = this.keys[i];
+	    assertEquals(HandleHashTable.NO_HANDLE, this.table.putIfAbsent(
+		    i % 2, i, this.keyMatcher));
+	}
+	assertTrue(this.table.getCapacity() >= 64);
+	this.table.removeHandle(0, 0);
+	this.table.removeHandle(1, 3);
+	this.table.removeHandle(0, 4);
+	for (int i = 0; i < this.keys.length; i++) {
+	    this.searchKey = this.keys[i];
+	    int handle = this.table.find(i % 2, this.keyMatcher);
+	    if (i == 0 || i == 3 || i == 4) {
+		assertEquals(HandleHashTable.NO_HANDLE, handle);
+	    } else {
+		assertEquals(i, handle);
+	    }
+	}
+	assertEquals(37, this.table.size());
+
+	try {
+	    new HandleHashTable(-1);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(true);
+	}
+    }
+}
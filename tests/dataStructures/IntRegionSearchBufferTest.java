@@ -0,0 +1,46 @@
+package dataStructures;
+/**
+ * This class tests all logic within class IntRegionSearchBuffer.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class IntRegionSearchBufferTest extends junit.framework.TestCase {
+    private IntRegionSearchBuffer buffer;
+
+    public void setUp() {
+	this.buffer = new IntRegionSearchBuffer();
+    }
+
+    /**
+     * Assert visited handles are kept in order and the buffer grows.
+     */
+    public void test_visit() {
+	for (int i = 0; i < 100; i++) {
+	    this.buffer.visit(i * 3);
+	}
+	assertEquals(100, this.buffer.size());
+	assertEquals(0, this.buffer.get(0));
+	assertEquals(297, this.buffer.get(99));
+    }
+
+    /**
+     * Assert a cleared buffer can be reused.
+     */
+    public void test_clear() {
+	this.buffer.visit(5);
+	this.buffer.clear();
+	assertEquals(0, this.buffer.size());
+
+	this.buffer.visit(8);
+	assertEquals(8, this.buffer.get(0));
+	try {
+	    this.buffer.get(1);
+	    fail("should've thrown an exception!");
+	} catch (IndexOutOfBoundsException expected) {
+	    assertEquals("In method get of class IntRegionSearchBuffer the "
+		    + "index 1 is not within the buffer",
+		    expected.getMessage());
+	}
+    }
+}
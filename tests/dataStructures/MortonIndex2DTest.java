@@ -0,0 +1,201 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class MortonIndex2DTest extends junit.framework.TestCase {
+    private MortonIndex2D<Point, String> index;
+
+    public void setUp() {
+	this.index = new MortonIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0);
+    }
+
+    /**
+     * Assert the bits of the column come before the bits of the row.
+     */
+    public void test_interleave() {
+	assertEquals(0L, MortonIndex2D.interleave(0, 0));
+	assertEquals(1L, MortonIndex2D.interleave(0, 1));
+	assertEquals(2L, MortonIndex2D.interleave(1, 0));
+	assertEquals(15L, MortonIndex2D.interleave(3, 3));
+	assertEquals(0x2AL, MortonIndex2D.interleave(7, 0));
+    }
+
+    /**
+     * Assert records are kept in Morton order and can be found and removed.
+     */
+    public void test_insertFindAndRemove() {
+	this.index.insert(new Point(55.0, 90.0), "D");
+	this.index.insert(new Point(10.0, 45.0), "A");
+	this.index.insert(new Point(52.0, 65.0), "C");
+	this.index.insert(new Point(30.0, 70.0), "B");
+	this.index.insert(new Point(10.0, 45.0), "A2");
+	assertEquals(5, this.index.size());
+	assertEquals("A\nA2\nB\nC\nD", this.index.mortonOrderTraversal()
+		.trim());
+
+	assertEquals("C", this.index.find(new Point(52.0, 65.0), "C"));
+	assertNull(this.index.find(new Point(52.0, 65.0), "Z"));
+	assertNull(this.index.find(new Point(52.0, 65.1), "C"));
+	assertTrue(this.index.findKey(new Point(30.0, 70.0)));
+	assertFalse(this.index.findKey(new Point(30.0, 70.5)));
+
+	assertTrue(this.index.remove(new Point(10.0, 45.0), "A"));
+	assertFalse(this.index.remove(new Point(10.0, 45.0), "A"));
+	assertEquals("A2\nB\nC\nD", this.index.mortonOrderTraversal().trim());
+	assertEquals(4, this.index.size());
+
+	this.index.clear();
+	assertEquals(0, this.index.size());
+	assertFalse(this.index.findKey(new Point(30.0, 70.0)));
+    }
+
+    /**
+     * Assert a region search finds the same elements as a bin tree search.
+     */
+    public void test_regionSearch() {
+	BinTree2D<Point, String> binTree = new BinTree2D<Point, String>(0.0,
+		100.0, 0.0, 100.0);
+	Random random = new Random(10);
+	for (int i = 0; i < 5000; i++) {
+	    Point key = new Point(random.nextDouble() * 100.0,
+		    random.nextDouble() * 100.0);
+	    this.index.insert(key, "W" + i);
+	    binTree.insert(key, "W" + i);
+	}
+
+	double[][] circles = { { 50.0, 50.0, 16.0 }, { 0.0, 0.0, 7.0 },
+		{ 99.0, 20.0, 3.0 }, { 50.0, 50.0, 250.0 } };
+	for (int i = 0; i < circles.length; i++) {
+	    assertFoundSameElements(binTree, this.index, circles[i]);
+	}
+
+	// a search outside of the world visits nothing
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	assertEquals(0, this.index.regionSearch(300.0, 300.0, 1.0,
+		foundElements));
+	assertEquals(0, foundElements.size());
+    }
+
+    /**
+     * Assert a great circle region search reaches across the 0/360 seam.
+     */
+    public void test_regionSearchGreatCircle() {
+	MortonIndex2D<Point, String> sphereIndex =
+		new MortonIndex2D<Point, String>(0.0, 360.0, 0.0, 180.0, true);
+	BinTree2D<Point, String> sphereBinTree = new BinTree2D<Point, String>(
+		0.0, 360.0, 0.0, 180.0, 1, true);
+	Random random = new Random(11);
+	for (int i = 0; i < 5000; i++) {
+	    Point key = new Point(random.nextDouble() * 360.0,
+		    random.nextDouble() * 180.0);
+	    sphereIndex.insert(key, "W" + i);
+	    sphereBinTree.insert(key, "W" + i);
+	}
+	assertFoundSameElements(sphereBinTree, sphereIndex, new double[] {
+		359.0, 100.0, 10.0 });
+	assertFoundSameElements(sphereBinTree, sphereIndex, new double[] {
+		30.0, 175.0, 12.0 });
+
+	try {
+	    new MortonIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0, true);
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(true);
+	}
+    }
+
+    /**
+     * Assert a batch region search finds the same elements in the same order
+     * and visits the same number of nodes as searching one circle at a time.
+     */
+    public void test_regionSearchBatch() {
+	Random random = new Random(13);
+	for (int i = 0; i < 2000; i++) {
+	    this.index.insert(new Point(random.nextDouble() * 100.0, random
+		    .nextDouble() * 100.0), "W" + i);
+	}
+	double[] x = { 20.0, 80.0, 50.0 };
+	double[] y = { 20.0, 10.0, 50.0 };
+	double[] radius = { 5.0, 12.0, 2.0 };
+	final List<RegionSearchBuffer<String>> batchElements =
+		new ArrayList<RegionSearchBuffer<String>>();
+	for (int i = 0; i < x.length; i++) {
+	    batchElements.add(new RegionSearchBuffer<String>());
+	}
+	int[] numberOfNodesVisited = this.index.regionSearch(x, y, radius,
+		x.length, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			batchElements.get(queryIndex).visit(element);
+		    }
+		});
+
+	for (int i = 0; i < x.length; i++) {
+	    RegionSearchBuffer<String> foundElements =
+		    new RegionSearchBuffer<String>();
+	    assertEquals(this.index.regionSearch(x[i], y[i], radius[i],
+		    foundElements), numberOfNodesVisited[i]);
+	    assertTrue(foundElements.size() > 0);
+	    assertEquals(foundElements.size(), batchElements.get(i).size());
+	    for (int j = 0; j < foundElements.size(); j++) {
+		assertEquals(foundElements.get(j), batchElements.get(i).get(j));
+	    }
+	}
+    }
+
+    /**
+     * Assert a bulk load gives the same order as inserting one at a time.
+     */
+    public void test_bulkLoad() {
+	List<Point> keys = new ArrayList<Point>();
+	List<String> elements = new ArrayList<String>();
+	Random random = new Random(12);
+	for (int i = 0; i < 1000; i++) {
+	    Point key = new Point(random.nextInt(20) * 5.0,
+		    random.nextInt(20) * 5.0);
+	    keys.add(key);
+	    elements.add("W" + i);
+	    this.index.insert(key, "W" + i);
+	}
+	MortonIndex2D<Point, String> loadedIndex =
+		new MortonIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0);
+	loadedIndex.bulkLoad(keys, elements);
+	assertEquals(1000, loadedIndex.size());
+	assertEquals(this.index.mortonOrderTraversal(),
+		loadedIndex.mortonOrderTraversal());
+    }
+
+    private static void assertFoundSameElements(
+	    BinTree2D<Point, String> binTree,
+	    MortonIndex2D<Point, String> index, double[] circle) {
+	RegionSearchBuffer<String> binTreeElements =
+		new RegionSearchBuffer<String>();
+	RegionSearchBuffer<String> indexElements =
+		new RegionSearchBuffer<String>();
+	binTree.regionSearch(circle[0], circle[1], circle[2],
+		binTreeElements);
+	assertTrue(index.regionSearch(circle[0], circle[1], circle[2],
+		indexElements) >= indexElements.size());
+	assertTrue(binTreeElements.size() > 0);
+	assertEquals(sorted(binTreeElements), sorted(indexElements));
+    }
+
+    private static String sorted(RegionSearchBuffer<String> buffer) {
+	String[] elements = new String[buffer.size()];
+	for (int i = 0; i < elements.length; i++) {
+	    elements[i] = buffer.get(i);
+	}
+	Arrays.sort(elements);
+	return Arrays.toString(elements);
+    }
+}
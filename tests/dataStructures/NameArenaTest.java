@@ -0,0 +1,133 @@
+package dataStructures;
+/**
+ * This class tests all logic within class NameArena.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class NameArenaTest extends junit.framework.TestCase {
+    private NameArena nameArena;
+
+    public void setUp() {
+	this.nameArena = new NameArena(16);
+    }
+
+    /**
+     * Assert stored names are read back with their length and hash code.
+     */
+    public void test_add() {
+	int quinn = this.nameArena.add("Quinn");
+	int empty = this.nameArena.add("");
+	int accented = this.nameArena.add("Zo\u00eb");
+	assertEquals("Quinn", this.nameArena.getName(quinn));
+	assertEquals("", this.nameArena.getName(empty));
+	assertEquals("Zo\u00eb", this.nameArena.getName(accented));
+	assertEquals(5, this.nameArena.getLength(quinn));
+	// the last character takes 2 bytes in UTF-8
+	assertEquals(4, this.nameArena.getLength(accented));
+	assertEquals(9, this.nameArena.getNumberOfNameBytes());
+	// a name of ASCII characters hashes like its String
+	assertEquals("Quinn".hashCode(), this.nameArena.hashCode(quinn));
+
+	StringBuilder longName = new StringBuilder();
+	for (int i = 0; i < 300; i++) {
+	    longName.append((char) ('a' + i % 26));
+	}
+	int longRef = this.nameArena.add(longName.toString());
+	assertEquals(300, this.nameArena.getLength(longRef));
+	assertEquals(longName.toString(), this.nameArena.getName(longRef));
+    }
+
+    /**
+     * Assert an encoded name is compared and hashed against the stored
+     * names.
+     */
+    public void test_isEncodedName() {
+	int quinn = this.nameArena.add("Quinn");
+	int accented = this.nameArena.add("Zo\u00eb");
+
+	int length = this.nameArena.encode("Quinn");
+	assertTrue(this.nameArena.isEncodedName(quinn, length));
+	assertFalse(this.nameArena.isEncodedName(accented, length));
+	assertEquals(this.nameArena.hashCode(quinn),
+		this.nameArena.encodedHashCode(length));
+
+	length = this.nameArena.encode("Quin");
+	assertFalse(this.nameArena.isEncodedName(quinn, length));
+	length = this.nameArena.encode("Zo\u00eb");
+	assertTrue(this.nameArena.isEncodedName(accented, length));
+	assertEquals(this.nameArena.hashCode(accented),
+		this.nameArena.encodedHashCode(length));
+    }
+
+    /**
+     * Assert stored names are compared in the order of String.compareTo,
+     * also for characters beyond U+FFFF.
+     */
+    public void test_compareNames() {
+	String[] names = { "Quinn", "Quin", "Sam", "Zo\u00eb", "Zoe",
+		"\ud83c\udf0b", "\uff21", "\u00e9", "", "Byron" };
+	int[] refs = new int[names.length];
+	for (int i = 0; i < names.length; i++) {
+	    refs[i] = this.nameArena.add(names[i]);
+	}
+	for (int i = 0; i < names.length; i++) {
+	    for (int j = 0; j < names.length; j++) {
+		int expected = Integer.signum(names[i].compareTo(names[j]));
+		assertEquals(names[i] + " " + names[j], expected, Integer
+			.signum(this.nameArena.compareNames(refs[i], refs[j])));
+		int length = this.nameArena.encode(names[j]);
+		assertEquals(expected, Integer.signum(this.nameArena
+			.compareToEncodedName(refs[i], length)));
+	    }
+	}
+    }
+
+    /**
+     * Assert the bytes of a removed name are reused by the next name of the
+     * same length.
+     */
+    public void test_remove() {
+	int byron = this.nameArena.add("Byron");
+	int riley = this.nameArena.add("Riley");
+	this.nameArena.remove(byron);
+	this.nameArena.remove(riley);
+	assertEquals(12, this.nameArena.getNumberOfRemovedBytes());
+	assertEquals(riley, this.nameArena.add("Taylo"));
+	assertEquals(byron, this.nameArena.add("Morga"));
+	assertEquals("Taylo", this.nameArena.getName(riley));
+	assertEquals("Morga", this.nameArena.getName(byron));
+	assertEquals(0, this.nameArena.getNumberOfRemovedBytes());
+
+	this.nameArena.clear();
+	assertEquals(0, this.nameArena.getNumberOfNameBytes());
+	assertEquals(0, this.nameArena.add("Quinn"));
+    }
+
+    /**
+     * Assert names are packed into pages without spanning 2 of them.
+     */
+    public void test_addPage() {
+	int[] refs = new int[20000];
+	for (int i = 0; i < refs.length; i++) {
+	    refs[i] = this.nameArena.add("W" + i);
+	}
+	for (int i = 0; i < refs.length; i++) {
+	    assertEquals("W" + i, this.nameArena.getName(refs[i]));
+	}
+	// 128890 bytes of names and their lengths fill 2 pages of 65536
+	assertEquals(2 * 65536, this.nameArena.getNumberOfPageBytes());
+
+	StringBuilder tooLongName = new StringBuilder();
+	for (int i = 0; i <= NameArena.MAXIMUM_NAME_LENGTH; i++) {
+	    tooLongName.append('a');
+	}
+	try {
+	    this.nameArena.add(tooLongName.toString());
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In method encode of class NameArena a name can not "
+		    + "be longer than 32767 bytes", expected.getMessage());
+	}
+    }
+}
@@ -0,0 +1,68 @@
+package dataStructures;
+/**
+ * This class tests all logic within class NearestNeighborBuffer.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class NearestNeighborBufferTest extends junit.framework.TestCase {
+    private NearestNeighborBuffer<String> buffer;
+
+    public void setUp() {
+	this.buffer = new NearestNeighborBuffer<String>();
+    }
+
+    /**
+     * Assert only the k nearest candidates are kept and they are ordered from
+     * nearest to farthest, with candidates at the same distance in the order
+     * they were found.
+     */
+    public void test_offer() {
+	this.buffer.startSearch(3);
+	this.buffer.offer("D", 16.0);
+	this.buffer.offer("A", 1.0);
+	this.buffer.offer("E", 25.0);
+	assertTrue(this.buffer.isFull());
+	assertEquals(25.0, this.buffer.getFarthestDistanceSquared(), 0.0);
+	this.buffer.offer("B", 4.0);
+	this.buffer.offer("B2", 4.0);
+	this.buffer.offer("F", 36.0);
+	this.buffer.finishSearch();
+
+	assertEquals(3, this.buffer.size());
+	assertEquals("A", this.buffer.get(0));
+	assertEquals(1.0, this.buffer.getDistance(0), 0.0);
+	assertEquals("B", this.buffer.get(1));
+	assertEquals("B2", this.buffer.get(2));
+	assertEquals(2.0, this.buffer.getDistance(2), 0.0);
+    }
+
+    /**
+     * Assert the buffer grows for a larger k and can be reused.
+     */
+    public void test_startSearch() {
+	this.buffer.startSearch(100);
+	for (int i = 100; i > 0; i--) {
+	    this.buffer.offer("W" + i, i * i);
+	}
+	this.buffer.finishSearch();
+	assertEquals(100, this.buffer.size());
+	for (int i = 0; i < 100; i++) {
+	    assertEquals(i + 1.0, this.buffer.getDistance(i), 0.0);
+	}
+
+	this.buffer.startSearch(1);
+	assertEquals(0, this.buffer.size());
+	this.buffer.offer("A", 9.0);
+	this.buffer.finishSearch();
+	assertEquals("A", this.buffer.get(0));
+	try {
+	    this.buffer.get(1);
+	    fail("should've thrown an exception!");
+	} catch (IndexOutOfBoundsException expected) {
+	    assertEquals("In method get of class NearestNeighborBuffer the "
+		    + "index 1 is not within the buffer",
+		    expected.getMessage());
+	}
+    }
+}
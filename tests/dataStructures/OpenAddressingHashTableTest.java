@@ -0,0 +1,166 @@
+package dataStructures;
+/**
+ * This class tests all logic within class OpenAddressingHashTable.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class OpenAddressingHashTableTest extends junit.framework.TestCase {
+    private OpenAddressingHashTable<String, String> table;
+
+    /**
+     * A key whose hash code is chosen by the test, so keys can be made to
+     * collide.
+     */
+    private static class CollidingKey {
+	private final String name;
+	private final int hashCode;
+
+	CollidingKey(String name, int hashCode) {
+	    this.name = name;
+	    this.hashCode = hashCode;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+	    return object instanceof CollidingKey
+		    && ((CollidingKey) object).name.equals(this.name);
+	}
+
+	@Override
+	public int hashCode() {
+	    return this.hashCode;
+	}
+    }
+
+    public void setUp() {
+	this.table = new OpenAddressingHashTable<String, String>();
+	this.table.insert("Quinn", "q");
+	this.table.insert("Byron", "b");
+	this.table.insert("Sam", "s");
+    }
+
+    /**
+     * Assert inserted records are found by key.
+     */
+    public void test_find() {
+	assertEquals(3, this.table.size());
+	assertEquals("q", this.table.find("Quinn"));
+	assertEquals("b", this.table.find("Byron"));
+	assertEquals("s", this.table.find("Sam"));
+	assertNull(this.table.find("Riley"));
+    }
+
+    /**
+     * Assert putIfAbsent gives back the existing element of a key and
+     * inserts the record otherwise.
+     */
+    public void test_putIfAbsent() {
+	assertEquals("q", this.table.putIfAbsent("Quinn", "again"));
+	assertEquals(3, this.table.size());
+	assertNull(this.table.putIfAbsent("Riley", "r"));
+	assertEquals("r", this.table.find("Riley"));
+	assertEquals(4, this.table.size());
+    }
+
+    /**
+     * Assert remove gives back the removed element and leaves the other
+     * records to be found.
+     */
+    public void test_remove() {
+	assertEquals("b", this.table.remove("Byron"));
+	assertNull(this.table.remove("Byron"));
+	assertNull(this.table.find("Byron"));
+	assertEquals("q", this.table.find("Quinn"));
+	assertEquals(2, this.table.size());
+
+	this.table.clear();
+	assertEquals(0, this.table.size());
+	assertNull(this.table.find("Quinn"));
+    }
+
+    /**
+     * Assert records that collide are still found after records before them
+     * in their cluster are removed.
+     */
+    public void test_removeWithCollisions() {
+	OpenAddressingHashTable<CollidingKey, String> collidingTable =
+		new OpenAddressingHashTable<CollidingKey, String>();
+	CollidingKey[] keys = new CollidingKey[8];
+	for (int i = 0; i < keys.length; i++) {
+	    // two groups of keys, each group sharing a home slot
+	    keys[i] = new CollidingKey("K" + i, i % 2);
+	    assertNull(collidingTable.putIfAbsent(keys[i], "e" + i));
+	}
+	assertEquals("e0", collidingTable.remove(keys[0]));
+	assertEquals("e3", collidingTable.remove(keys[3]));
+	assertEquals("e4", collidingTable.remove(keys[4]));
+	for (int i = 0; i < keys.length; i++) {
+	    if (i == 0 || i == 3 || i == 4) {
+		assertNull(collidingTable.find(keys[i]));
+	    } else {
+		assertEquals("e" + i, collidingTable.find(keys[i]));
+	    }
+	}
+	assertEquals(5, collidingTable.size());
+    }
+
+    /**
+     * Assert the table grows as records are inserted and agrees with a
+     * java.util.HashMap through random inserts and removes.
+     */
+    public void test_churn() {
+	this.table.clear();
+	java.util.Map<String, String> expected =
+		new java.util.HashMap<String, String>();
+	java.util.Random random = new java.util.Random(23);
+	for (int i = 0; i < 20000; i++) {
+	    String key = "W" + random.nextInt(5000);
+	    if (random.nextInt(3) > 0) {
+		assertEquals(expected.get(key),
+			this.table.putIfAbsent(key, "e" + i));
+		if (!expected.containsKey(key)) {
+		    expected.put(key, "e" + i);
+		}
+	    } else {
+		assertEquals(expected.remove(key), this.table.remove(key));
+	    }
+	}
+	assertEquals(expected.size(), this.table.size());
+	assertTrue(this.table.size() <= this.table.getCapacity() * 3 / 4);
+	for (String key : expected.keySet()) {
+	    assertEquals(expected.get(key), this.table.find(key));
+	}
+
+	// removing random records empties the table
+	int numberOfRecords = this.table.size();
+	for (int i = 0; i < numberOfRecords; i++) {
+	    assertNotNull(this.table.removeRandomElement());
+	}
+	assertEquals(0, this.table.size());
+	assertNull(this.table.removeRandomElement());
+    }
+
+    /**
+     * Assert a table sized for the expected records does not grow while
+     * they are inserted.
+     */
+    public void test_expectedNumberOfRecords() {
+	OpenAddressingHashTable<String, String> sizedTable =
+		new OpenAddressingHashTable<String, String>(1000);
+	int capacity = sizedTable.getCapacity();
+	for (int i = 0; i < 1000; i++) {
+	    sizedTable.insert("W" + i, "e" + i);
+	}
+	assertEquals(capacity, sizedTable.getCapacity());
+	assertEquals(2048, capacity);
+
+	try {
+	    sizedTable.insert(null, "e");
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertEquals("In method hash of class OpenAddressingHashTable a "
+		    + "key can not be null", expected.getMessage());
+	}
+    }
+}
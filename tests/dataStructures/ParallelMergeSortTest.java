@@ -0,0 +1,58 @@
+package dataStructures;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class ParallelMergeSortTest extends junit.framework.TestCase {
+    /**
+     * Orders pairs by their first value only.
+     */
+    private final Comparator<int[]> firstValueComparator =
+	    new Comparator<int[]>() {
+	@Override
+	public int compare(int[] pair1, int[] pair2) {
+	    return Integer.compare(pair1[0], pair2[0]);
+	}
+    };
+
+    /**
+     * Assert a parallel sort gives the same stable order as Arrays.sort.
+     */
+    public void test_sort() {
+	int numberOfPairs = ParallelMergeSort.SEQUENTIAL_CUTOFF * 5 + 3;
+	int[][] pairs = new int[numberOfPairs][];
+	Random random = new Random(9);
+	for (int i = 0; i < numberOfPairs; i++) {
+	    // few distinct first values so equal pairs must keep their order
+	    pairs[i] = new int[] { random.nextInt(100), i };
+	}
+	int[][] expectedPairs = Arrays.copyOf(pairs, numberOfPairs);
+	Arrays.sort(expectedPairs, this.firstValueComparator);
+
+	ParallelMergeSort.sort(pairs, this.firstValueComparator,
+		new ForkJoinPool(4));
+	for (int i = 0; i < numberOfPairs; i++) {
+	    assertSame(expectedPairs[i], pairs[i]);
+	}
+    }
+
+    /**
+     * Assert a sort without a pool sorts on the calling thread.
+     */
+    public void test_sortWithoutPool() {
+	Integer[] numbers = { 3, 1, 2 };
+	ParallelMergeSort.sort(numbers, new Comparator<Integer>() {
+	    @Override
+	    public int compare(Integer number1, Integer number2) {
+		return number1.compareTo(number2);
+	    }
+	}, null);
+	assertEquals("[1, 2, 3]", Arrays.toString(numbers));
+    }
+}
@@ -0,0 +1,140 @@
+package dataStructures;
+/**
+ * This class tests all logic within class RegionQuery.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class RegionQueryTest extends junit.framework.TestCase {
+    private RegionQuery query;
+
+    public void setUp() {
+	this.query = new RegionQuery();
+    }
+
+    /**
+     * Assert a planar query has the bounding box of its circle.
+     */
+    public void test_setPlanar() {
+	this.query.setPlanar(50.0, 40.0, 10.0);
+	assertEquals(1, this.query.numberOfBoxes);
+	assertEquals(40.0, this.query.boxMinimumX[0], 0.0);
+	assertEquals(60.0, this.query.boxMaximumX[0], 0.0);
+	assertEquals(30.0, this.query.boxMinimumY[0], 0.0);
+	assertEquals(50.0, this.query.boxMaximumY[0], 0.0);
+	assertTrue(this.query.isOverlappingBox(0, 60.0, 0.0, 10.0, 30.0));
+	assertFalse(this.query.isOverlappingBox(0, 60.1, 0.0, 10.0, 30.0));
+    }
+
+    /**
+     * Assert exact pruning skips a cell in the corner of the bounding box
+     * that the circle does not reach.
+     */
+    public void test_isReachingCell() {
+	this.query.setPlanar(50.0, 40.0, 10.0);
+	// the nearest corner (58, 48) is about 11.3 from the center
+	assertTrue(this.query.isReachingCell(0, 58.0, 48.0, 5.0, 5.0));
+	this.query.isPruningExactly = true;
+	assertFalse(this.query.isReachingCell(0, 58.0, 48.0, 5.0, 5.0));
+	assertTrue(this.query.isReachingCell(0, 56.0, 46.0, 5.0, 5.0));
+	assertTrue(this.query.isReachingCell(0, 0.0, 0.0, 100.0, 100.0));
+	assertFalse(this.query.isReachingCell(0, 60.1, 0.0, 10.0, 100.0));
+
+	// great circle queries still prune by their boxes
+	this.query.setGreatCircle(50.0, 90.0, 10.0);
+	assertTrue(this.query.isReachingCell(0, 58.0, 98.0, 5.0, 5.0));
+    }
+
+    /**
+     * Assert a cell is only contained when its farthest corner is within the
+     * circle.
+     */
+    public void test_isContainingCell() {
+	this.query.setPlanar(50.0, 40.0, 10.0);
+	// the farthest corner (57, 47) is about 9.9 from the center
+	assertTrue(this.query.isContainingCell(43.0, 33.0, 14.0, 14.0));
+	assertFalse(this.query.isContainingCell(43.0, 33.0, 15.0, 14.0));
+	assertFalse(this.query.isContainingCell(50.0, 40.0, 10.0, 0.0));
+	assertTrue(this.query.isContainingCell(50.0, 40.0, 9.9, 0.0));
+    }
+
+    /**
+     * Assert only a contained cell away from the edge of the world is
+     * accepted whole, and only when the query accepts cells.
+     */
+    public void test_isAcceptingCell() {
+	this.query.setPlanar(50.0, 40.0, 10.0);
+	assertFalse(this.query.isAcceptingCell(45.0, 35.0, 10.0, 10.0));
+	this.query.setAcceptingContainedCells(true, 0.0, 100.0, 0.0, 100.0);
+	assertTrue(this.query.isAcceptingCell(45.0, 35.0, 10.0, 10.0));
+	assertFalse(this.query.isAcceptingCell(43.0, 33.0, 15.0, 14.0));
+
+	// a leaf node on the edge keeps the keys outside of the world
+	this.query.setAcceptingContainedCells(true, 45.0, 100.0, 0.0, 100.0);
+	assertFalse(this.query.isAcceptingCell(45.0, 35.0, 10.0, 10.0));
+    }
+
+    /**
+     * Assert the distance to a cell is measured to its nearest point.
+     */
+    public void test_getDistanceSquaredToCell() {
+	assertEquals(0.0, RegionQuery.getDistanceSquaredToCell(5.0, 5.0, 0.0,
+		0.0, 10.0, 10.0), 0.0);
+	assertEquals(9.0, RegionQuery.getDistanceSquaredToCell(5.0, 13.0,
+		0.0, 0.0, 10.0, 10.0), 0.0);
+	assertEquals(25.0, RegionQuery.getDistanceSquaredToCell(-3.0, 14.0,
+		0.0, 0.0, 10.0, 10.0), 0.0);
+    }
+
+    /**
+     * Assert a great circle query is split into 2 boxes at the seam.
+     */
+    public void test_setGreatCircleAcrossSeam() {
+	// on the equator the longitude half width equals the radius
+	this.query.setGreatCircle(2.0, 90.0, 5.0);
+	assertEquals(2, this.query.numberOfBoxes);
+	assertEquals(0.0, this.query.boxMinimumX[0], 0.0);
+	assertEquals(7.0, this.query.boxMaximumX[0], 1e-9);
+	assertEquals(357.0, this.query.boxMinimumX[1], 1e-9);
+	assertEquals(360.0, this.query.boxMaximumX[1], 0.0);
+	assertEquals(85.0, this.query.boxMinimumY[1], 0.0);
+	assertEquals(95.0, this.query.boxMaximumY[1], 0.0);
+
+	this.query.setGreatCircle(358.0, 90.0, 5.0);
+	assertEquals(2, this.query.numberOfBoxes);
+	assertEquals(353.0, this.query.boxMinimumX[0], 1e-9);
+	assertEquals(3.0, this.query.boxMaximumX[1], 1e-9);
+    }
+
+    /**
+     * Assert a great circle query widens towards the poles and covers every
+     * longitude once it contains a pole.
+     */
+    public void test_setGreatCircleNearPole() {
+	// at latitude 60 a radius of 5 reaches about 10 degrees of longitude
+	this.query.setGreatCircle(100.0, 150.0, 5.0);
+	assertEquals(1, this.query.numberOfBoxes);
+	assertEquals(10.04, this.query.boxMaximumX[0] - 100.0, 0.01);
+
+	this.query.setGreatCircle(100.0, 170.0, 15.0);
+	assertEquals(1, this.query.numberOfBoxes);
+	assertEquals(0.0, this.query.boxMinimumX[0], 0.0);
+	assertEquals(360.0, this.query.boxMaximumX[0], 0.0);
+	assertEquals(155.0, this.query.boxMinimumY[0], 0.0);
+	assertEquals(180.0, this.query.boxMaximumY[0], 0.0);
+    }
+
+    /**
+     * Assert unit vectors are stored for longitude x and latitude y - 90.
+     */
+    public void test_storeUnitVector() {
+	double[] unitVector = new double[4];
+	RegionQuery.storeUnitVector(90.0, 90.0, unitVector, 1);
+	assertEquals(0.0, unitVector[1], 1e-12);
+	assertEquals(1.0, unitVector[2], 1e-12);
+	assertEquals(0.0, unitVector[3], 1e-12);
+
+	RegionQuery.storeUnitVector(0.0, 180.0, unitVector, 0);
+	assertEquals(1.0, unitVector[2], 1e-12);
+    }
+}
@@ -0,0 +1,45 @@
+package dataStructures;
+/**
+ * This class tests all logic within class RegionSearchBuffer.
+ *
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class RegionSearchBufferTest extends junit.framework.TestCase {
+    private RegionSearchBuffer<String> buffer;
+
+    public void setUp() {
+	this.buffer = new RegionSearchBuffer<String>();
+    }
+
+    /**
+     * Assert visited elements are kept in order and the buffer grows.
+     */
+    public void test_visit() {
+	for (int i = 0; i < 100; i++) {
+	    this.buffer.visit("W" + i);
+	}
+	assertEquals(100, this.buffer.size());
+	assertEquals("W0", this.buffer.get(0));
+	assertEquals("W99", this.buffer.get(99));
+    }
+
+    /**
+     * Assert a cleared buffer can be reused.
+     */
+    public void test_clear() {
+	this.buffer.visit("A");
+	this.buffer.clear();
+	assertEquals(0, this.buffer.size());
+
+	this.buffer.visit("B");
+	assertEquals("B", this.buffer.get(0));
+	try {
+	    this.buffer.get(1);
+	    fail("should've thrown an exception!");
+	} catch (IndexOutOfBoundsException expected) {
+	    assertEquals("In method get of class RegionSearchBuffer the index "
+		    + "1 is not within the buffer", expected.getMessage());
+	}
+    }
+}
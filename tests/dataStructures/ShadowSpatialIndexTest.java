@@ -0,0 +1,158 @@
+package dataStructures;
+
+import customDataStructures.Point;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * @author Quinn Liu (quinnliu@vt.edu)
+ * @version Oct 17, 2013
+ */
+public class ShadowSpatialIndexTest extends junit.framework.TestCase {
+    private BinTree2D<Point, String> binTree;
+    private GridIndex2D<Point, String> grid;
+    private ShadowSpatialIndex<Point, String> shadowModeIndex;
+
+    private final ByteArrayOutputStream reportContent =
+	    new ByteArrayOutputStream();
+
+    public void setUp() {
+	this.binTree = new BinTree2D<Point, String>(0.0, 100.0, 0.0, 100.0);
+	this.grid = new GridIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0,
+		10.0);
+	this.shadowModeIndex = new ShadowSpatialIndex<Point, String>(
+		this.binTree, this.grid, new PrintStream(this.reportContent));
+    }
+
+    /**
+     * Assert changes reach both indexes and only the primary's results are
+     * given back.
+     */
+    public void test_insertAndRemove() {
+	this.shadowModeIndex.insert(new Point(10.0, 45.0), "A");
+	this.shadowModeIndex.insert(new Point(30.0, 70.0), "B");
+	assertEquals(2, this.binTree.size());
+	assertEquals(2, this.grid.size());
+	assertTrue(this.shadowModeIndex.findKey(new Point(30.0, 70.0)));
+	assertEquals("A",
+		this.shadowModeIndex.find(new Point(10.0, 45.0), "A"));
+	assertEquals(this.binTree.debugTraversal(),
+		this.shadowModeIndex.debugTraversal());
+
+	assertTrue(this.shadowModeIndex.remove(new Point(10.0, 45.0), "A"));
+	assertFalse(this.shadowModeIndex.remove(new Point(10.0, 45.0), "A"));
+	assertEquals(1, this.shadowModeIndex.size());
+	assertEquals(1, this.grid.size());
+	assertEquals(0, this.shadowModeIndex.getNumberOfMismatches());
+	assertEquals("", this.reportContent.toString());
+    }
+
+    /**
+     * Assert a region search gives the caller the primary's elements and
+     * visit count and reports the cost of both indexes.
+     */
+    public void test_regionSearch() {
+	Random random = new Random(30);
+	for (int i = 0; i < 1000; i++) {
+	    this.shadowModeIndex.insert(new Point(random.nextDouble() * 100.0,
+		    random.nextDouble() * 100.0), "W" + i);
+	}
+	RegionSearchBuffer<String> binTreeElements =
+		new RegionSearchBuffer<String>();
+	int numberOfNodesVisited = this.binTree.regionSearch(40.0, 60.0, 8.0,
+		binTreeElements);
+
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	assertEquals(numberOfNodesVisited, this.shadowModeIndex.regionSearch(
+		40.0, 60.0, 8.0, foundElements));
+	assertEquals(binTreeElements.size(), foundElements.size());
+	for (int i = 0; i < foundElements.size(); i++) {
+	    assertEquals(binTreeElements.get(i), foundElements.get(i));
+	}
+
+	String report = this.reportContent.toString();
+	assertTrue(report, report.startsWith("search (40.0, 60.0) radius 8.0: "
+		+ "primary "));
+	assertTrue(report, report.contains(" nodes " + foundElements.size()
+		+ " matches, shadow "));
+	assertFalse(report, report.contains("MISMATCH"));
+	assertEquals(0, this.shadowModeIndex.getNumberOfMismatches());
+
+	this.reportContent.reset();
+	double[] x = { 20.0, 80.0 };
+	double[] y = { 20.0, 10.0 };
+	double[] radius = { 5.0, 12.0 };
+	final int[] numberOfBatchElements = new int[1];
+	int[] batchNodesVisited = this.shadowModeIndex.regionSearch(x, y,
+		radius, 2, new BatchRegionSearchVisitor<String>() {
+		    @Override
+		    public void visit(int queryIndex, String element) {
+			numberOfBatchElements[0]++;
+		    }
+		});
+	assertEquals(this.binTree.regionSearch(80.0, 10.0, 12.0,
+		new RegionSearchBuffer<String>()), batchNodesVisited[1]);
+	assertTrue(numberOfBatchElements[0] > 0);
+	// every circle of a batch is timed on each index
+	String[] lines = this.reportContent.toString().trim().split("\n");
+	assertEquals(2, lines.length);
+	assertTrue(lines[1], lines[1].matches("search \\(80.0, 10.0\\) "
+		+ "radius 12.0: primary \\d+ ns \\d+ nodes \\d+ matches, "
+		+ "shadow \\d+ ns \\d+ nodes \\d+ matches"));
+	assertEquals(0, this.shadowModeIndex.getNumberOfMismatches());
+    }
+
+    /**
+     * Assert a search circle holding every record is compared without a
+     * mismatch and elements are told apart by identity rather than equals.
+     */
+    public void test_regionSearchWithManyMatches() {
+	for (int i = 0; i < 20000; i++) {
+	    this.shadowModeIndex.insert(new Point(i % 100 + 0.5,
+		    i / 200 + 0.5), "W" + (i % 10));
+	}
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	this.shadowModeIndex.regionSearch(50.0, 50.0, 80.0, foundElements);
+	assertEquals(20000, foundElements.size());
+	assertEquals(0, this.shadowModeIndex.getNumberOfMismatches());
+
+	this.reportContent.reset();
+	this.binTree.insert(new Point(1.0, 1.0), "A");
+	this.grid.insert(new Point(1.0, 1.0), new String("A"));
+	this.shadowModeIndex.regionSearch(1.0, 1.0, 0.1, foundElements);
+	assertTrue(this.reportContent.toString().trim().endsWith(
+		"missing [A] extra [A] MISMATCH"));
+    }
+
+    /**
+     * Assert elements found by only one of the indexes are reported.
+     */
+    public void test_regionSearchMismatch() {
+	this.binTree.insert(new Point(50.0, 50.0), "A");
+	this.grid.insert(new Point(51.0, 50.0), "B");
+
+	RegionSearchBuffer<String> foundElements =
+		new RegionSearchBuffer<String>();
+	this.shadowModeIndex.regionSearch(50.0, 50.0, 5.0, foundElements);
+	assertEquals(1, foundElements.size());
+	assertEquals("A", foundElements.get(0));
+	assertTrue(this.reportContent.toString().trim().endsWith(
+		"missing [A] extra [B] MISMATCH"));
+
+	assertTrue(this.shadowModeIndex.findKey(new Point(50.0, 50.0)));
+	assertEquals(2, this.shadowModeIndex.getNumberOfMismatches());
+
+	try {
+	    new ShadowSpatialIndex<Point, String>(this.binTree,
+		    new GridIndex2D<Point, String>(0.0, 100.0, 0.0, 100.0,
+			    10.0), new PrintStream(this.reportContent));
+	    fail("should have thrown an exception");
+	} catch (IllegalArgumentException expected) {
+	    assertTrue(true);
+	}
+    }
+}